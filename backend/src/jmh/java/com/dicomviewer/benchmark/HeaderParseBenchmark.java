@@ -0,0 +1,50 @@
+package com.dicomviewer.benchmark;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.io.DicomInputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing the header of a stored DICOM file.
+ * Compares a full dataset read with a read that stops at Pixel Data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HeaderParseBenchmark {
+
+    @Param({"512", "1024"})
+    private int size;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("bench-header", ".dcm").toFile();
+        SyntheticDicom.writeCtImage(file, size, size);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public Attributes fullDataset() throws IOException {
+        try (DicomInputStream dis = new DicomInputStream(file)) {
+            return dis.readDataset();
+        }
+    }
+
+    @Benchmark
+    public Attributes untilPixelData() throws IOException {
+        try (DicomInputStream dis = new DicomInputStream(file)) {
+            return dis.readDatasetUntilPixelData();
+        }
+    }
+}
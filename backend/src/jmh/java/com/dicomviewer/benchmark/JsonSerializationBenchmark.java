@@ -0,0 +1,77 @@
+package com.dicomviewer.benchmark;
+
+import com.dicomviewer.model.entity.Annotation;
+import com.dicomviewer.model.entity.Measurement;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON serialization of annotation and measurement lists with the Jackson 3
+ * {@link JsonMapper} Spring Boot 4 uses for HTTP responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "500"})
+    private int count;
+
+    private JsonMapper jsonMapper;
+    private List<Annotation> annotations;
+    private List<Measurement> measurements;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        annotations = new ArrayList<>(count);
+        measurements = new ArrayList<>(count);
+        Instant now = Instant.now();
+
+        for (int i = 0; i < count; i++) {
+            Annotation annotation = new Annotation();
+            annotation.setId(UUID.randomUUID());
+            annotation.setStudyInstanceUid("1.2.826.0.1.3680043.2.1125.1");
+            annotation.setSeriesInstanceUid("1.2.826.0.1.3680043.2.1125.1.1");
+            annotation.setSopInstanceUid("1.2.826.0.1.3680043.2.1125.1.1." + i);
+            annotation.setAnnotationType(Annotation.AnnotationType.ARROW);
+            annotation.setToolName("ArrowAnnotate");
+            annotation.setText("Finding " + i);
+            annotation.setPointsJson("[{\"x\":120.5,\"y\":88.25},{\"x\":160.0,\"y\":132.75}]");
+            annotation.setColor("#ffcc00");
+            annotation.setCreatedBy("radiologist");
+            annotation.setCreatedAt(now);
+            annotations.add(annotation);
+
+            Measurement measurement = new Measurement();
+            measurement.setId(UUID.randomUUID());
+            measurement.setStudyInstanceUid("1.2.826.0.1.3680043.2.1125.1");
+            measurement.setSeriesInstanceUid("1.2.826.0.1.3680043.2.1125.1.1");
+            measurement.setSopInstanceUid("1.2.826.0.1.3680043.2.1125.1.1." + i);
+            measurement.setMeasurementType(Measurement.MeasurementType.LENGTH);
+            measurement.setToolName("Length");
+            measurement.setValue(42.7 + i);
+            measurement.setUnit("mm");
+            measurement.setPointsJson("[{\"x\":10.0,\"y\":20.0},{\"x\":52.7,\"y\":20.0}]");
+            measurement.setCreatedBy("radiologist");
+            measurement.setCreatedAt(now);
+            measurements.add(measurement);
+        }
+    }
+
+    @Benchmark
+    public byte[] annotations() {
+        return jsonMapper.writeValueAsBytes(annotations);
+    }
+
+    @Benchmark
+    public byte[] measurements() {
+        return jsonMapper.writeValueAsBytes(measurements);
+    }
+}
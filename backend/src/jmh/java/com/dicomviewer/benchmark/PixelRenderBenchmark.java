@@ -0,0 +1,61 @@
+package com.dicomviewer.benchmark;
+
+import org.dcm4che3.imageio.plugins.dcm.DicomImageReadParam;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks pixel decoding and windowed rendering through the dcm4che ImageIO reader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PixelRenderBenchmark {
+
+    @Param({"512"})
+    private int size;
+
+    private File file;
+    private ImageReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("bench-render", ".dcm").toFile();
+        SyntheticDicom.writeCtImage(file, size, size);
+        reader = ImageIO.getImageReadersByFormatName("DICOM").next();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.dispose();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public Raster decodeRaster() throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file)) {
+            reader.setInput(iis);
+            return reader.readRaster(0, null);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage renderWindowed() throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file)) {
+            reader.setInput(iis);
+            DicomImageReadParam param = (DicomImageReadParam) reader.getDefaultReadParam();
+            param.setWindowCenter(40f);
+            param.setWindowWidth(400f);
+            return reader.read(0, param);
+        }
+    }
+}
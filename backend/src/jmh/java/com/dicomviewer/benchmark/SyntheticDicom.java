@@ -0,0 +1,71 @@
+package com.dicomviewer.benchmark;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes synthetic single-frame CT instances for benchmarks.
+ */
+public final class SyntheticDicom {
+
+    private SyntheticDicom() {
+    }
+
+    /**
+     * Write an uncompressed 16-bit MONOCHROME2 CT image with a gradient pixel pattern.
+     */
+    public static File writeCtImage(File file, int rows, int columns) throws IOException {
+        String sopInstanceUid = "1.2.826.0.1.3680043.2.1125.1.1." + rows + "." + columns;
+        Attributes fmi = Attributes.createFileMetaInformation(
+            sopInstanceUid, UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
+        dataset.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.1");
+        dataset.setString(Tag.SeriesInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.1.1");
+        dataset.setString(Tag.PatientID, VR.LO, "BENCH001");
+        dataset.setString(Tag.PatientName, VR.PN, "BENCH^MARK");
+        dataset.setString(Tag.StudyDate, VR.DA, "20240115");
+        dataset.setString(Tag.Modality, VR.CS, "CT");
+        dataset.setInt(Tag.InstanceNumber, VR.IS, 1);
+        dataset.setDouble(Tag.ImagePositionPatient, VR.DS, -250.0, -250.0, -100.0);
+        dataset.setDouble(Tag.ImageOrientationPatient, VR.DS, 1, 0, 0, 0, 1, 0);
+        dataset.setDouble(Tag.PixelSpacing, VR.DS, 0.7, 0.7);
+        dataset.setDouble(Tag.SliceThickness, VR.DS, 1.0);
+        dataset.setDouble(Tag.RescaleSlope, VR.DS, 1.0);
+        dataset.setDouble(Tag.RescaleIntercept, VR.DS, -1024.0);
+        dataset.setDouble(Tag.WindowCenter, VR.DS, 40.0);
+        dataset.setDouble(Tag.WindowWidth, VR.DS, 400.0);
+        dataset.setInt(Tag.SamplesPerPixel, VR.US, 1);
+        dataset.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2");
+        dataset.setInt(Tag.Rows, VR.US, rows);
+        dataset.setInt(Tag.Columns, VR.US, columns);
+        dataset.setInt(Tag.BitsAllocated, VR.US, 16);
+        dataset.setInt(Tag.BitsStored, VR.US, 12);
+        dataset.setInt(Tag.HighBit, VR.US, 11);
+        dataset.setInt(Tag.PixelRepresentation, VR.US, 0);
+
+        byte[] pixels = new byte[rows * columns * 2];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                int value = ((x + y) * 4095) / (rows + columns);
+                int offset = (y * columns + x) * 2;
+                pixels[offset] = (byte) value;
+                pixels[offset + 1] = (byte) (value >> 8);
+            }
+        }
+        dataset.setBytes(Tag.PixelData, VR.OW, pixels);
+
+        try (DicomOutputStream dos = new DicomOutputStream(file)) {
+            dos.writeDataset(fmi, dataset);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,41 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.Attributes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks construction of C-FIND identifier keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QueryKeysBenchmark {
+
+    private CFindService.StudyQuery query;
+
+    @Setup
+    public void setUp() {
+        query = new CFindService.StudyQuery();
+        query.setPatientName("DOE*");
+        query.setStudyDate("20240101-20241231");
+        query.setModality("CT");
+    }
+
+    @Benchmark
+    public Attributes studyKeys() {
+        return CFindService.buildStudyQueryKeys(query);
+    }
+
+    @Benchmark
+    public Attributes seriesKeys() {
+        return CFindService.buildSeriesQueryKeys("1.2.826.0.1.3680043.2.1125.1");
+    }
+
+    @Benchmark
+    public Attributes instanceKeys() {
+        return CFindService.buildInstanceQueryKeys(
+            "1.2.826.0.1.3680043.2.1125.1", "1.2.826.0.1.3680043.2.1125.1.1");
+    }
+}
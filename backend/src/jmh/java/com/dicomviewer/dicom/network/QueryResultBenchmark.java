@@ -0,0 +1,115 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks conversion of C-FIND results into JSON-ready rows.
+ * The {@code generic*} methods reproduce the former per-row HashMap path as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QueryResultBenchmark {
+
+    @Param({"50", "1000"})
+    private int rows;
+
+    private List<Attributes> studyResults;
+    private List<Attributes> instanceResults;
+
+    @Setup
+    public void setUp() {
+        studyResults = new ArrayList<>(rows);
+        instanceResults = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Attributes study = new Attributes();
+            study.setString(Tag.QueryRetrieveLevel, VR.CS, "STUDY");
+            study.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125." + i);
+            study.setString(Tag.PatientID, VR.LO, "PAT" + i);
+            study.setString(Tag.PatientName, VR.PN, "DOE^JOHN^" + i);
+            study.setString(Tag.PatientBirthDate, VR.DA, "19700101");
+            study.setString(Tag.PatientSex, VR.CS, "M");
+            study.setString(Tag.StudyDate, VR.DA, "20240115");
+            study.setString(Tag.StudyTime, VR.TM, "101500");
+            study.setString(Tag.StudyDescription, VR.LO, "CT CHEST W CONTRAST");
+            study.setString(Tag.AccessionNumber, VR.SH, "ACC" + i);
+            study.setString(Tag.ModalitiesInStudy, VR.CS, "CT", "SR");
+            study.setString(Tag.NumberOfStudyRelatedSeries, VR.IS, "4");
+            study.setString(Tag.NumberOfStudyRelatedInstances, VR.IS, "812");
+            studyResults.add(study);
+
+            Attributes instance = new Attributes();
+            instance.setString(Tag.QueryRetrieveLevel, VR.CS, "IMAGE");
+            instance.setString(Tag.StudyInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.1");
+            instance.setString(Tag.SeriesInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.1.1");
+            instance.setString(Tag.SOPInstanceUID, VR.UI, "1.2.826.0.1.3680043.2.1125.1.1." + i);
+            instance.setString(Tag.SOPClassUID, VR.UI, "1.2.840.10008.5.1.4.1.1.2");
+            instance.setString(Tag.InstanceNumber, VR.IS, String.valueOf(i + 1));
+            instanceResults.add(instance);
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> schemaStudyRows() {
+        return QueryResultSchema.STUDY.toRows(studyResults);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> genericStudyRows() {
+        return genericRows(studyResults);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> schemaInstanceRows() {
+        return QueryResultSchema.IMAGE.toRows(instanceResults);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> genericInstanceRows() {
+        return genericRows(instanceResults);
+    }
+
+    private static List<Map<String, Object>> genericRows(List<Attributes> attributesList) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Attributes attrs : attributesList) {
+            Map<String, Object> map = new HashMap<>();
+            putIfPresent(map, "PatientID", attrs.getString(Tag.PatientID));
+            putIfPresent(map, "PatientName", attrs.getString(Tag.PatientName));
+            putIfPresent(map, "PatientBirthDate", attrs.getString(Tag.PatientBirthDate));
+            putIfPresent(map, "PatientSex", attrs.getString(Tag.PatientSex));
+            putIfPresent(map, "StudyInstanceUID", attrs.getString(Tag.StudyInstanceUID));
+            putIfPresent(map, "StudyDate", attrs.getString(Tag.StudyDate));
+            putIfPresent(map, "StudyTime", attrs.getString(Tag.StudyTime));
+            putIfPresent(map, "StudyDescription", attrs.getString(Tag.StudyDescription));
+            putIfPresent(map, "AccessionNumber", attrs.getString(Tag.AccessionNumber));
+            putIfPresent(map, "ModalitiesInStudy", attrs.getString(Tag.ModalitiesInStudy));
+            putIfPresent(map, "NumberOfStudyRelatedSeries", attrs.getString(Tag.NumberOfStudyRelatedSeries));
+            putIfPresent(map, "NumberOfStudyRelatedInstances", attrs.getString(Tag.NumberOfStudyRelatedInstances));
+            putIfPresent(map, "SeriesInstanceUID", attrs.getString(Tag.SeriesInstanceUID));
+            putIfPresent(map, "SeriesNumber", attrs.getString(Tag.SeriesNumber));
+            putIfPresent(map, "SeriesDescription", attrs.getString(Tag.SeriesDescription));
+            putIfPresent(map, "Modality", attrs.getString(Tag.Modality));
+            putIfPresent(map, "NumberOfSeriesRelatedInstances", attrs.getString(Tag.NumberOfSeriesRelatedInstances));
+            putIfPresent(map, "SOPInstanceUID", attrs.getString(Tag.SOPInstanceUID));
+            putIfPresent(map, "SOPClassUID", attrs.getString(Tag.SOPClassUID));
+            putIfPresent(map, "InstanceNumber", attrs.getString(Tag.InstanceNumber));
+            results.add(map);
+        }
+        return results;
+    }
+
+    private static void putIfPresent(Map<String, Object> map, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            map.put(key, value);
+        }
+    }
+}
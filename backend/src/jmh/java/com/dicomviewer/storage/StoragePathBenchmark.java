@@ -0,0 +1,48 @@
+package com.dicomviewer.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks storage path calculation for each configured layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StoragePathBenchmark {
+
+    @Param({"flat", "hierarchical", "sharded"})
+    private String structure;
+
+    private StorageLayout layout;
+    private String[] sopInstanceUids;
+
+    @Setup
+    public void setUp() {
+        layout = new StorageLayout("/var/dicom/storage", structure, false);
+
+        sopInstanceUids = new String[1024];
+        for (int i = 0; i < sopInstanceUids.length; i++) {
+            sopInstanceUids[i] = "1.2.826.0.1.3680043.2.1125.1.1." + i;
+        }
+    }
+
+    /**
+     * Per-thread cursor into the UIDs, so concurrent benchmark threads do not share a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int counter;
+    }
+
+    @Benchmark
+    public Path calculateStoragePath(Cursor cursor) {
+        String sopInstanceUid = sopInstanceUids[cursor.counter++ & (sopInstanceUids.length - 1)];
+        return layout.pathFor(
+            "1.2.826.0.1.3680043.2.1125.1",
+            "1.2.826.0.1.3680043.2.1125.1.1",
+            sopInstanceUid);
+    }
+}
@@ -1,12 +1,18 @@
 package com.dicomviewer.config;
 
+import com.dicomviewer.dicom.network.CStoreSCP;
+import com.dicomviewer.dicom.network.StorageSopClasses;
+import com.dicomviewer.dicom.network.TransferSyntaxPolicy;
 import jakarta.annotation.PreDestroy;
 import org.dcm4che3.net.ApplicationEntity;
 import org.dcm4che3.net.Connection;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.net.TransferCapability;
+import org.dcm4che3.net.service.BasicCEchoSCP;
+import org.dcm4che3.net.service.DicomServiceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,23 +42,28 @@ public class DicomConfig {
     private boolean aeEnabled;
 
     private Device device;
-    private ExecutorService executor;
     private ScheduledExecutorService scheduledExecutor;
 
     /**
      * Creates the DICOM device for this application.
      * Only starts if dicom.ae.enabled=true
+     *
+     * @param executor  Executor for association handling, see {@link ExecutorConfig}
+     * @param cStoreSCP Handler for incoming C-STORE, including C-GET sub-operations
+     * @param transferSyntaxes Transfer syntaxes accepted for received instances
      */
     @Bean
-    public Device dicomDevice() throws IOException, GeneralSecurityException {
+    public Device dicomDevice(@Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService executor,
+                              CStoreSCP cStoreSCP, TransferSyntaxPolicy transferSyntaxes)
+            throws IOException, GeneralSecurityException {
         if (!aeEnabled) {
             log.info("Local DICOM AE is disabled - skipping device initialization");
             // Create minimal device without binding connections
             device = new Device("dicom-viewer");
-            executor = Executors.newCachedThreadPool();
             scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
             device.setExecutor(executor);
             device.setScheduledExecutor(scheduledExecutor);
+            device.setDimseRQHandler(createServiceRegistry(cStoreSCP));
 
             // Create connection but don't bind
             Connection conn = new Connection();
@@ -65,19 +76,19 @@ public class DicomConfig {
             ae.setAssociationAcceptor(false);
             ae.setAssociationInitiator(true);
             ae.addConnection(conn);
-            addTransferCapabilities(ae);
+            addTransferCapabilities(ae, transferSyntaxes);
             device.addApplicationEntity(ae);
 
             return device;
         }
         device = new Device("dicom-viewer");
 
-        // Initialize executor services
-        executor = Executors.newCachedThreadPool();
+        // Association handling runs on the shared I/O executor; timers on a single thread
         scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
 
         device.setExecutor(executor);
         device.setScheduledExecutor(scheduledExecutor);
+        device.setDimseRQHandler(createServiceRegistry(cStoreSCP));
 
         // Create connection for incoming associations
         Connection conn = new Connection();
@@ -92,12 +103,10 @@ public class DicomConfig {
         ae.addConnection(conn);
 
         // Add transfer capabilities
-        addTransferCapabilities(ae);
+        addTransferCapabilities(ae, transferSyntaxes);
 
         device.addApplicationEntity(ae);
 
-        // Note: Service registry setup removed as BasicCEchoSCP and DicomServiceRegistry
-        // are not available in dcm4che 5.x. Custom DIMSE handlers can be added as needed.
 
         // Bind connections
         try {
@@ -119,10 +128,22 @@ public class DicomConfig {
         return device.getApplicationEntity(aeTitle);
     }
 
+    /**
+     * DIMSE services offered by the local AE: C-ECHO, and C-STORE for received instances.
+     * C-STORE also handles sub-operations arriving on our own C-GET associations, which is
+     * why the registry is installed even when the AE does not accept associations.
+     */
+    private DicomServiceRegistry createServiceRegistry(CStoreSCP cStoreSCP) {
+        DicomServiceRegistry serviceRegistry = new DicomServiceRegistry();
+        serviceRegistry.addDicomService(new BasicCEchoSCP());
+        serviceRegistry.addDicomService(cStoreSCP);
+        return serviceRegistry;
+    }
+
     /**
      * Add transfer capabilities for various SOP classes.
      */
-    private void addTransferCapabilities(ApplicationEntity ae) {
+    private void addTransferCapabilities(ApplicationEntity ae, TransferSyntaxPolicy transferSyntaxes) {
         // Verification SOP Class (C-ECHO)
         String[] TRANSFER_SYNTAXES = {
             "1.2.840.10008.1.2",      // Implicit VR Little Endian
@@ -144,7 +165,7 @@ public class DicomConfig {
         ae.addTransferCapability(new TransferCapability(null,
             "1.2.840.10008.5.1.4.1.2.2.1", // Study Root Query/Retrieve - FIND
             TransferCapability.Role.SCU,
-            TRANSFER_SYNTAXES));
+            transferSyntaxes.query()));
 
         ae.addTransferCapability(new TransferCapability(null,
             "1.2.840.10008.5.1.4.1.2.2.2", // Study Root Query/Retrieve - MOVE
@@ -155,40 +176,27 @@ public class DicomConfig {
         ae.addTransferCapability(new TransferCapability(null,
             "1.2.840.10008.5.1.4.1.2.1.1", // Patient Root Query/Retrieve - FIND
             TransferCapability.Role.SCU,
-            TRANSFER_SYNTAXES));
+            transferSyntaxes.query()));
 
         ae.addTransferCapability(new TransferCapability(null,
             "1.2.840.10008.5.1.4.1.2.1.2", // Patient Root Query/Retrieve - MOVE
             TransferCapability.Role.SCU,
             TRANSFER_SYNTAXES));
 
-        // Storage SOP Classes (C-STORE SCP for receiving images)
-        String[] STORAGE_SOP_CLASSES = {
-            "1.2.840.10008.5.1.4.1.1.2",     // CT Image Storage
-            "1.2.840.10008.5.1.4.1.1.4",     // MR Image Storage
-            "1.2.840.10008.5.1.4.1.1.1",     // CR Image Storage
-            "1.2.840.10008.5.1.4.1.1.1.1",   // Digital X-Ray Image Storage
-            "1.2.840.10008.5.1.4.1.1.7",     // Secondary Capture Image Storage
-            "1.2.840.10008.5.1.4.1.1.6.1",   // US Image Storage
-            "1.2.840.10008.5.1.4.1.1.12.1",  // XA Image Storage
-            "1.2.840.10008.5.1.4.1.1.20"     // NM Image Storage
-        };
-
-        String[] IMAGE_TRANSFER_SYNTAXES = {
-            "1.2.840.10008.1.2",              // Implicit VR Little Endian
-            "1.2.840.10008.1.2.1",            // Explicit VR Little Endian
-            "1.2.840.10008.1.2.4.70",         // JPEG Lossless
-            "1.2.840.10008.1.2.4.57",         // JPEG Lossless (Process 14)
-            "1.2.840.10008.1.2.4.50",         // JPEG Baseline
-            "1.2.840.10008.1.2.4.90",         // JPEG 2000 Lossless
-            "1.2.840.10008.1.2.4.91"          // JPEG 2000 Lossy
-        };
-
-        for (String sopClass : STORAGE_SOP_CLASSES) {
+        // Storage SOP Classes (C-STORE SCP for receiving images, reports and presentation states)
+        String[] imageTransferSyntaxes = transferSyntaxes.storage();
+        for (String sopClass : StorageSopClasses.IMAGES) {
             ae.addTransferCapability(new TransferCapability(null,
                 sopClass,
                 TransferCapability.Role.SCP,
-                IMAGE_TRANSFER_SYNTAXES));
+                imageTransferSyntaxes));
+        }
+        String[] documentTransferSyntaxes = transferSyntaxes.documents();
+        for (String sopClass : StorageSopClasses.DOCUMENTS) {
+            ae.addTransferCapability(new TransferCapability(null,
+                sopClass,
+                TransferCapability.Role.SCP,
+                documentTransferSyntaxes));
         }
     }
 
@@ -203,9 +211,6 @@ public class DicomConfig {
                 log.warn("Error unbinding DICOM device connections: {}", e.getMessage());
             }
         }
-        if (executor != null) {
-            executor.shutdown();
-        }
         if (scheduledExecutor != null) {
             scheduledExecutor.shutdown();
         }
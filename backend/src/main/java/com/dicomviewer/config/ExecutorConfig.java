@@ -0,0 +1,104 @@
+package com.dicomviewer.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors for blocking DICOM network I/O and CPU-bound transcoding.
+ * <p>
+ * With {@code dicom.executor.mode=virtual} (the default) association handling and blocking
+ * C-FIND/C-MOVE/WADO calls each run on their own virtual thread, multiplexed over the JDK carrier
+ * pool (sized with {@code -Djdk.virtualThreadScheduler.parallelism} and {@code maxPoolSize}).
+ * With {@code platform} a fixed pool of {@code dicom.executor.io-pool-size} threads is used instead.
+ * Transcoding always runs on bounded platform pools so it cannot monopolise the carriers;
+ * on-the-fly WADO-RS transcoding and ingest transcoding each have their own pool so interactive
+ * requests and storage-time re-encoding cannot starve one another.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    public static final String DICOM_IO_EXECUTOR = "dicomIoExecutor";
+    public static final String WADO_TRANSCODE_EXECUTOR = "wadoTranscodeExecutor";
+    public static final String INGEST_TRANSCODE_EXECUTOR = "ingestTranscodeExecutor";
+
+    @Value("${dicom.executor.mode:virtual}")
+    private String mode;
+
+    @Value("${dicom.executor.io-pool-size:64}")
+    private int ioPoolSize;
+
+    @Value("${dicom.executor.wado-transcode-pool-size:0}")
+    private int wadoTranscodePoolSize;
+
+    @Value("${dicom.executor.wado-transcode-queue-capacity:64}")
+    private int wadoTranscodeQueueCapacity;
+
+    @Value("${dicom.executor.ingest-transcode-pool-size:0}")
+    private int ingestTranscodePoolSize;
+
+    @Value("${dicom.executor.ingest-transcode-queue-capacity:1024}")
+    private int ingestTranscodeQueueCapacity;
+
+    /**
+     * Executor for blocking network I/O: dcm4che association threads and PACS calls.
+     */
+    @Bean(name = DICOM_IO_EXECUTOR)
+    public ExecutorService dicomIoExecutor() {
+        if ("platform".equalsIgnoreCase(mode)) {
+            log.info("DICOM I/O executor: {} platform threads", ioPoolSize);
+            return new ThreadPoolExecutor(ioPoolSize, ioPoolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("dicom-io-", 0).factory());
+        }
+        log.info("DICOM I/O executor: virtual thread per task");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dicom-io-", 0).factory());
+    }
+
+    /**
+     * Bounded platform pool for transcoding WADO-RS responses to a client-requested syntax.
+     * When the queue is full submissions are rejected, and the request fails fast with 503.
+     */
+    @Bean(name = WADO_TRANSCODE_EXECUTOR)
+    public ExecutorService wadoTranscodeExecutor(MeterRegistry meterRegistry) {
+        int threads = wadoTranscodePoolSize > 0
+            ? wadoTranscodePoolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadFactory factory = Thread.ofPlatform().name("wado-transcode-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(wadoTranscodeQueueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, WADO_TRANSCODE_EXECUTOR, Tags.empty()).bindTo(meterRegistry);
+        log.info("WADO transcode executor: {} threads, queue capacity {}", threads, wadoTranscodeQueueCapacity);
+        return executor;
+    }
+
+    /**
+     * Bounded platform pool for re-encoding instances after they are stored.
+     * When the queue is full submissions are rejected and the instance is kept as received, so a
+     * burst of C-STOREs is never slowed down by transcoding.
+     */
+    @Bean(name = INGEST_TRANSCODE_EXECUTOR)
+    public ExecutorService ingestTranscodeExecutor(MeterRegistry meterRegistry) {
+        int threads = ingestTranscodePoolSize > 0
+            ? ingestTranscodePoolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadFactory factory = Thread.ofPlatform().name("ingest-transcode-", 0).daemon(true).factory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(ingestTranscodeQueueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, INGEST_TRANSCODE_EXECUTOR, Tags.empty()).bindTo(meterRegistry);
+        log.info("Ingest transcode executor: {} threads, queue capacity {}", threads, ingestTranscodeQueueCapacity);
+        return executor;
+    }
+}
@@ -74,8 +74,10 @@ public class ApplicationEntityController {
 
     @PostMapping("/test-all")
     @Operation(summary = "Test connectivity to all enabled remote AEs")
-    public ResponseEntity<Map<String, String>> testAllConnections() {
-        aeService.testAllConnections();
-        return ResponseEntity.ok(Map.of("message", "Connection tests initiated"));
+    public ResponseEntity<Map<String, Object>> testAllConnections() {
+        List<EchoResultDTO> results = aeService.testAllConnections();
+        return ResponseEntity.ok(Map.of(
+            "message", "Connection tests completed",
+            "results", results));
     }
 }
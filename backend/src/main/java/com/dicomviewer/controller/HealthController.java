@@ -1,5 +1,6 @@
 package com.dicomviewer.controller;
 
+import com.dicomviewer.dicom.health.PacsCircuitBreakerRegistry;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,6 +17,12 @@ import java.util.Map;
 @RequestMapping("/api")
 public class HealthController {
 
+    private final PacsCircuitBreakerRegistry circuitBreakers;
+
+    public HealthController(PacsCircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
@@ -25,4 +32,12 @@ public class HealthController {
         response.put("version", "1.0.0");
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Circuit breaker state of each remote archive, as seen by the background health monitor.
+     */
+    @GetMapping("/health/pacs")
+    public ResponseEntity<Map<String, PacsCircuitBreakerRegistry.BreakerState>> pacsHealth() {
+        return ResponseEntity.ok(circuitBreakers.getStates());
+    }
 }
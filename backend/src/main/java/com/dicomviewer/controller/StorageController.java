@@ -0,0 +1,154 @@
+package com.dicomviewer.controller;
+
+import com.dicomviewer.model.entity.ScrubFinding;
+import com.dicomviewer.service.StorageService;
+import com.dicomviewer.storage.BulkImporter;
+import com.dicomviewer.storage.HeaderIndex;
+import com.dicomviewer.storage.HeaderRecord;
+import com.dicomviewer.storage.StorageLayoutMigrator;
+import com.dicomviewer.storage.StoragePurger;
+import com.dicomviewer.storage.StorageScrubber;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Local storage maintenance.
+ */
+@RestController
+@RequestMapping("/api/storage")
+@Tag(name = "Storage", description = "Local DICOM storage maintenance")
+public class StorageController {
+
+    private final StorageLayoutMigrator layoutMigrator;
+    private final HeaderIndex headerIndex;
+    private final StoragePurger purger;
+    private final StorageService storageService;
+    private final StorageScrubber scrubber;
+    private final BulkImporter bulkImporter;
+
+    public StorageController(StorageLayoutMigrator layoutMigrator, HeaderIndex headerIndex, StoragePurger purger,
+                             StorageService storageService, StorageScrubber scrubber, BulkImporter bulkImporter) {
+        this.layoutMigrator = layoutMigrator;
+        this.headerIndex = headerIndex;
+        this.purger = purger;
+        this.storageService = storageService;
+        this.scrubber = scrubber;
+        this.bulkImporter = bulkImporter;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Stored instance, study and series counts, with a breakdown by modality and storage tier")
+    public ResponseEntity<StorageService.StorageStats> getStats() {
+        return ResponseEntity.ok(storageService.getStorageStats());
+    }
+
+    @GetMapping("/series/{seriesInstanceUid}/headers")
+    @Operation(summary = "Indexed header attributes of a locally stored series, in stack order")
+    public ResponseEntity<List<HeaderRecord>> getSeriesHeaders(@PathVariable String seriesInstanceUid)
+            throws IOException {
+        List<HeaderRecord> headers = headerIndex.readSeries(seriesInstanceUid);
+        return headers.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(headers);
+    }
+
+    @GetMapping("/series/{seriesInstanceUid}")
+    @Operation(summary = "All instances of a locally stored series as one multipart/related response",
+               description = "Packed instances are read with one sequential read per pack.")
+    public ResponseEntity<byte[]> getSeries(@PathVariable String seriesInstanceUid) throws IOException {
+        Map<String, byte[]> instances = storageService.readSeries(seriesInstanceUid);
+        if (instances.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] instance : instances.values()) {
+            body.writeBytes(("--" + boundary + "\r\nContent-Type: application/dicom\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+            body.writeBytes(instance);
+            body.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        body.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("multipart", "related",
+            Map.of("type", "\"application/dicom\"", "boundary", boundary)));
+        return new ResponseEntity<>(body.toByteArray(), headers, HttpStatus.OK);
+    }
+
+    @PostMapping("/migration")
+    @Operation(summary = "Move stored files into the configured storage layout in the background")
+    public ResponseEntity<StorageLayoutMigrator.Status> startMigration() {
+        boolean started = layoutMigrator.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+            .body(layoutMigrator.getStatus());
+    }
+
+    @GetMapping("/migration")
+    @Operation(summary = "Storage layout migration progress")
+    public ResponseEntity<StorageLayoutMigrator.Status> getMigration() {
+        return ResponseEntity.ok(layoutMigrator.getStatus());
+    }
+
+    @DeleteMapping("/studies/{studyInstanceUid}")
+    @Operation(summary = "Purge a locally stored study; files are removed in the background")
+    public ResponseEntity<Void> purgeStudy(@PathVariable String studyInstanceUid) {
+        return purger.purgeStudy(studyInstanceUid)
+            ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/purge")
+    @Operation(summary = "Purge locally stored studies of a patient and/or a Study Date range (YYYYMMDD)")
+    public ResponseEntity<Map<String, Integer>> purge(@RequestParam(required = false) String patientId,
+                                                      @RequestParam(required = false) String studyDateFrom,
+                                                      @RequestParam(required = false) String studyDateTo) {
+        int purged = purger.purge(patientId, studyDateFrom, studyDateTo);
+        return ResponseEntity.accepted().body(Map.of("purgedStudies", purged));
+    }
+
+    @PostMapping("/scrub")
+    @Operation(summary = "Verify stored files against the index in the background")
+    public ResponseEntity<StorageScrubber.Status> startScrub() {
+        boolean started = scrubber.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+            .body(scrubber.getStatus());
+    }
+
+    @GetMapping("/scrub")
+    @Operation(summary = "Storage scrub progress")
+    public ResponseEntity<StorageScrubber.Status> getScrub() {
+        return ResponseEntity.ok(scrubber.getStatus());
+    }
+
+    @GetMapping("/scrub/findings")
+    @Operation(summary = "Stored instances currently failing verification, most recently detected first")
+    public ResponseEntity<List<ScrubFinding>> getScrubFindings(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(scrubber.getFindings(limit));
+    }
+
+    @PostMapping("/import")
+    @Operation(summary = "Index an existing DICOM directory tree in the background, in place or copied into storage")
+    public ResponseEntity<BulkImporter.Status> startImport(@RequestParam String source,
+                                                           @RequestParam(defaultValue = "REGISTER") BulkImporter.Mode mode) {
+        boolean started = bulkImporter.start(Paths.get(source), mode);
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+            .body(bulkImporter.getStatus());
+    }
+
+    @GetMapping("/import")
+    @Operation(summary = "Bulk import progress and throughput")
+    public ResponseEntity<BulkImporter.Status> getImport() {
+        return ResponseEntity.ok(bulkImporter.getStatus());
+    }
+}
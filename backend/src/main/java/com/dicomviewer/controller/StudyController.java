@@ -1,6 +1,8 @@
 package com.dicomviewer.controller;
 
 import com.dicomviewer.dicom.network.CMoveService;
+import com.dicomviewer.dicom.network.RetrievalPriority;
+import com.dicomviewer.model.RetrievalProgress;
 import com.dicomviewer.service.PacsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -101,14 +103,26 @@ public class StudyController {
     }
 
     @PostMapping("/studies/{studyInstanceUid}/retrieve")
-    @Operation(summary = "Retrieve a study from a legacy PACS using C-MOVE")
+    @Operation(summary = "Retrieve a study from a legacy PACS using C-MOVE or C-GET",
+               description = "HIGH priority is for studies a user is waiting on; LOW for prefetch. "
+                   + "With async=true the retrieval is queued and 202 returned; poll the progress endpoint.")
     public ResponseEntity<Map<String, Object>> retrieveStudy(
             @PathVariable String studyInstanceUid,
             @RequestParam UUID pacsId,
-            @RequestParam String destinationAe) {
+            @RequestParam(required = false) String destinationAe,
+            @RequestParam(defaultValue = "HIGH") RetrievalPriority priority,
+            @RequestParam(defaultValue = "false") boolean async) {
 
         try {
-            CMoveService.MoveResult result = pacsService.retrieveStudy(pacsId, studyInstanceUid, destinationAe);
+            if (async) {
+                pacsService.submitRetrieval(pacsId, studyInstanceUid, destinationAe, priority);
+                return ResponseEntity.accepted().body(Map.of(
+                    "studyInstanceUid", studyInstanceUid,
+                    "priority", priority.name(),
+                    "progressUrl", "/api/studies/" + studyInstanceUid + "/retrieve/progress"
+                ));
+            }
+            CMoveService.MoveResult result = pacsService.retrieveStudy(pacsId, studyInstanceUid, destinationAe, priority);
             return ResponseEntity.ok(Map.of(
                 "success", result.isSuccess(),
                 "completedSuboperations", result.getCompletedSuboperations(),
@@ -123,4 +137,11 @@ public class StudyController {
             ));
         }
     }
+
+    @GetMapping("/studies/{studyInstanceUid}/retrieve/progress")
+    @Operation(summary = "Progress of the latest retrieval of a study")
+    public ResponseEntity<RetrievalProgress> getRetrievalProgress(@PathVariable String studyInstanceUid) {
+        RetrievalProgress progress = pacsService.getRetrievalProgress(studyInstanceUid);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
 }
@@ -1,23 +1,35 @@
 package com.dicomviewer.controller;
 
+import com.dicomviewer.dicom.transcode.WadoTranscoder;
+import com.dicomviewer.dicom.web.WadoFrames;
+import com.dicomviewer.exception.DicomNetworkException;
 import com.dicomviewer.model.PacsConfiguration;
 import com.dicomviewer.service.PacsService;
+import com.dicomviewer.service.StorageService;
 import com.dicomviewer.dicom.web.DicomWebService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * REST controller for WADO-RS proxy operations.
- * Proxies WADO-RS requests to the configured PACS.
+ * Proxies WADO-RS requests to the configured PACS, failing fast with 503 while the health monitor
+ * has its circuit breaker open. Instances and frames held in local storage are served from it
+ * instead, which also records the access for storage tiering. Instance and frame requests
+ * whose Accept header names a transfer syntax are transcoded locally by
+ * {@link WadoTranscoder}; frames are cut from the instance here by {@link WadoFrames}.
  */
 @RestController
 @RequestMapping("/api/wado")
@@ -26,12 +38,25 @@ public class WadoController {
 
     private static final Logger log = LoggerFactory.getLogger(WadoController.class);
 
+    private static final String WADO = "WADO-RS";
+
+    /** Transcode cache source for instances read from local storage rather than a PACS. */
+    private static final String LOCAL = "local";
+
     private final PacsService pacsService;
     private final DicomWebService dicomWebService;
+    private final WadoTranscoder wadoTranscoder;
+    private final StorageService storageService;
 
-    public WadoController(PacsService pacsService, DicomWebService dicomWebService) {
+    @Value("${dicom.wado.transcode.retry-after-seconds:5}")
+    private int retryAfterSeconds = 5;
+
+    public WadoController(PacsService pacsService, DicomWebService dicomWebService,
+                          WadoTranscoder wadoTranscoder, StorageService storageService) {
         this.pacsService = pacsService;
         this.dicomWebService = dicomWebService;
+        this.wadoTranscoder = wadoTranscoder;
+        this.storageService = storageService;
     }
 
     @GetMapping("/studies/{studyInstanceUid}/series/{seriesInstanceUid}/instances/{sopInstanceUid}")
@@ -40,7 +65,8 @@ public class WadoController {
             @PathVariable String studyInstanceUid,
             @PathVariable String seriesInstanceUid,
             @PathVariable String sopInstanceUid,
-            @RequestParam(required = false) UUID pacsId) {
+            @RequestParam(required = false) UUID pacsId,
+            @RequestHeader(value = "Accept", required = false) String accept) {
 
         try {
             PacsConfiguration pacs = findPacs(pacsId);
@@ -49,14 +75,15 @@ public class WadoController {
                         .body("No PACS configuration found".getBytes());
             }
 
-            byte[] dicomData = dicomWebService.retrieveInstance(
-                    pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/dicom"));
-            headers.setContentLength(dicomData.length);
-
-            return new ResponseEntity<>(dicomData, headers, HttpStatus.OK);
+            return retrieveTranscoded(pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, accept);
+        } catch (WadoTranscoder.NotAcceptableTransferSyntaxException e) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).body(e.getMessage().getBytes());
+        } catch (WadoTranscoder.TranscodeRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(e.getMessage().getBytes());
+        } catch (DicomNetworkException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage().getBytes());
         } catch (Exception e) {
             log.error("Failed to retrieve DICOM instance: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -66,15 +93,16 @@ public class WadoController {
 
     @GetMapping("/studies/{studyInstanceUid}/series/{seriesInstanceUid}/instances/{sopInstanceUid}/frames/{frameNumber}")
     @Operation(summary = "Retrieve a specific frame from a DICOM instance",
-               description = "Note: Currently retrieves the entire instance. Frame extraction is performed client-side. "
-                           + "For single-frame images, frame 1 returns the image. For multi-frame images, "
-                           + "the client (Cornerstone.js) extracts the specified frame from the returned DICOM data.")
+               description = "Returns the frame's pixel data as a single-part multipart/related response: "
+                           + "application/octet-stream for native pixel data, or the compressed bitstream "
+                           + "for encapsulated transfer syntaxes.")
     public ResponseEntity<byte[]> retrieveFrame(
             @PathVariable String studyInstanceUid,
             @PathVariable String seriesInstanceUid,
             @PathVariable String sopInstanceUid,
             @PathVariable int frameNumber,
-            @RequestParam(required = false) UUID pacsId) {
+            @RequestParam(required = false) UUID pacsId,
+            @RequestHeader(value = "Accept", required = false) String accept) {
 
         try {
             PacsConfiguration pacs = findPacs(pacsId);
@@ -83,16 +111,26 @@ public class WadoController {
                         .body("No PACS configuration found".getBytes());
             }
 
-            // Retrieve the whole instance - Cornerstone.js handles frame extraction client-side
-            // This approach is common in DICOMweb implementations for simplicity
-            byte[] dicomData = dicomWebService.retrieveInstance(
-                    pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid);
+            WadoTranscoder.Result instance = retrieve(pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, accept);
+            WadoFrames.Frame frame = WadoFrames.extract(instance.data(), frameNumber);
+            String boundary = UUID.randomUUID().toString();
+            byte[] body = WadoFrames.multipart(boundary, frame);
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/dicom"));
-            headers.setContentLength(dicomData.length);
-
-            return new ResponseEntity<>(dicomData, headers, HttpStatus.OK);
+            headers.setContentType(new MediaType("multipart", "related", Map.of(
+                    "type", "\"" + frame.mediaType() + "\"", "boundary", boundary)));
+            headers.setContentLength(body.length);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (WadoFrames.FrameNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage().getBytes());
+        } catch (WadoTranscoder.NotAcceptableTransferSyntaxException e) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).body(e.getMessage().getBytes());
+        } catch (WadoTranscoder.TranscodeRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(e.getMessage().getBytes());
+        } catch (DicomNetworkException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage().getBytes());
         } catch (Exception e) {
             log.error("Failed to retrieve DICOM frame: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -119,6 +157,7 @@ public class WadoController {
             }
 
             String mediaType = accept.contains("image/png") ? "image/png" : "image/jpeg";
+            pacsService.ensureAvailable(pacs, WADO);
             byte[] imageData = dicomWebService.retrieveRenderedImage(
                     pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, mediaType);
 
@@ -127,6 +166,8 @@ public class WadoController {
             headers.setContentLength(imageData.length);
 
             return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
+        } catch (DicomNetworkException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage().getBytes());
         } catch (Exception e) {
             log.error("Failed to retrieve rendered image: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -151,6 +192,7 @@ public class WadoController {
             }
 
             // Use rendered endpoint for thumbnail
+            pacsService.ensureAvailable(pacs, WADO);
             byte[] imageData = dicomWebService.retrieveRenderedImage(
                     pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, "image/jpeg");
 
@@ -159,6 +201,8 @@ public class WadoController {
             headers.setContentLength(imageData.length);
 
             return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
+        } catch (DicomNetworkException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage().getBytes());
         } catch (Exception e) {
             log.error("Failed to retrieve thumbnail: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -166,6 +210,69 @@ public class WadoController {
         }
     }
 
+    /**
+     * Retrieve an instance and serve it in the transfer syntax negotiated from the Accept header.
+     */
+    private ResponseEntity<byte[]> retrieveTranscoded(PacsConfiguration pacs, String studyInstanceUid,
+                                                      String seriesInstanceUid, String sopInstanceUid,
+                                                      String accept) {
+        WadoTranscoder.Result result = retrieve(pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, accept);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(result.transferSyntaxUid() != null
+                ? new MediaType("application", "dicom", Map.of("transfer-syntax", result.transferSyntaxUid()))
+                : MediaType.parseMediaType("application/dicom"));
+        headers.setContentLength(result.data().length);
+        return new ResponseEntity<>(result.data(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieve an instance in the transfer syntax negotiated from the Accept header. Without a
+     * transfer-syntax parameter the local copy or the PACS response is passed through unchanged;
+     * otherwise a cached transcode is used, or the instance is read as stored and transcoded here
+     * if needed.
+     */
+    private WadoTranscoder.Result retrieve(PacsConfiguration pacs, String studyInstanceUid,
+                                           String seriesInstanceUid, String sopInstanceUid, String accept) {
+        String transferSyntax = wadoTranscoder.negotiate(accept);
+        if (transferSyntax == null) {
+            byte[] local = readLocal(sopInstanceUid);
+            if (local != null) {
+                return new WadoTranscoder.Result(local, null);
+            }
+            pacsService.ensureAvailable(pacs, WADO);
+            return new WadoTranscoder.Result(dicomWebService.retrieveInstance(
+                    pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid), null);
+        }
+        String source = storageService.hasInstance(sopInstanceUid) ? LOCAL : String.valueOf(pacs.getId());
+        Supplier<byte[]> stored = () -> {
+            byte[] local = readLocal(sopInstanceUid);
+            if (local != null) {
+                return local;
+            }
+            pacsService.ensureAvailable(pacs, WADO);
+            return dicomWebService.retrieveInstance(
+                    pacs, studyInstanceUid, seriesInstanceUid, sopInstanceUid, WadoTranscoder.ANY);
+        };
+        return wadoTranscoder.transcode(source, sopInstanceUid, stored, transferSyntax);
+    }
+
+    /**
+     * The locally stored copy of an instance, or {@code null} if there is none or it cannot be read.
+     */
+    private byte[] readLocal(String sopInstanceUid) {
+        if (!storageService.hasInstance(sopInstanceUid)) {
+            return null;
+        }
+        try {
+            return storageService.readInstance(sopInstanceUid);
+        } catch (IOException | IllegalArgumentException e) {
+            // Moved or purged since the check; the PACS still has it
+            log.debug("Local copy of {} unavailable, retrieving from PACS: {}", sopInstanceUid, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Find the PACS configuration to use.
      * If pacsId is provided, use that. Otherwise, return the first active PACS.
@@ -0,0 +1,117 @@
+package com.dicomviewer.dicom.health;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-archive circuit breakers keyed by {@code aeTitle@host:port}.
+ * <p>
+ * A breaker opens after {@code dicom.health.failure-threshold} consecutive failed health probes
+ * and closes again on the first successful one. While open, callers are expected to fail fast
+ * instead of connecting. The health monitor keeps probing open breakers, so no separate
+ * half-open state is needed.
+ */
+@Component
+public class PacsCircuitBreakerRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PacsCircuitBreakerRegistry.class);
+
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private final DicomMetrics metrics;
+
+    @Value("${dicom.health.failure-threshold:3}")
+    private int failureThreshold = 3;
+
+    public PacsCircuitBreakerRegistry(DicomMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public static String key(String aeTitle, String host, int port) {
+        return aeTitle + "@" + host + ":" + port;
+    }
+
+    public static String key(PacsConfiguration config) {
+        return key(config.getAeTitle(), config.getHost(), config.getPort());
+    }
+
+    /**
+     * Whether the archive is currently marked down.
+     */
+    public boolean isOpen(PacsConfiguration config) {
+        Breaker breaker = breakers.get(key(config));
+        return breaker != null && breaker.open;
+    }
+
+    public void recordSuccess(String key) {
+        Breaker breaker = breaker(key);
+        synchronized (breaker) {
+            if (breaker.open) {
+                log.info("PACS {} is reachable again, closing circuit", key);
+            }
+            breaker.consecutiveFailures = 0;
+            breaker.open = false;
+            breaker.lastChange = Instant.now();
+        }
+    }
+
+    public void recordFailure(String key, String reason) {
+        Breaker breaker = breaker(key);
+        synchronized (breaker) {
+            breaker.consecutiveFailures++;
+            breaker.lastFailure = reason;
+            if (!breaker.open && breaker.consecutiveFailures >= failureThreshold) {
+                breaker.open = true;
+                breaker.lastChange = Instant.now();
+                log.warn("PACS {} failed {} consecutive health checks, opening circuit: {}",
+                    key, breaker.consecutiveFailures, reason);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of all breakers for diagnostics.
+     */
+    public Map<String, BreakerState> getStates() {
+        Map<String, BreakerState> states = new ConcurrentHashMap<>();
+        breakers.forEach((key, breaker) -> {
+            synchronized (breaker) {
+                states.put(key, new BreakerState(breaker.open, breaker.consecutiveFailures,
+                    breaker.lastFailure, breaker.lastChange));
+            }
+        });
+        return states;
+    }
+
+    private Breaker breaker(String key) {
+        return breakers.computeIfAbsent(key, k -> {
+            Breaker breaker = new Breaker();
+            Gauge.builder("dicom.health.circuit.open", breaker, b -> b.open ? 1 : 0)
+                .description("1 while the circuit breaker for a PACS is open")
+                .tag("pacs", k)
+                .register(metrics.getRegistry());
+            return breaker;
+        });
+    }
+
+    private static final class Breaker {
+        private volatile boolean open;
+        private int consecutiveFailures;
+        private String lastFailure;
+        private Instant lastChange = Instant.now();
+    }
+
+    /**
+     * Immutable view of one breaker.
+     */
+    public record BreakerState(boolean open, int consecutiveFailures, String lastFailure, Instant since) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.dicomviewer.dicom.health;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.dicom.network.CEchoService;
+import com.dicomviewer.dicom.web.DicomWebService;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.entity.ApplicationEntity;
+import com.dicomviewer.model.entity.ApplicationEntity.AEType;
+import com.dicomviewer.model.entity.ApplicationEntity.ConnectionStatus;
+import com.dicomviewer.repository.ApplicationEntityRepository;
+import com.dicomviewer.repository.PacsConfigurationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background health monitor for remote archives.
+ * <p>
+ * Every {@code dicom.health.interval-ms} each active PACS configuration and enabled remote AE is
+ * probed, with C-ECHO for legacy archives and a one-result QIDO-RS query for DICOMweb. Probes are
+ * spread over a random jitter of up to {@code dicom.health.jitter-ms} so archives are not hit in
+ * lockstep. Results feed the {@link PacsCircuitBreakerRegistry}, the {@code dicom.health.probe}
+ * latency histograms and the {@code last_echo_status} of the AE rows.
+ */
+@Component
+public class PacsHealthMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PacsHealthMonitor.class);
+
+    private static final int DEFAULT_TIMEOUT_MS = 30000;
+
+    private final PacsConfigurationRepository pacsConfigRepository;
+    private final ApplicationEntityRepository aeRepository;
+    private final CEchoService cEchoService;
+    private final DicomWebService dicomWebService;
+    private final PacsCircuitBreakerRegistry circuitBreakers;
+    private final DicomMetrics metrics;
+    private final ExecutorService ioExecutor;
+
+    @Value("${dicom.health.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${dicom.health.jitter-ms:5000}")
+    private long jitterMs;
+
+    public PacsHealthMonitor(PacsConfigurationRepository pacsConfigRepository,
+                             ApplicationEntityRepository aeRepository,
+                             CEchoService cEchoService,
+                             DicomWebService dicomWebService,
+                             PacsCircuitBreakerRegistry circuitBreakers,
+                             DicomMetrics metrics,
+                             @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.pacsConfigRepository = pacsConfigRepository;
+        this.aeRepository = aeRepository;
+        this.cEchoService = cEchoService;
+        this.dicomWebService = dicomWebService;
+        this.circuitBreakers = circuitBreakers;
+        this.metrics = metrics;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Scheduled(initialDelayString = "${dicom.health.initial-delay-ms:15000}",
+               fixedDelayString = "${dicom.health.interval-ms:30000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Probe every known archive once, waiting for all probes to answer or time out.
+     * A probe still running at its deadline counts as a TIMEOUT; its late result is ignored.
+     */
+    public void sweep() {
+        Map<String, Target> targets = collectTargets();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<ConnectionStatus>> futures = new ArrayList<>(targets.size());
+        for (Target target : targets.values()) {
+            long delay = jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0;
+            futures.add(CompletableFuture.supplyAsync(() -> probe(target),
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, ioExecutor))
+                .completeOnTimeout(ConnectionStatus.TIMEOUT, delay + target.timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((status, e) -> {
+                    if (status == ConnectionStatus.SUCCESS) {
+                        circuitBreakers.recordSuccess(target.key);
+                    } else {
+                        circuitBreakers.recordFailure(target.key, status == ConnectionStatus.TIMEOUT
+                            ? "no response within " + target.timeoutMs + "ms" : "health probe failed");
+                    }
+                }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        // Only the echo columns are written: the AE rows were loaded before the probes and may
+        // have been edited since
+        Instant now = Instant.now();
+        Map<ConnectionStatus, List<Long>> idsByStatus = new EnumMap<>(ConnectionStatus.class);
+        int i = 0;
+        for (Target target : targets.values()) {
+            ConnectionStatus status = futures.get(i++).join();
+            for (ApplicationEntity ae : target.applicationEntities) {
+                idsByStatus.computeIfAbsent(status, k -> new ArrayList<>()).add(ae.getId());
+            }
+        }
+        idsByStatus.forEach((status, ids) -> aeRepository.updateEchoStatus(ids, status, now));
+        log.debug("Health sweep probed {} archives", targets.size());
+    }
+
+    /**
+     * Active PACS configurations and enabled remote AEs, deduplicated by circuit breaker key.
+     */
+    private Map<String, Target> collectTargets() {
+        Map<String, Target> targets = new LinkedHashMap<>();
+        for (PacsConfiguration config : pacsConfigRepository.findByIsActiveTrue()) {
+            targets.putIfAbsent(PacsCircuitBreakerRegistry.key(config), new Target(config, DEFAULT_TIMEOUT_MS));
+        }
+        for (ApplicationEntity ae : aeRepository.findByEnabledTrue()) {
+            if (ae.getAeType() == AEType.LOCAL) {
+                continue;
+            }
+            PacsConfiguration config = toPacsConfiguration(ae);
+            int timeoutMs = ae.getConnectionTimeout() != null && ae.getConnectionTimeout() > 0
+                ? ae.getConnectionTimeout() : DEFAULT_TIMEOUT_MS;
+            targets.computeIfAbsent(PacsCircuitBreakerRegistry.key(config), k -> new Target(config, timeoutMs))
+                .applicationEntities.add(ae);
+        }
+        return targets;
+    }
+
+    private ConnectionStatus probe(Target target) {
+        PacsConfiguration config = target.config;
+        String protocol = config.isDicomWeb() ? "QIDO-RS" : "C-ECHO";
+        long start = System.nanoTime();
+        boolean success;
+        String reason = null;
+        try {
+            if (config.isDicomWeb()) {
+                dicomWebService.queryStudies(config, Map.of("limit", "1"));
+                success = true;
+            } else {
+                CEchoService.EchoResult result = cEchoService.echo(config);
+                success = result.isSuccess();
+                reason = result.getMessage();
+            }
+        } catch (Exception e) {
+            success = false;
+            reason = e.getMessage();
+        }
+        metrics.recordHealthProbe(config.getAeTitle(), protocol, System.nanoTime() - start, success);
+
+        if (!success) {
+            log.debug("{} health probe to {} failed: {}", protocol, target.key, reason);
+        }
+        return success ? ConnectionStatus.SUCCESS : ConnectionStatus.FAILED;
+    }
+
+    private static PacsConfiguration toPacsConfiguration(ApplicationEntity ae) {
+        PacsConfiguration config = new PacsConfiguration();
+        config.setName(ae.getAeTitle());
+        config.setAeTitle(ae.getAeTitle());
+        config.setHost(ae.getHostname());
+        config.setPort(ae.getPort());
+        if (ae.getAeType() == AEType.REMOTE_DICOMWEB) {
+            config.setPacsType(PacsConfiguration.PacsType.DICOMWEB);
+            config.setQidoRsUrl(ae.getDicomWebUrl());
+            config.setWadoRsUrl(ae.getDicomWebUrl());
+        } else {
+            config.setPacsType(PacsConfiguration.PacsType.LEGACY);
+        }
+        return config;
+    }
+
+    private static final class Target {
+        private final String key;
+        private final PacsConfiguration config;
+        private final int timeoutMs;
+        private final List<ApplicationEntity> applicationEntities = new ArrayList<>();
+
+        private Target(PacsConfiguration config, int timeoutMs) {
+            this.key = PacsCircuitBreakerRegistry.key(config);
+            this.config = config;
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
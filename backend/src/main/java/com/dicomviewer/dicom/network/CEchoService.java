@@ -1,5 +1,6 @@
 package com.dicomviewer.dicom.network;
 
+import com.dicomviewer.metrics.DicomMetrics;
 import com.dicomviewer.model.PacsConfiguration;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
@@ -15,8 +16,6 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Service for DICOM C-ECHO operations.
@@ -27,14 +26,15 @@ public class CEchoService {
 
     private static final Logger log = LoggerFactory.getLogger(CEchoService.class);
 
-    private final ApplicationEntity applicationEntity;
-    private final Device device;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final DimseConnector connector;
+    private final DicomMetrics metrics;
+    private final TransferSyntaxPolicy transferSyntaxes;
 
     @Autowired
-    public CEchoService(ApplicationEntity applicationEntity, Device device) {
-        this.applicationEntity = applicationEntity;
-        this.device = device;
+    public CEchoService(DimseConnector connector, DicomMetrics metrics, TransferSyntaxPolicy transferSyntaxes) {
+        this.connector = connector;
+        this.metrics = metrics;
+        this.transferSyntaxes = transferSyntaxes;
     }
 
     /**
@@ -45,27 +45,17 @@ public class CEchoService {
      */
     public EchoResult echo(PacsConfiguration pacsConfig) {
         long startTime = System.currentTimeMillis();
+        long start = System.nanoTime();
+        boolean success = false;
         Association association = null;
 
         try {
-            // Create connection to remote PACS
-            Connection remoteConn = new Connection();
-            remoteConn.setHostname(pacsConfig.getHost());
-            remoteConn.setPort(pacsConfig.getPort());
-
             // Create association request
             AAssociateRQ rq = new AAssociateRQ();
-            rq.setCalledAET(pacsConfig.getAeTitle());
-            rq.setCallingAET(applicationEntity.getAETitle());
-            rq.addPresentationContext(new PresentationContext(
-                1,
-                UID.Verification,
-                UID.ImplicitVRLittleEndian,
-                UID.ExplicitVRLittleEndian
-            ));
+            rq.addPresentationContext(new PresentationContext(1, UID.Verification, transferSyntaxes.control()));
 
             // Open association
-            association = applicationEntity.connect(remoteConn, rq);
+            association = connector.connect(pacsConfig, "C-ECHO", rq);
 
             // Send C-ECHO
             DimseRSP rsp = association.cecho();
@@ -77,6 +67,7 @@ public class CEchoService {
             long responseTime = System.currentTimeMillis() - startTime;
 
             if (status == 0) {
+                success = true;
                 log.info("C-ECHO successful to {} ({}:{}), response time: {}ms",
                     pacsConfig.getAeTitle(), pacsConfig.getHost(), pacsConfig.getPort(), responseTime);
                 return new EchoResult(true, responseTime, "Connection successful");
@@ -91,13 +82,8 @@ public class CEchoService {
                 pacsConfig.getAeTitle(), pacsConfig.getHost(), pacsConfig.getPort(), e.getMessage());
             return new EchoResult(false, responseTime, e.getMessage());
         } finally {
-            if (association != null && association.isReadyForDataTransfer()) {
-                try {
-                    association.release();
-                } catch (IOException e) {
-                    log.warn("Failed to release association", e);
-                }
-            }
+            metrics.recordEcho(pacsConfig.getAeTitle(), System.nanoTime() - start, success);
+            connector.release(association);
         }
     }
 
@@ -1,9 +1,9 @@
 package com.dicomviewer.dicom.network;
 
+import com.dicomviewer.metrics.DicomMetrics;
 import com.dicomviewer.model.PacsConfiguration;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
-import org.dcm4che3.data.UID;
 import org.dcm4che3.data.VR;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.AAssociateRQ;
@@ -33,13 +33,15 @@ public class CFindService {
     // Patient Root Query/Retrieve Information Model - FIND SOP Class
     private static final String PATIENT_ROOT_FIND = "1.2.840.10008.5.1.4.1.2.1.1";
 
-    private final ApplicationEntity applicationEntity;
-    private final Device device;
+    private final DimseConnector connector;
+    private final DicomMetrics metrics;
+    private final TransferSyntaxPolicy transferSyntaxes;
 
     @Autowired
-    public CFindService(ApplicationEntity applicationEntity, Device device) {
-        this.applicationEntity = applicationEntity;
-        this.device = device;
+    public CFindService(DimseConnector connector, DicomMetrics metrics, TransferSyntaxPolicy transferSyntaxes) {
+        this.connector = connector;
+        this.metrics = metrics;
+        this.transferSyntaxes = transferSyntaxes;
     }
 
     /**
@@ -54,16 +56,7 @@ public class CFindService {
      * Query series from a remote PACS.
      */
     public List<Attributes> findSeries(PacsConfiguration pacsConfig, String studyInstanceUid) {
-        Attributes keys = new Attributes();
-        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "SERIES");
-        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
-        keys.setNull(Tag.SeriesInstanceUID, VR.UI);
-        keys.setNull(Tag.SeriesNumber, VR.IS);
-        keys.setNull(Tag.SeriesDescription, VR.LO);
-        keys.setNull(Tag.Modality, VR.CS);
-        keys.setNull(Tag.NumberOfSeriesRelatedInstances, VR.IS);
-        keys.setNull(Tag.BodyPartExamined, VR.CS);
-
+        Attributes keys = buildSeriesQueryKeys(studyInstanceUid);
         return executeFind(pacsConfig, keys, QueryLevel.SERIES, STUDY_ROOT_FIND);
     }
 
@@ -71,16 +64,7 @@ public class CFindService {
      * Query instances from a remote PACS.
      */
     public List<Attributes> findInstances(PacsConfiguration pacsConfig, String studyInstanceUid, String seriesInstanceUid) {
-        Attributes keys = new Attributes();
-        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "IMAGE");
-        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
-        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
-        keys.setNull(Tag.SOPInstanceUID, VR.UI);
-        keys.setNull(Tag.SOPClassUID, VR.UI);
-        keys.setNull(Tag.InstanceNumber, VR.IS);
-        keys.setNull(Tag.Rows, VR.US);
-        keys.setNull(Tag.Columns, VR.US);
-
+        Attributes keys = buildInstanceQueryKeys(studyInstanceUid, seriesInstanceUid);
         return executeFind(pacsConfig, keys, QueryLevel.IMAGE, STUDY_ROOT_FIND);
     }
 
@@ -90,31 +74,27 @@ public class CFindService {
     private List<Attributes> executeFind(PacsConfiguration pacsConfig, Attributes keys, QueryLevel level, String sopClass) {
         List<Attributes> results = new ArrayList<>();
         Association association = null;
+        long start = System.nanoTime();
+        boolean success = false;
 
         try {
-            // Create connection to remote PACS
-            Connection remoteConn = new Connection();
-            remoteConn.setHostname(pacsConfig.getHost());
-            remoteConn.setPort(pacsConfig.getPort());
-
             // Create association request
             AAssociateRQ rq = new AAssociateRQ();
-            rq.setCalledAET(pacsConfig.getAeTitle());
-            rq.setCallingAET(applicationEntity.getAETitle());
-            rq.addPresentationContext(new PresentationContext(
-                1,
-                sopClass,
-                UID.ImplicitVRLittleEndian,
-                UID.ExplicitVRLittleEndian
-            ));
+            rq.addPresentationContext(new PresentationContext(1, sopClass, transferSyntaxes.query()));
 
             // Open association
-            association = applicationEntity.connect(remoteConn, rq);
+            association = connector.connect(pacsConfig, "C-FIND", rq);
 
             // Execute C-FIND
+            long sent = System.nanoTime();
             DimseRSP rsp = association.cfind(sopClass, Priority.NORMAL, keys, null, 0);
+            boolean first = true;
 
             while (rsp.next()) {
+                if (first) {
+                    metrics.recordFindFirstResponse(pacsConfig.getAeTitle(), level.name(), System.nanoTime() - sent);
+                    first = false;
+                }
                 Attributes cmd = rsp.getCommand();
                 Attributes data = rsp.getDataset();
 
@@ -127,6 +107,8 @@ public class CFindService {
                     }
                 } else if (status != Status.Success) {
                     log.warn("C-FIND returned status: 0x{}", Integer.toHexString(status));
+                } else {
+                    success = true;
                 }
             }
 
@@ -137,13 +119,9 @@ public class CFindService {
             log.error("C-FIND failed to {}: {}", pacsConfig.getAeTitle(), e.getMessage());
             throw new RuntimeException("C-FIND operation failed: " + e.getMessage(), e);
         } finally {
-            if (association != null && association.isReadyForDataTransfer()) {
-                try {
-                    association.release();
-                } catch (IOException e) {
-                    log.warn("Failed to release association", e);
-                }
-            }
+            metrics.recordFind(pacsConfig.getAeTitle(), level.name(), System.nanoTime() - start,
+                results.size(), success);
+            connector.release(association);
         }
 
         return results;
@@ -152,7 +130,7 @@ public class CFindService {
     /**
      * Build query keys for study-level query.
      */
-    private Attributes buildStudyQueryKeys(StudyQuery query) {
+    static Attributes buildStudyQueryKeys(StudyQuery query) {
         Attributes keys = new Attributes();
         keys.setString(Tag.QueryRetrieveLevel, VR.CS, "STUDY");
 
@@ -191,6 +169,38 @@ public class CFindService {
         return keys;
     }
 
+    /**
+     * Build query keys for series-level query.
+     */
+    static Attributes buildSeriesQueryKeys(String studyInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "SERIES");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setNull(Tag.SeriesInstanceUID, VR.UI);
+        keys.setNull(Tag.SeriesNumber, VR.IS);
+        keys.setNull(Tag.SeriesDescription, VR.LO);
+        keys.setNull(Tag.Modality, VR.CS);
+        keys.setNull(Tag.NumberOfSeriesRelatedInstances, VR.IS);
+        keys.setNull(Tag.BodyPartExamined, VR.CS);
+        return keys;
+    }
+
+    /**
+     * Build query keys for instance-level query.
+     */
+    static Attributes buildInstanceQueryKeys(String studyInstanceUid, String seriesInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "IMAGE");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+        keys.setNull(Tag.SOPInstanceUID, VR.UI);
+        keys.setNull(Tag.SOPClassUID, VR.UI);
+        keys.setNull(Tag.InstanceNumber, VR.IS);
+        keys.setNull(Tag.Rows, VR.US);
+        keys.setNull(Tag.Columns, VR.US);
+        return keys;
+    }
+
     /**
      * Query level enumeration.
      */
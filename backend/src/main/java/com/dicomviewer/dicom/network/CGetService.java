@@ -0,0 +1,175 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.net.*;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4che3.net.pdu.RoleSelection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+/**
+ * Service for DICOM C-GET operations.
+ * <p>
+ * Unlike C-MOVE, the PACS sends the instances back as C-STORE sub-operations on the same
+ * association, so no inbound connection or AE registration on the PACS side is needed. This
+ * suits archives behind NAT or without a routable move destination. Received instances are
+ * handled by {@link CStoreSCP}.
+ */
+@Service
+public class CGetService {
+
+    private static final Logger log = LoggerFactory.getLogger(CGetService.class);
+
+    // Study Root Query/Retrieve Information Model - GET SOP Class
+    private static final String STUDY_ROOT_GET = "1.2.840.10008.5.1.4.1.2.2.3";
+
+    private final DimseConnector connector;
+    private final DicomMetrics metrics;
+    private final TransferSyntaxPolicy transferSyntaxes;
+
+    @Autowired
+    public CGetService(DimseConnector connector, DicomMetrics metrics, TransferSyntaxPolicy transferSyntaxes) {
+        this.connector = connector;
+        this.metrics = metrics;
+        this.transferSyntaxes = transferSyntaxes;
+    }
+
+    /**
+     * Retrieve a study from a remote PACS using C-GET.
+     *
+     * @param pacsConfig       The remote PACS configuration
+     * @param studyInstanceUid The Study Instance UID to retrieve
+     * @return MoveResult with sub-operation counts
+     */
+    public CMoveService.MoveResult getStudy(PacsConfiguration pacsConfig, String studyInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "STUDY");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+
+        return get(pacsConfig, keys, Priority.NORMAL, null);
+    }
+
+    /**
+     * Retrieve a series from a remote PACS using C-GET.
+     */
+    public CMoveService.MoveResult getSeries(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                             String seriesInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "SERIES");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+
+        return get(pacsConfig, keys, Priority.NORMAL, null);
+    }
+
+    /**
+     * Retrieve a single instance from a remote PACS using C-GET.
+     */
+    public CMoveService.MoveResult getInstance(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                               String seriesInstanceUid, String sopInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "IMAGE");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+        keys.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
+
+        return get(pacsConfig, keys, Priority.NORMAL, null);
+    }
+
+    /**
+     * Association request proposing the GET model plus every storage SOP class with the
+     * SCP role, so the PACS may open C-STORE sub-operations back to us on this association.
+     */
+    AAssociateRQ createAssociateRQ() {
+        AAssociateRQ rq = new AAssociateRQ();
+        rq.addPresentationContext(new PresentationContext(1, STUDY_ROOT_GET, transferSyntaxes.control()));
+
+        transferSyntaxes.addStoragePresentationContexts(rq, 3);
+        for (String cuid : StorageSopClasses.SOP_CLASSES) {
+            rq.addRoleSelection(new RoleSelection(cuid, false, true));
+        }
+        return rq;
+    }
+
+    /**
+     * Execute a C-GET for arbitrary identifier keys, reporting pending sub-operation counts.
+     *
+     * @param keys     Identifier including Query/Retrieve Level and the unique keys to retrieve
+     * @param priority DIMSE priority, see {@link Priority}
+     * @param listener Receives each pending response's counts, may be {@code null}
+     */
+    public CMoveService.MoveResult get(PacsConfiguration pacsConfig, Attributes keys, int priority,
+                                       CMoveService.ProgressListener listener) {
+        Association association = null;
+        CMoveService.MoveResult result = new CMoveService.MoveResult();
+        long start = System.nanoTime();
+
+        try {
+            association = connector.connect(pacsConfig, "C-GET", createAssociateRQ());
+
+            DimseRSP rsp = association.cget(STUDY_ROOT_GET, priority, keys, null);
+
+            int completed = 0;
+            int failed = 0;
+            int warnings = 0;
+
+            while (rsp.next()) {
+                Attributes cmd = rsp.getCommand();
+                int status = cmd.getInt(Tag.Status, -1);
+
+                if (status == Status.Pending || status == Status.PendingWarning) {
+                    completed = cmd.getInt(Tag.NumberOfCompletedSuboperations, completed);
+                    failed = cmd.getInt(Tag.NumberOfFailedSuboperations, failed);
+                    warnings = cmd.getInt(Tag.NumberOfWarningSuboperations, warnings);
+
+                    int remaining = cmd.getInt(Tag.NumberOfRemainingSuboperations, 0);
+                    log.debug("C-GET progress: completed={}, failed={}, remaining={}",
+                        completed, failed, remaining);
+                    if (listener != null) {
+                        listener.onProgress(completed, failed, warnings, remaining);
+                    }
+                } else if (status == Status.Success) {
+                    completed = cmd.getInt(Tag.NumberOfCompletedSuboperations, completed);
+                    result.setSuccess(true);
+                } else {
+                    // Final counts are also reported on warning/failure status
+                    completed = cmd.getInt(Tag.NumberOfCompletedSuboperations, completed);
+                    failed = cmd.getInt(Tag.NumberOfFailedSuboperations, failed);
+                    warnings = cmd.getInt(Tag.NumberOfWarningSuboperations, warnings);
+                    log.warn("C-GET returned status: 0x{}", Integer.toHexString(status));
+                    result.setSuccess(false);
+                    result.setErrorMessage("C-GET failed with status: 0x" + Integer.toHexString(status));
+                }
+            }
+
+            result.setCompletedSuboperations(completed);
+            result.setFailedSuboperations(failed);
+            result.setWarningSuboperations(warnings);
+
+            log.info("C-GET completed: {} successful, {} failed, {} warnings",
+                completed, failed, warnings);
+
+        } catch (IOException | InterruptedException | IncompatibleConnectionException | GeneralSecurityException e) {
+            log.error("C-GET failed to {}: {}", pacsConfig.getAeTitle(), e.getMessage());
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+        } finally {
+            metrics.recordRetrieve(pacsConfig.getAeTitle(), "C-GET", keys.getString(Tag.QueryRetrieveLevel),
+                System.nanoTime() - start, result.getCompletedSuboperations(), result.getFailedSuboperations(),
+                result.getWarningSuboperations(), result.isSuccess());
+            connector.release(association);
+        }
+
+        return result;
+    }
+}
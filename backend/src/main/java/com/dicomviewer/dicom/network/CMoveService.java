@@ -1,9 +1,9 @@
 package com.dicomviewer.dicom.network;
 
+import com.dicomviewer.metrics.DicomMetrics;
 import com.dicomviewer.model.PacsConfiguration;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
-import org.dcm4che3.data.UID;
 import org.dcm4che3.data.VR;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.AAssociateRQ;
@@ -29,16 +29,18 @@ public class CMoveService {
     // Study Root Query/Retrieve Information Model - MOVE SOP Class
     private static final String STUDY_ROOT_MOVE = "1.2.840.10008.5.1.4.1.2.2.2";
 
-    private final ApplicationEntity applicationEntity;
-    private final Device device;
+    private final DimseConnector connector;
+    private final DicomMetrics metrics;
+    private final TransferSyntaxPolicy transferSyntaxes;
 
     @Value("${dicom.ae.title:DICOM_VIEWER}")
     private String localAeTitle;
 
     @Autowired
-    public CMoveService(ApplicationEntity applicationEntity, Device device) {
-        this.applicationEntity = applicationEntity;
-        this.device = device;
+    public CMoveService(DimseConnector connector, DicomMetrics metrics, TransferSyntaxPolicy transferSyntaxes) {
+        this.connector = connector;
+        this.metrics = metrics;
+        this.transferSyntaxes = transferSyntaxes;
     }
 
     /**
@@ -46,7 +48,7 @@ public class CMoveService {
      *
      * @param pacsConfig      The remote PACS configuration
      * @param studyInstanceUid The Study Instance UID to retrieve
-     * @param destinationAe   The destination AE title (usually the local AE)
+     * @param destinationAe   The destination AE title, or {@code null} for the local AE
      * @return MoveResult with status information
      */
     public MoveResult moveStudy(PacsConfiguration pacsConfig, String studyInstanceUid, String destinationAe) {
@@ -54,7 +56,7 @@ public class CMoveService {
         keys.setString(Tag.QueryRetrieveLevel, VR.CS, "STUDY");
         keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
 
-        return executeMove(pacsConfig, keys, destinationAe);
+        return move(pacsConfig, keys, destinationAe, Priority.NORMAL, null);
     }
 
     /**
@@ -67,7 +69,7 @@ public class CMoveService {
         keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
         keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
 
-        return executeMove(pacsConfig, keys, destinationAe);
+        return move(pacsConfig, keys, destinationAe, Priority.NORMAL, null);
     }
 
     /**
@@ -81,38 +83,34 @@ public class CMoveService {
         keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
         keys.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
 
-        return executeMove(pacsConfig, keys, destinationAe);
+        return move(pacsConfig, keys, destinationAe, Priority.NORMAL, null);
     }
 
     /**
-     * Execute a C-MOVE operation.
+     * Execute a C-MOVE for arbitrary identifier keys, reporting pending sub-operation counts.
+     *
+     * @param keys          Identifier including Query/Retrieve Level and the unique keys to retrieve
+     * @param destinationAe The destination AE title, or {@code null} for the local AE
+     * @param priority      DIMSE priority, see {@link Priority}
+     * @param listener      Receives each pending response's counts, may be {@code null}
      */
-    private MoveResult executeMove(PacsConfiguration pacsConfig, Attributes keys, String destinationAe) {
+    public MoveResult move(PacsConfiguration pacsConfig, Attributes keys, String destinationAe,
+                           int priority, ProgressListener listener) {
         Association association = null;
         MoveResult result = new MoveResult();
+        long start = System.nanoTime();
 
         try {
-            // Create connection to remote PACS
-            Connection remoteConn = new Connection();
-            remoteConn.setHostname(pacsConfig.getHost());
-            remoteConn.setPort(pacsConfig.getPort());
-
             // Create association request
             AAssociateRQ rq = new AAssociateRQ();
-            rq.setCalledAET(pacsConfig.getAeTitle());
-            rq.setCallingAET(applicationEntity.getAETitle());
-            rq.addPresentationContext(new PresentationContext(
-                1,
-                STUDY_ROOT_MOVE,
-                UID.ImplicitVRLittleEndian,
-                UID.ExplicitVRLittleEndian
-            ));
+            rq.addPresentationContext(new PresentationContext(1, STUDY_ROOT_MOVE, transferSyntaxes.control()));
 
             // Open association
-            association = applicationEntity.connect(remoteConn, rq);
+            association = connector.connect(pacsConfig, "C-MOVE", rq);
 
             // Execute C-MOVE
-            DimseRSP rsp = association.cmove(STUDY_ROOT_MOVE, Priority.NORMAL, keys, null, destinationAe);
+            DimseRSP rsp = association.cmove(STUDY_ROOT_MOVE, priority, keys, null,
+                destinationAe != null ? destinationAe : localAeTitle);
 
             int completed = 0;
             int failed = 0;
@@ -135,6 +133,9 @@ public class CMoveService {
 
                     log.debug("C-MOVE progress: completed={}, failed={}, remaining={}",
                         completedOps, failedOps, remaining);
+                    if (listener != null) {
+                        listener.onProgress(completed, failed, warnings, remaining);
+                    }
                 } else if (status == Status.Success) {
                     completed = cmd.getInt(Tag.NumberOfCompletedSuboperations, completed);
                     result.setSuccess(true);
@@ -157,18 +158,23 @@ public class CMoveService {
             result.setSuccess(false);
             result.setErrorMessage(e.getMessage());
         } finally {
-            if (association != null && association.isReadyForDataTransfer()) {
-                try {
-                    association.release();
-                } catch (IOException e) {
-                    log.warn("Failed to release association", e);
-                }
-            }
+            metrics.recordRetrieve(pacsConfig.getAeTitle(), "C-MOVE", keys.getString(Tag.QueryRetrieveLevel),
+                System.nanoTime() - start, result.getCompletedSuboperations(), result.getFailedSuboperations(),
+                result.getWarningSuboperations(), result.isSuccess());
+            connector.release(association);
         }
 
         return result;
     }
 
+    /**
+     * Callback for pending C-MOVE/C-GET responses.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int completed, int failed, int warnings, int remaining);
+    }
+
     /**
      * Result of a C-MOVE operation.
      */
@@ -0,0 +1,74 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.service.StorageService;
+import com.dicomviewer.storage.DicomHeaderReader;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.io.DicomOutputStream;
+import org.dcm4che3.net.Association;
+import org.dcm4che3.net.PDVInputStream;
+import org.dcm4che3.net.Status;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4che3.net.service.BasicCStoreSCP;
+import org.dcm4che3.net.service.DicomServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * C-STORE SCP that streams received instances into {@link StorageService}.
+ * <p>
+ * Handles both instances pushed to the local AE (e.g. as C-MOVE sub-operations) and
+ * instances returned on our own C-GET associations. Each dataset is spooled to
+ * {@code dicom.storage.temp-path} and then moved into the archive.
+ */
+@Component
+public class CStoreSCP extends BasicCStoreSCP {
+
+    private static final Logger log = LoggerFactory.getLogger(CStoreSCP.class);
+
+    private final StorageService storageService;
+
+    @Value("${dicom.storage.temp-path:${java.io.tmpdir}/dicom-temp}")
+    private String tempPath;
+
+    public CStoreSCP(StorageService storageService) {
+        super("*");
+        this.storageService = storageService;
+    }
+
+    @Override
+    protected void store(Association as, PresentationContext pc, Attributes rq,
+                         PDVInputStream data, Attributes rsp) throws IOException {
+        String cuid = rq.getString(Tag.AffectedSOPClassUID);
+        String iuid = rq.getString(Tag.AffectedSOPInstanceUID);
+        String tsuid = pc.getTransferSyntax();
+
+        Path dir = Paths.get(tempPath);
+        Files.createDirectories(dir);
+        File file = Files.createTempFile(dir, iuid, ".dcm").toFile();
+        try {
+            Attributes fmi = as.createFileMetaInformation(iuid, cuid, tsuid);
+            try (DicomOutputStream out = new DicomOutputStream(file)) {
+                out.writeFileMetaInformation(fmi);
+                data.copyTo(out);
+            }
+
+            Attributes dataset = DicomHeaderReader.read(file.toPath(), StorageService.INDEXED_TAGS).dataset();
+            storageService.storeInstance(file, dataset, fmi);
+            log.debug("Received {} from {}", iuid, as.getCallingAET());
+        } catch (Exception e) {
+            log.error("Failed to store {} from {}: {}", iuid, as.getCallingAET(), e.getMessage());
+            throw new DicomServiceException(Status.ProcessingFailure, e);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.net.Connection;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Client-side settings for one remote AE: the timeouts applied to associations with it and
+ * the cap on concurrent associations.
+ * <p>
+ * dcm4che reads timeouts from the local {@link Connection} an association is initiated from,
+ * so each profile owns a dedicated, non-listening local connection carrying its timeouts.
+ */
+public class DimseClientProfile {
+
+    private final String key;
+    private final Connection connection;
+    private volatile Semaphore permits;
+    private volatile int maxAssociations;
+    private volatile int connectTimeout;
+    private volatile int responseTimeout;
+    private volatile int queueTimeout;
+    private volatile long loadedAt;
+
+    DimseClientProfile(String key, Connection connection) {
+        this.key = key;
+        this.connection = connection;
+    }
+
+    /**
+     * Apply timeouts and association limit. The semaphore is replaced only when the limit
+     * changes; associations already holding a permit return it to the semaphore they took it from.
+     *
+     * @param connectTimeout  TCP connect timeout in ms
+     * @param artimTimeout    A-ASSOCIATE-AC and A-RELEASE-RP timeout in ms
+     * @param responseTimeout DIMSE response timeout in ms, also applied between C-MOVE/C-GET responses
+     * @param idleTimeout     Idle association timeout in ms
+     * @param maxAssociations Maximum concurrent associations
+     * @param queueTimeout    How long in ms a caller waits for a free association slot
+     */
+    synchronized void apply(int connectTimeout, int artimTimeout, int responseTimeout, int idleTimeout,
+                            int maxAssociations, int queueTimeout) {
+        connection.setConnectTimeout(connectTimeout);
+        connection.setRequestTimeout(artimTimeout);
+        connection.setReleaseTimeout(artimTimeout);
+        connection.setResponseTimeout(responseTimeout);
+        connection.setRetrieveTimeout(responseTimeout);
+        connection.setIdleTimeout(idleTimeout);
+        this.connectTimeout = connectTimeout;
+        this.responseTimeout = responseTimeout;
+        this.queueTimeout = queueTimeout;
+        if (permits == null || this.maxAssociations != maxAssociations) {
+            this.permits = new Semaphore(maxAssociations, true);
+            this.maxAssociations = maxAssociations;
+        }
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public Semaphore getPermits() {
+        return permits;
+    }
+
+    public int getMaxAssociations() {
+        return maxAssociations;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    public int getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    long getLoadedAt() {
+        return loadedAt;
+    }
+}
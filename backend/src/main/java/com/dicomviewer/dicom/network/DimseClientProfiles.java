@@ -0,0 +1,129 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.dicom.health.PacsCircuitBreakerRegistry;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.repository.ApplicationEntityRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import org.dcm4che3.net.ApplicationEntity;
+import org.dcm4che3.net.Connection;
+import org.dcm4che3.net.Device;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link DimseClientProfile} for a remote PACS.
+ * <p>
+ * Settings come from the {@code application_entities} row with the same AE title, falling back to
+ * the {@code dicom.client.*} defaults. Profiles are cached per {@code aeTitle@host:port} and
+ * re-read every {@code dicom.client.profile-refresh-ms}, so edits to an AE take effect without restart.
+ */
+@Component
+public class DimseClientProfiles {
+
+    private static final Logger log = LoggerFactory.getLogger(DimseClientProfiles.class);
+
+    private final Device device;
+    private final ApplicationEntity applicationEntity;
+    private final ApplicationEntityRepository aeRepository;
+    private final DicomMetrics metrics;
+    private final Map<String, DimseClientProfile> profiles = new ConcurrentHashMap<>();
+
+    @Value("${dicom.client.connect-timeout:30000}")
+    private int defaultConnectTimeout = 30000;
+
+    @Value("${dicom.client.response-timeout:60000}")
+    private int defaultResponseTimeout = 60000;
+
+    @Value("${dicom.client.artim-timeout:10000}")
+    private int artimTimeout = 10000;
+
+    @Value("${dicom.client.idle-timeout:60000}")
+    private int idleTimeout = 60000;
+
+    @Value("${dicom.client.max-associations:10}")
+    private int defaultMaxAssociations = 10;
+
+    @Value("${dicom.client.queue-timeout:20000}")
+    private int queueTimeout = 20000;
+
+    @Value("${dicom.client.profile-refresh-ms:60000}")
+    private long refreshMs = 60000;
+
+    public DimseClientProfiles(Device device, ApplicationEntity applicationEntity,
+                               ApplicationEntityRepository aeRepository, DicomMetrics metrics) {
+        this.device = device;
+        this.applicationEntity = applicationEntity;
+        this.aeRepository = aeRepository;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Profile for the given PACS, created or refreshed as needed.
+     */
+    public DimseClientProfile resolve(PacsConfiguration pacsConfig) {
+        String key = PacsCircuitBreakerRegistry.key(pacsConfig);
+        DimseClientProfile profile = profiles.computeIfAbsent(key, k -> create(k, pacsConfig));
+        if (System.currentTimeMillis() - profile.getLoadedAt() > refreshMs) {
+            load(profile, pacsConfig);
+        }
+        return profile;
+    }
+
+    private DimseClientProfile create(String key, PacsConfiguration pacsConfig) {
+        Connection connection = new Connection("client-" + key, device.listConnections().isEmpty()
+            ? null : device.listConnections().get(0).getHostname());
+        device.addConnection(connection);
+        applicationEntity.addConnection(connection);
+
+        DimseClientProfile profile = new DimseClientProfile(key, connection);
+        load(profile, pacsConfig);
+
+        Gauge.builder("dicom.association.active", profile,
+                p -> p.getMaxAssociations() - p.getPermits().availablePermits())
+            .description("Open associations to a PACS")
+            .tags(tags(pacsConfig))
+            .register(metrics.getRegistry());
+        Gauge.builder("dicom.association.queued", profile, p -> p.getPermits().getQueueLength())
+            .description("Callers waiting for an association slot")
+            .tags(tags(pacsConfig))
+            .register(metrics.getRegistry());
+        return profile;
+    }
+
+    private void load(DimseClientProfile profile, PacsConfiguration pacsConfig) {
+        int connectTimeout = defaultConnectTimeout;
+        int responseTimeout = defaultResponseTimeout;
+        int maxAssociations = defaultMaxAssociations;
+
+        var ae = aeRepository.findByAeTitle(pacsConfig.getAeTitle());
+        if (ae.isPresent()) {
+            connectTimeout = positiveOr(ae.get().getConnectionTimeout(), connectTimeout);
+            responseTimeout = positiveOr(ae.get().getResponseTimeout(), responseTimeout);
+            maxAssociations = positiveOr(ae.get().getMaxAssociations(), maxAssociations);
+        }
+
+        profile.apply(connectTimeout, artimTimeout, responseTimeout, idleTimeout, maxAssociations, queueTimeout);
+        log.debug("DIMSE client profile {}: connect={}ms response={}ms maxAssociations={}",
+            profile.getKey(), connectTimeout, responseTimeout, maxAssociations);
+    }
+
+    /**
+     * Profiles are per AE title, host and port, and so are their gauges; two PACS sharing an AE
+     * title would otherwise collapse into one meter.
+     */
+    private static Tags tags(PacsConfiguration pacsConfig) {
+        return Tags.of("pacs", pacsConfig.getAeTitle(), "host", String.valueOf(pacsConfig.getHost()),
+            "port", String.valueOf(pacsConfig.getPort()));
+    }
+
+    private static int positiveOr(Integer value, int fallback) {
+        return value != null && value > 0 ? value : fallback;
+    }
+}
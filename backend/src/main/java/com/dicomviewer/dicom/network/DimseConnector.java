@@ -0,0 +1,158 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.metrics.jfr.AssociationConnectEvent;
+import com.dicomviewer.metrics.jfr.AssociationReleaseEvent;
+import com.dicomviewer.model.PacsConfiguration;
+import org.dcm4che3.net.ApplicationEntity;
+import org.dcm4che3.net.Association;
+import org.dcm4che3.net.Connection;
+import org.dcm4che3.net.IncompatibleConnectionException;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens and releases associations with remote PACS on behalf of the DIMSE services.
+ * <p>
+ * Each association is opened from the remote AE's {@link DimseClientProfile}, which applies its
+ * timeouts and caps concurrent associations with a fair semaphore. Callers beyond the cap queue
+ * for up to the profile's queue timeout and then fail. C-ECHO
+ * associations are short and not counted against the cap, so a health probe measures the PACS
+ * rather than how busy our own associations are.
+ * Association setup latency is recorded per PACS and operation, and connect and release are
+ * emitted as JFR events.
+ */
+@Component
+public class DimseConnector {
+
+    private static final Logger log = LoggerFactory.getLogger(DimseConnector.class);
+
+    static final String ECHO = "C-ECHO";
+
+    private final ApplicationEntity applicationEntity;
+    private final DimseClientProfiles profiles;
+    private final DicomMetrics metrics;
+    private final Map<Association, Semaphore> leases = new ConcurrentHashMap<>();
+
+    public DimseConnector(ApplicationEntity applicationEntity, DimseClientProfiles profiles, DicomMetrics metrics) {
+        this.applicationEntity = applicationEntity;
+        this.profiles = profiles;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Open an association with the remote PACS.
+     * Called and calling AE titles are filled in from the configuration and the local AE.
+     *
+     * @param pacsConfig The remote PACS configuration
+     * @param operation  The DIMSE operation the association is for, used as a metric tag
+     * @param rq         Association request carrying the presentation contexts to propose
+     */
+    public Association connect(PacsConfiguration pacsConfig, String operation, AAssociateRQ rq)
+            throws IOException, InterruptedException, IncompatibleConnectionException, GeneralSecurityException {
+        Connection remoteConn = new Connection();
+        remoteConn.setHostname(pacsConfig.getHost());
+        remoteConn.setPort(pacsConfig.getPort());
+
+        rq.setCalledAET(pacsConfig.getAeTitle());
+        rq.setCallingAET(applicationEntity.getAETitle());
+
+        DimseClientProfile profile = profiles.resolve(pacsConfig);
+        Semaphore permits = ECHO.equals(operation) ? null : acquire(pacsConfig, profile);
+
+        AssociationConnectEvent event = new AssociationConnectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Association association = applicationEntity.connect(profile.getConnection(), remoteConn, rq);
+            if (permits != null) {
+                leases.put(association, permits);
+            }
+            success = true;
+            if (event.shouldCommit()) {
+                event.contextsAccepted = (int) association.getAAssociateAC().getPresentationContexts().stream()
+                    .filter(PresentationContext::isAccepted)
+                    .count();
+            }
+            return association;
+        } finally {
+            if (!success && permits != null) {
+                permits.release();
+            }
+            metrics.recordAssociationOpen(pacsConfig.getAeTitle(), operation, System.nanoTime() - start, success);
+            event.end();
+            if (event.shouldCommit()) {
+                event.calledAe = pacsConfig.getAeTitle();
+                event.host = pacsConfig.getHost();
+                event.port = pacsConfig.getPort();
+                event.operation = operation;
+                event.contextsProposed = rq.getPresentationContexts().size();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Release an association if it is still open, and return its slot to the profile.
+     */
+    public void release(Association association) {
+        if (association == null) {
+            return;
+        }
+        try {
+            if (association.isReadyForDataTransfer()) {
+                AssociationReleaseEvent event = new AssociationReleaseEvent();
+                event.begin();
+                try {
+                    association.release();
+                    event.success = true;
+                } catch (IOException e) {
+                    log.warn("Failed to release association", e);
+                } finally {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.calledAe = association.getCalledAET();
+                        event.commit();
+                    }
+                }
+            }
+        } finally {
+            Semaphore permits = leases.remove(association);
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Take an association slot, queueing fairly behind earlier callers when the cap is reached.
+     */
+    private Semaphore acquire(PacsConfiguration pacsConfig, DimseClientProfile profile)
+            throws IOException, InterruptedException {
+        Semaphore permits = profile.getPermits();
+        if (permits.tryAcquire()) {
+            return permits;
+        }
+        log.debug("All {} associations to {} in use, queueing", profile.getMaxAssociations(), profile.getKey());
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(profile.getQueueTimeout(), TimeUnit.MILLISECONDS);
+        metrics.recordAssociationQueued(pacsConfig.getAeTitle(), System.nanoTime() - start, acquired);
+        if (!acquired) {
+            throw new IOException("Timed out after " + profile.getQueueTimeout()
+                + "ms waiting for one of " + profile.getMaxAssociations() + " associations to " + profile.getKey());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,173 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Level-specific mapping of C-FIND result attributes to JSON field names.
+ * <p>
+ * Each query level only reads the tags its query keys actually request, and every
+ * result becomes a {@link QueryResultRow}: a read-only map backed by a single value
+ * array that shares the schema's key table instead of allocating a hash map per row.
+ */
+public enum QueryResultSchema {
+
+    STUDY(new int[] {
+            Tag.PatientID, Tag.PatientName, Tag.PatientBirthDate, Tag.PatientSex,
+            Tag.StudyInstanceUID, Tag.StudyDate, Tag.StudyTime, Tag.StudyDescription,
+            Tag.AccessionNumber, Tag.ModalitiesInStudy,
+            Tag.NumberOfStudyRelatedSeries, Tag.NumberOfStudyRelatedInstances
+        }, new String[] {
+            "PatientID", "PatientName", "PatientBirthDate", "PatientSex",
+            "StudyInstanceUID", "StudyDate", "StudyTime", "StudyDescription",
+            "AccessionNumber", "ModalitiesInStudy",
+            "NumberOfStudyRelatedSeries", "NumberOfStudyRelatedInstances"
+        }),
+
+    SERIES(new int[] {
+            Tag.StudyInstanceUID, Tag.SeriesInstanceUID, Tag.SeriesNumber,
+            Tag.SeriesDescription, Tag.Modality, Tag.NumberOfSeriesRelatedInstances
+        }, new String[] {
+            "StudyInstanceUID", "SeriesInstanceUID", "SeriesNumber",
+            "SeriesDescription", "Modality", "NumberOfSeriesRelatedInstances"
+        }),
+
+    IMAGE(new int[] {
+            Tag.StudyInstanceUID, Tag.SeriesInstanceUID, Tag.SOPInstanceUID,
+            Tag.SOPClassUID, Tag.InstanceNumber
+        }, new String[] {
+            "StudyInstanceUID", "SeriesInstanceUID", "SOPInstanceUID",
+            "SOPClassUID", "InstanceNumber"
+        });
+
+    private final int[] tags;
+    private final String[] keys;
+
+    QueryResultSchema(int[] tags, String[] keys) {
+        if (tags.length != keys.length) {
+            throw new IllegalArgumentException("Tag and key tables differ in length");
+        }
+        this.tags = tags;
+        this.keys = keys;
+    }
+
+    /**
+     * Convert a list of C-FIND results to rows for JSON serialization.
+     */
+    public List<Map<String, Object>> toRows(List<Attributes> attributesList) {
+        List<Map<String, Object>> rows = new ArrayList<>(attributesList.size());
+        for (Attributes attrs : attributesList) {
+            rows.add(toRow(attrs));
+        }
+        return rows;
+    }
+
+    /**
+     * Convert a single C-FIND result to a row. Empty values are omitted.
+     */
+    public QueryResultRow toRow(Attributes attrs) {
+        String[] values = new String[tags.length];
+        int size = 0;
+        for (int i = 0; i < tags.length; i++) {
+            String value = attrs.getString(tags[i]);
+            if (value != null && !value.isEmpty()) {
+                values[i] = value;
+                size++;
+            }
+        }
+        return new QueryResultRow(keys, values, size);
+    }
+
+    /**
+     * Read-only result row sharing its key table with the schema.
+     */
+    public static final class QueryResultRow extends AbstractMap<String, Object> {
+
+        private final String[] keys;
+        private final String[] values;
+        private final int size;
+
+        private QueryResultRow(String[] keys, String[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int index = indexOf(key);
+            return index >= 0 && values[index] != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private final class EntryIterator implements Iterator<Entry<String, Object>> {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                int i = from;
+                while (i < values.length && values[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[next], values[next]);
+                next = advance(next + 1);
+                return entry;
+            }
+        }
+    }
+}
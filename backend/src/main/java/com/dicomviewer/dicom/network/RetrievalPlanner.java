@@ -0,0 +1,412 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Splits a study retrieval into series-level, or for very large series instance-batch-level,
+ * C-MOVE/C-GET requests and runs them in parallel.
+ * <p>
+ * A single study-level request makes the PACS send the whole study over one association, one
+ * instance at a time. Here the series list is fetched with C-FIND first, and the resulting requests
+ * run over up to {@code max_associations} concurrent associations for the PACS (half for background
+ * work), one executor task per association taking requests off a shared queue. Other jobs and
+ * queries share those associations, so a part that finds them all busy waits in
+ * {@link DimseConnector} for up to the queue timeout, and is reported as failed if none frees up.
+ * Pending counts from all requests are combined into one {@link RetrievalProgress}, which can be
+ * polled by study UID while the retrieval runs. If the series query fails, a single study-level
+ * request is issued.
+ */
+@Service
+public class RetrievalPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(RetrievalPlanner.class);
+
+    private static final Duration FINISHED_RETENTION = Duration.ofMinutes(10);
+
+    private final CFindService cFindService;
+    private final CMoveService cMoveService;
+    private final CGetService cGetService;
+    private final DimseClientProfiles profiles;
+    private final ExecutorService ioExecutor;
+    private final Map<String, RetrievalProgress> retrievals = new ConcurrentHashMap<>();
+
+    @Value("${dicom.retrieve.parallel.enabled:true}")
+    private boolean parallelEnabled = true;
+
+    @Value("${dicom.retrieve.instance-batch-size:1000}")
+    private int instanceBatchSize = 1000;
+
+    public RetrievalPlanner(CFindService cFindService,
+                            CMoveService cMoveService,
+                            CGetService cGetService,
+                            DimseClientProfiles profiles,
+                            @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.cFindService = cFindService;
+        this.cMoveService = cMoveService;
+        this.cGetService = cGetService;
+        this.profiles = profiles;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Retrieve a study using the PACS's configured retrieve method, blocking until all
+     * requests have finished.
+     *
+     * @param destinationAe C-MOVE destination, or {@code null} for the local AE; ignored for C-GET
+     * @return Final combined progress
+     */
+    public RetrievalProgress retrieveStudy(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                           String destinationAe) {
+        return retrieveStudy(pacsConfig, studyInstanceUid, destinationAe, () -> RetrievalPriority.MEDIUM,
+            track(studyInstanceUid));
+    }
+
+    /**
+     * Register a pending retrieval of a study, replacing any earlier progress for it.
+     */
+    public RetrievalProgress track(String studyInstanceUid) {
+        pruneFinished();
+        RetrievalProgress progress = new RetrievalProgress(UUID.randomUUID().toString());
+        retrievals.put(studyInstanceUid, progress);
+        return progress;
+    }
+
+    /**
+     * Retrieve a study, reporting into a progress obtained from {@link #track}.
+     * Background retrievals use at most half of the PACS's associations, leaving room
+     * for interactive ones. Priority is read again before each request, so a retrieval promoted
+     * while it runs sends its remaining requests at the new DIMSE priority and widens to the
+     * full association share; requests already in flight keep the priority they were sent with.
+     */
+    public RetrievalProgress retrieveStudy(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                           String destinationAe, Supplier<RetrievalPriority> priority,
+                                           RetrievalProgress progress) {
+        List<Request> requests = plan(pacsConfig, studyInstanceUid);
+        StudyRetrieval retrieval = new StudyRetrieval(pacsConfig, requests, destinationAe, priority, progress,
+            profiles.resolve(pacsConfig).getMaxAssociations());
+        log.info("Retrieving study {} from {} at {} priority as {} request(s) over {} association(s)",
+            studyInstanceUid, pacsConfig.getAeTitle(), priority.get(), requests.size(),
+            retrieval.associations());
+
+        progress.setStatus(RetrievalProgress.Status.IN_PROGRESS);
+        refresh(progress, retrieval.parts);
+        retrieval.run();
+
+        finish(progress, retrieval.parts);
+        log.info("Retrieval of study {} finished: {} ({} completed, {} failed, {} warnings)",
+            studyInstanceUid, progress.getStatus(), progress.getCompleted(), progress.getFailed(),
+            progress.getWarnings());
+        return progress;
+    }
+
+    private void runPart(PacsConfiguration pacsConfig, Request request, Part part, List<Part> parts,
+                         String destinationAe, RetrievalPriority priority, RetrievalProgress progress) {
+        try {
+            part.result = execute(pacsConfig, request, destinationAe, priority, (completed, failed, warnings, remaining) -> {
+                part.update(completed, failed, warnings, remaining);
+                refresh(progress, parts);
+            });
+        } catch (RuntimeException e) {
+            part.result = new CMoveService.MoveResult();
+            part.result.setErrorMessage(e.getMessage());
+        }
+        part.complete();
+        refresh(progress, parts);
+    }
+
+    /**
+     * Progress of the latest retrieval of a study, if any.
+     */
+    public RetrievalProgress getProgress(String studyInstanceUid) {
+        return retrievals.get(studyInstanceUid);
+    }
+
+    /**
+     * One request per series, with series above {@code instance-batch-size} split into
+     * IMAGE-level requests carrying a list of SOP Instance UIDs.
+     */
+    List<Request> plan(PacsConfiguration pacsConfig, String studyInstanceUid) {
+        Request wholeStudy = new Request(studyKeys(studyInstanceUid), 0);
+        if (!parallelEnabled) {
+            return List.of(wholeStudy);
+        }
+
+        List<Attributes> series;
+        try {
+            series = cFindService.findSeries(pacsConfig, studyInstanceUid);
+        } catch (RuntimeException e) {
+            log.warn("Series query for {} failed, retrieving whole study: {}", studyInstanceUid, e.getMessage());
+            return List.of(wholeStudy);
+        }
+
+        List<Request> requests = new ArrayList<>();
+        for (Attributes s : series) {
+            String seriesUid = s.getString(Tag.SeriesInstanceUID);
+            if (seriesUid == null) {
+                continue;
+            }
+            int instances = s.getInt(Tag.NumberOfSeriesRelatedInstances, 0);
+            if (instanceBatchSize > 0 && instances > instanceBatchSize) {
+                requests.addAll(planInstanceBatches(pacsConfig, studyInstanceUid, seriesUid, instances));
+            } else {
+                requests.add(new Request(seriesKeys(studyInstanceUid, seriesUid), instances));
+            }
+        }
+        return requests.size() > 1 ? requests : List.of(wholeStudy);
+    }
+
+    private List<Request> planInstanceBatches(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                              String seriesUid, int instances) {
+        List<String> sopUids = new ArrayList<>(instances);
+        try {
+            for (Attributes instance : cFindService.findInstances(pacsConfig, studyInstanceUid, seriesUid)) {
+                String sopUid = instance.getString(Tag.SOPInstanceUID);
+                if (sopUid != null) {
+                    sopUids.add(sopUid);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Instance query for series {} failed, retrieving whole series: {}", seriesUid, e.getMessage());
+        }
+        if (sopUids.isEmpty()) {
+            return List.of(new Request(seriesKeys(studyInstanceUid, seriesUid), instances));
+        }
+
+        List<Request> batches = new ArrayList<>();
+        for (int from = 0; from < sopUids.size(); from += instanceBatchSize) {
+            List<String> batch = sopUids.subList(from, Math.min(from + instanceBatchSize, sopUids.size()));
+            batches.add(new Request(instanceKeys(studyInstanceUid, seriesUid, batch), batch.size()));
+        }
+        return batches;
+    }
+
+    private CMoveService.MoveResult execute(PacsConfiguration pacsConfig, Request request, String destinationAe,
+                                            RetrievalPriority priority, CMoveService.ProgressListener listener) {
+        if (pacsConfig.getRetrieveMethod() == PacsConfiguration.RetrieveMethod.C_GET) {
+            return cGetService.get(pacsConfig, request.keys, priority.getDimsePriority(), listener);
+        }
+        return cMoveService.move(pacsConfig, request.keys, destinationAe, priority.getDimsePriority(), listener);
+    }
+
+    private static void refresh(RetrievalProgress progress, List<Part> parts) {
+        synchronized (progress) {
+            int total = 0;
+            int completed = 0;
+            int failed = 0;
+            int warnings = 0;
+            for (Part part : parts) {
+                total += part.total();
+                completed += part.completed;
+                failed += part.failed;
+                warnings += part.warnings;
+            }
+            progress.setTotal(total);
+            progress.setCompleted(completed);
+            progress.setFailed(failed);
+            progress.setWarnings(warnings);
+        }
+    }
+
+    private static void finish(RetrievalProgress progress, List<Part> parts) {
+        refresh(progress, parts);
+        boolean allSucceeded = true;
+        String error = null;
+        for (Part part : parts) {
+            if (!part.result.isSuccess()) {
+                allSucceeded = false;
+                if (error == null) {
+                    error = part.result.getErrorMessage();
+                }
+            }
+        }
+        progress.setErrorMessage(error);
+        if (allSucceeded && progress.getFailed() == 0) {
+            progress.setStatus(RetrievalProgress.Status.COMPLETED);
+        } else if (progress.getCompleted() > 0) {
+            progress.setStatus(RetrievalProgress.Status.COMPLETED_WITH_ERRORS);
+        } else {
+            progress.setStatus(RetrievalProgress.Status.FAILED);
+        }
+    }
+
+    private void pruneFinished() {
+        Instant cutoff = Instant.now().minus(FINISHED_RETENTION);
+        retrievals.values().removeIf(p -> p.getEndTime() != null && p.getEndTime().isBefore(cutoff));
+    }
+
+    /**
+     * Convert combined progress to the result shape returned by single C-MOVE/C-GET requests.
+     */
+    public static CMoveService.MoveResult toMoveResult(RetrievalProgress progress) {
+        CMoveService.MoveResult result = new CMoveService.MoveResult();
+        result.setSuccess(progress.getStatus() == RetrievalProgress.Status.COMPLETED);
+        result.setCompletedSuboperations(progress.getCompleted());
+        result.setFailedSuboperations(progress.getFailed());
+        result.setWarningSuboperations(progress.getWarnings());
+        result.setErrorMessage(progress.getErrorMessage());
+        return result;
+    }
+
+    static Attributes studyKeys(String studyInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "STUDY");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        return keys;
+    }
+
+    static Attributes seriesKeys(String studyInstanceUid, String seriesInstanceUid) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "SERIES");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+        return keys;
+    }
+
+    static Attributes instanceKeys(String studyInstanceUid, String seriesInstanceUid, List<String> sopInstanceUids) {
+        Attributes keys = new Attributes();
+        keys.setString(Tag.QueryRetrieveLevel, VR.CS, "IMAGE");
+        keys.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+        keys.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+        keys.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUids.toArray(String[]::new));
+        return keys;
+    }
+
+    /**
+     * One C-MOVE/C-GET request of a plan, with the instance count known from C-FIND (0 if unknown).
+     */
+    record Request(Attributes keys, int expected) {
+    }
+
+    /**
+     * The parts of one study retrieval and the association tasks working through them.
+     * <p>
+     * One task per association takes parts off a shared queue, so waiting parts never hold a thread
+     * of the I/O executor that association readers and C-STORE handling also need. Tasks are added
+     * whenever the current priority allows more associations than are running.
+     */
+    private final class StudyRetrieval {
+        private final PacsConfiguration pacsConfig;
+        private final List<Request> requests;
+        private final List<Part> parts;
+        private final String destinationAe;
+        private final Supplier<RetrievalPriority> priority;
+        private final RetrievalProgress progress;
+        private final int maxAssociations;
+        private final Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+        private final Queue<CompletableFuture<Void>> workers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger started = new AtomicInteger();
+
+        private StudyRetrieval(PacsConfiguration pacsConfig, List<Request> requests, String destinationAe,
+                               Supplier<RetrievalPriority> priority, RetrievalProgress progress,
+                               int maxAssociations) {
+            this.pacsConfig = pacsConfig;
+            this.requests = requests;
+            this.destinationAe = destinationAe;
+            this.priority = priority;
+            this.progress = progress;
+            this.maxAssociations = maxAssociations;
+            this.parts = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                parts.add(new Part(requests.get(i).expected));
+                pending.add(i);
+            }
+        }
+
+        /**
+         * Associations allowed at the current priority.
+         */
+        private int associations() {
+            int allowed = priority.get().isBackground() ? maxAssociations / 2 : maxAssociations;
+            return Math.max(1, Math.min(allowed, requests.size()));
+        }
+
+        /**
+         * Run every part, returning once the last task has finished.
+         */
+        private void run() {
+            startWorkers();
+            // A task only adds another before it finishes itself, so an empty queue means all are done
+            CompletableFuture<Void> worker;
+            while ((worker = workers.poll()) != null) {
+                worker.join();
+            }
+        }
+
+        private void startWorkers() {
+            int running;
+            while ((running = started.get()) < associations() && !pending.isEmpty()) {
+                if (started.compareAndSet(running, running + 1)) {
+                    workers.add(CompletableFuture.runAsync(this::work, ioExecutor));
+                }
+            }
+        }
+
+        private void work() {
+            Integer next;
+            while ((next = pending.poll()) != null) {
+                runPart(pacsConfig, requests.get(next), parts.get(next), parts, destinationAe, priority.get(),
+                    progress);
+                // Promoted since the last part: widen to the larger association share
+                startWorkers();
+            }
+        }
+    }
+
+    /**
+     * Latest counts reported for one request.
+     */
+    private static final class Part {
+        private final int expected;
+        private volatile int completed;
+        private volatile int failed;
+        private volatile int warnings;
+        private volatile int remaining;
+        private volatile CMoveService.MoveResult result;
+
+        private Part(int expected) {
+            this.expected = expected;
+        }
+
+        private void update(int completed, int failed, int warnings, int remaining) {
+            this.completed = completed;
+            this.failed = failed;
+            this.warnings = warnings;
+            this.remaining = remaining;
+        }
+
+        private void complete() {
+            completed = Math.max(completed, result.getCompletedSuboperations());
+            failed = Math.max(failed, result.getFailedSuboperations());
+            warnings = Math.max(warnings, result.getWarningSuboperations());
+            remaining = 0;
+        }
+
+        private int total() {
+            return Math.max(expected, completed + failed + warnings + remaining);
+        }
+    }
+}
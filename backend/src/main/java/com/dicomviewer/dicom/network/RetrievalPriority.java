@@ -0,0 +1,30 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.net.Priority;
+
+/**
+ * Priority classes for study retrieval, in scheduling order, with the DIMSE priority
+ * sent in the C-MOVE/C-GET request.
+ */
+public enum RetrievalPriority {
+    /** A user is waiting for the study to open. */
+    HIGH(Priority.HIGH),
+    /** Explicit requests nobody is actively waiting on. */
+    MEDIUM(Priority.NORMAL),
+    /** Prefetch and auto-routing. */
+    LOW(Priority.LOW);
+
+    private final int dimsePriority;
+
+    RetrievalPriority(int dimsePriority) {
+        this.dimsePriority = dimsePriority;
+    }
+
+    public int getDimsePriority() {
+        return dimsePriority;
+    }
+
+    public boolean isBackground() {
+        return this == LOW;
+    }
+}
@@ -0,0 +1,214 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.dicom.health.PacsCircuitBreakerRegistry;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Queues study retrievals per PACS and runs them in priority order.
+ * <p>
+ * Each PACS has its own queue and runs at most {@code dicom.retrieve.scheduler.jobs-per-pacs}
+ * retrievals at once, one slot of which is kept free of {@link RetrievalPriority#LOW} work so an
+ * interactive request never waits behind prefetch. Queued jobs age: every
+ * {@code dicom.retrieve.scheduler.aging-ms} spent waiting raises a job one priority class, so
+ * low-priority jobs still finish under sustained interactive load. Aging is re-checked every
+ * {@code dicom.retrieve.scheduler.dispatch-interval-ms} as well as whenever a job is submitted or
+ * finishes, so an aged job does not wait for unrelated activity to start it. Submitting a study
+ * that is already queued or running for the same destination returns the existing job, promoted if
+ * the new request has higher priority: a queued job moves ahead of every job of its new class, and
+ * a running one sends its remaining requests at the new priority, over the wider association share
+ * {@link RetrievalPlanner} gives it.
+ */
+@Service
+public class RetrievalScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RetrievalScheduler.class);
+
+    private final RetrievalPlanner planner;
+    private final DicomMetrics metrics;
+    private final ExecutorService ioExecutor;
+    private final Map<String, PacsQueue> queues = new ConcurrentHashMap<>();
+
+    @Value("${dicom.retrieve.scheduler.jobs-per-pacs:2}")
+    private int jobsPerPacs = 2;
+
+    @Value("${dicom.retrieve.scheduler.aging-ms:60000}")
+    private long agingMs = 60000;
+
+    public RetrievalScheduler(RetrievalPlanner planner, DicomMetrics metrics,
+                              @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.planner = planner;
+        this.metrics = metrics;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Queue a study retrieval.
+     *
+     * @param destinationAe C-MOVE destination, or {@code null} for the local AE; ignored for C-GET
+     * @return Future completing with the final progress of the retrieval
+     */
+    public CompletableFuture<RetrievalProgress> submit(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                                       String destinationAe, RetrievalPriority priority) {
+        PacsQueue queue = queues.computeIfAbsent(PacsCircuitBreakerRegistry.key(pacsConfig),
+            k -> createQueue(pacsConfig));
+        String key = jobKey(pacsConfig, studyInstanceUid, destinationAe);
+        Job job;
+        synchronized (queue) {
+            job = queue.jobs.get(key);
+            if (job != null) {
+                if (priority.ordinal() < job.priority.ordinal()) {
+                    log.info("Promoting {} retrieval of {} from {} to {}", job.started ? "running" : "queued",
+                        studyInstanceUid, job.priority, priority);
+                    job.priority = priority;
+                    if (!job.started) {
+                        // The user is waiting now, ahead of jobs that were already at this priority
+                        queue.waiting.remove(job);
+                        queue.waiting.add(0, job);
+                    }
+                }
+            } else {
+                job = new Job(key, pacsConfig, studyInstanceUid, destinationAe, priority,
+                    planner.track(studyInstanceUid));
+                queue.jobs.put(key, job);
+                queue.waiting.add(job);
+            }
+        }
+        dispatch(queue);
+        return job.future;
+    }
+
+    /**
+     * Start queued jobs that have aged into a free slot since the last submit or completion.
+     */
+    @Scheduled(fixedDelayString = "${dicom.retrieve.scheduler.dispatch-interval-ms:10000}")
+    public void dispatchAll() {
+        queues.values().forEach(this::dispatch);
+    }
+
+    /**
+     * Start queued jobs while the PACS has free slots.
+     */
+    private void dispatch(PacsQueue queue) {
+        List<Job> started = new ArrayList<>();
+        synchronized (queue) {
+            long now = System.currentTimeMillis();
+            while (queue.running < jobsPerPacs && !queue.waiting.isEmpty()) {
+                Job next = next(queue.waiting, now);
+                boolean lastSlot = queue.running == jobsPerPacs - 1 && jobsPerPacs > 1;
+                if (lastSlot && effectivePriority(next, now).isBackground()) {
+                    break;
+                }
+                queue.waiting.remove(next);
+                queue.running++;
+                next.started = true;
+                started.add(next);
+            }
+        }
+        for (Job job : started) {
+            CompletableFuture.supplyAsync(() -> planner.retrieveStudy(job.pacsConfig, job.studyInstanceUid,
+                    job.destinationAe, () -> job.priority, job.progress), ioExecutor)
+                .whenComplete((progress, e) -> {
+                    synchronized (queue) {
+                        queue.running--;
+                        queue.jobs.remove(job.key);
+                    }
+                    dispatch(queue);
+                    if (e != null) {
+                        job.progress.setErrorMessage(e.getMessage());
+                        job.progress.setStatus(RetrievalProgress.Status.FAILED);
+                        job.future.completeExceptionally(e);
+                    } else {
+                        job.future.complete(progress);
+                    }
+                });
+        }
+    }
+
+    /**
+     * Highest effective priority, earliest in the queue among equals: oldest first, except that
+     * promoted jobs are moved to the front.
+     */
+    private Job next(List<Job> waiting, long now) {
+        Job best = null;
+        for (Job job : waiting) {
+            if (best == null || effectivePriority(job, now).ordinal() < effectivePriority(best, now).ordinal()) {
+                best = job;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * C-GET always retrieves to us, so its destination does not distinguish jobs.
+     */
+    private static String jobKey(PacsConfiguration pacsConfig, String studyInstanceUid, String destinationAe) {
+        if (destinationAe == null || pacsConfig.getRetrieveMethod() == PacsConfiguration.RetrieveMethod.C_GET) {
+            return studyInstanceUid;
+        }
+        return studyInstanceUid + "@" + destinationAe;
+    }
+
+    private RetrievalPriority effectivePriority(Job job, long now) {
+        int classes = agingMs > 0 ? (int) ((now - job.queuedAt) / agingMs) : 0;
+        return RetrievalPriority.values()[Math.max(0, job.priority.ordinal() - classes)];
+    }
+
+    private PacsQueue createQueue(PacsConfiguration pacsConfig) {
+        PacsQueue queue = new PacsQueue();
+        Gauge.builder("dicom.retrieve.queued", queue, q -> {
+                synchronized (q) {
+                    return q.waiting.size();
+                }
+            })
+            .description("Study retrievals waiting for a PACS slot")
+            .tag("pacs", pacsConfig.getAeTitle())
+            .register(metrics.getRegistry());
+        return queue;
+    }
+
+    private static final class PacsQueue {
+        private final List<Job> waiting = new ArrayList<>();
+        private final Map<String, Job> jobs = new HashMap<>();
+        private int running;
+    }
+
+    private static final class Job {
+        private final String key;
+        private final PacsConfiguration pacsConfig;
+        private final String studyInstanceUid;
+        private final String destinationAe;
+        private final RetrievalProgress progress;
+        private final long queuedAt = System.currentTimeMillis();
+        private final CompletableFuture<RetrievalProgress> future = new CompletableFuture<>();
+        private volatile RetrievalPriority priority;
+        private boolean started;
+
+        private Job(String key, PacsConfiguration pacsConfig, String studyInstanceUid, String destinationAe,
+                    RetrievalPriority priority, RetrievalProgress progress) {
+            this.key = key;
+            this.pacsConfig = pacsConfig;
+            this.studyInstanceUid = studyInstanceUid;
+            this.destinationAe = destinationAe;
+            this.priority = priority;
+            this.progress = progress;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.UID;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Storage SOP classes this application accepts as a C-STORE SCP, whether on inbound
+ * associations or as C-GET sub-operations. Transfer syntaxes come from {@link TransferSyntaxPolicy}.
+ */
+public final class StorageSopClasses {
+
+    /**
+     * Image storage classes, accepted in every configured storage transfer syntax.
+     */
+    public static final List<String> IMAGES = List.of(
+        UID.CTImageStorage,
+        UID.MRImageStorage,
+        UID.ComputedRadiographyImageStorage,
+        UID.DigitalXRayImageStorageForPresentation,
+        UID.SecondaryCaptureImageStorage,
+        UID.UltrasoundImageStorage,
+        UID.XRayAngiographicImageStorage,
+        UID.NuclearMedicineImageStorage
+    );
+
+    /**
+     * Structured reports, key object selections and presentation states. They carry no pixel
+     * data, so only uncompressed transfer syntaxes are offered for them.
+     */
+    public static final List<String> DOCUMENTS = List.of(
+        UID.BasicTextSRStorage,
+        UID.EnhancedSRStorage,
+        UID.ComprehensiveSRStorage,
+        UID.Comprehensive3DSRStorage,
+        UID.XRayRadiationDoseSRStorage,
+        UID.KeyObjectSelectionDocumentStorage,
+        UID.GrayscaleSoftcopyPresentationStateStorage,
+        UID.ColorSoftcopyPresentationStateStorage
+    );
+
+    public static final List<String> SOP_CLASSES = Stream.concat(IMAGES.stream(), DOCUMENTS.stream()).toList();
+
+    private StorageSopClasses() {
+    }
+}
@@ -0,0 +1,129 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.UID;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Transfer syntaxes proposed and accepted on DIMSE associations.
+ * <p>
+ * Storage (C-STORE SCP and C-GET sub-operations) accepts the compressed syntaxes in
+ * {@code dicom.transfer-syntaxes.storage}, so archives can send objects as they hold them and
+ * they are stored without decompression. C-FIND can additionally propose Deflated Explicit VR
+ * Little Endian ({@code dicom.transfer-syntaxes.query-deflate}) to shrink large result sets.
+ * Entries may be dcm4che UID keywords such as {@code JPEGLSLossless} or dotted UIDs.
+ * Explicit and Implicit VR Little Endian are always appended as a fallback.
+ */
+@Component
+public class TransferSyntaxPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferSyntaxPolicy.class);
+
+    private static final int MAX_PRESENTATION_CONTEXTS = 128;
+
+    private static final String[] UNCOMPRESSED = {
+        UID.ExplicitVRLittleEndian,
+        UID.ImplicitVRLittleEndian
+    };
+
+    static final String DEFAULT_STORAGE = "JPEGLSLossless,JPEGLSNearLossless,HTJ2KLossless,HTJ2KLosslessRPCL,"
+        + "HTJ2K,JPEG2000Lossless,JPEG2000,JPEGLosslessSV1,JPEGLossless,JPEGBaseline8Bit,JPEGExtended12Bit,"
+        + "RLELossless,DeflatedExplicitVRLittleEndian";
+
+    private final String[] storage;
+    private final String[] compressed;
+    private final String[] query;
+
+    public TransferSyntaxPolicy(
+            @Value("${dicom.transfer-syntaxes.storage:" + DEFAULT_STORAGE + "}") String[] storage,
+            @Value("${dicom.transfer-syntaxes.query-deflate:false}") boolean queryDeflate) {
+        this.storage = withFallback(storage);
+        this.compressed = Arrays.stream(this.storage)
+            .filter(uid -> !Arrays.asList(UNCOMPRESSED).contains(uid))
+            .toArray(String[]::new);
+        this.query = queryDeflate
+            ? withFallback(new String[] {UID.DeflatedExplicitVRLittleEndian})
+            : UNCOMPRESSED.clone();
+        log.info("Storage transfer syntaxes: {}", Arrays.toString(this.storage));
+    }
+
+    /**
+     * Syntaxes accepted for received instances, in preference order.
+     */
+    public String[] storage() {
+        return storage.clone();
+    }
+
+    /**
+     * Syntaxes proposed for C-FIND, whose result datasets are encoded in the accepted syntax.
+     */
+    public String[] query() {
+        return query.clone();
+    }
+
+    /**
+     * Syntaxes proposed for C-ECHO, C-MOVE and C-GET, whose only datasets are small identifiers.
+     */
+    public String[] control() {
+        return UNCOMPRESSED.clone();
+    }
+
+    /**
+     * Syntaxes accepted for {@link StorageSopClasses#DOCUMENTS}, which have no pixel data to compress.
+     */
+    public String[] documents() {
+        return UNCOMPRESSED.clone();
+    }
+
+    /**
+     * Add storage presentation contexts for C-GET sub-operations, starting at {@code firstPcid}.
+     * Each compressed syntax gets its own context so the archive can pick the one matching how
+     * it holds each image, and the uncompressed syntaxes share one more; if that would exceed the
+     * 128-context limit, one context per SOP class carries all syntaxes instead. Non-image classes
+     * get a single uncompressed context.
+     */
+    public void addStoragePresentationContexts(AAssociateRQ rq, int firstPcid) {
+        int available = MAX_PRESENTATION_CONTEXTS - rq.getNumberOfPresentationContexts()
+            - StorageSopClasses.DOCUMENTS.size();
+        boolean perSyntax = StorageSopClasses.IMAGES.size() * (compressed.length + 1) <= available;
+        int pcid = firstPcid;
+        for (String cuid : StorageSopClasses.IMAGES) {
+            if (perSyntax) {
+                for (String tsuid : compressed) {
+                    rq.addPresentationContext(new PresentationContext(pcid, cuid, tsuid));
+                    pcid += 2;
+                }
+                rq.addPresentationContext(new PresentationContext(pcid, cuid, UNCOMPRESSED));
+                pcid += 2;
+            } else {
+                rq.addPresentationContext(new PresentationContext(pcid, cuid, storage));
+                pcid += 2;
+            }
+        }
+        for (String cuid : StorageSopClasses.DOCUMENTS) {
+            rq.addPresentationContext(new PresentationContext(pcid, cuid, UNCOMPRESSED));
+            pcid += 2;
+        }
+    }
+
+    private static String[] withFallback(String[] configured) {
+        Set<String> uids = new LinkedHashSet<>();
+        for (String entry : configured) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            uids.add(Character.isDigit(trimmed.charAt(0)) ? trimmed : UID.forName(trimmed));
+        }
+        uids.addAll(Arrays.asList(UNCOMPRESSED));
+        return uids.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,127 @@
+package com.dicomviewer.dicom.transcode;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.metrics.jfr.PixelRenderEvent;
+import com.dicomviewer.service.InstanceStoredEvent;
+import com.dicomviewer.service.StorageService;
+import org.dcm4che3.imageio.codec.Transcoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Re-encodes newly stored instances to the syntax chosen by {@link TranscodePolicy}.
+ * <p>
+ * Runs after the storing transaction commits, on its own bounded pool. When that pool's queue is
+ * full the instance is kept as received and counted as dropped, so transcoding never runs on, or
+ * slows down, the association that stored it. The result is written next to the original and
+ * moved over it atomically, and is kept only if it is smaller.
+ */
+@Component
+public class IngestTranscoder {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestTranscoder.class);
+
+    static final String STAGE = "ingest";
+    static final String SKIPPED = "skipped";
+    static final String DROPPED = "dropped";
+
+    private final TranscodePolicy policy;
+    private final StorageService storageService;
+    private final DicomMetrics metrics;
+    private final ExecutorService transcodeExecutor;
+
+    public IngestTranscoder(TranscodePolicy policy, StorageService storageService, DicomMetrics metrics,
+                            @Qualifier(ExecutorConfig.INGEST_TRANSCODE_EXECUTOR) ExecutorService transcodeExecutor) {
+        this.policy = policy;
+        this.storageService = storageService;
+        this.metrics = metrics;
+        this.transcodeExecutor = transcodeExecutor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInstanceStored(InstanceStoredEvent event) {
+        if (event.packed()) {
+            // Packed instances are small by definition and cannot be rewritten in place
+            return;
+        }
+        String target = policy.targetFor(event.modality(), event.transferSyntaxUid(), event.frames());
+        if (target == null) {
+            return;
+        }
+        try {
+            transcodeExecutor.execute(() -> transcode(event, target));
+        } catch (RejectedExecutionException e) {
+            log.debug("Transcode queue full, keeping {} as received", event.sopInstanceUid());
+            metrics.recordTranscode(STAGE, event.modality() != null ? event.modality() : "unknown", target, 0,
+                event.fileSize(), 0, DROPPED);
+        }
+    }
+
+    /**
+     * Transcode one instance in place and update its index row.
+     */
+    void transcode(InstanceStoredEvent event, String target) {
+        Path source = Paths.get(event.filePath());
+        Path temp = source.resolveSibling(source.getFileName() + ".transcode");
+        String modality = event.modality() != null ? event.modality() : "unknown";
+        long start = System.nanoTime();
+        long outputBytes = 0;
+        String result = DicomMetrics.FAILURE;
+
+        PixelRenderEvent jfr = new PixelRenderEvent();
+        jfr.begin();
+        try {
+            try (Transcoder transcoder = new Transcoder(source.toFile())) {
+                transcoder.setIncludeFileMetaInformation(true);
+                transcoder.setDestinationTransferSyntax(target);
+                transcoder.transcode((t, dataset) -> new BufferedOutputStream(Files.newOutputStream(temp)));
+            }
+            outputBytes = Files.size(temp);
+            if (outputBytes >= event.fileSize()) {
+                log.debug("Transcoding {} to {} did not reduce size ({} -> {} bytes), keeping original",
+                    event.sopInstanceUid(), target, event.fileSize(), outputBytes);
+                result = SKIPPED;
+            } else {
+                Files.move(temp, source, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                storageService.updateEncoding(event.sopInstanceUid(), target, outputBytes);
+                result = DicomMetrics.SUCCESS;
+                log.debug("Transcoded {} to {}: {} -> {} bytes", event.sopInstanceUid(), target,
+                    event.fileSize(), outputBytes);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to transcode {} to {}: {}", event.sopInstanceUid(), target, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Failed to delete {}: {}", temp, e.getMessage());
+            }
+            metrics.recordTranscode(STAGE, modality, target, System.nanoTime() - start, event.fileSize(),
+                outputBytes, result);
+            jfr.end();
+            if (jfr.shouldCommit()) {
+                jfr.sopInstanceUid = event.sopInstanceUid();
+                jfr.sourceTransferSyntaxUid = event.transferSyntaxUid();
+                jfr.target = target;
+                jfr.frames = event.frames();
+                jfr.inputBytes = event.fileSize();
+                jfr.outputBytes = outputBytes;
+                jfr.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.dicomviewer.dicom.transcode;
+
+import org.dcm4che3.data.UID;
+import org.dcm4che3.imageio.codec.ImageWriterFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses the storage transfer syntax for newly received instances, per modality.
+ * <p>
+ * {@code dicom.transcode.modality-syntaxes} maps modalities to a dcm4che UID keyword or dotted UID,
+ * e.g. {@code CT:JPEGLSLossless,CR:HTJ2KLossless,US:none}; other modalities use
+ * {@code dicom.transcode.default-syntax}. Only uncompressed sources are re-encoded, and targets
+ * without an image writer available at runtime are dropped with a warning at startup.
+ */
+@Component
+public class TranscodePolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscodePolicy.class);
+
+    private static final String NONE = "none";
+
+    private static final Set<String> UNCOMPRESSED = Set.of(
+        UID.ImplicitVRLittleEndian,
+        UID.ExplicitVRLittleEndian,
+        UID.ExplicitVRBigEndian,
+        UID.DeflatedExplicitVRLittleEndian
+    );
+
+    private final boolean enabled;
+    private final String defaultSyntax;
+    private final Map<String, String> modalitySyntaxes = new HashMap<>();
+
+    public TranscodePolicy(@Value("${dicom.transcode.enabled:false}") boolean enabled,
+                           @Value("${dicom.transcode.default-syntax:JPEGLSLossless}") String defaultSyntax,
+                           @Value("${dicom.transcode.modality-syntaxes:}") String[] modalitySyntaxes) {
+        this.enabled = enabled;
+        this.defaultSyntax = resolve(defaultSyntax);
+        for (String entry : modalitySyntaxes) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String modality = entry.substring(0, colon).trim().toUpperCase();
+            String syntax = resolve(entry.substring(colon + 1));
+            this.modalitySyntaxes.put(modality, syntax != null ? syntax : NONE);
+        }
+    }
+
+    /**
+     * Target transfer syntax for an instance, or {@code null} if it should be kept as received.
+     *
+     * @param frames Number of frames; objects without pixel data are never transcoded
+     */
+    public String targetFor(String modality, String sourceTransferSyntaxUid, int frames) {
+        if (!enabled || frames <= 0 || !UNCOMPRESSED.contains(sourceTransferSyntaxUid)) {
+            return null;
+        }
+        String target = modality != null
+            ? modalitySyntaxes.getOrDefault(modality.toUpperCase(), defaultSyntax)
+            : defaultSyntax;
+        return target == null || NONE.equals(target) || target.equals(sourceTransferSyntaxUid) ? null : target;
+    }
+
+    /**
+     * Resolve a keyword or UID, returning null for "none", blank or a syntax nothing can encode.
+     */
+    private static String resolve(String value) {
+        String trimmed = value == null ? "" : value.trim();
+        if (trimmed.isEmpty() || NONE.equalsIgnoreCase(trimmed)) {
+            return null;
+        }
+        String uid = Character.isDigit(trimmed.charAt(0)) ? trimmed : UID.forName(trimmed);
+        if (ImageWriterFactory.getImageWriterParam(uid) == null) {
+            log.warn("No image writer for transfer syntax {} ({}); instances will be stored as received",
+                trimmed, uid);
+            return null;
+        }
+        return uid;
+    }
+}
@@ -0,0 +1,297 @@
+package com.dicomviewer.dicom.transcode;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.dicom.web.InstanceRequestCoalescer;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.metrics.jfr.PixelRenderEvent;
+import io.micrometer.core.instrument.Gauge;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.imageio.codec.ImageWriterFactory;
+import org.dcm4che3.imageio.codec.Transcoder;
+import org.dcm4che3.io.DicomInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Transcodes WADO-RS instances to the transfer syntax a client asked for in its Accept header.
+ * <p>
+ * Work runs on the dedicated {@link ExecutorConfig#WADO_TRANSCODE_EXECUTOR} pool; when that pool
+ * is saturated {@link TranscodeRejectedException} is thrown so the request can fail fast. Results
+ * are kept in an LRU cache keyed by (source, SOP Instance UID, transfer syntax) and bounded to
+ * {@code dicom.wado.transcode.cache-bytes}, which is checked before the stored instance is fetched;
+ * concurrent misses for the same key are coalesced.
+ */
+@Component
+public class WadoTranscoder {
+
+    private static final Logger log = LoggerFactory.getLogger(WadoTranscoder.class);
+
+    static final String STAGE = "wado";
+
+    /** Transfer-syntax parameter value meaning "as stored". */
+    public static final String ANY = "*";
+
+    private static final Set<String> DECODABLE_TARGETS = Set.of(
+        UID.ImplicitVRLittleEndian,
+        UID.ExplicitVRLittleEndian,
+        UID.ExplicitVRBigEndian,
+        UID.DeflatedExplicitVRLittleEndian
+    );
+
+    private final ExecutorService executor;
+    private final InstanceRequestCoalescer coalescer;
+    private final DicomMetrics metrics;
+    private final long cacheCapacity;
+    private final long timeoutMs;
+    private final LinkedHashMap<CacheKey, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cacheBytes;
+
+    public WadoTranscoder(@Qualifier(ExecutorConfig.WADO_TRANSCODE_EXECUTOR) ExecutorService executor,
+                          InstanceRequestCoalescer coalescer,
+                          DicomMetrics metrics,
+                          @Value("${dicom.wado.transcode.cache-bytes:268435456}") long cacheCapacity,
+                          @Value("${dicom.wado.transcode.timeout-ms:30000}") long timeoutMs) {
+        this.executor = executor;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.cacheCapacity = cacheCapacity;
+        this.timeoutMs = timeoutMs;
+        Gauge.builder("dicom.transcode.cache.bytes", this, t -> t.getCacheBytes())
+            .description("Bytes held by the WADO-RS transcode cache")
+            .baseUnit("bytes")
+            .register(metrics.getRegistry());
+    }
+
+    /**
+     * Pick the transfer syntax to serve from an Accept header.
+     * Media ranges are considered in order of quality; {@code *} accepts the instance as stored.
+     *
+     * @return The requested transfer syntax UID, {@link #ANY}, or {@code null} if the client
+     *         did not name one and gets whatever the PACS sends by default
+     * @throws NotAcceptableTransferSyntaxException if every range names a syntax that cannot be produced
+     */
+    public String negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        mediaTypes.sort((a, b) -> Double.compare(b.getQualityValue(), a.getQualityValue()));
+
+        String rejected = null;
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() <= 0) {
+                continue;
+            }
+            String transferSyntax = mediaType.getParameter("transfer-syntax");
+            if (transferSyntax == null) {
+                return null;
+            }
+            transferSyntax = unquote(transferSyntax);
+            if (ANY.equals(transferSyntax)) {
+                return ANY;
+            }
+            if (canProduce(transferSyntax)) {
+                return transferSyntax;
+            }
+            rejected = transferSyntax;
+        }
+        if (rejected != null) {
+            throw new NotAcceptableTransferSyntaxException(rejected);
+        }
+        return null;
+    }
+
+    /**
+     * Return the instance in the requested syntax, transcoding if it is stored differently.
+     *
+     * @param source               Where the stored instance comes from, such as the PACS id; part of
+     *                             the cache key so instances sharing a UID across PACS stay apart
+     * @param stored               Fetches the instance as stored; not called on a cache hit
+     * @param targetTransferSyntax Syntax from {@link #negotiate}; {@code null} or {@link #ANY} returns
+     *                             the stored instance unchanged
+     * @return Part 10 bytes in the target syntax
+     */
+    public Result transcode(String source, String sopInstanceUid, Supplier<byte[]> stored,
+                            String targetTransferSyntax) {
+        CacheKey key = new CacheKey(source, sopInstanceUid, targetTransferSyntax);
+        byte[] cached = getCached(key);
+        if (cached != null) {
+            return new Result(cached, targetTransferSyntax);
+        }
+
+        byte[] dicom = stored.get();
+        String sourceTransferSyntax = readTransferSyntax(dicom);
+        if (targetTransferSyntax == null || ANY.equals(targetTransferSyntax)
+                || targetTransferSyntax.equals(sourceTransferSyntax)) {
+            return new Result(dicom, sourceTransferSyntax);
+        }
+
+        cached = getCached(key);
+        if (cached == null) {
+            // Concurrent requests for the same (source, instance, syntax) share one transcode
+            String representation = "transcode;transfer-syntax=" + targetTransferSyntax;
+            cached = coalescer.fetch(source, sopInstanceUid, representation, () -> {
+                byte[] result = submit(sopInstanceUid, dicom, sourceTransferSyntax, targetTransferSyntax);
+                putCached(key, result);
+                return result;
+            });
+        }
+        return new Result(cached, targetTransferSyntax);
+    }
+
+    private byte[] submit(String sopInstanceUid, byte[] dicom, String sourceTransferSyntax,
+                          String targetTransferSyntax) {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> encode(sopInstanceUid, dicom, sourceTransferSyntax, targetTransferSyntax));
+        } catch (RejectedExecutionException e) {
+            throw new TranscodeRejectedException();
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TranscodeRejectedException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while transcoding " + sopInstanceUid, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to transcode " + sopInstanceUid + " to "
+                + targetTransferSyntax + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private byte[] encode(String sopInstanceUid, byte[] dicom, String sourceTransferSyntax,
+                          String targetTransferSyntax) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(dicom.length);
+        String[] modality = {"unknown"};
+        int[] frames = {0};
+        boolean success = false;
+
+        PixelRenderEvent jfr = new PixelRenderEvent();
+        jfr.begin();
+        try (Transcoder transcoder = new Transcoder(new ByteArrayInputStream(dicom))) {
+            transcoder.setIncludeFileMetaInformation(true);
+            transcoder.setDestinationTransferSyntax(targetTransferSyntax);
+            transcoder.transcode((t, dataset) -> {
+                modality[0] = dataset.getString(Tag.Modality, "unknown");
+                frames[0] = dataset.getInt(Tag.NumberOfFrames, 1);
+                return out;
+            });
+            success = true;
+        } finally {
+            metrics.recordTranscode(STAGE, modality[0], targetTransferSyntax, System.nanoTime() - start,
+                dicom.length, out.size(), success ? DicomMetrics.SUCCESS : DicomMetrics.FAILURE);
+            jfr.end();
+            if (jfr.shouldCommit()) {
+                jfr.sopInstanceUid = sopInstanceUid;
+                jfr.sourceTransferSyntaxUid = sourceTransferSyntax;
+                jfr.target = targetTransferSyntax;
+                jfr.frames = frames[0];
+                jfr.inputBytes = dicom.length;
+                jfr.outputBytes = out.size();
+                jfr.commit();
+            }
+        }
+        log.debug("Transcoded {} from {} to {} ({} -> {} bytes)", sopInstanceUid, sourceTransferSyntax,
+            targetTransferSyntax, dicom.length, out.size());
+        return out.toByteArray();
+    }
+
+    private static String readTransferSyntax(byte[] dicom) {
+        try (DicomInputStream in = new DicomInputStream(new ByteArrayInputStream(dicom))) {
+            Attributes fmi = in.readFileMetaInformation();
+            return fmi != null ? fmi.getString(Tag.TransferSyntaxUID) : in.getTransferSyntax();
+        } catch (IOException e) {
+            throw new IllegalStateException("Not a DICOM Part 10 object: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean canProduce(String transferSyntax) {
+        return DECODABLE_TARGETS.contains(transferSyntax)
+            || ImageWriterFactory.getImageWriterParam(transferSyntax) != null;
+    }
+
+    private static String unquote(String value) {
+        return value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")
+            ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private synchronized byte[] getCached(CacheKey key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putCached(CacheKey key, byte[] value) {
+        if (value.length > cacheCapacity) {
+            return;
+        }
+        byte[] previous = cache.put(key, value);
+        cacheBytes += value.length - (previous != null ? previous.length : 0);
+        Iterator<Map.Entry<CacheKey, byte[]>> eldest = cache.entrySet().iterator();
+        while (cacheBytes > cacheCapacity && eldest.hasNext()) {
+            cacheBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    synchronized long getCacheBytes() {
+        return cacheBytes;
+    }
+
+    private record CacheKey(String source, String sopInstanceUid, String transferSyntaxUid) {
+    }
+
+    /**
+     * Instance bytes and the transfer syntax they are encoded in.
+     */
+    public record Result(byte[] data, String transferSyntaxUid) {
+    }
+
+    /**
+     * The client accepts only transfer syntaxes this server cannot produce.
+     */
+    public static class NotAcceptableTransferSyntaxException extends RuntimeException {
+        public NotAcceptableTransferSyntaxException(String transferSyntax) {
+            super("Transfer syntax not supported: " + transferSyntax);
+        }
+    }
+
+    /**
+     * The transcode pool is saturated or the transcode did not finish in time.
+     */
+    public static class TranscodeRejectedException extends RuntimeException {
+        public TranscodeRejectedException() {
+            super("Transcoding capacity exhausted, retry later");
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.dicomviewer.dicom.web;
 
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.metrics.jfr.WadoProxyEvent;
 import com.dicomviewer.model.PacsConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -19,10 +22,16 @@ public class DicomWebService {
 
     private static final Logger log = LoggerFactory.getLogger(DicomWebService.class);
 
+    private static final String DICOM_MEDIA_TYPE = "application/dicom";
+
     private final RestTemplate restTemplate;
+    private final InstanceRequestCoalescer instanceRequestCoalescer;
+    private final DicomMetrics metrics;
 
-    public DicomWebService() {
+    public DicomWebService(InstanceRequestCoalescer instanceRequestCoalescer, DicomMetrics metrics) {
         this.restTemplate = new RestTemplate();
+        this.instanceRequestCoalescer = instanceRequestCoalescer;
+        this.metrics = metrics;
     }
 
     /**
@@ -47,18 +56,9 @@ public class DicomWebService {
             }
         });
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<List> response = restTemplate.exchange(
-                builder.toUriString(),
-                HttpMethod.GET,
-                entity,
-                List.class
-            );
+            ResponseEntity<List> response = exchange(pacsConfig, "qido-studies", builder.toUriString(),
+                MediaType.APPLICATION_JSON, List.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 log.info("QIDO-RS query returned {} studies from {}", response.getBody().size(), pacsConfig.getName());
@@ -83,18 +83,9 @@ public class DicomWebService {
 
         String url = String.format("%s/studies/%s/series", qidoUrl, studyInstanceUid);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<List> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                List.class
-            );
+            ResponseEntity<List> response = exchange(pacsConfig, "qido-series", url,
+                MediaType.APPLICATION_JSON, List.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody();
@@ -118,18 +109,9 @@ public class DicomWebService {
 
         String url = String.format("%s/studies/%s/series/%s/instances", qidoUrl, studyInstanceUid, seriesInstanceUid);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<List> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                List.class
-            );
+            ResponseEntity<List> response = exchange(pacsConfig, "qido-instances", url,
+                MediaType.APPLICATION_JSON, List.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody();
@@ -144,6 +126,7 @@ public class DicomWebService {
 
     /**
      * Retrieve a DICOM instance using WADO-RS.
+     * Concurrent requests for the same instance share a single upstream transfer.
      *
      * @param pacsConfig The PACS configuration
      * @param studyInstanceUid Study Instance UID
@@ -153,6 +136,17 @@ public class DicomWebService {
      */
     public byte[] retrieveInstance(PacsConfiguration pacsConfig, String studyInstanceUid,
                                     String seriesInstanceUid, String sopInstanceUid) {
+        return retrieveInstance(pacsConfig, studyInstanceUid, seriesInstanceUid, sopInstanceUid, null);
+    }
+
+    /**
+     * Retrieve a DICOM instance using WADO-RS in a given transfer syntax.
+     *
+     * @param transferSyntax Value of the transfer-syntax parameter sent upstream, {@code *} for the
+     *                       syntax the PACS holds, or {@code null} to send none (the PACS default)
+     */
+    public byte[] retrieveInstance(PacsConfiguration pacsConfig, String studyInstanceUid,
+                                    String seriesInstanceUid, String sopInstanceUid, String transferSyntax) {
         String wadoUrl = pacsConfig.getWadoRsUrl();
         if (wadoUrl == null || wadoUrl.isEmpty()) {
             throw new IllegalArgumentException("WADO-RS URL not configured");
@@ -161,21 +155,20 @@ public class DicomWebService {
         String url = String.format("%s/studies/%s/series/%s/instances/%s",
             wadoUrl, studyInstanceUid, seriesInstanceUid, sopInstanceUid);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.parseMediaType("application/dicom")));
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        MediaType accept = transferSyntax != null
+            ? new MediaType("application", "dicom", Map.of("transfer-syntax", transferSyntax))
+            : MediaType.parseMediaType(DICOM_MEDIA_TYPE);
+        return instanceRequestCoalescer.fetch(String.valueOf(pacsConfig.getId()), sopInstanceUid, accept.toString(),
+            () -> fetchInstance(pacsConfig, url, sopInstanceUid, accept));
+    }
 
+    private byte[] fetchInstance(PacsConfiguration pacsConfig, String url, String sopInstanceUid, MediaType accept) {
         try {
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                byte[].class
-            );
+            ResponseEntity<byte[]> response = exchange(pacsConfig, "wado-instance", url, accept, byte[].class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 log.debug("Retrieved instance {} ({} bytes)", sopInstanceUid, response.getBody().length);
+                metrics.recordWadoBytes(pacsConfig.getAeTitle(), "wado-instance", response.getBody().length);
                 return response.getBody();
             }
         } catch (Exception e) {
@@ -200,20 +193,12 @@ public class DicomWebService {
         String url = String.format("%s/studies/%s/series/%s/instances/%s/rendered",
             wadoUrl, studyInstanceUid, seriesInstanceUid, sopInstanceUid);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.parseMediaType(mediaType)));
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                byte[].class
-            );
+            ResponseEntity<byte[]> response = exchange(pacsConfig, "wado-rendered", url,
+                MediaType.parseMediaType(mediaType), byte[].class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                metrics.recordWadoBytes(pacsConfig.getAeTitle(), "wado-rendered", response.getBody().length);
                 return response.getBody();
             }
         } catch (Exception e) {
@@ -223,4 +208,43 @@ public class DicomWebService {
 
         return new byte[0];
     }
+
+    /**
+     * GET the given URL, recording duration and upstream status code per PACS and operation
+     * as metrics and as a JFR event.
+     */
+    private <T> ResponseEntity<T> exchange(PacsConfiguration pacsConfig, String operation, String url,
+                                           MediaType accept, Class<T> responseType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(accept));
+
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        WadoProxyEvent event = new WadoProxyEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
+            status = String.valueOf(response.getStatusCode().value());
+            event.status = response.getStatusCode().value();
+            if (response.getBody() instanceof byte[] body) {
+                event.bytes = body.length;
+            }
+            return response;
+        } catch (HttpStatusCodeException e) {
+            status = String.valueOf(e.getStatusCode().value());
+            event.status = e.getStatusCode().value();
+            throw e;
+        } finally {
+            metrics.recordDicomWebCall(pacsConfig.getAeTitle(), operation, status, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.pacs = pacsConfig.getAeTitle();
+                event.operation = operation;
+                event.url = url;
+                event.commit();
+            }
+        }
+    }
 }
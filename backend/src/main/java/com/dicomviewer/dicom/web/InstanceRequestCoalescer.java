@@ -0,0 +1,94 @@
+package com.dicomviewer.dicom.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of concurrent WADO-RS instance fetches.
+ * <p>
+ * Requests are keyed by source (the PACS the bytes come from), SOP Instance UID and
+ * requested representation, so identical UIDs held by different PACS never share a
+ * transfer. The first
+ * caller for a key performs the upstream transfer; every caller arriving while that
+ * transfer is in flight waits for it and receives the same buffer instead of issuing
+ * its own upstream GET.
+ */
+@Component
+public class InstanceRequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceRequestCoalescer.class);
+
+    private final ConcurrentMap<Key, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Fetch an instance, joining an identical in-flight fetch if there is one.
+     *
+     * @param source         Identifies where the bytes come from, such as the PACS id
+     * @param sopInstanceUid SOP Instance UID being retrieved
+     * @param representation Requested representation (media type and transfer syntax)
+     * @param loader         Performs the upstream transfer; only invoked by the leading caller
+     * @return The instance bytes
+     */
+    public byte[] fetch(String source, String sopInstanceUid, String representation, Supplier<byte[]> loader) {
+        Key key = new Key(source, sopInstanceUid, representation);
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            log.debug("Joining in-flight retrieval of {} from {} ({})", sopInstanceUid, source, representation);
+            return await(existing);
+        }
+
+        try {
+            byte[] data = loader.get();
+            flight.complete(data);
+            return data;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Number of distinct transfers currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private byte[] await(CompletableFuture<byte[]> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        } catch (CancellationException e) {
+            throw new IllegalStateException("In-flight retrieval was cancelled", e);
+        }
+    }
+
+    private record Key(String source, String sopInstanceUid, String representation) {
+        private Key {
+            Objects.requireNonNull(source, "source");
+            Objects.requireNonNull(sopInstanceUid, "sopInstanceUid");
+            representation = representation != null ? representation : "";
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.dicomviewer.dicom.web;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cuts single frames out of a Part 10 instance for WADO-RS frame requests.
+ * <p>
+ * Native pixel data is split into equal slices. Encapsulated pixel data maps one fragment to each
+ * frame when the counts match, and otherwise follows the Basic Offset Table; a single-frame object
+ * joins all of its fragments.
+ */
+public final class WadoFrames {
+
+    private static final int ITEM_HEADER_BYTES = 8;
+
+    /**
+     * One frame's pixel data and the media type it is served as.
+     *
+     * @param transferSyntaxUid Transfer syntax of a compressed frame, {@code null} for native pixel data
+     */
+    public record Frame(byte[] data, String mediaType, String transferSyntaxUid) {
+    }
+
+    private WadoFrames() {
+    }
+
+    /**
+     * Extract a frame.
+     *
+     * @param frameNumber 1-based frame number, as in the WADO-RS URL
+     * @throws FrameNotFoundException if the instance has no such frame
+     */
+    public static Frame extract(byte[] dicom, int frameNumber) {
+        Attributes dataset;
+        String transferSyntax;
+        try (DicomInputStream in = new DicomInputStream(new ByteArrayInputStream(dicom))) {
+            in.setIncludeBulkData(IncludeBulkData.YES);
+            Attributes fmi = in.readFileMetaInformation();
+            dataset = in.readDataset();
+            transferSyntax = fmi != null ? fmi.getString(Tag.TransferSyntaxUID) : in.getTransferSyntax();
+        } catch (IOException e) {
+            throw new IllegalStateException("Not a DICOM Part 10 object: " + e.getMessage(), e);
+        }
+
+        int frames = dataset.getInt(Tag.NumberOfFrames, 1);
+        Object pixelData = dataset.getValue(Tag.PixelData);
+        if (pixelData == null || frameNumber < 1 || frameNumber > frames) {
+            throw new FrameNotFoundException(frameNumber);
+        }
+        if (pixelData instanceof byte[] pixels) {
+            int frameLength = pixels.length / frames;
+            return new Frame(Arrays.copyOfRange(pixels, (frameNumber - 1) * frameLength, frameNumber * frameLength),
+                "application/octet-stream", null);
+        }
+        if (pixelData instanceof Fragments fragments) {
+            return new Frame(fragmentsOf(fragments, frameNumber, frames), mediaType(transferSyntax), transferSyntax);
+        }
+        throw new IllegalStateException("Pixel data of unexpected type " + pixelData.getClass().getSimpleName());
+    }
+
+    /**
+     * A {@code multipart/related} body carrying one frame.
+     */
+    public static byte[] multipart(String boundary, Frame frame) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(frame.data().length + 256);
+        String contentType = frame.transferSyntaxUid() != null
+            ? frame.mediaType() + "; transfer-syntax=" + frame.transferSyntaxUid() : frame.mediaType();
+        body.writeBytes(("--" + boundary + "\r\nContent-Type: " + contentType + "\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(frame.data());
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static byte[] fragmentsOf(Fragments fragments, int frameNumber, int frames) {
+        if (frames > 1 && fragments.size() - 1 == frames) {
+            return fragment(fragments, frameNumber);
+        }
+        long start = 0;
+        long end = Long.MAX_VALUE;
+        if (frames > 1) {
+            byte[] offsetTable = fragment(fragments, 0);
+            if (offsetTable.length < frames * 4) {
+                throw new IllegalStateException("Cannot locate frame " + frameNumber + " of " + frames
+                    + " in " + (fragments.size() - 1) + " fragments without a Basic Offset Table");
+            }
+            start = offset(offsetTable, frameNumber - 1);
+            end = frameNumber < frames ? offset(offsetTable, frameNumber) : Long.MAX_VALUE;
+        }
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        long position = 0;
+        for (int i = 1; i < fragments.size(); i++) {
+            byte[] fragment = fragment(fragments, i);
+            if (position >= start && position < end) {
+                frame.writeBytes(fragment);
+            }
+            position += ITEM_HEADER_BYTES + fragment.length;
+        }
+        return frame.toByteArray();
+    }
+
+    private static byte[] fragment(Fragments fragments, int index) {
+        Object value = fragments.get(index);
+        return value instanceof byte[] bytes ? bytes : new byte[0];
+    }
+
+    private static long offset(byte[] offsetTable, int index) {
+        int i = index * 4;
+        return (offsetTable[i] & 0xFFL) | (offsetTable[i + 1] & 0xFFL) << 8
+            | (offsetTable[i + 2] & 0xFFL) << 16 | (offsetTable[i + 3] & 0xFFL) << 24;
+    }
+
+    private static String mediaType(String transferSyntax) {
+        return switch (transferSyntax) {
+            case UID.JPEGBaseline8Bit, UID.JPEGExtended12Bit, UID.JPEGLossless, UID.JPEGLosslessSV1 -> "image/jpeg";
+            case UID.JPEGLSLossless, UID.JPEGLSNearLossless -> "image/jls";
+            case UID.JPEG2000Lossless, UID.JPEG2000 -> "image/jp2";
+            case UID.HTJ2KLossless, UID.HTJ2KLosslessRPCL, UID.HTJ2K -> "image/jphc";
+            case UID.RLELossless -> "image/dicom-rle";
+            default -> "application/octet-stream";
+        };
+    }
+
+    /**
+     * The instance has no frame with the requested number.
+     */
+    public static class FrameNotFoundException extends RuntimeException {
+        public FrameNotFoundException(int frameNumber) {
+            super("No frame " + frameNumber + " in instance");
+        }
+    }
+}
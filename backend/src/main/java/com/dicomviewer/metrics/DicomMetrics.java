@@ -0,0 +1,261 @@
+package com.dicomviewer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for DIMSE and DICOMweb operations and local storage.
+ * <p>
+ * Network meters are tagged with the remote PACS (its AE title), and where applicable the
+ * operation, query level and outcome, so they can be sliced per archive in
+ * {@code /actuator/metrics} and on the Prometheus endpoint.
+ */
+@Component
+public class DicomMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    private final MeterRegistry registry;
+
+    public DicomMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Time taken to open an association (TCP connect plus A-ASSOCIATE negotiation).
+     */
+    public void recordAssociationOpen(String pacs, String operation, long nanos, boolean success) {
+        Timer.builder("dicom.association.open")
+            .description("Time to open a DIMSE association")
+            .tag("pacs", pacs)
+            .tag("operation", operation)
+            .tag("outcome", outcome(success))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time spent queueing for an association slot after the per-AE cap was reached.
+     *
+     * @param acquired false if the caller gave up before a slot became free
+     */
+    public void recordAssociationQueued(String pacs, long nanos, boolean acquired) {
+        Timer.builder("dicom.association.queue.wait")
+            .description("Wait for a free association slot when max associations is reached")
+            .tag("pacs", pacs)
+            .tag("outcome", acquired ? SUCCESS : "timeout")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from sending a C-FIND request to receiving its first response.
+     */
+    public void recordFindFirstResponse(String pacs, String level, long nanos) {
+        Timer.builder("dicom.cfind.first.response")
+            .description("Time to first C-FIND response")
+            .tag("pacs", pacs)
+            .tag("level", level)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A completed C-FIND: total duration and number of matches returned.
+     */
+    public void recordFind(String pacs, String level, long nanos, int responses, boolean success) {
+        Timer.builder("dicom.cfind")
+            .description("C-FIND duration including association setup")
+            .tag("pacs", pacs)
+            .tag("level", level)
+            .tag("outcome", outcome(success))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("dicom.cfind.responses")
+            .description("Matches returned per C-FIND")
+            .tag("pacs", pacs)
+            .tag("level", level)
+            .register(registry)
+            .record(responses);
+    }
+
+    /**
+     * A completed C-MOVE or C-GET: duration and sub-operation counts.
+     */
+    public void recordRetrieve(String pacs, String operation, String level, long nanos,
+                               int completed, int failed, int warnings, boolean success) {
+        Timer.builder("dicom.retrieve")
+            .description("Retrieve duration including association setup")
+            .tag("pacs", pacs)
+            .tag("operation", operation)
+            .tag("level", level)
+            .tag("outcome", outcome(success))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        subOperations(pacs, operation, "completed").increment(completed);
+        subOperations(pacs, operation, "failed").increment(failed);
+        subOperations(pacs, operation, "warning").increment(warnings);
+    }
+
+    /**
+     * A completed C-ECHO.
+     */
+    public void recordEcho(String pacs, long nanos, boolean success) {
+        Timer.builder("dicom.cecho")
+            .description("C-ECHO round trip including association setup")
+            .tag("pacs", pacs)
+            .tag("outcome", outcome(success))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * An upstream DICOMweb HTTP call and the status code it returned.
+     *
+     * @param status HTTP status code, or {@code IO_ERROR} if no response was received
+     */
+    public void recordDicomWebCall(String pacs, String operation, String status, long nanos) {
+        Timer.builder("dicomweb.requests")
+            .description("Upstream DICOMweb request duration")
+            .tag("pacs", pacs)
+            .tag("operation", operation)
+            .tag("status", status)
+            .tag("outcome", status.startsWith("2") ? SUCCESS : FAILURE)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Bytes received from a WADO-RS call.
+     */
+    public void recordWadoBytes(String pacs, String operation, long bytes) {
+        DistributionSummary.builder("dicomweb.wado.bytes")
+            .description("Bytes transferred per WADO-RS call")
+            .baseUnit("bytes")
+            .tag("pacs", pacs)
+            .tag("operation", operation)
+            .register(registry)
+            .record(bytes);
+    }
+
+    /**
+     * A background health probe (C-ECHO or QIDO-RS). Percentiles cover a rolling five-minute window.
+     */
+    public void recordHealthProbe(String pacs, String protocol, long nanos, boolean success) {
+        Timer.builder("dicom.health.probe")
+            .description("Background health probe latency")
+            .tag("pacs", pacs)
+            .tag("protocol", protocol)
+            .tag("outcome", outcome(success))
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .distributionStatisticExpiry(Duration.ofMinutes(5))
+            .distributionStatisticBufferLength(5)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A transcode, at ingest or for a WADO-RS response: duration, and for successful ones the
+     * compression ratio (input size over output size) and bytes saved.
+     *
+     * @param stage  ingest or wado
+     * @param result success, failure, or skipped when the output was not smaller
+     */
+    public void recordTranscode(String stage, String modality, String transferSyntax, long nanos, long inputBytes,
+                                long outputBytes, String result) {
+        Timer.builder("dicom.transcode")
+            .description("Transcode of stored or retrieved instances")
+            .tag("stage", stage)
+            .tag("modality", modality)
+            .tag("syntax", transferSyntax)
+            .tag("result", result)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (!SUCCESS.equals(result) || outputBytes <= 0) {
+            return;
+        }
+        DistributionSummary.builder("dicom.transcode.compression.ratio")
+            .description("Input size over output size of transcoded instances")
+            .tag("stage", stage)
+            .tag("modality", modality)
+            .tag("syntax", transferSyntax)
+            .register(registry)
+            .record((double) inputBytes / outputBytes);
+        if (inputBytes > outputBytes) {
+            Counter.builder("dicom.transcode.bytes.saved")
+                .description("Bytes saved by transcoding")
+                .baseUnit("bytes")
+                .tag("stage", stage)
+                .tag("modality", modality)
+                .tag("syntax", transferSyntax)
+                .register(registry)
+                .increment(inputBytes - outputBytes);
+        }
+    }
+
+    /**
+     * A batch verified by the storage scrubber, and the bytes it read to checksum them.
+     */
+    public void recordScrubBatch(int instances, long bytesRead) {
+        Counter.builder("dicom.storage.scrub.checked")
+            .description("Stored instances verified by the scrubber")
+            .register(registry)
+            .increment(instances);
+        Counter.builder("dicom.storage.scrub.bytes")
+            .description("Bytes read by the scrubber to verify checksums")
+            .baseUnit("bytes")
+            .register(registry)
+            .increment(bytesRead);
+    }
+
+    /**
+     * A stored instance that failed verification.
+     *
+     * @param problem MISSING, SIZE_MISMATCH, CHECKSUM_MISMATCH or UNREADABLE
+     */
+    public void recordScrubError(String problem) {
+        Counter.builder("dicom.storage.scrub.errors")
+            .description("Stored instances failing integrity verification")
+            .tag("problem", problem)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * Files handled by a bulk import.
+     *
+     * @param result imported, skipped (already indexed), ignored (not DICOM) or failed
+     */
+    public void recordImport(String result, long files) {
+        Counter.builder("dicom.import.files")
+            .description("Files handled by bulk import")
+            .tag("result", result)
+            .register(registry)
+            .increment(files);
+    }
+
+    private Counter subOperations(String pacs, String operation, String result) {
+        return Counter.builder("dicom.retrieve.suboperations")
+            .description("Retrieve sub-operations by result")
+            .tag("pacs", pacs)
+            .tag("operation", operation)
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private static String outcome(boolean success) {
+        return success ? SUCCESS : FAILURE;
+    }
+}
@@ -0,0 +1,39 @@
+package com.dicomviewer.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the opening of an association with a remote PACS.
+ */
+@Name("com.dicomviewer.AssociationConnect")
+@Label("Association Connect")
+@Category({"DICOM Viewer", "DIMSE"})
+@Description("TCP connect and A-ASSOCIATE negotiation with a remote AE")
+@StackTrace(false)
+public class AssociationConnectEvent extends jdk.jfr.Event {
+
+    @Label("Called AE")
+    public String calledAe;
+
+    @Label("Host")
+    public String host;
+
+    @Label("Port")
+    public int port;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Presentation Contexts Proposed")
+    public int contextsProposed;
+
+    @Label("Presentation Contexts Accepted")
+    public int contextsAccepted;
+
+    @Label("Success")
+    public boolean success;
+}
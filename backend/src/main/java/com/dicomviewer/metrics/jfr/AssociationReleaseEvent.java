@@ -0,0 +1,24 @@
+package com.dicomviewer.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the release of an association.
+ */
+@Name("com.dicomviewer.AssociationRelease")
+@Label("Association Release")
+@Category({"DICOM Viewer", "DIMSE"})
+@Description("A-RELEASE of an association with a remote AE")
+@StackTrace(false)
+public class AssociationReleaseEvent extends jdk.jfr.Event {
+
+    @Label("Called AE")
+    public String calledAe;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,38 @@
+package com.dicomviewer.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event spanning the storage of one received instance.
+ */
+@Name("com.dicomviewer.InstanceStore")
+@Label("Instance Store")
+@Category({"DICOM Viewer", "Storage"})
+@Description("A received instance written to storage and indexed in the database")
+@StackTrace(false)
+public class InstanceStoreEvent extends jdk.jfr.Event {
+
+    @Label("SOP Instance UID")
+    public String sopInstanceUid;
+
+    @Label("Transfer Syntax")
+    public String transferSyntaxUid;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Time to Disk")
+    @Timespan
+    public long timeToDisk;
+
+    @Label("Time to Index")
+    @Timespan
+    public long timeToIndex;
+}
@@ -0,0 +1,40 @@
+package com.dicomviewer.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning a server-side pixel data decode, render or transcode.
+ */
+@Name("com.dicomviewer.PixelRender")
+@Label("Pixel Render")
+@Category({"DICOM Viewer", "Imaging"})
+@Description("Decode of pixel data and rendering or re-encoding of the result")
+@StackTrace(false)
+public class PixelRenderEvent extends jdk.jfr.Event {
+
+    @Label("SOP Instance UID")
+    public String sopInstanceUid;
+
+    @Label("Source Transfer Syntax")
+    public String sourceTransferSyntaxUid;
+
+    @Label("Target")
+    @Description("Target transfer syntax UID or output media type")
+    public String target;
+
+    @Label("Frames")
+    public int frames;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputBytes;
+}
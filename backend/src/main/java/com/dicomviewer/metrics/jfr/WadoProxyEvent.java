@@ -0,0 +1,35 @@
+package com.dicomviewer.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one upstream DICOMweb call.
+ */
+@Name("com.dicomviewer.WadoProxy")
+@Label("DICOMweb Proxy Call")
+@Category({"DICOM Viewer", "DICOMweb"})
+@Description("QIDO-RS or WADO-RS request proxied to a remote PACS")
+@StackTrace(false)
+public class WadoProxyEvent extends jdk.jfr.Event {
+
+    @Label("PACS")
+    public String pacs;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("URL")
+    public String url;
+
+    @Label("HTTP Status")
+    public int status;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+}
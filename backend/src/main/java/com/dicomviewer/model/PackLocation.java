@@ -0,0 +1,7 @@
+package com.dicomviewer.model;
+
+/**
+ * Pack file and byte range of a packed instance, as committed in the index.
+ */
+public record PackLocation(String filePath, Long packOffset, Long packLength) {
+}
@@ -41,6 +41,10 @@ public class PacsConfiguration {
     @Column(name = "stow_rs_url", length = 500)
     private String stowRsUrl;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "retrieve_method", nullable = false, length = 10)
+    private RetrieveMethod retrieveMethod = RetrieveMethod.C_MOVE;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 
@@ -55,6 +59,15 @@ public class PacsConfiguration {
         LEGACY
     }
 
+    /**
+     * How studies are retrieved from a legacy PACS.
+     * C_GET needs no inbound connection to our AE and suits PACS behind NAT.
+     */
+    public enum RetrieveMethod {
+        C_MOVE,
+        C_GET
+    }
+
     // Constructors
     public PacsConfiguration() {
     }
@@ -143,6 +156,14 @@ public class PacsConfiguration {
         this.stowRsUrl = stowRsUrl;
     }
 
+    public RetrieveMethod getRetrieveMethod() {
+        return retrieveMethod;
+    }
+
+    public void setRetrieveMethod(RetrieveMethod retrieveMethod) {
+        this.retrieveMethod = retrieveMethod;
+    }
+
     public Boolean getIsActive() {
         return isActive;
     }
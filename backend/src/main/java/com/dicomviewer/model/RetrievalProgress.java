@@ -3,19 +3,20 @@ package com.dicomviewer.model;
 import java.time.Instant;
 
 /**
- * Model for tracking C-MOVE retrieval progress.
+ * Model for tracking C-MOVE/C-GET retrieval progress.
+ * Fields are volatile so progress can be polled while a retrieval updates it.
  */
 public class RetrievalProgress {
 
     private final String retrievalId;
-    private Status status;
-    private int total;
-    private int completed;
-    private int failed;
-    private int warnings;
-    private String errorMessage;
+    private volatile Status status;
+    private volatile int total;
+    private volatile int completed;
+    private volatile int failed;
+    private volatile int warnings;
+    private volatile String errorMessage;
     private final Instant startTime;
-    private Instant endTime;
+    private volatile Instant endTime;
 
     public enum Status {
         PENDING,
@@ -0,0 +1,7 @@
+package com.dicomviewer.model;
+
+/**
+ * Stored instance count and bytes for one modality on one storage tier.
+ */
+public record StorageBreakdown(String modality, String storageTier, Long instances, Long bytes) {
+}
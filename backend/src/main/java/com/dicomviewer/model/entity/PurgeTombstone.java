@@ -0,0 +1,50 @@
+package com.dicomviewer.model.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A file left behind by a purge: its index rows are gone, the file itself may still be on disk.
+ */
+@Entity
+@Table(name = "purge_tombstones")
+public class PurgeTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    @Column(name = "series_instance_uid", nullable = false)
+    private String seriesInstanceUid;
+
+    @Column(name = "storage_tier", nullable = false, length = 32)
+    private String storageTier;
+
+    @Column(name = "packed", nullable = false)
+    private boolean packed;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public String getSeriesInstanceUid() { return seriesInstanceUid; }
+    public void setSeriesInstanceUid(String seriesInstanceUid) { this.seriesInstanceUid = seriesInstanceUid; }
+
+    public String getStorageTier() { return storageTier; }
+    public void setStorageTier(String storageTier) { this.storageTier = storageTier; }
+
+    public boolean isPacked() { return packed; }
+    public void setPacked(boolean packed) { this.packed = packed; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,64 @@
+package com.dicomviewer.model.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A stored instance whose file failed integrity verification.
+ */
+@Entity
+@Table(name = "scrub_findings")
+public class ScrubFinding {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sop_instance_uid", nullable = false, unique = true)
+    private String sopInstanceUid;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "problem", nullable = false, length = 32)
+    private Problem problem;
+
+    @Column(name = "detail", length = 1024)
+    private String detail;
+
+    @Column(name = "first_detected_at", nullable = false)
+    private Instant firstDetectedAt;
+
+    @Column(name = "last_detected_at", nullable = false)
+    private Instant lastDetectedAt;
+
+    public enum Problem {
+        MISSING,
+        SIZE_MISMATCH,
+        CHECKSUM_MISMATCH,
+        UNREADABLE
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSopInstanceUid() { return sopInstanceUid; }
+    public void setSopInstanceUid(String sopInstanceUid) { this.sopInstanceUid = sopInstanceUid; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public Problem getProblem() { return problem; }
+    public void setProblem(Problem problem) { this.problem = problem; }
+
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+
+    public Instant getFirstDetectedAt() { return firstDetectedAt; }
+    public void setFirstDetectedAt(Instant firstDetectedAt) { this.firstDetectedAt = firstDetectedAt; }
+
+    public Instant getLastDetectedAt() { return lastDetectedAt; }
+    public void setLastDetectedAt(Instant lastDetectedAt) { this.lastDetectedAt = lastDetectedAt; }
+}
@@ -0,0 +1,71 @@
+package com.dicomviewer.model.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persisted storage counters for one modality and storage tier, or the study and series totals
+ * under {@link #TOTALS}.
+ */
+@Entity
+@Table(name = "storage_statistics")
+public class StorageStatisticsEntry {
+
+    public static final String TOTALS = "*";
+
+    @Id
+    @Column(name = "bucket", length = 100)
+    private String bucket;
+
+    @Column(name = "modality", length = 64)
+    private String modality;
+
+    @Column(name = "storage_tier", length = 32)
+    private String storageTier;
+
+    @Column(name = "instance_count", nullable = false)
+    private long instanceCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    private long totalBytes;
+
+    @Column(name = "study_count", nullable = false)
+    private long studyCount;
+
+    @Column(name = "series_count", nullable = false)
+    private long seriesCount;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    protected StorageStatisticsEntry() {
+    }
+
+    public StorageStatisticsEntry(String bucket) {
+        this.bucket = bucket;
+    }
+
+    // Getters and Setters
+    public String getBucket() { return bucket; }
+
+    public String getModality() { return modality; }
+    public void setModality(String modality) { this.modality = modality; }
+
+    public String getStorageTier() { return storageTier; }
+    public void setStorageTier(String storageTier) { this.storageTier = storageTier; }
+
+    public long getInstanceCount() { return instanceCount; }
+    public void setInstanceCount(long instanceCount) { this.instanceCount = instanceCount; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public long getStudyCount() { return studyCount; }
+    public void setStudyCount(long studyCount) { this.studyCount = studyCount; }
+
+    public long getSeriesCount() { return seriesCount; }
+    public void setSeriesCount(long seriesCount) { this.seriesCount = seriesCount; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -11,7 +11,10 @@ import java.time.Instant;
     @Index(name = "idx_sop_instance_uid", columnList = "sop_instance_uid", unique = true),
     @Index(name = "idx_study_instance_uid", columnList = "study_instance_uid"),
     @Index(name = "idx_series_instance_uid", columnList = "series_instance_uid"),
-    @Index(name = "idx_patient_id", columnList = "patient_id")
+    @Index(name = "idx_patient_id", columnList = "patient_id"),
+    @Index(name = "idx_stored_instance_file_path", columnList = "file_path"),
+    @Index(name = "idx_stored_instance_tier_study", columnList = "storage_tier, study_instance_uid"),
+    @Index(name = "idx_stored_instance_study_date", columnList = "study_date")
 })
 public class StoredInstance {
 
@@ -37,6 +40,18 @@ public class StoredInstance {
     @Column(name = "file_size")
     private Long fileSize;
 
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    @Column(name = "storage_tier", nullable = false, length = 32)
+    private String storageTier = "hot";
+
+    @Column(name = "pack_offset")
+    private Long packOffset;
+
+    @Column(name = "pack_length")
+    private Long packLength;
+
     @Column(name = "transfer_syntax_uid")
     private String transferSyntaxUid;
 
@@ -93,6 +108,22 @@ public class StoredInstance {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    /** SHA-256 of the instance's bytes at ingest, if checksums are enabled. */
+    public String getContentSha256() { return contentSha256; }
+    public void setContentSha256(String contentSha256) { this.contentSha256 = contentSha256; }
+
+    public String getStorageTier() { return storageTier; }
+    public void setStorageTier(String storageTier) { this.storageTier = storageTier; }
+
+    public Long getPackOffset() { return packOffset; }
+    public void setPackOffset(Long packOffset) { this.packOffset = packOffset; }
+
+    public Long getPackLength() { return packLength; }
+    public void setPackLength(Long packLength) { this.packLength = packLength; }
+
+    /** Whether the instance lives in a series pack file rather than its own file. */
+    public boolean isPacked() { return packOffset != null; }
+
     public String getTransferSyntaxUid() { return transferSyntaxUid; }
     public void setTransferSyntaxUid(String transferSyntaxUid) { 
         this.transferSyntaxUid = transferSyntaxUid; 
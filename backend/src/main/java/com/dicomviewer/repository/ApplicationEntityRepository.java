@@ -2,10 +2,16 @@ package com.dicomviewer.repository;
 
 import com.dicomviewer.model.entity.ApplicationEntity;
 import com.dicomviewer.model.entity.ApplicationEntity.AEType;
+import com.dicomviewer.model.entity.ApplicationEntity.ConnectionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +33,14 @@ public interface ApplicationEntityRepository extends JpaRepository<ApplicationEn
     List<ApplicationEntity> findByAeTypeAndEnabledTrue(AEType aeType);
 
     boolean existsByAeTitle(String aeTitle);
+
+    /**
+     * Record an echo result on AEs without writing back their other columns, which may have been
+     * edited while the echo was in flight.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ApplicationEntity ae SET ae.lastEchoStatus = :status, ae.lastEchoTime = :at WHERE ae.id IN :ids")
+    int updateEchoStatus(@Param("ids") Collection<Long> ids, @Param("status") ConnectionStatus status,
+                         @Param("at") Instant at);
 }
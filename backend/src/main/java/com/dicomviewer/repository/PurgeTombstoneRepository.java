@@ -0,0 +1,26 @@
+package com.dicomviewer.repository;
+
+import com.dicomviewer.model.entity.PurgeTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PurgeTombstoneRepository extends JpaRepository<PurgeTombstone, Long> {
+
+    List<PurgeTombstone> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Tombstone every distinct file of a study in one statement, ahead of deleting its rows.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO purge_tombstones (file_path, series_instance_uid, storage_tier, packed, created_at) "
+        + "SELECT DISTINCT file_path, series_instance_uid, storage_tier, pack_offset IS NOT NULL, CURRENT_TIMESTAMP "
+        + "FROM stored_instances WHERE study_instance_uid = :study", nativeQuery = true)
+    int insertForStudy(@Param("study") String studyInstanceUid);
+}
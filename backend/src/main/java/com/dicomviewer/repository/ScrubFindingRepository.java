@@ -0,0 +1,29 @@
+package com.dicomviewer.repository;
+
+import com.dicomviewer.model.entity.ScrubFinding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScrubFindingRepository extends JpaRepository<ScrubFinding, Long> {
+
+    List<ScrubFinding> findBySopInstanceUidIn(Collection<String> sopInstanceUids);
+
+    List<ScrubFinding> findAllByOrderByLastDetectedAtDesc(Pageable pageable);
+
+    /**
+     * Drop findings of instances no longer in the index.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScrubFinding f WHERE NOT EXISTS "
+        + "(SELECT s.id FROM StoredInstance s WHERE s.sopInstanceUid = f.sopInstanceUid)")
+    int deleteOrphaned();
+}
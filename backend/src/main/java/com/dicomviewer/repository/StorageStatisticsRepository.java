@@ -0,0 +1,9 @@
+package com.dicomviewer.repository;
+
+import com.dicomviewer.model.entity.StorageStatisticsEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StorageStatisticsRepository extends JpaRepository<StorageStatisticsEntry, String> {
+}
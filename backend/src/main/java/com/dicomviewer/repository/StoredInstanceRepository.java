@@ -1,10 +1,18 @@
 package com.dicomviewer.repository;
 
+import com.dicomviewer.model.PackLocation;
+import com.dicomviewer.model.StorageBreakdown;
 import com.dicomviewer.model.entity.StoredInstance;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,15 +23,114 @@ public interface StoredInstanceRepository extends JpaRepository<StoredInstance,
 
     boolean existsBySopInstanceUid(String sopInstanceUid);
 
+    boolean existsByStudyInstanceUid(String studyInstanceUid);
+
+    @Query("SELECT s.sopInstanceUid FROM StoredInstance s WHERE s.sopInstanceUid IN :sops")
+    List<String> findExistingSopInstanceUids(@Param("sops") Collection<String> sopInstanceUids);
+
+    boolean existsBySeriesInstanceUid(String seriesInstanceUid);
+
     List<StoredInstance> findByStudyInstanceUid(String studyInstanceUid);
 
     List<StoredInstance> findBySeriesInstanceUid(String seriesInstanceUid);
 
     List<StoredInstance> findByPatientId(String patientId);
 
+    long countByFilePath(String filePath);
+
+    List<StoredInstance> findByFilePathOrderByPackOffsetAsc(String filePath);
+
+    /**
+     * Pack location of an instance, read from the database rather than the persistence context.
+     */
+    @Query("SELECT new com.dicomviewer.model.PackLocation(s.filePath, s.packOffset, s.packLength) "
+        + "FROM StoredInstance s WHERE s.sopInstanceUid = :sop")
+    Optional<PackLocation> findPackLocation(@Param("sop") String sopInstanceUid);
+
+    /**
+     * Most recently packed instance of a series; its pack is the one new instances are appended to.
+     */
+    Optional<StoredInstance> findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(String seriesInstanceUid);
+
+    /**
+     * Keyset page of instances after the given id, for background jobs walking the whole index.
+     */
+    List<StoredInstance> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Point a row at a new file, only if it still names the one it was read with.
+     *
+     * @return 1 if the row was updated, 0 if it changed or was deleted meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredInstance s SET s.filePath = :target WHERE s.id = :id AND s.filePath = :source")
+    int updateFilePath(@Param("id") Long id, @Param("source") String source, @Param("target") String target);
+
+    /**
+     * Point a packed row at its copy in a new pack generation, only if it still names the old location.
+     *
+     * @return 1 if the row was updated, 0 if it changed or was deleted meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredInstance s SET s.filePath = :target, s.packOffset = :targetOffset "
+        + "WHERE s.id = :id AND s.filePath = :source AND s.packOffset = :sourceOffset")
+    int updatePackLocation(@Param("id") Long id, @Param("source") String source,
+                           @Param("sourceOffset") Long sourceOffset, @Param("target") String target,
+                           @Param("targetOffset") Long targetOffset);
+
+    List<StoredInstance> findByStudyInstanceUidAndStorageTier(String studyInstanceUid, String storageTier);
+
+    /**
+     * Studies with unpacked files under a tier's root whose most recent access (or storage, if
+     * never read) is before the cutoff, least recently used first. Packed instances and files
+     * registered in place cannot be moved and are left out, so they never fill a page.
+     *
+     * @param rootPrefix Tier root followed by a path separator
+     */
+    @Query("SELECT s.studyInstanceUid FROM StoredInstance s WHERE s.storageTier = :tier "
+        + "AND s.packOffset IS NULL AND LOCATE(:rootPrefix, s.filePath) = 1 "
+        + "GROUP BY s.studyInstanceUid "
+        + "HAVING MAX(COALESCE(s.lastAccessedAt, s.storedAt)) < :before "
+        + "ORDER BY MAX(COALESCE(s.lastAccessedAt, s.storedAt))")
+    List<String> findMovableStudiesOnTier(@Param("tier") String tier, @Param("rootPrefix") String rootPrefix,
+                                          @Param("before") Instant before, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredInstance s SET s.lastAccessedAt = :at WHERE s.studyInstanceUid IN :studies")
+    int touchStudies(@Param("studies") Collection<String> studies, @Param("at") Instant at);
+
+    @Query("SELECT DISTINCT s.seriesInstanceUid FROM StoredInstance s WHERE s.studyInstanceUid = :study")
+    List<String> findSeriesOfStudy(@Param("study") String studyInstanceUid);
+
+    /**
+     * Studies of a patient and/or with a Study Date (YYYYMMDD) in the inclusive range; null criteria match all.
+     */
+    @Query("SELECT DISTINCT s.studyInstanceUid FROM StoredInstance s "
+        + "WHERE (:patientId IS NULL OR s.patientId = :patientId) "
+        + "AND (:from IS NULL OR s.studyDate >= :from) "
+        + "AND (:to IS NULL OR s.studyDate <= :to)")
+    List<String> findStudiesMatching(@Param("patientId") String patientId, @Param("from") String studyDateFrom,
+                                     @Param("to") String studyDateTo);
+
+    @Modifying
+    @Query("DELETE FROM StoredInstance s WHERE s.studyInstanceUid = :study")
+    int deleteByStudy(@Param("study") String studyInstanceUid);
+
     @Query("SELECT COALESCE(SUM(s.fileSize), 0) FROM StoredInstance s")
     long sumFileSize();
 
+    @Query("SELECT new com.dicomviewer.model.StorageBreakdown(s.modality, s.storageTier, COUNT(s), "
+        + "COALESCE(SUM(s.fileSize), 0)) FROM StoredInstance s GROUP BY s.modality, s.storageTier")
+    List<StorageBreakdown> breakdown();
+
+    @Query("SELECT new com.dicomviewer.model.StorageBreakdown(s.modality, s.storageTier, COUNT(s), "
+        + "COALESCE(SUM(s.fileSize), 0)) FROM StoredInstance s WHERE s.studyInstanceUid = :study "
+        + "GROUP BY s.modality, s.storageTier")
+    List<StorageBreakdown> breakdownOfStudy(@Param("study") String studyInstanceUid);
+
     @Query("SELECT COUNT(DISTINCT s.studyInstanceUid) FROM StoredInstance s")
     long countDistinctStudies();
 
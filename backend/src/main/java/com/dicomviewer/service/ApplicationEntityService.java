@@ -1,5 +1,6 @@
 package com.dicomviewer.service;
 
+import com.dicomviewer.config.ExecutorConfig;
 import com.dicomviewer.model.entity.ApplicationEntity;
 import com.dicomviewer.model.entity.ApplicationEntity.AEType;
 import com.dicomviewer.model.entity.ApplicationEntity.ConnectionStatus;
@@ -11,12 +12,20 @@ import com.dicomviewer.exception.AENotFoundException;
 import com.dicomviewer.exception.DuplicateAETitleException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for managing Application Entity configurations.
@@ -27,12 +36,17 @@ public class ApplicationEntityService {
 
     private static final Logger log = LoggerFactory.getLogger(ApplicationEntityService.class);
 
+    private static final int DEFAULT_CONNECTION_TIMEOUT_MS = 30000;
+
     private final ApplicationEntityRepository aeRepository;
     private final CEchoService cechoService;
+    private final ExecutorService ioExecutor;
 
-    public ApplicationEntityService(ApplicationEntityRepository aeRepository, CEchoService cechoService) {
+    public ApplicationEntityService(ApplicationEntityRepository aeRepository, CEchoService cechoService,
+                                    @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
         this.aeRepository = aeRepository;
         this.cechoService = cechoService;
+        this.ioExecutor = ioExecutor;
     }
 
     /**
@@ -170,32 +184,83 @@ public class ApplicationEntityService {
         log.info("Testing connection to AE: {} at {}:{}", 
             ae.getAeTitle(), ae.getHostname(), ae.getPort());
 
-        ConnectionStatus status;
-        long responseTimeMs = 0;
-        String message;
+        EchoResultDTO result = echo(ae);
+
+        // Update AE with echo status
+        ae.setLastEchoStatus(result.getStatus());
+        ae.setLastEchoTime(Instant.now());
+        aeRepository.save(ae);
+
+        return result;
+    }
+
+    /**
+     * Test connectivity to a remote AE using C-ECHO (simple version).
+     */
+    public ConnectionStatus testConnection(Long aeId) {
+        return testConnectionDetailed(aeId).getStatus();
+    }
+
+    /**
+     * Test connectivity to all enabled remote legacy AEs.
+     * All C-ECHOs run concurrently; an AE that has not answered within its connection timeout
+     * is reported as TIMEOUT. Once every AE has answered or timed out, echo status is written
+     * with one update per status, touching only the echo columns. No transaction is held while
+     * waiting for the echoes; each update commits on its own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<EchoResultDTO> testAllConnections() {
+        List<ApplicationEntity> remoteAEs = getEnabledRemoteAEs().stream()
+            .filter(ae -> ae.getAeType() == AEType.REMOTE_LEGACY)
+            .toList();
+
+        List<CompletableFuture<EchoResultDTO>> futures = new ArrayList<>(remoteAEs.size());
+        for (ApplicationEntity ae : remoteAEs) {
+            int timeoutMs = ae.getConnectionTimeout() != null && ae.getConnectionTimeout() > 0
+                ? ae.getConnectionTimeout() : DEFAULT_CONNECTION_TIMEOUT_MS;
+            futures.add(CompletableFuture.supplyAsync(() -> echo(ae), ioExecutor)
+                .completeOnTimeout(toResult(ae, ConnectionStatus.TIMEOUT, timeoutMs,
+                    "No response within " + timeoutMs + "ms"), timeoutMs, TimeUnit.MILLISECONDS));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        Instant now = Instant.now();
+        List<EchoResultDTO> results = new ArrayList<>(remoteAEs.size());
+        Map<ConnectionStatus, List<Long>> idsByStatus = new EnumMap<>(ConnectionStatus.class);
+        for (int i = 0; i < remoteAEs.size(); i++) {
+            EchoResultDTO result = futures.get(i).join();
+            idsByStatus.computeIfAbsent(result.getStatus(), k -> new ArrayList<>()).add(remoteAEs.get(i).getId());
+            results.add(result);
+        }
+        idsByStatus.forEach((status, ids) -> aeRepository.updateEchoStatus(ids, status, now));
+
+        log.info("Connectivity sweep of {} AEs: {} reachable", results.size(),
+            results.stream().filter(EchoResultDTO::isSuccess).count());
+        return results;
+    }
 
+    /**
+     * Send a C-ECHO to the AE without touching its persisted state.
+     */
+    private EchoResultDTO echo(ApplicationEntity ae) {
         try {
             // Convert ApplicationEntity to PacsConfiguration for the CEchoService
             PacsConfiguration pacsConfig = new PacsConfiguration();
             pacsConfig.setAeTitle(ae.getAeTitle());
             pacsConfig.setHost(ae.getHostname());
             pacsConfig.setPort(ae.getPort());
-            
+
             CEchoService.EchoResult result = cechoService.echo(pacsConfig);
-            status = result.isSuccess() ? ConnectionStatus.SUCCESS : ConnectionStatus.FAILED;
-            responseTimeMs = result.getResponseTimeMs();
-            message = result.getMessage();
+            return toResult(ae, result.isSuccess() ? ConnectionStatus.SUCCESS : ConnectionStatus.FAILED,
+                result.getResponseTimeMs(), result.getMessage());
         } catch (Exception e) {
             log.error("C-ECHO failed to {}: {}", ae.getAeTitle(), e.getMessage());
-            status = ConnectionStatus.FAILED;
-            message = e.getMessage();
+            return toResult(ae, ConnectionStatus.FAILED, 0, e.getMessage());
         }
+    }
 
-        // Update AE with echo status
-        ae.setLastEchoStatus(status);
-        ae.setLastEchoTime(Instant.now());
-        aeRepository.save(ae);
-
+    private static EchoResultDTO toResult(ApplicationEntity ae, ConnectionStatus status,
+                                          long responseTimeMs, String message) {
         return new EchoResultDTO(
             ae.getId(),
             ae.getAeTitle(),
@@ -207,23 +272,4 @@ public class ApplicationEntityService {
             message
         );
     }
-
-    /**
-     * Test connectivity to a remote AE using C-ECHO (simple version).
-     */
-    public ConnectionStatus testConnection(Long aeId) {
-        return testConnectionDetailed(aeId).getStatus();
-    }
-
-    /**
-     * Test connectivity to all enabled remote AEs.
-     */
-    public void testAllConnections() {
-        List<ApplicationEntity> remoteAEs = getEnabledRemoteAEs();
-        for (ApplicationEntity ae : remoteAEs) {
-            if (ae.getAeType() == AEType.REMOTE_LEGACY) {
-                testConnection(ae.getId());
-            }
-        }
-    }
 }
@@ -0,0 +1,7 @@
+package com.dicomviewer.service;
+
+/**
+ * Published by {@link StorageService} when a stored instance's index row is deleted.
+ */
+public record InstanceDeletedEvent(String seriesInstanceUid, String sopInstanceUid) {
+}
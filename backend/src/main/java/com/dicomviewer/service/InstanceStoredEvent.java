@@ -0,0 +1,17 @@
+package com.dicomviewer.service;
+
+/**
+ * Published by {@link StorageService} when a new instance has been written and indexed.
+ * Listeners bound to the transaction phase see it only after the index row is committed.
+ *
+ * @param frames Number of frames, 0 for objects without pixel data
+ * @param packed Whether the instance was appended to a pack file; {@code filePath} then names the pack
+ */
+public record InstanceStoredEvent(String sopInstanceUid, String modality, String transferSyntaxUid,
+                                  String filePath, long fileSize, int frames, boolean packed) {
+
+    public InstanceStoredEvent(String sopInstanceUid, String modality, String transferSyntaxUid,
+                               String filePath, long fileSize, int frames) {
+        this(sopInstanceUid, modality, transferSyntaxUid, filePath, fileSize, frames, false);
+    }
+}
@@ -0,0 +1,8 @@
+package com.dicomviewer.service;
+
+/**
+ * Published by {@link StorageService} when a stored instance's file was rewritten, e.g. re-encoded
+ * to another transfer syntax.
+ */
+public record InstanceUpdatedEvent(String sopInstanceUid) {
+}
@@ -1,19 +1,26 @@
 package com.dicomviewer.service;
 
+import com.dicomviewer.dicom.health.PacsCircuitBreakerRegistry;
 import com.dicomviewer.dicom.network.CEchoService;
 import com.dicomviewer.dicom.network.CFindService;
 import com.dicomviewer.dicom.network.CMoveService;
+import com.dicomviewer.dicom.network.QueryResultSchema;
+import com.dicomviewer.dicom.network.RetrievalPlanner;
+import com.dicomviewer.dicom.network.RetrievalPriority;
+import com.dicomviewer.dicom.network.RetrievalScheduler;
 import com.dicomviewer.dicom.web.DicomWebService;
+import com.dicomviewer.exception.DicomNetworkException;
 import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
 import com.dicomviewer.repository.PacsConfigurationRepository;
 import org.dcm4che3.data.Attributes;
-import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Unified service for PACS operations.
@@ -27,20 +34,26 @@ public class PacsService {
     private final PacsConfigurationRepository pacsConfigRepository;
     private final CEchoService cEchoService;
     private final CFindService cFindService;
-    private final CMoveService cMoveService;
+    private final RetrievalPlanner retrievalPlanner;
+    private final RetrievalScheduler retrievalScheduler;
     private final DicomWebService dicomWebService;
+    private final PacsCircuitBreakerRegistry circuitBreakers;
 
     @Autowired
     public PacsService(PacsConfigurationRepository pacsConfigRepository,
                        CEchoService cEchoService,
                        CFindService cFindService,
-                       CMoveService cMoveService,
-                       DicomWebService dicomWebService) {
+                       RetrievalPlanner retrievalPlanner,
+                       RetrievalScheduler retrievalScheduler,
+                       DicomWebService dicomWebService,
+                       PacsCircuitBreakerRegistry circuitBreakers) {
         this.pacsConfigRepository = pacsConfigRepository;
         this.cEchoService = cEchoService;
         this.cFindService = cFindService;
-        this.cMoveService = cMoveService;
+        this.retrievalPlanner = retrievalPlanner;
+        this.retrievalScheduler = retrievalScheduler;
         this.dicomWebService = dicomWebService;
+        this.circuitBreakers = circuitBreakers;
     }
 
     /**
@@ -101,6 +114,9 @@ public class PacsService {
                 existing.setQidoRsUrl(config.getQidoRsUrl());
                 existing.setStowRsUrl(config.getStowRsUrl());
                 existing.setIsActive(config.getIsActive());
+                if (config.getRetrieveMethod() != null) {
+                    existing.setRetrieveMethod(config.getRetrieveMethod());
+                }
                 return pacsConfigRepository.save(existing);
             })
             .orElseThrow(() -> new RuntimeException("PACS configuration not found: " + id));
@@ -149,6 +165,7 @@ public class PacsService {
     public List<Map<String, Object>> queryStudies(UUID pacsId, Map<String, String> queryParams) {
         PacsConfiguration config = pacsConfigRepository.findById(pacsId)
             .orElseThrow(() -> new RuntimeException("PACS configuration not found: " + pacsId));
+        ensureAvailable(config, "query");
 
         if (config.isDicomWeb()) {
             return dicomWebService.queryStudies(config, queryParams);
@@ -162,7 +179,7 @@ public class PacsService {
             query.setAccessionNumber(queryParams.get("AccessionNumber"));
 
             List<Attributes> results = cFindService.findStudies(config, query);
-            return convertAttributesToMaps(results);
+            return QueryResultSchema.STUDY.toRows(results);
         }
     }
 
@@ -172,12 +189,13 @@ public class PacsService {
     public List<Map<String, Object>> querySeries(UUID pacsId, String studyInstanceUid) {
         PacsConfiguration config = pacsConfigRepository.findById(pacsId)
             .orElseThrow(() -> new RuntimeException("PACS configuration not found: " + pacsId));
+        ensureAvailable(config, "query");
 
         if (config.isDicomWeb()) {
             return dicomWebService.querySeries(config, studyInstanceUid);
         } else {
             List<Attributes> results = cFindService.findSeries(config, studyInstanceUid);
-            return convertAttributesToMaps(results);
+            return QueryResultSchema.SERIES.toRows(results);
         }
     }
 
@@ -187,75 +205,61 @@ public class PacsService {
     public List<Map<String, Object>> queryInstances(UUID pacsId, String studyInstanceUid, String seriesInstanceUid) {
         PacsConfiguration config = pacsConfigRepository.findById(pacsId)
             .orElseThrow(() -> new RuntimeException("PACS configuration not found: " + pacsId));
+        ensureAvailable(config, "query");
 
         if (config.isDicomWeb()) {
             return dicomWebService.queryInstances(config, studyInstanceUid, seriesInstanceUid);
         } else {
             List<Attributes> results = cFindService.findInstances(config, studyInstanceUid, seriesInstanceUid);
-            return convertAttributesToMaps(results);
+            return QueryResultSchema.IMAGE.toRows(results);
         }
     }
 
     /**
-     * Retrieve a study from a legacy PACS using C-MOVE.
+     * Retrieve a study from a legacy PACS, waiting for it to finish.
      */
-    public CMoveService.MoveResult retrieveStudy(UUID pacsId, String studyInstanceUid, String destinationAe) {
+    public CMoveService.MoveResult retrieveStudy(UUID pacsId, String studyInstanceUid, String destinationAe,
+                                                 RetrievalPriority priority) {
+        RetrievalProgress progress = submitRetrieval(pacsId, studyInstanceUid, destinationAe, priority).join();
+        return RetrievalPlanner.toMoveResult(progress);
+    }
+
+    /**
+     * Queue a study retrieval from a legacy PACS using the PACS's configured retrieve method.
+     * Retrievals are scheduled per PACS by priority and split into parallel series-level
+     * requests by {@link RetrievalPlanner}.
+     * C-GET ignores {@code destinationAe}; for C-MOVE a null destination means the local AE.
+     */
+    public CompletableFuture<RetrievalProgress> submitRetrieval(UUID pacsId, String studyInstanceUid,
+                                                                String destinationAe, RetrievalPriority priority) {
         PacsConfiguration config = pacsConfigRepository.findById(pacsId)
             .orElseThrow(() -> new RuntimeException("PACS configuration not found: " + pacsId));
 
         if (!config.isLegacy()) {
-            throw new IllegalArgumentException("C-MOVE is only supported for Legacy PACS systems");
+            throw new IllegalArgumentException("C-MOVE/C-GET is only supported for Legacy PACS systems");
         }
+        ensureAvailable(config, config.getRetrieveMethod() == PacsConfiguration.RetrieveMethod.C_GET
+            ? "C-GET" : "C-MOVE");
 
-        return cMoveService.moveStudy(config, studyInstanceUid, destinationAe);
+        return retrievalScheduler.submit(config, studyInstanceUid, destinationAe, priority);
     }
 
     /**
-     * Convert dcm4che Attributes to Maps for JSON serialization.
+     * Progress of the latest retrieval of a study, or {@code null} if none is known.
      */
-    private List<Map<String, Object>> convertAttributesToMaps(List<Attributes> attributesList) {
-        List<Map<String, Object>> results = new ArrayList<>();
-
-        for (Attributes attrs : attributesList) {
-            Map<String, Object> map = new HashMap<>();
-
-            // Patient level
-            putIfPresent(map, "PatientID", attrs.getString(Tag.PatientID));
-            putIfPresent(map, "PatientName", attrs.getString(Tag.PatientName));
-            putIfPresent(map, "PatientBirthDate", attrs.getString(Tag.PatientBirthDate));
-            putIfPresent(map, "PatientSex", attrs.getString(Tag.PatientSex));
-
-            // Study level
-            putIfPresent(map, "StudyInstanceUID", attrs.getString(Tag.StudyInstanceUID));
-            putIfPresent(map, "StudyDate", attrs.getString(Tag.StudyDate));
-            putIfPresent(map, "StudyTime", attrs.getString(Tag.StudyTime));
-            putIfPresent(map, "StudyDescription", attrs.getString(Tag.StudyDescription));
-            putIfPresent(map, "AccessionNumber", attrs.getString(Tag.AccessionNumber));
-            putIfPresent(map, "ModalitiesInStudy", attrs.getString(Tag.ModalitiesInStudy));
-            putIfPresent(map, "NumberOfStudyRelatedSeries", attrs.getString(Tag.NumberOfStudyRelatedSeries));
-            putIfPresent(map, "NumberOfStudyRelatedInstances", attrs.getString(Tag.NumberOfStudyRelatedInstances));
-
-            // Series level
-            putIfPresent(map, "SeriesInstanceUID", attrs.getString(Tag.SeriesInstanceUID));
-            putIfPresent(map, "SeriesNumber", attrs.getString(Tag.SeriesNumber));
-            putIfPresent(map, "SeriesDescription", attrs.getString(Tag.SeriesDescription));
-            putIfPresent(map, "Modality", attrs.getString(Tag.Modality));
-            putIfPresent(map, "NumberOfSeriesRelatedInstances", attrs.getString(Tag.NumberOfSeriesRelatedInstances));
-
-            // Instance level
-            putIfPresent(map, "SOPInstanceUID", attrs.getString(Tag.SOPInstanceUID));
-            putIfPresent(map, "SOPClassUID", attrs.getString(Tag.SOPClassUID));
-            putIfPresent(map, "InstanceNumber", attrs.getString(Tag.InstanceNumber));
-
-            results.add(map);
-        }
-
-        return results;
+    public RetrievalProgress getRetrievalProgress(String studyInstanceUid) {
+        return retrievalPlanner.getProgress(studyInstanceUid);
     }
 
-    private void putIfPresent(Map<String, Object> map, String key, String value) {
-        if (value != null && !value.isEmpty()) {
-            map.put(key, value);
+    /**
+     * Fail fast, without connecting, if the health monitor has marked the PACS down.
+     *
+     * @throws DicomNetworkException if the PACS's circuit breaker is open
+     */
+    public void ensureAvailable(PacsConfiguration config, String operation) {
+        if (circuitBreakers.isOpen(config)) {
+            throw new DicomNetworkException(operation, config.getAeTitle(),
+                "PACS " + config.getName() + " is unavailable (failing health checks)");
         }
     }
 }
@@ -1,12 +1,23 @@
 package com.dicomviewer.service;
 
+import com.dicomviewer.metrics.jfr.InstanceStoreEvent;
+import com.dicomviewer.model.StorageBreakdown;
 import com.dicomviewer.model.entity.StoredInstance;
 import com.dicomviewer.repository.StoredInstanceRepository;
+import com.dicomviewer.storage.PackStore;
+import com.dicomviewer.storage.PackedInstanceDeletedEvent;
+import com.dicomviewer.storage.StorageLayout;
+import com.dicomviewer.storage.StoragePurger;
+import com.dicomviewer.storage.StorageStatistics;
+import com.dicomviewer.storage.StorageStatsDelta;
+import com.dicomviewer.storage.StorageTiers;
+import com.dicomviewer.storage.TierMover;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +28,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service for managing local DICOM storage.
@@ -27,16 +41,38 @@ public class StorageService {
 
     private static final Logger log = LoggerFactory.getLogger(StorageService.class);
 
-    @Value("${dicom.storage.path:/var/dicom/storage}")
-    private String storagePath;
-
-    @Value("${dicom.storage.structure:hierarchical}")
-    private String storageStructure;
+    /**
+     * Header attributes an instance is indexed by; the dataset passed to
+     * {@link #storeInstance} needs no others.
+     */
+    public static final int[] INDEXED_TAGS = {
+        Tag.SOPClassUID, Tag.SOPInstanceUID, Tag.StudyDate, Tag.Modality, Tag.PatientName, Tag.PatientID,
+        Tag.StudyInstanceUID, Tag.SeriesInstanceUID, Tag.InstanceNumber, Tag.NumberOfFrames, Tag.Rows, Tag.Columns
+    };
 
     private final StoredInstanceRepository instanceRepository;
+    private final StorageLayout layout;
+    private final StorageTiers tiers;
+    private final PackStore packStore;
+    private final TierMover tierMover;
+    private final StoragePurger storagePurger;
+    private final StorageStatistics storageStatistics;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public StorageService(StoredInstanceRepository instanceRepository) {
+    @Value("${dicom.storage.checksum-on-ingest:false}")
+    private boolean checksumOnIngest;
+
+    public StorageService(StoredInstanceRepository instanceRepository, StorageLayout layout, StorageTiers tiers,
+                          PackStore packStore, TierMover tierMover, StoragePurger storagePurger,
+                          StorageStatistics storageStatistics, ApplicationEventPublisher eventPublisher) {
         this.instanceRepository = instanceRepository;
+        this.layout = layout;
+        this.tiers = tiers;
+        this.packStore = packStore;
+        this.tierMover = tierMover;
+        this.storagePurger = storagePurger;
+        this.storageStatistics = storageStatistics;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -54,21 +90,47 @@ public class StorageService {
             return instanceRepository.findBySopInstanceUid(sopInstanceUID).orElse(null);
         }
 
-        // Calculate storage path
-        Path targetPath = calculateStoragePath(studyUID, seriesUID, sopInstanceUID);
-        Files.createDirectories(targetPath.getParent());
+        InstanceStoreEvent event = new InstanceStoreEvent();
+        event.begin();
+
+        StoredInstance instance = new StoredInstance();
+        long diskStart = System.nanoTime();
+        long sourceSize = Files.size(sourceFile.toPath());
+        if (checksumOnIngest) {
+            instance.setContentSha256(StorageLayout.sha256(sourceFile.toPath()));
+        }
+        if (packStore.accepts(sourceSize)) {
+            // Small instance: append to the series pack instead of creating a file
+            PackStore.Location location = packStore.append(seriesUID, sourceFile.toPath());
+            Files.delete(sourceFile.toPath());
+            instance.setFilePath(location.pack().toString());
+            instance.setPackOffset(location.offset());
+            instance.setPackLength(location.length());
+            instance.setFileSize(location.length());
+        } else {
+            // Calculate storage path
+            Path targetPath = layout.pathFor(studyUID, seriesUID, sopInstanceUID, sourceFile.toPath());
+            // Held until the row commits, so a purge reclaiming the same path sees it in use
+            tiers.lockUntilCommitted(targetPath);
+            Files.createDirectories(targetPath.getParent());
 
-        // Move file to storage location
-        Files.copy(sourceFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            // Move file to storage location; identical content is kept once when content-addressed
+            if (layout.isContentAddressed() && Files.exists(targetPath)) {
+                log.debug("Content of {} already stored at {}", sopInstanceUID, targetPath);
+                Files.delete(sourceFile.toPath());
+            } else {
+                Files.move(sourceFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            instance.setFilePath(targetPath.toString());
+            instance.setFileSize(Files.size(targetPath));
+        }
+        event.timeToDisk = System.nanoTime() - diskStart;
 
         // Create database entry
-        StoredInstance instance = new StoredInstance();
         instance.setSopInstanceUid(sopInstanceUID);
         instance.setSopClassUid(dataset.getString(Tag.SOPClassUID));
         instance.setStudyInstanceUid(studyUID);
         instance.setSeriesInstanceUid(seriesUID);
-        instance.setFilePath(targetPath.toString());
-        instance.setFileSize(Files.size(targetPath));
         instance.setTransferSyntaxUid(fileMetaInfo.getString(Tag.TransferSyntaxUID));
         
         // Extract additional metadata
@@ -80,23 +142,100 @@ public class StorageService {
         instance.setRows(dataset.getInt(Tag.Rows, 0));
         instance.setColumns(dataset.getInt(Tag.Columns, 0));
         instance.setStoredAt(Instant.now());
+        instance.setStorageTier(StorageTiers.PRIMARY);
 
+        long indexStart = System.nanoTime();
+        boolean newStudy = !instanceRepository.existsByStudyInstanceUid(studyUID);
+        boolean newSeries = newStudy || !instanceRepository.existsBySeriesInstanceUid(seriesUID);
         StoredInstance saved = instanceRepository.save(instance);
-        log.info("Stored instance: {} at {}", sopInstanceUID, targetPath);
+        event.timeToIndex = System.nanoTime() - indexStart;
+        log.info("Stored instance: {} at {}", sopInstanceUID, instance.getFilePath());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.sopInstanceUid = sopInstanceUID;
+            event.transferSyntaxUid = instance.getTransferSyntaxUid();
+            event.bytes = instance.getFileSize();
+            event.commit();
+        }
+
+        // Header was read up to pixel data, so Rows tells whether the object is an image
+        int frames = instance.getRows() > 0 ? dataset.getInt(Tag.NumberOfFrames, 1) : 0;
+        eventPublisher.publishEvent(new InstanceStoredEvent(sopInstanceUID, instance.getModality(),
+            instance.getTransferSyntaxUid(), instance.getFilePath(), instance.getFileSize(), frames,
+            instance.isPacked()));
+        eventPublisher.publishEvent(new StorageStatsDelta(instance.getModality(), instance.getStorageTier(),
+            1, instance.getFileSize(), newStudy ? 1 : 0, newSeries ? 1 : 0));
 
         return saved;
     }
 
     /**
-     * Get the file for a stored instance.
+     * Record that an instance's file was re-encoded in place.
+     */
+    public void updateEncoding(String sopInstanceUid, String transferSyntaxUid, long fileSize) {
+        instanceRepository.findBySopInstanceUid(sopInstanceUid).ifPresent(instance -> {
+            long previousSize = instance.getFileSize() != null ? instance.getFileSize() : 0;
+            instance.setTransferSyntaxUid(transferSyntaxUid);
+            instance.setFileSize(fileSize);
+            if (instance.getContentSha256() != null) {
+                try {
+                    instance.setContentSha256(StorageLayout.sha256(Paths.get(instance.getFilePath())));
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to checksum " + instance.getFilePath() + ": " + e.getMessage(), e);
+                }
+            }
+            instanceRepository.save(instance);
+            eventPublisher.publishEvent(new InstanceUpdatedEvent(sopInstanceUid));
+            eventPublisher.publishEvent(StorageStatsDelta.of(instance.getModality(), instance.getStorageTier(),
+                0, fileSize - previousSize));
+        });
+    }
+
+    /**
+     * Get the file for a stored instance. Packed instances have no file of their own;
+     * use {@link #readInstance} for those.
      */
     public File getInstanceFile(String sopInstanceUid) {
         StoredInstance instance = instanceRepository.findBySopInstanceUid(sopInstanceUid)
             .orElseThrow(() -> new IllegalArgumentException(
                 "Instance not found: " + sopInstanceUid));
+        if (instance.isPacked()) {
+            throw new IllegalStateException("Instance " + sopInstanceUid + " is stored in pack " + instance.getFilePath());
+        }
+        tierMover.recordAccess(instance);
         return new File(instance.getFilePath());
     }
 
+    /**
+     * Read a stored instance's Part 10 bytes, whether packed or stored as its own file.
+     */
+    @Transactional(readOnly = true)
+    public byte[] readInstance(String sopInstanceUid) throws IOException {
+        StoredInstance instance = instanceRepository.findBySopInstanceUid(sopInstanceUid)
+            .orElseThrow(() -> new IllegalArgumentException(
+                "Instance not found: " + sopInstanceUid));
+        tierMover.recordAccess(instance);
+        return instance.isPacked() ? packStore.read(instance) : Files.readAllBytes(Paths.get(instance.getFilePath()));
+    }
+
+    /**
+     * Read every stored instance of a series. Packed instances come from one sequential read per pack.
+     *
+     * @return Instance bytes by SOP Instance UID
+     */
+    @Transactional(readOnly = true)
+    public Map<String, byte[]> readSeries(String seriesInstanceUid) throws IOException {
+        Map<String, byte[]> result = new LinkedHashMap<>(packStore.readSeries(seriesInstanceUid));
+        for (StoredInstance instance : instanceRepository.findBySeriesInstanceUid(seriesInstanceUid)) {
+            tierMover.recordAccess(instance);
+            if (!instance.isPacked()) {
+                result.put(instance.getSopInstanceUid(), Files.readAllBytes(Paths.get(instance.getFilePath())));
+            }
+        }
+        return result;
+    }
+
     /**
      * Check if an instance exists in local storage.
      */
@@ -112,60 +251,61 @@ public class StorageService {
             .orElseThrow(() -> new IllegalArgumentException(
                 "Instance not found: " + sopInstanceUid));
         
-        Files.deleteIfExists(Paths.get(instance.getFilePath()));
+        deleteFile(instance);
         instanceRepository.delete(instance);
+        boolean lastOfStudy = !instanceRepository.existsByStudyInstanceUid(instance.getStudyInstanceUid());
+        boolean lastOfSeries = lastOfStudy || !instanceRepository.existsBySeriesInstanceUid(instance.getSeriesInstanceUid());
+        eventPublisher.publishEvent(new StorageStatsDelta(instance.getModality(), instance.getStorageTier(),
+            -1, instance.getFileSize() != null ? -instance.getFileSize() : 0, lastOfStudy ? -1 : 0, lastOfSeries ? -1 : 0));
         
         log.info("Deleted instance: {}", sopInstanceUid);
     }
 
     /**
-     * Delete all instances for a study.
+     * Delete all instances for a study. Index rows go in one statement; files are removed in the
+     * background once the transaction commits (see {@link StoragePurger}).
      */
-    public void deleteStudy(String studyInstanceUid) throws IOException {
-        var instances = instanceRepository.findByStudyInstanceUid(studyInstanceUid);
-        for (StoredInstance instance : instances) {
-            Files.deleteIfExists(Paths.get(instance.getFilePath()));
-        }
-        instanceRepository.deleteAll(instances);
-        
-        // Try to remove empty directories
-        Path studyDir = Paths.get(storagePath, studyInstanceUid);
-        if (Files.exists(studyDir)) {
-            Files.walk(studyDir)
-                .sorted(java.util.Comparator.reverseOrder())
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException ignored) {}
-                });
+    public void deleteStudy(String studyInstanceUid) {
+        if (!storagePurger.purgeStudy(studyInstanceUid)) {
+            throw new IllegalArgumentException("Study not found: " + studyInstanceUid);
         }
-        
-        log.info("Deleted study: {}", studyInstanceUid);
     }
 
     /**
-     * Get storage statistics.
+     * Get storage statistics from the incrementally maintained counters.
      */
     public StorageStats getStorageStats() {
+        StorageStatistics.Snapshot snapshot = storageStatistics.snapshot();
         StorageStats stats = new StorageStats();
-        stats.setTotalInstances(instanceRepository.count());
-        stats.setTotalSize(instanceRepository.sumFileSize());
-        stats.setStudyCount(instanceRepository.countDistinctStudies());
-        stats.setSeriesCount(instanceRepository.countDistinctSeries());
+        stats.setTotalInstances(snapshot.totalInstances());
+        stats.setTotalSize(snapshot.totalBytes());
+        stats.setStudyCount(snapshot.studyCount());
+        stats.setSeriesCount(snapshot.seriesCount());
+        stats.setBreakdown(snapshot.breakdown());
         return stats;
     }
 
     /**
-     * Calculate storage path based on configuration.
+     * Delete an instance's file unless another index row shares it (content-addressed storage or a pack),
+     * and announce the deletion to the derived indexes.
      */
-    private Path calculateStoragePath(String studyUID, String seriesUID, 
-                                      String sopInstanceUID) {
-        if ("flat".equals(storageStructure)) {
-            return Paths.get(storagePath, sopInstanceUID + ".dcm");
-        } else {
-            // Hierarchical: storage/studyUID/seriesUID/sopInstanceUID.dcm
-            return Paths.get(storagePath, studyUID, seriesUID, sopInstanceUID + ".dcm");
+    private void deleteFile(StoredInstance instance) throws IOException {
+        eventPublisher.publishEvent(new InstanceDeletedEvent(instance.getSeriesInstanceUid(),
+            instance.getSopInstanceUid()));
+        if (instance.isPacked()) {
+            // Space is reclaimed by compacting the pack once the delete has committed
+            eventPublisher.publishEvent(new PackedInstanceDeletedEvent(instance.getSeriesInstanceUid(),
+                instance.getFilePath()));
+            return;
         }
+        if (!tiers.owns(Paths.get(instance.getFilePath()))) {
+            // Registered in place by the bulk importer; the file belongs to another archive
+            return;
+        }
+        if (layout.isContentAddressed() && instanceRepository.countByFilePath(instance.getFilePath()) > 1) {
+            return;
+        }
+        Files.deleteIfExists(Paths.get(instance.getFilePath()));
     }
 
     /**
@@ -180,6 +320,7 @@ public class StorageService {
         private long totalSize;
         private long studyCount;
         private long seriesCount;
+        private List<StorageBreakdown> breakdown = List.of();
 
         // Getters and setters
         public long getTotalInstances() { return totalInstances; }
@@ -193,6 +334,9 @@ public class StorageService {
         
         public long getSeriesCount() { return seriesCount; }
         public void setSeriesCount(long seriesCount) { this.seriesCount = seriesCount; }
+
+        public List<StorageBreakdown> getBreakdown() { return breakdown; }
+        public void setBreakdown(List<StorageBreakdown> breakdown) { this.breakdown = breakdown; }
         
         public String getFormattedSize() {
             if (totalSize < KB) return totalSize + " B";
@@ -0,0 +1,567 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import com.dicomviewer.service.StorageService;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Registers an existing tree of DICOM files in the index.
+ * <p>
+ * The tree is walked in sorted order and each file's header is parsed up to the pixel data by up to
+ * {@code dicom.import.parallelism} concurrent workers. Parsed instances are indexed in batches of
+ * {@code dicom.import.batch-size}: SOP Instance UIDs already indexed are skipped with one query, new
+ * ones are inserted with one JDBC batch. With {@link Mode#REGISTER} files are indexed where they
+ * are, on the {@link StorageTiers#EXTERNAL} tier; with {@link Mode#COPY} they are first copied into
+ * the {@link StorageLayout} on the primary tier. Imported instances are not transcoded.
+ * <p>
+ * The checkpoint in {@code background_job_checkpoints} is the number of files, in walk order, whose
+ * batches have committed; an interrupted import resumes on startup, skipping those without parsing
+ * them. A batch that fails to insert stops the import with the checkpoint behind it, so the next
+ * run retries it. Storage statistics are recounted when an import finishes.
+ * <p>
+ * Files registered in place stay outside every storage tier; purging them only drops their index
+ * rows and tiering leaves them where they are.
+ */
+@Component
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+
+    static final String JOB_NAME = "bulk-import";
+
+    private static final String INSERT_SQL = "INSERT INTO stored_instances (sop_instance_uid, sop_class_uid, "
+        + "study_instance_uid, series_instance_uid, file_path, file_size, content_sha256, storage_tier, "
+        + "transfer_syntax_uid, patient_id, patient_name, study_date, modality, instance_number, rows, columns, "
+        + "stored_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long REPORT_INTERVAL_MS = 60000;
+
+    public enum Mode {
+        REGISTER,
+        COPY
+    }
+
+    private final StoredInstanceRepository instanceRepository;
+    private final BackgroundJobCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageLayout layout;
+    private final HeaderIndex headerIndex;
+    private final StorageStatistics storageStatistics;
+    private final DicomMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService ioExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Job current;
+
+    @Value("${dicom.import.parallelism:0}")
+    private int parallelism;
+
+    @Value("${dicom.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${dicom.storage.checksum-on-ingest:false}")
+    private boolean checksumOnIngest;
+
+    public BulkImporter(StoredInstanceRepository instanceRepository,
+                        BackgroundJobCheckpointRepository checkpointRepository,
+                        JdbcTemplate jdbcTemplate,
+                        StorageLayout layout,
+                        HeaderIndex headerIndex,
+                        StorageStatistics storageStatistics,
+                        DicomMetrics metrics,
+                        PlatformTransactionManager transactionManager,
+                        @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.layout = layout;
+        this.headerIndex = headerIndex;
+        this.storageStatistics = storageStatistics;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Resume an import interrupted by shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        checkpointRepository.findById(JOB_NAME)
+            .filter(c -> c.getStartedAt() != null && c.getCompletedAt() == null && c.getParameters() != null)
+            .ifPresent(c -> {
+                int colon = c.getParameters().indexOf(':');
+                Mode mode = Mode.valueOf(c.getParameters().substring(0, colon));
+                Path source = Paths.get(c.getParameters().substring(colon + 1));
+                log.info("Resuming bulk import of {} after {} files", source, c.getLastId());
+                start(source, mode);
+            });
+    }
+
+    /**
+     * Start importing a directory tree in the background. An unfinished import of the same tree
+     * and mode resumes from its checkpoint.
+     *
+     * @return {@code false} if an import is already in progress
+     */
+    public boolean start(Path source, Mode mode) {
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("Not a directory: " + source);
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                run(source.toAbsolutePath().normalize(), mode);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Bulk import of {} stopped: {}", source, e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Status getStatus() {
+        Job job = current;
+        if (job == null) {
+            BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+            return checkpoint == null ? new Status(false, null, 0, 0, 0, 0, 0, 0, 0, null, null, 0)
+                : new Status(false, checkpoint.getParameters(), checkpoint.getLastId(), 0, checkpoint.getProcessed(),
+                    0, 0, 0, 0, checkpoint.getStartedAt(), checkpoint.getCompletedAt(), 0);
+        }
+        return job.status(running.get());
+    }
+
+    void run(Path source, Mode mode) throws IOException, InterruptedException {
+        String parameters = mode + ":" + source;
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+            .orElseGet(() -> new BackgroundJobCheckpoint(JOB_NAME));
+        if (checkpoint.getCompletedAt() != null || checkpoint.getStartedAt() == null
+                || !parameters.equals(checkpoint.getParameters())) {
+            checkpoint.setLastId(0);
+            checkpoint.setProcessed(0);
+            checkpoint.setCompletedAt(null);
+            checkpoint.setStartedAt(Instant.now());
+            checkpoint.setParameters(parameters);
+            checkpointRepository.save(checkpoint);
+        }
+
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors() * 2;
+        Job job = new Job(source, mode, checkpoint, workers);
+        current = job;
+        log.info("Bulk import ({}) of {} starting with {} workers after {} files", mode, source, workers,
+            checkpoint.getLastId());
+
+        try {
+            walk(source, job);
+        } finally {
+            job.permits.acquire(workers);
+        }
+        job.checkFailure();
+        job.flushPending();
+
+        checkpoint.setCompletedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        Status status = job.status(false);
+        log.info("Bulk import of {} finished: {} files scanned, {} imported, {} already indexed, {} not DICOM, "
+                + "{} failed, {} MB in {}s ({} files/s)", source, status.scanned(), status.imported(),
+            status.skipped(), status.ignored(), status.failed(), status.bytes() / (1024 * 1024),
+            Duration.between(job.started, Instant.now()).toSeconds(), Math.round(status.filesPerSecond()));
+        storageStatistics.reconcile();
+    }
+
+    /**
+     * Dispatch every regular file under a directory, in sorted order so a resumed walk sees the
+     * same sequence.
+     */
+    private void walk(Path dir, Job job) throws IOException, InterruptedException {
+        List<Path> entries;
+        try (Stream<Path> list = Files.list(dir)) {
+            entries = list.sorted().toList();
+        }
+        for (Path entry : entries) {
+            if (Files.isDirectory(entry)) {
+                walk(entry, job);
+            } else if (Files.isRegularFile(entry)) {
+                job.submit(entry);
+            }
+        }
+    }
+
+    /**
+     * Index row for a Part 10 file, read up to its pixel data.
+     *
+     * @return {@code null} if the file is not a DICOM instance
+     */
+    StoredInstance parse(Path file) throws IOException {
+        DicomHeaderReader.Header header = DicomHeaderReader.read(file, StorageService.INDEXED_TAGS);
+        Attributes fmi = header.fileMetaInformation();
+        Attributes dataset = header.dataset();
+        if (fmi == null) {
+            return null;
+        }
+        String sopInstanceUid = dataset.getString(Tag.SOPInstanceUID, fmi.getString(Tag.MediaStorageSOPInstanceUID));
+        String studyUid = dataset.getString(Tag.StudyInstanceUID);
+        String seriesUid = dataset.getString(Tag.SeriesInstanceUID);
+        if (sopInstanceUid == null || studyUid == null || seriesUid == null) {
+            // DICOMDIR and other non-instance objects
+            return null;
+        }
+
+        StoredInstance instance = new StoredInstance();
+        instance.setSopInstanceUid(sopInstanceUid);
+        instance.setSopClassUid(dataset.getString(Tag.SOPClassUID, fmi.getString(Tag.MediaStorageSOPClassUID)));
+        instance.setStudyInstanceUid(studyUid);
+        instance.setSeriesInstanceUid(seriesUid);
+        instance.setTransferSyntaxUid(fmi.getString(Tag.TransferSyntaxUID));
+        instance.setPatientId(dataset.getString(Tag.PatientID));
+        instance.setPatientName(dataset.getString(Tag.PatientName));
+        instance.setStudyDate(dataset.getString(Tag.StudyDate));
+        instance.setModality(dataset.getString(Tag.Modality));
+        instance.setInstanceNumber(dataset.getInt(Tag.InstanceNumber, 0));
+        instance.setRows(dataset.getInt(Tag.Rows, 0));
+        instance.setColumns(dataset.getInt(Tag.Columns, 0));
+        instance.setFilePath(file.toString());
+        instance.setFileSize(Files.size(file));
+        instance.setStorageTier(StorageTiers.EXTERNAL);
+        if (checksumOnIngest) {
+            instance.setContentSha256(StorageLayout.sha256(file));
+        }
+        return instance;
+    }
+
+    /**
+     * Copy a file into the storage layout, keeping identical content once when content-addressed.
+     */
+    private Path copyIntoLayout(StoredInstance instance, Path source) throws IOException {
+        Path target = layout.pathFor(instance.getStudyInstanceUid(), instance.getSeriesInstanceUid(),
+            instance.getSopInstanceUid(), source);
+        Files.createDirectories(target.getParent());
+        if (!(layout.isContentAddressed() && Files.exists(target))) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /**
+     * Insert new index rows in one JDBC batch and transaction. Instances stored by another path
+     * since the existence check make the batch fail; it is then retried row by row, skipping them.
+     *
+     * @return Number of rows inserted
+     */
+    int insert(List<StoredInstance> instances) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batchInsert(instances));
+            return instances.size();
+        } catch (DataIntegrityViolationException e) {
+            int inserted = 0;
+            for (StoredInstance instance : instances) {
+                try {
+                    batchInsert(List.of(instance));
+                    inserted++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.debug("Instance {} was stored during import", instance.getSopInstanceUid());
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private void batchInsert(List<StoredInstance> instances) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, instances, instances.size(), (ps, instance) -> {
+            ps.setString(1, instance.getSopInstanceUid());
+            ps.setString(2, instance.getSopClassUid());
+            ps.setString(3, instance.getStudyInstanceUid());
+            ps.setString(4, instance.getSeriesInstanceUid());
+            ps.setString(5, instance.getFilePath());
+            ps.setLong(6, instance.getFileSize());
+            ps.setString(7, instance.getContentSha256());
+            ps.setString(8, instance.getStorageTier());
+            ps.setString(9, instance.getTransferSyntaxUid());
+            ps.setString(10, instance.getPatientId());
+            ps.setString(11, instance.getPatientName());
+            ps.setString(12, instance.getStudyDate());
+            ps.setString(13, instance.getModality());
+            setInteger(ps, 14, instance.getInstanceNumber());
+            setInteger(ps, 15, instance.getRows());
+            setInteger(ps, 16, instance.getColumns());
+            ps.setTimestamp(17, now);
+        });
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Import progress and throughput. {@code position} and {@code imported} include earlier runs of a
+     * resumed import; the other counts cover the current run.
+     *
+     * @param source   Mode and directory, e.g. {@code REGISTER:/mnt/old-archive}
+     * @param position Files, in walk order, whose batches have committed
+     * @param skipped  Files whose instance was already indexed
+     * @param ignored  Files that are not DICOM instances
+     */
+    public record Status(boolean running, String source, long position, long scanned, long imported,
+                         long skipped, long ignored, long failed, long bytes, Instant startedAt,
+                         Instant completedAt, double filesPerSecond) {
+    }
+
+    private record Parsed(long seq, Path source, StoredInstance instance) {
+    }
+
+    /**
+     * State of one import run.
+     */
+    private final class Job {
+        private final Path source;
+        private final Mode mode;
+        private final BackgroundJobCheckpoint checkpoint;
+        private final Semaphore permits;
+        private final long skip;
+        private final Instant started = Instant.now();
+        private final AtomicLong dispatched = new AtomicLong();
+        private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+        private final List<Parsed> pending = new ArrayList<>();
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder ignored = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private volatile RuntimeException failure;
+        private long sequence;
+        private long lastReport = System.currentTimeMillis();
+
+        private Job(Path source, Mode mode, BackgroundJobCheckpoint checkpoint, int workers) {
+            this.source = source;
+            this.mode = mode;
+            this.checkpoint = checkpoint;
+            this.permits = new Semaphore(workers);
+            this.skip = checkpoint.getLastId();
+        }
+
+        /**
+         * Parse a file on a worker; called from the walking thread only.
+         */
+        private void submit(Path file) throws InterruptedException {
+            checkFailure();
+            long seq = sequence++;
+            if (seq < skip) {
+                return;
+            }
+            permits.acquire();
+            inFlight.add(seq);
+            dispatched.set(seq + 1);
+            ioExecutor.execute(() -> {
+                try {
+                    Parsed parsed = read(seq, file);
+                    if (parsed != null) {
+                        add(parsed);
+                    }
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                        log.error("Bulk import of {} failed to index a batch: {}", source, e.getMessage(), e);
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * Stop the import once a batch failed. Its files stay behind the checkpoint, so a resumed
+         * import retries them.
+         */
+        private void checkFailure() {
+            if (failure != null) {
+                throw new IllegalStateException("Batch insert failed: " + failure.getMessage(), failure);
+            }
+        }
+
+        private Parsed read(long seq, Path file) {
+            scanned.increment();
+            try {
+                StoredInstance instance = parse(file);
+                if (instance != null) {
+                    return new Parsed(seq, file, instance);
+                }
+            } catch (Exception e) {
+                log.debug("Not importing {}: {}", file, e.getMessage());
+            }
+            ignored.increment();
+            metrics.recordImport("ignored", 1);
+            inFlight.remove(seq);
+            return null;
+        }
+
+        private void add(Parsed parsed) {
+            List<Parsed> batch = null;
+            synchronized (pending) {
+                pending.add(parsed);
+                if (pending.size() >= batchSize) {
+                    batch = new ArrayList<>(pending);
+                    pending.clear();
+                }
+            }
+            if (batch != null) {
+                flush(batch);
+            }
+        }
+
+        private void flushPending() {
+            List<Parsed> batch;
+            synchronized (pending) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            flush(batch);
+        }
+
+        /**
+         * Index one batch: skip known instances, copy if requested, insert the rest in one JDBC batch,
+         * and advance the checkpoint.
+         */
+        private void flush(List<Parsed> batch) {
+            try {
+                index(batch);
+            } catch (RuntimeException e) {
+                failed.add(batch.size());
+                metrics.recordImport("failed", batch.size());
+                throw e;
+            }
+        }
+
+        private void index(List<Parsed> batch) {
+            Map<String, Parsed> unique = new LinkedHashMap<>();
+            for (Parsed parsed : batch) {
+                unique.putIfAbsent(parsed.instance().getSopInstanceUid(), parsed);
+            }
+            Set<String> existing = unique.isEmpty() ? Set.of()
+                : new HashSet<>(instanceRepository.findExistingSopInstanceUids(unique.keySet()));
+
+            List<StoredInstance> fresh = new ArrayList<>();
+            int copyFailures = 0;
+            for (Parsed parsed : unique.values()) {
+                StoredInstance instance = parsed.instance();
+                if (existing.contains(instance.getSopInstanceUid())) {
+                    continue;
+                }
+                if (mode == Mode.COPY) {
+                    try {
+                        instance.setFilePath(copyIntoLayout(instance, parsed.source()).toString());
+                        instance.setStorageTier(StorageTiers.PRIMARY);
+                    } catch (IOException e) {
+                        log.warn("Failed to copy {} into storage: {}", parsed.source(), e.getMessage());
+                        copyFailures++;
+                        continue;
+                    }
+                }
+                fresh.add(instance);
+            }
+
+            int inserted = 0;
+            if (!fresh.isEmpty()) {
+                inserted = insert(fresh);
+                Set<String> series = new HashSet<>();
+                for (StoredInstance instance : fresh) {
+                    bytes.add(instance.getFileSize());
+                    series.add(instance.getSeriesInstanceUid());
+                }
+                // Rebuilt from the index on next read
+                for (String seriesUid : series) {
+                    try {
+                        headerIndex.removeSeries(seriesUid);
+                    } catch (IOException e) {
+                        log.warn("Failed to reset header index of series {}: {}", seriesUid, e.getMessage());
+                    }
+                }
+            }
+            // Duplicates within the batch, instances already indexed, and ones stored concurrently
+            int alreadyIndexed = batch.size() - inserted - copyFailures;
+            skipped.add(alreadyIndexed);
+            failed.add(copyFailures);
+            metrics.recordImport("imported", inserted);
+            metrics.recordImport("skipped", alreadyIndexed);
+            metrics.recordImport("failed", copyFailures);
+            checkpoint(batch, inserted);
+        }
+
+        private synchronized void checkpoint(List<Parsed> batch, int inserted) {
+            for (Parsed parsed : batch) {
+                inFlight.remove(parsed.seq());
+            }
+            Long lowest = inFlight.isEmpty() ? null : inFlight.first();
+            checkpoint.setLastId(lowest != null ? lowest : Math.max(dispatched.get(), skip));
+            checkpoint.setProcessed(checkpoint.getProcessed() + inserted);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= REPORT_INTERVAL_MS) {
+                lastReport = now;
+                Status status = status(true);
+                log.info("Bulk import of {}: {} files scanned, {} imported ({} files/s)", source,
+                    status.scanned(), status.imported(), Math.round(status.filesPerSecond()));
+            }
+        }
+
+        private Status status(boolean running) {
+            double seconds = Math.max(1, Duration.between(started, Instant.now()).toMillis()) / 1000.0;
+            return new Status(running, checkpoint.getParameters(), checkpoint.getLastId(), scanned.sum(),
+                checkpoint.getProcessed(), skipped.sum(), ignored.sum(), failed.sum(), bytes.sum(), checkpoint.getStartedAt(),
+                checkpoint.getCompletedAt(), scanned.sum() / seconds);
+        }
+    }
+}
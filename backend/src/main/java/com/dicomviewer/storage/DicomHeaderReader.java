@@ -0,0 +1,180 @@
+package com.dicomviewer.storage;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkDataDescriptor;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputHandler;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+import org.dcm4che3.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads the header of a Part 10 object without touching its pixel data, for ingest, bulk import
+ * and the {@link HeaderIndex}.
+ * <p>
+ * Parsing stops at the top-level Pixel Data element, whose offset and length are reported, and
+ * binary values above {@value #MAX_BINARY_VALUE_BYTES} bytes before it (overlays, icons, waveforms,
+ * large private blobs) are skipped rather than loaded, so heap use does not grow with object size.
+ * Callers can further restrict the top-level attributes kept to the tags they use.
+ * <p>
+ * The first {@value #HEAD_BYTES} bytes, which hold the whole header of nearly every object, are
+ * read with a single call into a pooled buffer; longer headers continue from the file. Buffers are
+ * pooled rather than thread-local because the I/O executor runs each task on a new virtual thread.
+ */
+public final class DicomHeaderReader {
+
+    static final int HEAD_BYTES = 64 * 1024;
+    static final int MAX_BINARY_VALUE_BYTES = 4096;
+    private static final int POOLED_BUFFERS = 64;
+
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    private static final BulkDataDescriptor SKIPPED_VALUES = (itemPointer, privateCreator, tag, vr, length) ->
+        BulkDataDescriptor.DEFAULT.isBulkData(itemPointer, privateCreator, tag, vr, length)
+            || (length > MAX_BINARY_VALUE_BYTES && isBinary(vr));
+
+    /**
+     * Header of a Part 10 object.
+     *
+     * @param fileMetaInformation File meta information, {@code null} for a bare dataset
+     * @param pixelDataOffset     Offset of the Pixel Data value from the start of the object,
+     *                            -1 without pixel data
+     * @param pixelDataLength     Length of the Pixel Data value, -1 if encapsulated or absent
+     */
+    public record Header(Attributes fileMetaInformation, Attributes dataset, String transferSyntaxUid,
+                         long pixelDataOffset, int pixelDataLength) {
+
+        public boolean hasPixelData() {
+            return pixelDataOffset >= 0;
+        }
+    }
+
+    private DicomHeaderReader() {
+    }
+
+    /**
+     * Read the header of a file.
+     *
+     * @param tags Top-level attributes to keep; all of them if none are given
+     */
+    public static Header read(Path file, int... tags) throws IOException {
+        byte[] buffer = borrow();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.wrap(buffer);
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) {
+                    break;
+                }
+            }
+            InputStream in = new ByteArrayInputStream(buffer, 0, head.position());
+            if (!head.hasRemaining()) {
+                in = new SequenceInputStream(in, Channels.newInputStream(channel));
+            }
+            return read(in, tags);
+        } finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    /**
+     * Read the header of an object held in memory, e.g. a packed instance.
+     *
+     * @param tags Top-level attributes to keep; all of them if none are given
+     */
+    public static Header read(byte[] dicom, int... tags) throws IOException {
+        return read(new ByteArrayInputStream(dicom), tags);
+    }
+
+    private static Header read(InputStream stream, int[] tags) throws IOException {
+        try (DicomInputStream in = new DicomInputStream(stream)) {
+            in.setIncludeBulkData(IncludeBulkData.NO);
+            in.setBulkDataDescriptor(SKIPPED_VALUES);
+            Attributes fmi = in.readFileMetaInformation();
+            if (tags.length > 0) {
+                in.setDicomInputHandler(new Selection(tags));
+            }
+            Attributes dataset = in.readDatasetUntilPixelData();
+            boolean hasPixelData = in.tag() == Tag.PixelData;
+            String transferSyntax = fmi != null ? fmi.getString(Tag.TransferSyntaxUID) : in.getTransferSyntax();
+            return new Header(fmi, dataset, transferSyntax,
+                hasPixelData ? in.getPosition() : -1, hasPixelData ? in.length() : -1);
+        }
+    }
+
+    private static byte[] borrow() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer != null ? buffer : new byte[HEAD_BYTES];
+    }
+
+    private static boolean isBinary(VR vr) {
+        return switch (vr) {
+            case OB, OD, OF, OL, OV, OW, UN -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Skips the values of top-level attributes outside the requested tags. Nested items are read
+     * in full, as they only occur under a requested sequence.
+     */
+    private static final class Selection implements DicomInputHandler {
+
+        private final int[] tags;
+
+        private Selection(int[] tags) {
+            this.tags = Arrays.copyOf(tags, tags.length + 1);
+            this.tags[tags.length] = Tag.SpecificCharacterSet;
+            Arrays.sort(this.tags);
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Attributes attrs) throws IOException {
+            int tag = dis.tag();
+            if (!attrs.isRoot() || Arrays.binarySearch(tags, tag) >= 0) {
+                dis.readValue(dis, attrs);
+            } else if (dis.length() >= 0) {
+                StreamUtils.skipFully(dis, dis.length());
+            } else {
+                // Undefined length sequence: parse to find its end, then drop it
+                dis.readValue(dis, attrs);
+                attrs.remove(tag);
+            }
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Sequence seq) throws IOException {
+            dis.readValue(dis, seq);
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Fragments frags) throws IOException {
+            dis.readValue(dis, frags);
+        }
+
+        @Override
+        public void startDataset(DicomInputStream dis) throws IOException {
+            dis.startDataset(dis);
+        }
+
+        @Override
+        public void endDataset(DicomInputStream dis) throws IOException {
+            dis.endDataset(dis);
+        }
+    }
+}
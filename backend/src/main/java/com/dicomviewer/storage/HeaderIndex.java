@@ -0,0 +1,317 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import com.dicomviewer.service.InstanceDeletedEvent;
+import com.dicomviewer.service.InstanceStoredEvent;
+import com.dicomviewer.service.InstanceUpdatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-series index of the header attributes needed for metadata, stack sorting and rendering,
+ * so those can be served without opening the DICOM files.
+ * <p>
+ * Each stored instance's header is read once after its storing transaction commits and appended
+ * to the series journal under {@code <storage>/index/}. Journals are folded into the memory-mapped
+ * columnar series file (see {@link HeaderIndexFile}) when they pass
+ * {@code dicom.storage.header-index.journal-limit-bytes} or when the series is next read. Both live on
+ * disk, so the index survives restarts; a series without any index is rebuilt from its files on
+ * first read.
+ */
+@Component
+public class HeaderIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HeaderIndex.class);
+
+    static final String INDEX_EXTENSION = ".hdx";
+    static final String JOURNAL_EXTENSION = ".hdj";
+    private static final int LOCK_STRIPES = 256;
+
+    private final StoredInstanceRepository instanceRepository;
+    private final StorageLayout layout;
+    private final PackStore packStore;
+    private final ExecutorService ioExecutor;
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+    @Value("${dicom.storage.header-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${dicom.storage.header-index.journal-limit-bytes:65536}")
+    private long journalLimitBytes = 65536;
+
+    public HeaderIndex(StoredInstanceRepository instanceRepository, StorageLayout layout, PackStore packStore,
+                       @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.layout = layout;
+        this.packStore = packStore;
+        this.ioExecutor = ioExecutor;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInstanceStored(InstanceStoredEvent event) {
+        if (enabled) {
+            ioExecutor.execute(() -> indexQuietly(event.sopInstanceUid()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInstanceUpdated(InstanceUpdatedEvent event) {
+        if (enabled) {
+            ioExecutor.execute(() -> indexQuietly(event.sopInstanceUid()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInstanceDeleted(InstanceDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            remove(event.seriesInstanceUid(), event.sopInstanceUid());
+        } catch (IOException e) {
+            log.warn("Failed to drop {} from header index: {}", event.sopInstanceUid(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyPurged(StudyPurgedEvent event) {
+        for (String series : event.seriesInstanceUids()) {
+            try {
+                removeSeries(series);
+            } catch (IOException e) {
+                log.warn("Failed to drop header index of series {}: {}", series, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read an instance's header and add it to its series index, replacing any previous entry.
+     */
+    public void index(String sopInstanceUid) throws IOException {
+        StoredInstance instance = instanceRepository.findBySopInstanceUid(sopInstanceUid).orElse(null);
+        if (instance == null) {
+            return;
+        }
+        String series = instance.getSeriesInstanceUid();
+        HeaderRecord record = readHeader(instance);
+        Lock lock = lockFor(series).writeLock();
+        lock.lock();
+        try {
+            if (!Files.exists(indexPath(series)) && !Files.exists(journalPath(series))) {
+                // First entry of the series, or a series stored before the index existed
+                rebuild(series);
+            } else {
+                appendJournal(series, sopInstanceUid, record);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop an instance from its series index.
+     */
+    public void remove(String seriesInstanceUid, String sopInstanceUid) throws IOException {
+        Lock lock = lockFor(seriesInstanceUid).writeLock();
+        lock.lock();
+        try {
+            if (Files.exists(indexPath(seriesInstanceUid)) || Files.exists(journalPath(seriesInstanceUid))) {
+                appendJournal(seriesInstanceUid, sopInstanceUid, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete a series' index and journal.
+     */
+    public void removeSeries(String seriesInstanceUid) throws IOException {
+        Lock lock = lockFor(seriesInstanceUid).writeLock();
+        lock.lock();
+        try {
+            Files.deleteIfExists(journalPath(seriesInstanceUid));
+            Files.deleteIfExists(indexPath(seriesInstanceUid));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Header records of a series, in stack order (see {@link #sortStack}).
+     */
+    public List<HeaderRecord> readSeries(String seriesInstanceUid) throws IOException {
+        Path index = indexPath(seriesInstanceUid);
+        Lock readLock = lockFor(seriesInstanceUid).readLock();
+        readLock.lock();
+        try {
+            if (!Files.exists(journalPath(seriesInstanceUid)) && Files.exists(index)) {
+                return sortStack(new ArrayList<>(HeaderIndexFile.read(index).values()));
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        Lock writeLock = lockFor(seriesInstanceUid).writeLock();
+        writeLock.lock();
+        try {
+            Map<String, HeaderRecord> records = Files.exists(journalPath(seriesInstanceUid)) || Files.exists(index)
+                ? fold(seriesInstanceUid) : rebuild(seriesInstanceUid);
+            return sortStack(new ArrayList<>(records.values()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sort a stack along the slice normal from Image Orientation (Patient), falling back to
+     * Instance Number when position or orientation is missing.
+     */
+    public static List<HeaderRecord> sortStack(List<HeaderRecord> records) {
+        double[] normal = null;
+        for (HeaderRecord record : records) {
+            if (record.imagePositionPatient() == null || record.imageOrientationPatient() == null) {
+                normal = null;
+                break;
+            }
+            if (normal == null) {
+                double[] o = record.imageOrientationPatient();
+                normal = new double[] {
+                    o[1] * o[5] - o[2] * o[4],
+                    o[2] * o[3] - o[0] * o[5],
+                    o[0] * o[4] - o[1] * o[3]
+                };
+            }
+        }
+        if (normal != null) {
+            double[] n = normal;
+            records.sort(Comparator.comparingDouble(r -> {
+                double[] p = r.imagePositionPatient();
+                return p[0] * n[0] + p[1] * n[1] + p[2] * n[2];
+            }));
+        } else {
+            records.sort(Comparator.comparing(HeaderRecord::instanceNumber,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+        return records;
+    }
+
+    /**
+     * Append to the series journal, folding it once it is large enough; the caller holds the
+     * series' write lock.
+     */
+    private void appendJournal(String seriesInstanceUid, String sopInstanceUid, HeaderRecord record)
+            throws IOException {
+        Path journal = journalPath(seriesInstanceUid);
+        HeaderIndexFile.appendJournal(journal, sopInstanceUid, record);
+        if (Files.size(journal) >= journalLimitBytes) {
+            fold(seriesInstanceUid);
+        }
+    }
+
+    /**
+     * Merge the journal into the columnar file; the caller holds the series' write lock.
+     * A damaged journal is discarded and the series rebuilt from its stored files.
+     */
+    private Map<String, HeaderRecord> fold(String seriesInstanceUid) throws IOException {
+        Path index = indexPath(seriesInstanceUid);
+        Path journal = journalPath(seriesInstanceUid);
+        Map<String, HeaderRecord> records = HeaderIndexFile.read(index);
+        boolean replayed;
+        try {
+            replayed = HeaderIndexFile.replayJournal(journal, records);
+        } catch (IOException e) {
+            log.warn("Rebuilding header index of series {}: {}", seriesInstanceUid, e.getMessage());
+            Files.delete(journal);
+            Files.deleteIfExists(index);
+            return rebuild(seriesInstanceUid);
+        }
+        if (replayed) {
+            if (records.isEmpty()) {
+                Files.deleteIfExists(index);
+            } else {
+                HeaderIndexFile.write(index, records.values());
+            }
+            Files.delete(journal);
+        }
+        return records;
+    }
+
+    /**
+     * Build a series index from its stored files; the caller holds the series' write lock.
+     */
+    private Map<String, HeaderRecord> rebuild(String seriesInstanceUid) throws IOException {
+        Map<String, HeaderRecord> records = new LinkedHashMap<>();
+        List<StoredInstance> instances = instanceRepository.findBySeriesInstanceUid(seriesInstanceUid);
+        for (StoredInstance instance : instances) {
+            try {
+                HeaderRecord record = readHeader(instance);
+                records.put(record.sopInstanceUid(), record);
+            } catch (IOException e) {
+                log.warn("Skipping {} in header index: {}", instance.getSopInstanceUid(), e.getMessage());
+            }
+        }
+        if (!records.isEmpty()) {
+            HeaderIndexFile.write(indexPath(seriesInstanceUid), records.values());
+            log.debug("Rebuilt header index of series {} ({} instances)", seriesInstanceUid, records.size());
+        }
+        return records;
+    }
+
+    private HeaderRecord readHeader(StoredInstance instance) throws IOException {
+        DicomHeaderReader.Header header = instance.isPacked()
+            ? DicomHeaderReader.read(packStore.read(instance), HeaderRecord.TAGS)
+            : DicomHeaderReader.read(Paths.get(instance.getFilePath()), HeaderRecord.TAGS);
+        return HeaderRecord.from(header.dataset(), header.transferSyntaxUid(),
+            header.pixelDataOffset(), header.pixelDataLength());
+    }
+
+    private void indexQuietly(String sopInstanceUid) {
+        try {
+            index(sopInstanceUid);
+        } catch (Exception e) {
+            log.warn("Failed to index header of {}: {}", sopInstanceUid, e.getMessage());
+        }
+    }
+
+    Path indexPath(String seriesInstanceUid) {
+        return seriesDirectory(seriesInstanceUid).resolve(seriesInstanceUid + INDEX_EXTENSION);
+    }
+
+    Path journalPath(String seriesInstanceUid) {
+        return seriesDirectory(seriesInstanceUid).resolve(seriesInstanceUid + JOURNAL_EXTENSION);
+    }
+
+    private Path seriesDirectory(String seriesInstanceUid) {
+        String hash = StorageLayout.sha256(seriesInstanceUid);
+        return layout.getRoot().resolve("index").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    private ReadWriteLock lockFor(String seriesInstanceUid) {
+        return locks[Math.floorMod(seriesInstanceUid.hashCode(), LOCK_STRIPES)];
+    }
+}
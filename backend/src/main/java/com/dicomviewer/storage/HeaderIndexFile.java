@@ -0,0 +1,321 @@
+package com.dicomviewer.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk formats of the {@link HeaderIndex}.
+ * <p>
+ * A series index ({@code .hdx}) is columnar: a 16 byte header (magic, version, count) followed by
+ * one column per value, doubles first, then longs, ints and finally strings as an offset table
+ * plus UTF-8 bytes. Absent doubles are NaN, absent instance numbers {@link Integer#MIN_VALUE} and
+ * absent strings empty. The file is read through a read-only mapping.
+ * <p>
+ * New entries are appended to a row-oriented journal ({@code .hdj}) and folded into the columnar
+ * file later. Each journal entry is framed by its length and CRC-32, so an entry torn by a crash,
+ * and anything appended behind it after a restart, is detected on replay instead of misread.
+ */
+final class HeaderIndexFile {
+
+    static final int MAGIC = 0x44564858;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int DOUBLE_COLUMNS = 16;
+    private static final int LONG_COLUMNS = 2;
+    private static final int INT_COLUMNS = 5;
+    private static final int STRING_COLUMNS = 4;
+
+    private static final int FRAME_BYTES = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private HeaderIndexFile() {
+    }
+
+    /**
+     * Write a columnar index to a temporary file and move it over {@code file} atomically.
+     */
+    static void write(Path file, Collection<HeaderRecord> records) throws IOException {
+        List<HeaderRecord> rows = new ArrayList<>(records);
+        int count = rows.size();
+        byte[][][] strings = new byte[STRING_COLUMNS][count][];
+        long stringBytes = 0;
+        for (int i = 0; i < count; i++) {
+            String[] values = strings(rows.get(i));
+            for (int c = 0; c < STRING_COLUMNS; c++) {
+                strings[c][i] = values[c] != null ? values[c].getBytes(StandardCharsets.UTF_8) : new byte[0];
+                stringBytes += strings[c][i].length;
+            }
+        }
+        long size = HEADER_BYTES + (long) count * (DOUBLE_COLUMNS * 8 + LONG_COLUMNS * 8 + INT_COLUMNS * 4)
+            + (long) STRING_COLUMNS * (count + 1) * 4 + stringBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+
+        double[][] doubles = new double[count][];
+        for (int i = 0; i < count; i++) {
+            doubles[i] = doubles(rows.get(i));
+        }
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(doubles[i][c]);
+            }
+        }
+        for (HeaderRecord row : rows) {
+            buffer.putLong(row.pixelDataOffset());
+        }
+        for (HeaderRecord row : rows) {
+            buffer.putLong(row.frameLength());
+        }
+        for (int c = 0; c < INT_COLUMNS; c++) {
+            for (HeaderRecord row : rows) {
+                buffer.putInt(ints(row)[c]);
+            }
+        }
+        for (int c = 0; c < STRING_COLUMNS; c++) {
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                buffer.putInt(offset);
+                offset += strings[c][i].length;
+            }
+            buffer.putInt(offset);
+        }
+        for (int c = 0; c < STRING_COLUMNS; c++) {
+            for (int i = 0; i < count; i++) {
+                buffer.put(strings[c][i]);
+            }
+        }
+        buffer.flip();
+
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Map a columnar index and decode its records.
+     *
+     * @return Records by SOP Instance UID, empty if the file does not exist
+     */
+    static Map<String, HeaderRecord> read(Path file) throws IOException {
+        Map<String, HeaderRecord> records = new LinkedHashMap<>();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return records;
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a header index: " + file);
+        }
+        int count = buffer.getInt(8);
+        int doubleBase = HEADER_BYTES;
+        int longBase = doubleBase + count * DOUBLE_COLUMNS * 8;
+        int intBase = longBase + count * LONG_COLUMNS * 8;
+        int offsetBase = intBase + count * INT_COLUMNS * 4;
+        int stringBase = offsetBase + STRING_COLUMNS * (count + 1) * 4;
+
+        int[] blobStart = new int[STRING_COLUMNS];
+        int position = stringBase;
+        for (int c = 0; c < STRING_COLUMNS; c++) {
+            blobStart[c] = position;
+            position += buffer.getInt(offsetBase + (c * (count + 1) + count) * 4);
+        }
+
+        for (int i = 0; i < count; i++) {
+            double[] d = new double[DOUBLE_COLUMNS];
+            for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+                d[c] = buffer.getDouble(doubleBase + (c * count + i) * 8);
+            }
+            int[] n = new int[INT_COLUMNS];
+            for (int c = 0; c < INT_COLUMNS; c++) {
+                n[c] = buffer.getInt(intBase + (c * count + i) * 4);
+            }
+            String[] s = new String[STRING_COLUMNS];
+            for (int c = 0; c < STRING_COLUMNS; c++) {
+                int start = buffer.getInt(offsetBase + (c * (count + 1) + i) * 4);
+                int end = buffer.getInt(offsetBase + (c * (count + 1) + i + 1) * 4);
+                byte[] bytes = new byte[end - start];
+                buffer.get(blobStart[c] + start, bytes);
+                s[c] = bytes.length > 0 ? new String(bytes, StandardCharsets.UTF_8) : null;
+            }
+            HeaderRecord record = record(s, n, d,
+                buffer.getLong(longBase + i * 8), buffer.getLong(longBase + (count + i) * 8));
+            records.put(record.sopInstanceUid(), record);
+        }
+        return records;
+    }
+
+    /**
+     * Append an entry to a journal; {@code record == null} removes {@code sopInstanceUid}.
+     */
+    static void appendJournal(Path journal, String sopInstanceUid, HeaderRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        // Room for the frame, filled in once the entry is complete
+        out.writeLong(0);
+        if (record == null) {
+            out.writeByte(REMOVE);
+            out.writeUTF(sopInstanceUid);
+        } else {
+            out.writeByte(PUT);
+            for (String value : strings(record)) {
+                out.writeUTF(value != null ? value : "");
+            }
+            for (int value : ints(record)) {
+                out.writeInt(value);
+            }
+            for (double value : doubles(record)) {
+                out.writeDouble(value);
+            }
+            out.writeLong(record.pixelDataOffset());
+            out.writeLong(record.frameLength());
+        }
+        byte[] entry = bytes.toByteArray();
+        int length = entry.length - FRAME_BYTES;
+        ByteBuffer.wrap(entry).putInt(length).putInt(checksum(entry, FRAME_BYTES, length));
+        Files.createDirectories(journal.getParent());
+        // One write per entry so a crash can only truncate the last one
+        try (OutputStream file = Files.newOutputStream(journal, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            file.write(entry);
+        }
+    }
+
+    /**
+     * Replay a journal on top of {@code records}.
+     *
+     * @return Whether the journal existed
+     * @throws IOException If an entry is torn or fails its checksum; {@code records} then holds the
+     *                     entries before it
+     */
+    static boolean replayJournal(Path journal, Map<String, HeaderRecord> records) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(journal);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        ByteBuffer frames = ByteBuffer.wrap(bytes);
+        while (frames.hasRemaining()) {
+            int offset = frames.position();
+            if (frames.remaining() < FRAME_BYTES) {
+                throw new IOException("Torn entry at offset " + offset + " of " + journal);
+            }
+            int length = frames.getInt();
+            int checksum = frames.getInt();
+            if (length < 0 || length > frames.remaining() || checksum(bytes, frames.position(), length) != checksum) {
+                throw new IOException("Damaged entry at offset " + offset + " of " + journal);
+            }
+            replayEntry(new DataInputStream(new ByteArrayInputStream(bytes, frames.position(), length)), records);
+            frames.position(frames.position() + length);
+        }
+        return true;
+    }
+
+    private static void replayEntry(DataInputStream in, Map<String, HeaderRecord> records) throws IOException {
+        if (in.readByte() == REMOVE) {
+            records.remove(in.readUTF());
+            return;
+        }
+        String[] s = new String[STRING_COLUMNS];
+        for (int c = 0; c < STRING_COLUMNS; c++) {
+            String value = in.readUTF();
+            s[c] = value.isEmpty() ? null : value;
+        }
+        int[] n = new int[INT_COLUMNS];
+        for (int c = 0; c < INT_COLUMNS; c++) {
+            n[c] = in.readInt();
+        }
+        double[] d = new double[DOUBLE_COLUMNS];
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+            d[c] = in.readDouble();
+        }
+        HeaderRecord record = record(s, n, d, in.readLong(), in.readLong());
+        records.put(record.sopInstanceUid(), record);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static String[] strings(HeaderRecord r) {
+        return new String[] {r.sopInstanceUid(), r.sopClassUid(), r.transferSyntaxUid(), r.photometricInterpretation()};
+    }
+
+    private static int[] ints(HeaderRecord r) {
+        return new int[] {r.instanceNumber() != null ? r.instanceNumber() : Integer.MIN_VALUE,
+            r.rows(), r.columns(), r.bitsAllocated(), r.numberOfFrames()};
+    }
+
+    private static double[] doubles(HeaderRecord r) {
+        double[] d = new double[DOUBLE_COLUMNS];
+        copy(r.imagePositionPatient(), d, 0, 3);
+        copy(r.imageOrientationPatient(), d, 3, 6);
+        copy(r.pixelSpacing(), d, 9, 2);
+        d[11] = orNaN(r.sliceThickness());
+        d[12] = orNaN(r.rescaleSlope());
+        d[13] = orNaN(r.rescaleIntercept());
+        d[14] = orNaN(r.windowCenter());
+        d[15] = orNaN(r.windowWidth());
+        return d;
+    }
+
+    private static HeaderRecord record(String[] s, int[] n, double[] d, long pixelDataOffset, long frameLength) {
+        return new HeaderRecord(s[0], s[1], s[2], s[3],
+            n[0] != Integer.MIN_VALUE ? n[0] : null, n[1], n[2], n[3], n[4],
+            slice(d, 0, 3), slice(d, 3, 6), slice(d, 9, 2),
+            boxed(d[11]), boxed(d[12]), boxed(d[13]), boxed(d[14]), boxed(d[15]),
+            pixelDataOffset, frameLength);
+    }
+
+    private static void copy(double[] values, double[] target, int from, int count) {
+        for (int i = 0; i < count; i++) {
+            target[from + i] = values != null ? values[i] : Double.NaN;
+        }
+    }
+
+    private static double[] slice(double[] values, int from, int count) {
+        if (Double.isNaN(values[from])) {
+            return null;
+        }
+        double[] slice = new double[count];
+        System.arraycopy(values, from, slice, 0, count);
+        return slice;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dicomviewer.storage;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+
+import java.util.Arrays;
+
+/**
+ * Attributes of a stored instance needed for metadata, stack sorting and rendering, as kept in the
+ * {@link HeaderIndex}. Absent values are {@code null}.
+ *
+ * @param pixelDataOffset Offset of the Pixel Data value from the start of the Part 10 object
+ *                        (add {@code pack_offset} for packed instances), -1 without pixel data
+ * @param frameLength     Bytes per frame for native pixel data, -1 if encapsulated or absent;
+ *                        frame {@code n} (0-based) starts at {@code pixelDataOffset + n * frameLength}
+ */
+public record HeaderRecord(String sopInstanceUid, String sopClassUid, String transferSyntaxUid,
+                           String photometricInterpretation, Integer instanceNumber,
+                           int rows, int columns, int bitsAllocated, int numberOfFrames,
+                           double[] imagePositionPatient, double[] imageOrientationPatient,
+                           double[] pixelSpacing, Double sliceThickness,
+                           Double rescaleSlope, Double rescaleIntercept,
+                           Double windowCenter, Double windowWidth,
+                           long pixelDataOffset, long frameLength) {
+
+    /**
+     * Header attributes a record is built from.
+     */
+    public static final int[] TAGS = {
+        Tag.SOPClassUID, Tag.SOPInstanceUID, Tag.InstanceNumber, Tag.SamplesPerPixel,
+        Tag.PhotometricInterpretation, Tag.NumberOfFrames, Tag.Rows, Tag.Columns, Tag.BitsAllocated,
+        Tag.ImagePositionPatient, Tag.ImageOrientationPatient, Tag.PixelSpacing, Tag.SliceThickness,
+        Tag.RescaleSlope, Tag.RescaleIntercept, Tag.WindowCenter, Tag.WindowWidth
+    };
+
+    /**
+     * Build a record from a header read up to Pixel Data.
+     *
+     * @param pixelDataOffset Stream position of the Pixel Data value, -1 if there is none
+     * @param pixelDataLength Length of the Pixel Data value, -1 if encapsulated
+     */
+    public static HeaderRecord from(Attributes dataset, String transferSyntaxUid,
+                                    long pixelDataOffset, int pixelDataLength) {
+        int rows = dataset.getInt(Tag.Rows, 0);
+        int columns = dataset.getInt(Tag.Columns, 0);
+        int bitsAllocated = dataset.getInt(Tag.BitsAllocated, 0);
+        int frames = dataset.getInt(Tag.NumberOfFrames, rows > 0 ? 1 : 0);
+        long frameLength = -1;
+        if (pixelDataOffset >= 0 && pixelDataLength >= 0) {
+            frameLength = (long) rows * columns * dataset.getInt(Tag.SamplesPerPixel, 1) * bitsAllocated / 8;
+        }
+        return new HeaderRecord(
+            dataset.getString(Tag.SOPInstanceUID),
+            dataset.getString(Tag.SOPClassUID),
+            transferSyntaxUid,
+            dataset.getString(Tag.PhotometricInterpretation),
+            dataset.containsValue(Tag.InstanceNumber) ? dataset.getInt(Tag.InstanceNumber, 0) : null,
+            rows, columns, bitsAllocated, frames,
+            doubles(dataset, Tag.ImagePositionPatient, 3),
+            doubles(dataset, Tag.ImageOrientationPatient, 6),
+            doubles(dataset, Tag.PixelSpacing, 2),
+            scalar(dataset, Tag.SliceThickness),
+            scalar(dataset, Tag.RescaleSlope),
+            scalar(dataset, Tag.RescaleIntercept),
+            scalar(dataset, Tag.WindowCenter),
+            scalar(dataset, Tag.WindowWidth),
+            pixelDataOffset, frameLength);
+    }
+
+    private static double[] doubles(Attributes dataset, int tag, int count) {
+        double[] values = dataset.getDoubles(tag);
+        return values != null && values.length >= count ? Arrays.copyOf(values, count) : null;
+    }
+
+    private static Double scalar(Attributes dataset, int tag) {
+        return dataset.containsValue(tag) ? dataset.getDouble(tag, 0) : null;
+    }
+}
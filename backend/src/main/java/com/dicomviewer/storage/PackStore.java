@@ -0,0 +1,376 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.PackLocation;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores small instances by appending them to per-series pack files instead of one file each.
+ * <p>
+ * Instances up to {@code dicom.storage.pack.max-instance-bytes} are appended to the series' current
+ * pack under {@code <storage>/packs/}; the index row keeps the pack path and the object's byte range.
+ * A pack is closed for appends at {@code dicom.storage.pack.max-pack-bytes}. Reading a whole series
+ * maps each pack once and slices the instances out of it.
+ * <p>
+ * Deleting packed instances leaves dead bytes behind. Once they exceed
+ * {@code dicom.storage.pack.compact-garbage-ratio} of a pack, the live instances are copied into a
+ * new generation of the pack, the index is repointed and the old pack is removed. Appends, reads and
+ * compaction of a series are serialized through a striped read/write lock. An append's index row
+ * commits after the lock is released, so a pack with appends whose transaction is still open is not
+ * compacted until they complete, and the pack a series currently appends to is never deleted.
+ */
+@Component
+public class PackStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PackStore.class);
+
+    static final String EXTENSION = ".pack";
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_CURRENT_PACKS = 4096;
+
+    private final StoredInstanceRepository instanceRepository;
+    private final StorageLayout layout;
+    private final ExecutorService ioExecutor;
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+    private final Map<String, Path> currentPacks = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+            return size() > MAX_CURRENT_PACKS;
+        }
+    };
+    // Guarded by pendingAppends
+    private final Map<Path, Integer> pendingAppends = new HashMap<>();
+    private final Set<Path> deferredCompactions = new HashSet<>();
+
+    @Value("${dicom.storage.pack.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dicom.storage.pack.max-instance-bytes:65536}")
+    private long maxInstanceBytes = 65536;
+
+    @Value("${dicom.storage.pack.max-pack-bytes:268435456}")
+    private long maxPackBytes = 268435456;
+
+    @Value("${dicom.storage.pack.compact-garbage-ratio:0.3}")
+    private double compactGarbageRatio = 0.3;
+
+    public PackStore(StoredInstanceRepository instanceRepository, StorageLayout layout,
+                     @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.layout = layout;
+        this.ioExecutor = ioExecutor;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Whether an instance of the given size goes into a pack.
+     */
+    public boolean accepts(long size) {
+        return enabled && size <= maxInstanceBytes;
+    }
+
+    /**
+     * Append a file to the series' current pack. The caller records the returned location
+     * in the instance's index row; inside a transaction the pack is kept from compaction until
+     * that transaction completes.
+     */
+    public Location append(String seriesInstanceUid, Path source) throws IOException {
+        Lock lock = lockFor(seriesInstanceUid).writeLock();
+        lock.lock();
+        try {
+            Path pack = currentPack(seriesInstanceUid);
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(pack, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long offset = out.size();
+                long length = in.size();
+                out.position(offset);
+                copyRange(in, 0, length, out);
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    trackPendingAppend(seriesInstanceUid, pack);
+                }
+                return new Location(pack, offset, length);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read one packed instance with a positional read.
+     */
+    public byte[] read(StoredInstance instance) throws IOException {
+        Lock lock = lockFor(instance.getSeriesInstanceUid()).readLock();
+        lock.lock();
+        try {
+            // Read the location from the database under the lock; a compaction may have moved the
+            // instance since the caller's entity was loaded
+            PackLocation current = instanceRepository.findPackLocation(instance.getSopInstanceUid())
+                .orElseThrow(() -> new IllegalArgumentException("Instance not found: " + instance.getSopInstanceUid()));
+            try (FileChannel channel = FileChannel.open(Paths.get(current.filePath()), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(current.packLength()));
+                long position = current.packOffset();
+                while (buffer.hasRemaining()) {
+                    int n = channel.read(buffer, position);
+                    if (n < 0) {
+                        throw new EOFException("Pack " + current.filePath() + " truncated at " + position);
+                    }
+                    position += n;
+                }
+                return buffer.array();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read every packed instance of a series, mapping each pack once.
+     *
+     * @return Instance bytes by SOP Instance UID, in pack order
+     */
+    public Map<String, byte[]> readSeries(String seriesInstanceUid) throws IOException {
+        Lock lock = lockFor(seriesInstanceUid).readLock();
+        lock.lock();
+        try {
+            Map<String, List<StoredInstance>> byPack = new LinkedHashMap<>();
+            for (StoredInstance instance : instanceRepository.findBySeriesInstanceUid(seriesInstanceUid)) {
+                if (instance.isPacked()) {
+                    byPack.computeIfAbsent(instance.getFilePath(), k -> new ArrayList<>()).add(instance);
+                }
+            }
+
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            for (Map.Entry<String, List<StoredInstance>> entry : byPack.entrySet()) {
+                List<StoredInstance> instances = entry.getValue();
+                instances.sort((a, b) -> Long.compare(a.getPackOffset(), b.getPackOffset()));
+                long start = instances.get(0).getPackOffset();
+                StoredInstance last = instances.get(instances.size() - 1);
+                long end = last.getPackOffset() + last.getPackLength();
+
+                try (FileChannel channel = FileChannel.open(Paths.get(entry.getKey()), StandardOpenOption.READ)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    for (StoredInstance instance : instances) {
+                        byte[] data = new byte[Math.toIntExact(instance.getPackLength())];
+                        mapped.get(Math.toIntExact(instance.getPackOffset() - start), data);
+                        result.put(instance.getSopInstanceUid(), data);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPackedInstanceDeleted(PackedInstanceDeletedEvent event) {
+        compactLater(event.seriesInstanceUid(), Paths.get(event.packPath()));
+    }
+
+    private void compactLater(String seriesInstanceUid, Path pack) {
+        ioExecutor.execute(() -> {
+            try {
+                compactIfNeeded(seriesInstanceUid, pack);
+            } catch (Exception e) {
+                log.warn("Failed to compact pack {}: {}", pack, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Count an append until its transaction completes; the caller holds the series' write lock.
+     */
+    private void trackPendingAppend(String seriesInstanceUid, Path pack) {
+        synchronized (pendingAppends) {
+            pendingAppends.merge(pack, 1, Integer::sum);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean deferred;
+                synchronized (pendingAppends) {
+                    if (pendingAppends.merge(pack, -1, Integer::sum) > 0) {
+                        return;
+                    }
+                    pendingAppends.remove(pack);
+                    deferred = deferredCompactions.remove(pack);
+                }
+                if (deferred) {
+                    compactLater(seriesInstanceUid, pack);
+                }
+            }
+        });
+    }
+
+    /**
+     * Rewrite a pack without its dead bytes once they pass the garbage ratio; delete it when empty.
+     */
+    void compactIfNeeded(String seriesInstanceUid, Path pack) throws IOException {
+        Lock lock = lockFor(seriesInstanceUid).writeLock();
+        lock.lock();
+        try {
+            if (!Files.exists(pack)) {
+                return;
+            }
+            synchronized (pendingAppends) {
+                if (pendingAppends.containsKey(pack)) {
+                    // Rows of those appends are not visible yet; retried once they complete
+                    deferredCompactions.add(pack);
+                    return;
+                }
+            }
+            List<StoredInstance> live = instanceRepository.findByFilePathOrderByPackOffsetAsc(pack.toString());
+            long size = Files.size(pack);
+            if (live.isEmpty()) {
+                if (isCurrentPack(seriesInstanceUid, pack)) {
+                    // Kept for the series' next appends, e.g. a purged study being retrieved again
+                    return;
+                }
+                Files.delete(pack);
+                log.debug("Deleted empty pack {}", pack);
+                return;
+            }
+            long liveBytes = live.stream().mapToLong(StoredInstance::getPackLength).sum();
+            if (size - liveBytes < size * compactGarbageRatio) {
+                return;
+            }
+
+            Path next = nextGeneration(pack);
+            long[] offsets = new long[live.size()];
+            try (FileChannel in = FileChannel.open(pack, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < live.size(); i++) {
+                    StoredInstance instance = live.get(i);
+                    offsets[i] = out.position();
+                    copyRange(in, instance.getPackOffset(), instance.getPackLength(), out);
+                }
+                out.force(true);
+            }
+            int repointed = 0;
+            try {
+                for (int i = 0; i < live.size(); i++) {
+                    StoredInstance instance = live.get(i);
+                    // Rows deleted meanwhile match nothing and leave dead bytes in the new generation
+                    instanceRepository.updatePackLocation(instance.getId(), pack.toString(), instance.getPackOffset(),
+                        next.toString(), offsets[i]);
+                    repointed++;
+                }
+            } catch (RuntimeException e) {
+                if (repointed == 0) {
+                    Files.deleteIfExists(next);
+                }
+                // Otherwise both generations stay, as rows point into either
+                throw e;
+            }
+            synchronized (currentPacks) {
+                currentPacks.replace(seriesInstanceUid, pack, next);
+            }
+            Files.delete(pack);
+            log.info("Compacted pack {} into {}: {} -> {} bytes", pack, next.getFileName(), size, liveBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pack new instances of a series are appended to; the caller holds the series' write lock.
+     */
+    private Path currentPack(String seriesInstanceUid) throws IOException {
+        Path pack;
+        synchronized (currentPacks) {
+            pack = currentPacks.get(seriesInstanceUid);
+        }
+        if (pack == null) {
+            pack = instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(seriesInstanceUid)
+                .map(instance -> Paths.get(instance.getFilePath()))
+                .orElse(null);
+        }
+        if (pack == null) {
+            String hash = StorageLayout.sha256(seriesInstanceUid);
+            pack = layout.getRoot().resolve("packs").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4))
+                .resolve(seriesInstanceUid + "-0" + EXTENSION);
+        } else if (Files.exists(pack) && Files.size(pack) >= maxPackBytes) {
+            pack = nextGeneration(pack);
+        }
+        Files.createDirectories(pack.getParent());
+        synchronized (currentPacks) {
+            currentPacks.put(seriesInstanceUid, pack);
+        }
+        return pack;
+    }
+
+    private boolean isCurrentPack(String seriesInstanceUid, Path pack) {
+        synchronized (currentPacks) {
+            return pack.equals(currentPacks.get(seriesInstanceUid));
+        }
+    }
+
+    /**
+     * {@code <series>-<n>.pack} becomes the first {@code <series>-<n+k>.pack} not yet on disk.
+     */
+    static Path nextGeneration(Path pack) {
+        String name = pack.getFileName().toString();
+        String base = name.substring(0, name.length() - EXTENSION.length());
+        int dash = base.lastIndexOf('-');
+        long generation = Long.parseLong(base.substring(dash + 1));
+        Path next;
+        do {
+            next = pack.resolveSibling(base.substring(0, dash) + "-" + (++generation) + EXTENSION);
+        } while (Files.exists(next));
+        return next;
+    }
+
+    private static void copyRange(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long n = in.transferTo(position + done, count - done, out);
+            if (n <= 0) {
+                throw new EOFException("Unexpected end of file at " + (position + done));
+            }
+            done += n;
+        }
+    }
+
+    private ReadWriteLock lockFor(String seriesInstanceUid) {
+        return locks[Math.floorMod(seriesInstanceUid.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Byte range of an instance within a pack.
+     */
+    public record Location(Path pack, long offset, long length) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.dicomviewer.storage;
+
+/**
+ * Published when the index row of a packed instance is deleted, leaving dead bytes in its pack.
+ */
+public record PackedInstanceDeletedEvent(String seriesInstanceUid, String packPath) {
+}
@@ -0,0 +1,120 @@
+package com.dicomviewer.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Maps stored instances to file paths under {@code dicom.storage.path}.
+ * <p>
+ * {@code dicom.storage.structure} selects the layout:
+ * <ul>
+ *   <li>{@code flat} - every file in the storage root</li>
+ *   <li>{@code hierarchical} - {@code studyUID/seriesUID/sopUID.dcm}</li>
+ *   <li>{@code sharded} - {@code ab/cd/sopUID.dcm}, where {@code abcd} are the first hex digits of the
+ *       SHA-256 of the SOP Instance UID, giving 65536 evenly filled leaf directories</li>
+ * </ul>
+ * With {@code dicom.storage.content-addressed=true} the sharded layout names files by the SHA-256
+ * of their content instead, so byte-identical objects are stored once.
+ */
+@Component
+public class StorageLayout {
+
+    public enum Structure { FLAT, HIERARCHICAL, SHARDED }
+
+    private static final String EXTENSION = ".dcm";
+
+    private final Path root;
+    private final Structure structure;
+    private final boolean contentAddressed;
+
+    public StorageLayout(@Value("${dicom.storage.path:/var/dicom/storage}") String root,
+                         @Value("${dicom.storage.structure:hierarchical}") String structure,
+                         @Value("${dicom.storage.content-addressed:false}") boolean contentAddressed) {
+        this.root = Paths.get(root);
+        this.structure = Structure.valueOf(structure.trim().toUpperCase(Locale.ROOT));
+        if (contentAddressed && this.structure != Structure.SHARDED) {
+            throw new IllegalArgumentException("dicom.storage.content-addressed requires dicom.storage.structure=sharded");
+        }
+        this.contentAddressed = contentAddressed;
+    }
+
+    /**
+     * Path an instance is stored at under the configured layout.
+     *
+     * @param file The instance's current file, hashed when the layout is content-addressed
+     */
+    public Path pathFor(String studyUid, String seriesUid, String sopInstanceUid, Path file) throws IOException {
+        if (contentAddressed) {
+            String hash = sha256(file);
+            return shardedPath(hash, hash);
+        }
+        return pathFor(studyUid, seriesUid, sopInstanceUid);
+    }
+
+    /**
+     * Path of an instance under a UID-based layout.
+     */
+    Path pathFor(String studyUid, String seriesUid, String sopInstanceUid) {
+        return switch (structure) {
+            case FLAT -> root.resolve(sopInstanceUid + EXTENSION);
+            case HIERARCHICAL -> root.resolve(studyUid).resolve(seriesUid).resolve(sopInstanceUid + EXTENSION);
+            case SHARDED -> shardedPath(sha256(sopInstanceUid), sopInstanceUid);
+        };
+    }
+
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    public Structure getStructure() {
+        return structure;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private Path shardedPath(String hash, String name) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(name + EXTENSION);
+    }
+
+    static String sha256(String value) {
+        return HexFormat.of().formatHex(digest().digest(value.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Hex SHA-256 of a file's content.
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(digest().digest(data));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves stored instances into the configured {@link StorageLayout} while the server keeps running.
+ * <p>
+ * The index is walked in id order in batches of {@code dicom.storage.migration.batch-size}. Each file
+ * is hard-linked (or copied, across file systems) to its new path and its index row is repointed, only
+ * if it still names the old path; once the batch is done the old paths are removed, so readers always
+ * find the file the index points to. A row moved or re-encoded meanwhile keeps its file and the new
+ * copy is dropped. Files stay on the {@link StorageTiers storage tier} they live on, and files
+ * registered in place in another archive are never touched.
+ * Progress is checkpointed in {@code background_job_checkpoints}, so an interrupted run resumes where
+ * it stopped.
+ */
+@Component
+public class StorageLayoutMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageLayoutMigrator.class);
+
+    static final String JOB_NAME = "storage-layout-migration";
+
+    private final StoredInstanceRepository instanceRepository;
+    private final BackgroundJobCheckpointRepository checkpointRepository;
+    private final StorageLayout layout;
+    private final StorageTiers tiers;
+    private final ExecutorService ioExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong moved = new AtomicLong();
+
+    @Value("${dicom.storage.migration.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${dicom.storage.migration.pause-ms:0}")
+    private long pauseMs;
+
+    @Value("${dicom.storage.migration.on-startup:false}")
+    private boolean onStartup;
+
+    public StorageLayoutMigrator(StoredInstanceRepository instanceRepository,
+                                 BackgroundJobCheckpointRepository checkpointRepository,
+                                 StorageLayout layout,
+                                 StorageTiers tiers,
+                                 @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.layout = layout;
+        this.tiers = tiers;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (onStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Start a migration run in the background.
+     *
+     * @return {@code false} if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                log.error("Storage layout migration stopped: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Status getStatus() {
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint == null) {
+            return new Status(running.get(), layout.getStructure().name(), 0, 0, moved.get(), null, null);
+        }
+        return new Status(running.get(), layout.getStructure().name(), checkpoint.getLastId(),
+            checkpoint.getProcessed(), moved.get(), checkpoint.getStartedAt(), checkpoint.getCompletedAt());
+    }
+
+    /**
+     * Migrate every instance after the last checkpoint. A previously completed run starts over,
+     * since the layout may have changed since.
+     */
+    void run() throws IOException, InterruptedException {
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+            .orElseGet(() -> new BackgroundJobCheckpoint(JOB_NAME));
+        if (checkpoint.getCompletedAt() != null || checkpoint.getStartedAt() == null) {
+            checkpoint.setLastId(0);
+            checkpoint.setProcessed(0);
+            checkpoint.setCompletedAt(null);
+            checkpoint.setStartedAt(Instant.now());
+            moved.set(0);
+        }
+        log.info("Storage layout migration to {} starting after id {}", layout.getStructure(), checkpoint.getLastId());
+
+        List<StoredInstance> batch;
+        while (!(batch = instanceRepository.findByIdGreaterThanOrderByIdAsc(
+                checkpoint.getLastId(), PageRequest.of(0, batchSize))).isEmpty()) {
+            List<Superseded> superseded = new ArrayList<>();
+            for (StoredInstance instance : batch) {
+                Relocation relocation = relocate(instance);
+                if (relocation == null) {
+                    continue;
+                }
+                if (instanceRepository.updateFilePath(instance.getId(), relocation.source().toString(),
+                        relocation.target().toString()) == 1) {
+                    superseded.add(new Superseded(relocation.source(), relocation.tierRoot()));
+                } else {
+                    // Moved, re-encoded or deleted since the batch was read: the new copy is unreferenced
+                    log.debug("Not moving {}: its index row changed during migration", instance.getSopInstanceUid());
+                    if (relocation.created()) {
+                        StorageTiers.deleteAndPrune(relocation.target(), relocation.tierRoot());
+                    }
+                }
+            }
+
+            checkpoint.setLastId(batch.get(batch.size() - 1).getId());
+            checkpoint.setProcessed(checkpoint.getProcessed() + batch.size());
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+
+            for (Superseded old : superseded) {
+                StorageTiers.deleteAndPrune(old.path(), old.tierRoot());
+            }
+            moved.addAndGet(superseded.size());
+            if (pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        }
+
+        checkpoint.setCompletedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        log.info("Storage layout migration finished: {} instances checked, {} moved",
+            checkpoint.getProcessed(), moved.get());
+    }
+
+    /**
+     * Place an instance's file at its path under the current layout, on the tier it lives on.
+     * Packed instances and files registered in place by the {@link BulkImporter} are left where they are.
+     *
+     * @return Where the file was placed, or {@code null} if nothing moved
+     */
+    private Relocation relocate(StoredInstance instance) throws IOException {
+        if (instance.isPacked()) {
+            // Packs have their own layout under packs/
+            return null;
+        }
+        Path source = Paths.get(instance.getFilePath());
+        if (!tiers.owns(source)) {
+            return null;
+        }
+        if (!Files.exists(source)) {
+            log.warn("Skipping {}: file {} is missing", instance.getSopInstanceUid(), source);
+            return null;
+        }
+        StorageTiers.Tier tier = tiers.byName(instance.getStorageTier());
+        Path target = tiers.relocate(layout.pathFor(instance.getStudyInstanceUid(), instance.getSeriesInstanceUid(),
+            instance.getSopInstanceUid(), source), tiers.primary(), tier);
+        if (target.equals(source)) {
+            return null;
+        }
+
+        Files.createDirectories(target.getParent());
+        boolean created = !(layout.isContentAddressed() && Files.exists(target));
+        if (created) {
+            try {
+                Files.createLink(target, source);
+            } catch (UnsupportedOperationException | IOException e) {
+                // Different file system, or a partial copy left behind by an interrupted run
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return new Relocation(source, target, tier.root(), created);
+    }
+
+    /**
+     * Migration progress.
+     *
+     * @param lastId Id of the last index row checked
+     */
+    public record Status(boolean running, String structure, long lastId, long processed, long moved,
+                         Instant startedAt, Instant completedAt) {
+    }
+
+    /**
+     * @param created Whether the target was written by this run, rather than shared content already in place
+     */
+    private record Relocation(Path source, Path target, Path tierRoot, boolean created) {
+    }
+
+    private record Superseded(Path path, Path tierRoot) {
+    }
+}
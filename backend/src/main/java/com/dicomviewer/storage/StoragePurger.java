@@ -0,0 +1,230 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.StorageBreakdown;
+import com.dicomviewer.model.entity.PurgeTombstone;
+import com.dicomviewer.repository.PurgeTombstoneRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Bulk removal of stored studies.
+ * <p>
+ * A study is purged in one short transaction: its distinct files are recorded in
+ * {@code purge_tombstones} and its index rows are removed with a single set-based DELETE. Once that
+ * has committed, the files are deleted in parallel on the I/O executor, empty directories are pruned
+ * up to the tier root and emptied packs are dropped, and each tombstone is removed when its file is
+ * gone. A file is only deleted while holding its {@link StorageTiers#pathLock path lock}, which an
+ * instance being stored at the same path holds until its row commits. Files outside every tier
+ * root, registered in place by the {@link BulkImporter}, are left alone. Tombstones left by a crash
+ * are reclaimed on the next startup.
+ */
+@Component
+public class StoragePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(StoragePurger.class);
+
+    private final StoredInstanceRepository instanceRepository;
+    private final PurgeTombstoneRepository tombstoneRepository;
+    private final StorageTiers tiers;
+    private final PackStore packStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService ioExecutor;
+    private final AtomicBoolean reclaiming = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    @Value("${dicom.storage.purge.batch-size:500}")
+    private int batchSize = 500;
+
+    public StoragePurger(StoredInstanceRepository instanceRepository,
+                         PurgeTombstoneRepository tombstoneRepository,
+                         StorageTiers tiers,
+                         PackStore packStore,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.tiers = tiers;
+        this.packStore = packStore;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Remove a study from the index; its files are deleted in the background after commit.
+     * Joins the caller's transaction if there is one.
+     *
+     * @return {@code false} if nothing of the study is stored
+     */
+    public boolean purgeStudy(String studyInstanceUid) {
+        Boolean purged = transactionTemplate.execute(status -> {
+            List<String> series = instanceRepository.findSeriesOfStudy(studyInstanceUid);
+            if (series.isEmpty()) {
+                return false;
+            }
+            List<StorageBreakdown> removed = instanceRepository.breakdownOfStudy(studyInstanceUid);
+            tombstoneRepository.insertForStudy(studyInstanceUid);
+            int deleted = instanceRepository.deleteByStudy(studyInstanceUid);
+            eventPublisher.publishEvent(new StudyPurgedEvent(studyInstanceUid, series));
+            for (StorageBreakdown row : removed) {
+                eventPublisher.publishEvent(StorageStatsDelta.of(row.modality(), row.storageTier(),
+                    -row.instances(), -row.bytes()));
+            }
+            eventPublisher.publishEvent(new StorageStatsDelta(null, null, 0, 0, -1, -series.size()));
+            log.info("Purged study {} ({} instances)", studyInstanceUid, deleted);
+            return true;
+        });
+        return Boolean.TRUE.equals(purged);
+    }
+
+    /**
+     * Purge every study of a patient and/or with a Study Date (YYYYMMDD) in the inclusive range,
+     * one transaction per study.
+     *
+     * @return Number of studies purged
+     */
+    public int purge(String patientId, String studyDateFrom, String studyDateTo) {
+        if (isBlank(patientId) && isBlank(studyDateFrom) && isBlank(studyDateTo)) {
+            throw new IllegalArgumentException("A patient ID or study date range is required");
+        }
+        int purged = 0;
+        for (String study : instanceRepository.findStudiesMatching(blankToNull(patientId),
+                blankToNull(studyDateFrom), blankToNull(studyDateTo))) {
+            if (purgeStudy(study)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reclaimAsync();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyPurged(StudyPurgedEvent event) {
+        reclaimAsync();
+    }
+
+    /**
+     * Run a reclaim pass in the background; requests arriving during a pass trigger one more.
+     */
+    void reclaimAsync() {
+        pending.set(true);
+        if (!reclaiming.compareAndSet(false, true)) {
+            return;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                while (pending.getAndSet(false)) {
+                    reclaim();
+                }
+            } catch (Exception e) {
+                log.error("Purge reclaim failed: {}", e.getMessage(), e);
+            } finally {
+                reclaiming.set(false);
+            }
+            if (pending.get()) {
+                reclaimAsync();
+            }
+        });
+    }
+
+    /**
+     * Delete the files of every tombstone, a page at a time. Tombstones whose file could not be
+     * removed are kept for the next pass.
+     *
+     * @return Number of tombstones cleared
+     */
+    int reclaim() {
+        int cleared = 0;
+        long lastId = 0;
+        List<PurgeTombstone> page;
+        while (!(page = tombstoneRepository.findByIdGreaterThanOrderByIdAsc(lastId,
+                PageRequest.of(0, batchSize))).isEmpty()) {
+            List<CompletableFuture<Long>> deletes = page.stream()
+                .map(tombstone -> CompletableFuture.supplyAsync(
+                    () -> reclaim(tombstone) ? tombstone.getId() : null, ioExecutor))
+                .toList();
+            List<Long> done = deletes.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+            if (!done.isEmpty()) {
+                tombstoneRepository.deleteAllByIdInBatch(done);
+            }
+            cleared += done.size();
+            lastId = page.get(page.size() - 1).getId();
+        }
+        if (cleared > 0) {
+            log.info("Reclaimed {} purged files", cleared);
+        }
+        return cleared;
+    }
+
+    private boolean reclaim(PurgeTombstone tombstone) {
+        try {
+            if (tombstone.isPacked()) {
+                packStore.compactIfNeeded(tombstone.getSeriesInstanceUid(), Paths.get(tombstone.getFilePath()));
+            } else if (StorageTiers.EXTERNAL.equals(tombstone.getStorageTier())
+                    || !tiers.owns(Paths.get(tombstone.getFilePath()))) {
+                // Registered in place from another archive; only its index row was ours
+                log.debug("Leaving unowned file {} in place", tombstone.getFilePath());
+            } else {
+                deleteUnreferenced(tombstone);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to reclaim purged file {}: {}", tombstone.getFilePath(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete a purged file unless an index row points at it again. Content-addressed files may be
+     * shared, and a study stored again reuses its paths; the path lock waits for such a store to
+     * commit its row before the check.
+     */
+    private void deleteUnreferenced(PurgeTombstone tombstone) {
+        Path file = Paths.get(tombstone.getFilePath());
+        Lock lock = tiers.pathLock(file);
+        lock.lock();
+        try {
+            if (instanceRepository.countByFilePath(tombstone.getFilePath()) == 0) {
+                StorageTiers.deleteAndPrune(file, tiers.byName(tombstone.getStorageTier()).root());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String blankToNull(String value) {
+        return isBlank(value) ? null : value;
+    }
+}
@@ -0,0 +1,358 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.ScrubFinding;
+import com.dicomviewer.model.entity.ScrubFinding.Problem;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.ScrubFindingRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background verification of stored files against the index.
+ * <p>
+ * Walks {@code stored_instances} in id order in batches of {@code dicom.storage.scrub.batch-size},
+ * checking that each file (or pack range) exists, has the indexed size and, for instances with a
+ * checksum recorded at ingest, still hashes to it. Problems are kept in {@code scrub_findings}, one
+ * per instance, and cleared when the instance verifies again. A missing or mis-sized file is only
+ * reported if it still fails against a fresh copy of its index row, since tier moves, compaction and
+ * deletes change rows while a batch is being checked. Checksum reads are paced to
+ * {@code dicom.storage.scrub.max-bytes-per-second}, with bursts of at most one second's worth, so
+ * a pass does not compete with serving.
+ * Progress is checkpointed in {@code background_job_checkpoints}; an interrupted pass resumes on
+ * startup. With {@code dicom.storage.scrub.enabled} a pass starts every
+ * {@code dicom.storage.scrub.interval-ms}.
+ */
+@Component
+public class StorageScrubber {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageScrubber.class);
+
+    static final String JOB_NAME = "storage-scrub";
+
+    private final StoredInstanceRepository instanceRepository;
+    private final BackgroundJobCheckpointRepository checkpointRepository;
+    private final ScrubFindingRepository findingRepository;
+    private final PackStore packStore;
+    private final DicomMetrics metrics;
+    private final ExecutorService ioExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong openFindings = new AtomicLong();
+
+    @Value("${dicom.storage.scrub.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dicom.storage.scrub.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${dicom.storage.scrub.max-bytes-per-second:20971520}")
+    private long maxBytesPerSecond = 20971520;
+
+    public StorageScrubber(StoredInstanceRepository instanceRepository,
+                           BackgroundJobCheckpointRepository checkpointRepository,
+                           ScrubFindingRepository findingRepository,
+                           PackStore packStore,
+                           DicomMetrics metrics,
+                           @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.findingRepository = findingRepository;
+        this.packStore = packStore;
+        this.metrics = metrics;
+        this.ioExecutor = ioExecutor;
+
+        Gauge.builder("dicom.storage.scrub.processed", processed, AtomicLong::get)
+            .description("Instances verified in the current or last scrub pass")
+            .register(metrics.getRegistry());
+        Gauge.builder("dicom.storage.scrub.position", lastId, AtomicLong::get)
+            .description("Id of the last index row verified by the scrubber")
+            .register(metrics.getRegistry());
+        Gauge.builder("dicom.storage.scrub.findings", openFindings, AtomicLong::get)
+            .description("Stored instances currently failing verification")
+            .register(metrics.getRegistry());
+    }
+
+    /**
+     * Resume a pass interrupted by shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        openFindings.set(findingRepository.count());
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint == null) {
+            return;
+        }
+        lastId.set(checkpoint.getLastId());
+        processed.set(checkpoint.getProcessed());
+        if (enabled && checkpoint.getStartedAt() != null && checkpoint.getCompletedAt() == null) {
+            start();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${dicom.storage.scrub.initial-delay-ms:600000}",
+               fixedDelayString = "${dicom.storage.scrub.interval-ms:86400000}")
+    public void scheduledRun() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Start a pass in the background.
+     *
+     * @return {@code false} if a pass is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Storage scrub stopped: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Status getStatus() {
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint == null) {
+            return new Status(running.get(), 0, 0, openFindings.get(), null, null);
+        }
+        return new Status(running.get(), checkpoint.getLastId(), checkpoint.getProcessed(), openFindings.get(),
+            checkpoint.getStartedAt(), checkpoint.getCompletedAt());
+    }
+
+    /**
+     * Most recently detected problems.
+     */
+    public List<ScrubFinding> getFindings(int limit) {
+        return findingRepository.findAllByOrderByLastDetectedAtDesc(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Verify every instance after the last checkpoint. A completed pass starts over.
+     */
+    void run() throws InterruptedException {
+        BackgroundJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+            .orElseGet(() -> new BackgroundJobCheckpoint(JOB_NAME));
+        if (checkpoint.getCompletedAt() != null || checkpoint.getStartedAt() == null) {
+            checkpoint.setLastId(0);
+            checkpoint.setProcessed(0);
+            checkpoint.setCompletedAt(null);
+            checkpoint.setStartedAt(Instant.now());
+        }
+        log.info("Storage scrub starting after id {}", checkpoint.getLastId());
+
+        Throttle throttle = new Throttle(maxBytesPerSecond);
+        List<StoredInstance> batch;
+        while (!(batch = instanceRepository.findByIdGreaterThanOrderByIdAsc(
+                checkpoint.getLastId(), PageRequest.of(0, batchSize))).isEmpty()) {
+            long bytesBefore = throttle.bytes;
+            Map<String, Failure> failures = new HashMap<>();
+            for (StoredInstance instance : batch) {
+                Failure failure = recheck(instance, verify(instance, throttle), throttle);
+                if (failure != null) {
+                    failures.put(instance.getSopInstanceUid(), failure);
+                    metrics.recordScrubError(failure.problem().name());
+                }
+            }
+            record(batch, failures);
+            metrics.recordScrubBatch(batch.size(), throttle.bytes - bytesBefore);
+
+            checkpoint.setLastId(batch.get(batch.size() - 1).getId());
+            checkpoint.setProcessed(checkpoint.getProcessed() + batch.size());
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+            lastId.set(checkpoint.getLastId());
+            processed.set(checkpoint.getProcessed());
+        }
+
+        // Instances deleted since they were flagged
+        findingRepository.deleteOrphaned();
+        openFindings.set(findingRepository.count());
+
+        checkpoint.setCompletedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        log.info("Storage scrub finished: {} instances verified, {} failing", checkpoint.getProcessed(),
+            openFindings.get());
+    }
+
+    /**
+     * Check one instance.
+     *
+     * @return The problem found, or {@code null} if the instance verifies
+     */
+    Failure verify(StoredInstance instance, Throttle throttle) throws InterruptedException {
+        Path file = Paths.get(instance.getFilePath());
+        try {
+            if (!Files.exists(file)) {
+                return new Failure(Problem.MISSING, (instance.isPacked() ? "pack " : "file ") + file + " not found");
+            }
+            long size = Files.size(file);
+            if (instance.isPacked()) {
+                long end = instance.getPackOffset() + instance.getPackLength();
+                if (end > size) {
+                    return new Failure(Problem.SIZE_MISMATCH, "pack is " + size + " bytes, instance ends at " + end);
+                }
+            } else if (instance.getFileSize() != null && instance.getFileSize() != size) {
+                return new Failure(Problem.SIZE_MISMATCH, "file is " + size + " bytes, indexed as " + instance.getFileSize());
+            }
+            if (instance.getContentSha256() == null) {
+                return null;
+            }
+
+            String actual;
+            if (instance.isPacked()) {
+                throttle.acquire(instance.getPackLength());
+                actual = StorageLayout.sha256(packStore.read(instance));
+            } else {
+                throttle.acquire(size);
+                actual = StorageLayout.sha256(file);
+            }
+            return actual.equals(instance.getContentSha256()) ? null
+                : new Failure(Problem.CHECKSUM_MISMATCH, "content hashes to " + actual);
+        } catch (IOException e) {
+            return new Failure(Problem.UNREADABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read the index row of an instance whose file is missing, mis-sized or unreadable, and
+     * verify it again; the row may have been repointed or deleted since the batch was loaded.
+     *
+     * @return The problem that persists, or {@code null}
+     */
+    private Failure recheck(StoredInstance instance, Failure failure, Throttle throttle) throws InterruptedException {
+        if (failure == null || failure.problem() == Problem.CHECKSUM_MISMATCH) {
+            return failure;
+        }
+        StoredInstance current = instanceRepository.findById(instance.getId()).orElse(null);
+        return current != null ? verify(current, throttle) : null;
+    }
+
+    /**
+     * Upsert findings for the failing instances of a batch and clear those of instances that verified.
+     */
+    private void record(List<StoredInstance> batch, Map<String, Failure> failures) {
+        Map<String, ScrubFinding> existing = new HashMap<>();
+        for (ScrubFinding finding : findingRepository.findBySopInstanceUidIn(
+                batch.stream().map(StoredInstance::getSopInstanceUid).toList())) {
+            existing.put(finding.getSopInstanceUid(), finding);
+        }
+        if (existing.isEmpty() && failures.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        List<ScrubFinding> changed = new ArrayList<>();
+        List<ScrubFinding> resolved = new ArrayList<>();
+        int detected = 0;
+        for (StoredInstance instance : batch) {
+            Failure failure = failures.get(instance.getSopInstanceUid());
+            ScrubFinding finding = existing.get(instance.getSopInstanceUid());
+            if (failure == null) {
+                if (finding != null) {
+                    resolved.add(finding);
+                }
+                continue;
+            }
+            if (finding == null) {
+                finding = new ScrubFinding();
+                finding.setSopInstanceUid(instance.getSopInstanceUid());
+                finding.setFirstDetectedAt(now);
+                detected++;
+                log.warn("Storage scrub: {} {}: {}", instance.getSopInstanceUid(), failure.problem(), failure.detail());
+            }
+            finding.setFilePath(instance.getFilePath());
+            finding.setProblem(failure.problem());
+            finding.setDetail(failure.detail());
+            finding.setLastDetectedAt(now);
+            changed.add(finding);
+        }
+        findingRepository.saveAll(changed);
+        if (!resolved.isEmpty()) {
+            findingRepository.deleteAllInBatch(resolved);
+        }
+        openFindings.addAndGet(detected - resolved.size());
+    }
+
+    /**
+     * Scrub progress.
+     *
+     * @param lastId Id of the last index row verified
+     */
+    public record Status(boolean running, long lastId, long processed, long openFindings,
+                         Instant startedAt, Instant completedAt) {
+    }
+
+    record Failure(Problem problem, String detail) {
+    }
+
+    /**
+     * Token bucket pacing reads to a rate, holding at most one second's worth of tokens so time
+     * spent on cheap checks cannot be saved up for a burst of reads.
+     */
+    static final class Throttle {
+        private final long bytesPerSecond;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long bytes;
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.tokens = bytesPerSecond;
+        }
+
+        void acquire(long length) throws InterruptedException {
+            bytes += length;
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(bytesPerSecond, tokens + (now - refilledAt) * bytesPerSecond / 1e9);
+            refilledAt = now;
+            tokens -= length;
+            if (tokens < 0) {
+                // A read larger than the bucket goes ahead, then waits off its debt
+                TimeUnit.NANOSECONDS.sleep((long) (-tokens * 1e9 / bytesPerSecond));
+                tokens = 0;
+                refilledAt = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.StorageBreakdown;
+import com.dicomviewer.model.entity.StorageStatisticsEntry;
+import com.dicomviewer.repository.StorageStatisticsRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Storage counters kept in memory instead of aggregated over {@code stored_instances} on every read.
+ * <p>
+ * Instance count and bytes are tracked per modality and storage tier, study and series counts in
+ * total. Counters move with the {@link StorageStatsDelta}s published on store, re-encode, delete,
+ * purge and tier moves, are written to {@code storage_statistics} every
+ * {@code dicom.storage.stats.persist-interval-ms} and on shutdown, and are loaded back on startup.
+ * Every {@code dicom.storage.stats.reconcile-interval-ms} they are recounted from the index, which
+ * also corrects changes made while the server was down or committed during the previous recount.
+ */
+@Component
+public class StorageStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageStatistics.class);
+
+    private final StoredInstanceRepository instanceRepository;
+    private final StorageStatisticsRepository statisticsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService ioExecutor;
+    private final Map<Bucket, Counter> buckets = new ConcurrentHashMap<>();
+    private final LongAdder studies = new LongAdder();
+    private final LongAdder series = new LongAdder();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public StorageStatistics(StoredInstanceRepository instanceRepository,
+                             StorageStatisticsRepository statisticsRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.statisticsRepository = statisticsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Load the persisted counters, adding them to any changes applied since startup. Without
+     * persisted counters a recount runs in the background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<StorageStatisticsEntry> persisted = statisticsRepository.findAll();
+        if (persisted.isEmpty()) {
+            ioExecutor.execute(() -> {
+                try {
+                    reconcile();
+                } catch (Exception e) {
+                    log.error("Storage statistics recount failed: {}", e.getMessage(), e);
+                }
+            });
+            return;
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            for (StorageStatisticsEntry entry : persisted) {
+                if (StorageStatisticsEntry.TOTALS.equals(entry.getBucket())) {
+                    studies.add(entry.getStudyCount());
+                    series.add(entry.getSeriesCount());
+                } else {
+                    counter(entry.getModality(), entry.getStorageTier())
+                        .add(entry.getInstanceCount(), entry.getTotalBytes());
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatsDelta(StorageStatsDelta delta) {
+        apply(delta);
+    }
+
+    void apply(StorageStatsDelta delta) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (delta.instances() != 0 || delta.bytes() != 0) {
+                counter(delta.modality(), delta.storageTier()).add(delta.instances(), delta.bytes());
+            }
+            studies.add(delta.studies());
+            series.add(delta.series());
+        } finally {
+            readLock.unlock();
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Current totals and the per-modality, per-tier breakdown.
+     */
+    public Snapshot snapshot() {
+        List<StorageBreakdown> breakdown = new ArrayList<>();
+        long instances = 0;
+        long bytes = 0;
+        for (Map.Entry<Bucket, Counter> entry : buckets.entrySet()) {
+            long count = entry.getValue().instances.sum();
+            long size = entry.getValue().bytes.sum();
+            if (count != 0 || size != 0) {
+                breakdown.add(new StorageBreakdown(entry.getKey().modality(), entry.getKey().storageTier(), count, size));
+                instances += count;
+                bytes += size;
+            }
+        }
+        breakdown.sort(Comparator.comparing(StorageBreakdown::modality).thenComparing(StorageBreakdown::storageTier));
+        return new Snapshot(instances, bytes, studies.sum(), series.sum(), breakdown);
+    }
+
+    @Scheduled(initialDelayString = "${dicom.storage.stats.persist-interval-ms:60000}",
+               fixedDelayString = "${dicom.storage.stats.persist-interval-ms:60000}")
+    public void persistIfChanged() {
+        if (dirty.getAndSet(false)) {
+            try {
+                persist();
+            } catch (Exception e) {
+                dirty.set(true);
+                log.warn("Failed to persist storage statistics: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        persistIfChanged();
+    }
+
+    @Scheduled(initialDelayString = "${dicom.storage.stats.reconcile-interval-ms:21600000}",
+               fixedDelayString = "${dicom.storage.stats.reconcile-interval-ms:21600000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Storage statistics recount failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recount from the index and replace the in-memory counters.
+     */
+    public void reconcile() {
+        List<StorageBreakdown> actual = instanceRepository.breakdown();
+        long studyCount = instanceRepository.countDistinctStudies();
+        long seriesCount = instanceRepository.countDistinctSeries();
+
+        long tracked = snapshot().totalInstances();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            buckets.clear();
+            studies.reset();
+            series.reset();
+            for (StorageBreakdown row : actual) {
+                counter(row.modality(), row.storageTier()).add(row.instances(), row.bytes());
+            }
+            studies.add(studyCount);
+            series.add(seriesCount);
+        } finally {
+            writeLock.unlock();
+        }
+
+        long counted = actual.stream().mapToLong(StorageBreakdown::instances).sum();
+        if (counted != tracked) {
+            log.info("Storage statistics recounted: {} instances, {} were tracked", counted, tracked);
+        }
+        dirty.set(false);
+        persist();
+    }
+
+    private void persist() {
+        Snapshot snapshot = snapshot();
+        Instant now = Instant.now();
+        List<StorageStatisticsEntry> entries = new ArrayList<>();
+        for (StorageBreakdown row : snapshot.breakdown()) {
+            StorageStatisticsEntry entry = new StorageStatisticsEntry(row.modality() + "/" + row.storageTier());
+            entry.setModality(row.modality());
+            entry.setStorageTier(row.storageTier());
+            entry.setInstanceCount(row.instances());
+            entry.setTotalBytes(row.bytes());
+            entry.setUpdatedAt(now);
+            entries.add(entry);
+        }
+        StorageStatisticsEntry totals = new StorageStatisticsEntry(StorageStatisticsEntry.TOTALS);
+        totals.setInstanceCount(snapshot.totalInstances());
+        totals.setTotalBytes(snapshot.totalBytes());
+        totals.setStudyCount(snapshot.studyCount());
+        totals.setSeriesCount(snapshot.seriesCount());
+        totals.setUpdatedAt(now);
+        entries.add(totals);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            statisticsRepository.deleteAllInBatch();
+            statisticsRepository.saveAll(entries);
+        });
+    }
+
+    private Counter counter(String modality, String storageTier) {
+        return buckets.computeIfAbsent(new Bucket(modality != null ? modality : "",
+            storageTier != null ? storageTier : StorageTiers.PRIMARY), b -> new Counter());
+    }
+
+    public record Snapshot(long totalInstances, long totalBytes, long studyCount, long seriesCount,
+                           List<StorageBreakdown> breakdown) {
+    }
+
+    private record Bucket(String modality, String storageTier) {
+    }
+
+    private static final class Counter {
+        private final LongAdder instances = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private void add(long instanceDelta, long byteDelta) {
+            instances.add(instanceDelta);
+            bytes.add(byteDelta);
+        }
+    }
+}
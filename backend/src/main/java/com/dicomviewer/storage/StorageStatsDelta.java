@@ -0,0 +1,13 @@
+package com.dicomviewer.storage;
+
+/**
+ * Change to the {@link StorageStatistics} counters, published by whatever stores, deletes or moves
+ * instances and applied once its transaction commits.
+ */
+public record StorageStatsDelta(String modality, String storageTier, long instances, long bytes,
+                                long studies, long series) {
+
+    public static StorageStatsDelta of(String modality, String storageTier, long instances, long bytes) {
+        return new StorageStatsDelta(modality, storageTier, instances, bytes, 0, 0);
+    }
+}
@@ -0,0 +1,177 @@
+package com.dicomviewer.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Storage tiers, from hottest to coldest.
+ * <p>
+ * The primary tier, {@value #PRIMARY}, is {@code dicom.storage.path}; new instances are always written
+ * there. {@code dicom.storage.tiers.secondary} adds colder tiers as {@code name:path} pairs, e.g.
+ * {@code cold:/mnt/archive/dicom}. A file keeps its layout-relative path on every tier. Files
+ * registered in place by the {@link BulkImporter} are indexed as {@value #EXTERNAL}, which is not
+ * a tier: they lie outside every tier root and are never moved or deleted.
+ */
+@Component
+public class StorageTiers {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageTiers.class);
+
+    public static final String PRIMARY = "hot";
+
+    /** Storage tier recorded for files registered in place from another archive. */
+    public static final String EXTERNAL = "external";
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final List<Tier> tiers;
+    private final Lock[] pathLocks = new Lock[LOCK_STRIPES];
+
+    public StorageTiers(StorageLayout layout,
+                        @Value("${dicom.storage.tiers.secondary:}") String[] secondary) {
+        List<Tier> configured = new ArrayList<>();
+        configured.add(new Tier(PRIMARY, layout.getRoot()));
+        for (String entry : secondary) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0 || colon == entry.length() - 1) {
+                throw new IllegalArgumentException("Invalid storage tier '" + entry + "', expected name:path");
+            }
+            String name = entry.substring(0, colon).trim();
+            if (configured.stream().anyMatch(t -> t.name().equals(name))) {
+                throw new IllegalArgumentException("Duplicate storage tier " + name);
+            }
+            configured.add(new Tier(name, Paths.get(entry.substring(colon + 1).trim())));
+        }
+        this.tiers = Collections.unmodifiableList(configured);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            pathLocks[i] = new ReentrantLock();
+        }
+        if (tiers.size() > 1) {
+            log.info("Storage tiers: {}", tiers);
+        }
+    }
+
+    public List<Tier> getTiers() {
+        return tiers;
+    }
+
+    public Tier primary() {
+        return tiers.get(0);
+    }
+
+    public boolean isTiered() {
+        return tiers.size() > 1;
+    }
+
+    /**
+     * Tier by name; {@code null} is the primary tier.
+     *
+     * @return The tier, or {@code null} for {@link #EXTERNAL}, which has no root
+     */
+    public Tier byName(String name) {
+        if (name == null) {
+            return primary();
+        }
+        if (EXTERNAL.equals(name)) {
+            return null;
+        }
+        return tiers.stream().filter(t -> t.name().equals(name)).findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown storage tier " + name));
+    }
+
+    /**
+     * Whether a file lies under one of the tier roots. Files registered in place by the
+     * {@link BulkImporter} do not, and are never moved or deleted.
+     */
+    public boolean owns(Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        return tiers.stream().anyMatch(t -> normalized.startsWith(t.root().toAbsolutePath().normalize()));
+    }
+
+    /**
+     * The same layout-relative path on another tier.
+     */
+    public Path relocate(Path path, Tier from, Tier to) {
+        return to.root().resolve(from.root().relativize(path));
+    }
+
+    /**
+     * Striped lock serializing a file path between an instance being stored at it and a purge
+     * reclaiming it.
+     */
+    public Lock pathLock(Path file) {
+        return pathLocks[Math.floorMod(file.toString().hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Lock a path until the current transaction completes, so whoever takes the lock next sees the
+     * index row written for it. Without a transaction the row is already written when the caller
+     * saves it, and the lock is released right away.
+     */
+    public void lockUntilCommitted(Path file) {
+        Lock lock = pathLock(file);
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Fraction of the tier's file system in use.
+     */
+    public double usage(Tier tier) throws IOException {
+        Files.createDirectories(tier.root());
+        FileStore store = Files.getFileStore(tier.root());
+        long total = store.getTotalSpace();
+        return total > 0 ? 1.0 - (double) store.getUsableSpace() / total : 0;
+    }
+
+    /**
+     * Delete a file no longer referenced by the index and any directories left empty above it,
+     * up to the tier root.
+     */
+    static void deleteAndPrune(Path file, Path root) {
+        try {
+            Files.deleteIfExists(file);
+            Path dir = file.getParent();
+            while (dir != null && !dir.equals(root) && dir.startsWith(root)) {
+                Files.delete(dir);
+                dir = dir.getParent();
+            }
+        } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+            // Still in use by other instances
+        } catch (IOException e) {
+            log.warn("Could not remove superseded file {}: {}", file, e.getMessage());
+        }
+    }
+
+    public record Tier(String name, Path root) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.dicomviewer.storage;
+
+import java.util.List;
+
+/**
+ * Published when every index row of a study has been deleted in one statement by {@link StoragePurger}.
+ */
+public record StudyPurgedEvent(String studyInstanceUid, List<String> seriesInstanceUids) {
+}
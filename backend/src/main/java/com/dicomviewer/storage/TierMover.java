@@ -0,0 +1,279 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.config.ExecutorConfig;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves studies between {@link StorageTiers}.
+ * <p>
+ * Every {@code dicom.storage.tiers.interval-ms} studies not accessed for
+ * {@code dicom.storage.tiers.demote-after-days} are demoted one tier. A tier above
+ * {@code dicom.storage.tiers.high-watermark} of its file system additionally demotes its least
+ * recently used studies until it is back under {@code dicom.storage.tiers.low-watermark}. Accesses
+ * are recorded when WADO-RS serves an instance from local storage; reading a study from a colder
+ * tier promotes it back to the primary tier in the background, unless the primary tier is itself
+ * above the high watermark.
+ * <p>
+ * Files are copied and their index rows repointed. The old copies are removed
+ * {@code dicom.storage.tiers.old-copy-retention-ms} later, so a reader that resolved a path just
+ * before the move can still open it. Packed instances stay on the primary tier, and files
+ * registered in place by a {@link BulkImporter} stay where they are.
+ */
+@Component
+public class TierMover {
+
+    private static final Logger log = LoggerFactory.getLogger(TierMover.class);
+
+    private final StoredInstanceRepository instanceRepository;
+    private final StorageTiers tiers;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService ioExecutor;
+    private final Set<String> accessedStudies = ConcurrentHashMap.newKeySet();
+    private final Set<String> promoting = ConcurrentHashMap.newKeySet();
+
+    @Value("${dicom.storage.tiers.demote-after-days:90}")
+    private int demoteAfterDays = 90;
+
+    @Value("${dicom.storage.tiers.high-watermark:0.85}")
+    private double highWatermark = 0.85;
+
+    @Value("${dicom.storage.tiers.low-watermark:0.75}")
+    private double lowWatermark = 0.75;
+
+    @Value("${dicom.storage.tiers.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${dicom.storage.tiers.promote-on-access:true}")
+    private boolean promoteOnAccess = true;
+
+    @Value("${dicom.storage.tiers.old-copy-retention-ms:60000}")
+    private long oldCopyRetentionMs = 60000;
+
+    public TierMover(StoredInstanceRepository instanceRepository, StorageTiers tiers,
+                     ApplicationEventPublisher eventPublisher,
+                     @Qualifier(ExecutorConfig.DICOM_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.instanceRepository = instanceRepository;
+        this.tiers = tiers;
+        this.eventPublisher = eventPublisher;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Note that an instance was read. Access times are written in bulk on the next run; a study on
+     * a colder tier is promoted right away.
+     */
+    public void recordAccess(StoredInstance instance) {
+        String study = instance.getStudyInstanceUid();
+        accessedStudies.add(study);
+        if (promoteOnAccess && isOnColderTier(instance) && promoting.add(study)) {
+            ioExecutor.execute(() -> {
+                try {
+                    promote(study);
+                } catch (Exception e) {
+                    log.warn("Failed to promote study {}: {}", study, e.getMessage());
+                } finally {
+                    promoting.remove(study);
+                }
+            });
+        }
+    }
+
+    /**
+     * Files registered in place are on no tier and stay where they are.
+     */
+    private static boolean isOnColderTier(StoredInstance instance) {
+        String tier = instance.getStorageTier();
+        return !StorageTiers.PRIMARY.equals(tier) && !StorageTiers.EXTERNAL.equals(tier);
+    }
+
+    @Scheduled(initialDelayString = "${dicom.storage.tiers.initial-delay-ms:60000}",
+               fixedDelayString = "${dicom.storage.tiers.interval-ms:300000}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("Storage tier run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Flush access times, then demote by age and by watermark, hottest tier first.
+     */
+    void run() throws IOException {
+        flushAccessTimes();
+        if (!tiers.isTiered()) {
+            return;
+        }
+
+        List<StorageTiers.Tier> all = tiers.getTiers();
+        for (int i = 0; i < all.size() - 1; i++) {
+            StorageTiers.Tier tier = all.get(i);
+            StorageTiers.Tier colder = all.get(i + 1);
+
+            Instant cutoff = Instant.now().minus(Duration.ofDays(demoteAfterDays));
+            List<String> aged;
+            while (!(aged = findMovableStudies(tier, cutoff)).isEmpty()) {
+                if (moveAll(aged, tier, colder) == 0) {
+                    break;
+                }
+            }
+
+            if (tiers.usage(tier) > highWatermark) {
+                log.info("Storage tier {} above high watermark ({}%), demoting least recently used studies",
+                    tier.name(), Math.round(tiers.usage(tier) * 100));
+                while (tiers.usage(tier) > lowWatermark) {
+                    List<String> lru = findMovableStudies(tier, Instant.now());
+                    if (lru.isEmpty() || moveAll(lru, tier, colder) == 0) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        StorageTiers.Tier coldest = all.get(all.size() - 1);
+        if (tiers.usage(coldest) > highWatermark) {
+            log.warn("Coldest storage tier {} is {}% full", coldest.name(), Math.round(tiers.usage(coldest) * 100));
+        }
+    }
+
+    /**
+     * Move a study from every colder tier back to the primary tier.
+     */
+    void promote(String studyInstanceUid) throws IOException {
+        StorageTiers.Tier primary = tiers.primary();
+        if (tiers.usage(primary) > highWatermark) {
+            log.debug("Not promoting {}: tier {} above high watermark", studyInstanceUid, primary.name());
+            return;
+        }
+        for (StorageTiers.Tier tier : tiers.getTiers()) {
+            if (tier != primary) {
+                moveStudy(studyInstanceUid, tier, primary);
+            }
+        }
+    }
+
+    /**
+     * Move a study's files from one tier to another.
+     *
+     * @return Number of instances moved
+     */
+    int moveStudy(String studyInstanceUid, StorageTiers.Tier from, StorageTiers.Tier to) throws IOException {
+        Map<String, List<StoredInstance>> byFile = new LinkedHashMap<>();
+        for (StoredInstance instance : instanceRepository.findByStudyInstanceUidAndStorageTier(studyInstanceUid, from.name())) {
+            if (!instance.isPacked() && Paths.get(instance.getFilePath()).startsWith(from.root())) {
+                byFile.computeIfAbsent(instance.getFilePath(), k -> new ArrayList<>()).add(instance);
+            }
+        }
+        if (byFile.isEmpty()) {
+            return 0;
+        }
+
+        List<StoredInstance> moved = new ArrayList<>();
+        List<Path> superseded = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<StoredInstance>> entry : byFile.entrySet()) {
+                Path source = Paths.get(entry.getKey());
+                Path target = tiers.relocate(source, from, to);
+                superseded.add(source);
+                Files.createDirectories(target.getParent());
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                for (StoredInstance instance : entry.getValue()) {
+                    instance.setFilePath(target.toString());
+                    instance.setStorageTier(to.name());
+                    moved.add(instance);
+                }
+            }
+            instanceRepository.saveAll(moved);
+        } catch (IOException | RuntimeException e) {
+            // Leave the study where it was; drop any partial copies
+            for (Path source : superseded) {
+                StorageTiers.deleteAndPrune(tiers.relocate(source, from, to), to.root());
+            }
+            throw e;
+        }
+
+        deleteLater(superseded, from);
+        publishStatsDeltas(moved, from, to);
+        log.info("Moved study {} from {} to {} ({} instances)", studyInstanceUid, from.name(), to.name(), moved.size());
+        return moved.size();
+    }
+
+    private List<String> findMovableStudies(StorageTiers.Tier tier, Instant before) {
+        return instanceRepository.findMovableStudiesOnTier(tier.name(), tier.root() + File.separator, before,
+            PageRequest.of(0, batchSize));
+    }
+
+    /**
+     * Remove the copies a move superseded once readers holding their paths are done.
+     */
+    private void deleteLater(List<Path> superseded, StorageTiers.Tier from) {
+        Runnable delete = () -> superseded.forEach(source -> StorageTiers.deleteAndPrune(source, from.root()));
+        if (oldCopyRetentionMs <= 0) {
+            delete.run();
+        } else {
+            CompletableFuture.delayedExecutor(oldCopyRetentionMs, TimeUnit.MILLISECONDS, ioExecutor).execute(delete);
+        }
+    }
+
+    private void publishStatsDeltas(List<StoredInstance> moved, StorageTiers.Tier from, StorageTiers.Tier to) {
+        Map<String, long[]> byModality = new HashMap<>();
+        for (StoredInstance instance : moved) {
+            long[] totals = byModality.computeIfAbsent(instance.getModality(), k -> new long[2]);
+            totals[0]++;
+            totals[1] += instance.getFileSize() != null ? instance.getFileSize() : 0;
+        }
+        byModality.forEach((modality, totals) -> {
+            eventPublisher.publishEvent(StorageStatsDelta.of(modality, from.name(), -totals[0], -totals[1]));
+            eventPublisher.publishEvent(StorageStatsDelta.of(modality, to.name(), totals[0], totals[1]));
+        });
+    }
+
+    private int moveAll(List<String> studies, StorageTiers.Tier from, StorageTiers.Tier to) {
+        int moved = 0;
+        for (String study : studies) {
+            try {
+                moved += moveStudy(study, from, to);
+            } catch (Exception e) {
+                log.warn("Failed to move study {} from {} to {}: {}", study, from.name(), to.name(), e.getMessage());
+            }
+        }
+        return moved;
+    }
+
+    private void flushAccessTimes() {
+        if (accessedStudies.isEmpty()) {
+            return;
+        }
+        List<String> studies = new ArrayList<>(accessedStudies);
+        accessedStudies.removeAll(studies);
+        instanceRepository.touchStudies(studies, Instant.now());
+    }
+}
@@ -0,0 +1,2 @@
+-- What a resumable background job was started with (e.g. the bulk import source and mode)
+ALTER TABLE background_job_checkpoints ADD COLUMN parameters VARCHAR(2048);
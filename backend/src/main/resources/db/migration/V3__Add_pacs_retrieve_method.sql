@@ -0,0 +1,3 @@
+-- Retrieval method per PACS: C_MOVE (PACS connects back to our AE) or
+-- C_GET (instances returned on the same association, no inbound connection needed)
+ALTER TABLE pacs_configuration ADD COLUMN retrieve_method VARCHAR(10) DEFAULT 'C_MOVE' NOT NULL;
@@ -0,0 +1,12 @@
+-- Resume position of long-running background jobs (storage layout migration, scrubbing, ...)
+-- walking stored_instances in id order
+CREATE TABLE background_job_checkpoints (
+    job_name VARCHAR(100) PRIMARY KEY,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    processed BIGINT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_stored_instance_file_path ON stored_instances(file_path);
@@ -0,0 +1,4 @@
+-- Instances appended to a series pack file: file_path names the pack, pack_offset/pack_length
+-- the byte range of the Part 10 object within it. NULL for instances stored as their own file.
+ALTER TABLE stored_instances ADD COLUMN pack_offset BIGINT;
+ALTER TABLE stored_instances ADD COLUMN pack_length BIGINT;
@@ -0,0 +1,4 @@
+-- Storage tier an instance's file lives on ('hot' is dicom.storage.path)
+ALTER TABLE stored_instances ADD COLUMN storage_tier VARCHAR(32) DEFAULT 'hot' NOT NULL;
+
+CREATE INDEX idx_stored_instance_tier_study ON stored_instances(storage_tier, study_instance_uid);
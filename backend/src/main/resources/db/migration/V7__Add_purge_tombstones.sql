@@ -0,0 +1,11 @@
+-- Files whose index rows were purged but which may still be on disk; removed once the file is gone
+CREATE TABLE purge_tombstones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    file_path VARCHAR(1024) NOT NULL,
+    series_instance_uid VARCHAR(255) NOT NULL,
+    storage_tier VARCHAR(32) NOT NULL,
+    packed BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_stored_instance_study_date ON stored_instances(study_date);
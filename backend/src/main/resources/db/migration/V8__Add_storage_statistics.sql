@@ -0,0 +1,12 @@
+-- Periodically persisted storage counters, one row per modality and storage tier; the row keyed '*'
+-- holds the distinct study and series counts
+CREATE TABLE storage_statistics (
+    bucket VARCHAR(100) PRIMARY KEY,
+    modality VARCHAR(64),
+    storage_tier VARCHAR(32),
+    instance_count BIGINT NOT NULL DEFAULT 0,
+    total_bytes BIGINT NOT NULL DEFAULT 0,
+    study_count BIGINT NOT NULL DEFAULT 0,
+    series_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
@@ -0,0 +1,13 @@
+-- Checksum recorded at ingest (dicom.storage.checksum-on-ingest) for the integrity scrubber
+ALTER TABLE stored_instances ADD COLUMN content_sha256 VARCHAR(64);
+
+-- Open problems found by the scrubber, one per instance; cleared when the instance verifies again
+CREATE TABLE scrub_findings (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sop_instance_uid VARCHAR(255) NOT NULL UNIQUE,
+    file_path VARCHAR(1024) NOT NULL,
+    problem VARCHAR(32) NOT NULL,
+    detail VARCHAR(1024),
+    first_detected_at TIMESTAMP NOT NULL,
+    last_detected_at TIMESTAMP NOT NULL
+);
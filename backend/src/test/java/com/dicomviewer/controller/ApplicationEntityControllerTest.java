@@ -250,11 +250,17 @@ class ApplicationEntityControllerTest {
 
     @Test
     void testTestAllConnections() throws Exception {
-        doNothing().when(aeService).testAllConnections();
+        EchoResultDTO echoResult = new EchoResultDTO(
+                1L, "TEST_PACS", "pacs.example.com", 11112,
+                ConnectionStatus.TIMEOUT, false, 30000L, "No response within 30000ms"
+        );
+        when(aeService.testAllConnections()).thenReturn(List.of(echoResult));
 
         mockMvc.perform(post("/api/ae/test-all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Connection tests initiated"));
+                .andExpect(jsonPath("$.message").value("Connection tests completed"))
+                .andExpect(jsonPath("$.results[0].aeTitle").value("TEST_PACS"))
+                .andExpect(jsonPath("$.results[0].status").value("TIMEOUT"));
 
         verify(aeService, times(1)).testAllConnections();
     }
@@ -0,0 +1,96 @@
+package com.dicomviewer.controller;
+
+import com.dicomviewer.dicom.web.DicomWebService;
+import com.dicomviewer.exception.DicomNetworkException;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.service.PacsService;
+import com.dicomviewer.service.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for WadoController.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "testuser", roles = {"USER"})
+class WadoControllerTest {
+
+    private static final String INSTANCE_URL = "/api/wado/studies/1.2.3/series/1.2.3.4/instances/1.2.3.4.5";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PacsService pacsService;
+
+    @MockBean
+    private DicomWebService dicomWebService;
+
+    @MockBean
+    private StorageService storageService;
+
+    private PacsConfiguration pacs;
+
+    @BeforeEach
+    void setUp() {
+        pacs = new PacsConfiguration();
+        pacs.setId(UUID.randomUUID());
+        pacs.setAeTitle("TEST_PACS");
+        pacs.setHost("pacs.example.com");
+        pacs.setPort(11112);
+        pacs.setPacsType(PacsConfiguration.PacsType.DICOMWEB);
+        pacs.setIsActive(true);
+        when(pacsService.getFirstActivePacs()).thenReturn(pacs);
+    }
+
+    @Test
+    void testServesLocalCopyWithoutContactingThePacs() throws Exception {
+        when(storageService.hasInstance("1.2.3.4.5")).thenReturn(true);
+        when(storageService.readInstance("1.2.3.4.5")).thenReturn(new byte[] {1, 2, 3});
+
+        mockMvc.perform(get(INSTANCE_URL))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2, 3}));
+
+        verify(storageService).readInstance("1.2.3.4.5");
+        verifyNoInteractions(dicomWebService);
+    }
+
+    @Test
+    void testRetrievesFromPacsWhenNotStoredLocally() throws Exception {
+        when(storageService.hasInstance("1.2.3.4.5")).thenReturn(false);
+        when(dicomWebService.retrieveInstance(any(), any(), any(), any())).thenReturn(new byte[] {4, 5});
+
+        mockMvc.perform(get(INSTANCE_URL))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {4, 5}));
+
+        verify(storageService, never()).readInstance(any());
+    }
+
+    @Test
+    void testOpenCircuitBreakerFailsFastWithoutContactingThePacs() throws Exception {
+        when(storageService.hasInstance("1.2.3.4.5")).thenReturn(false);
+        doThrow(new DicomNetworkException("WADO-RS", "TEST_PACS", "PACS is unavailable (failing health checks)"))
+                .when(pacsService).ensureAvailable(pacs, "WADO-RS");
+
+        mockMvc.perform(get(INSTANCE_URL))
+                .andExpect(status().isServiceUnavailable());
+
+        verifyNoInteractions(dicomWebService);
+    }
+}
@@ -0,0 +1,73 @@
+package com.dicomviewer.dicom.health;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacsCircuitBreakerRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PacsCircuitBreakerRegistry registry;
+    private PacsConfiguration pacs;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new PacsCircuitBreakerRegistry(new DicomMetrics(meterRegistry));
+
+        pacs = new PacsConfiguration();
+        pacs.setAeTitle("TEST_PACS");
+        pacs.setHost("pacs.example.com");
+        pacs.setPort(11112);
+        key = PacsCircuitBreakerRegistry.key(pacs);
+    }
+
+    @Test
+    void testKey() {
+        assertEquals("TEST_PACS@pacs.example.com:11112", key);
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        registry.recordFailure(key, "refused");
+        registry.recordFailure(key, "refused");
+        assertFalse(registry.isOpen(pacs));
+
+        registry.recordFailure(key, "refused");
+        assertTrue(registry.isOpen(pacs));
+        assertEquals(1.0, meterRegistry.get("dicom.health.circuit.open").tag("pacs", key).gauge().value());
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() {
+        registry.recordFailure(key, "refused");
+        registry.recordFailure(key, "refused");
+        registry.recordSuccess(key);
+        registry.recordFailure(key, "refused");
+
+        assertFalse(registry.isOpen(pacs));
+        assertEquals(1, registry.getStates().get(key).consecutiveFailures());
+    }
+
+    @Test
+    void testSuccessClosesOpenCircuit() {
+        for (int i = 0; i < 3; i++) {
+            registry.recordFailure(key, "timeout");
+        }
+        assertTrue(registry.isOpen(pacs));
+
+        registry.recordSuccess(key);
+
+        assertFalse(registry.isOpen(pacs));
+    }
+
+    @Test
+    void testUnknownPacsIsClosed() {
+        assertFalse(registry.isOpen(pacs));
+    }
+}
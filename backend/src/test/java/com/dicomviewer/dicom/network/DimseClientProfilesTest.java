@@ -0,0 +1,121 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.entity.ApplicationEntity;
+import com.dicomviewer.repository.ApplicationEntityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcm4che3.net.Connection;
+import org.dcm4che3.net.Device;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DimseClientProfilesTest {
+
+    @Mock
+    private ApplicationEntityRepository aeRepository;
+
+    private Device device;
+    private SimpleMeterRegistry meterRegistry;
+    private DimseClientProfiles profiles;
+    private PacsConfiguration pacs;
+
+    @BeforeEach
+    void setUp() {
+        device = new Device("test");
+        Connection conn = new Connection();
+        conn.setHostname("0.0.0.0");
+        device.addConnection(conn);
+        org.dcm4che3.net.ApplicationEntity localAe = new org.dcm4che3.net.ApplicationEntity("VIEWER");
+        localAe.addConnection(conn);
+        device.addApplicationEntity(localAe);
+
+        meterRegistry = new SimpleMeterRegistry();
+        profiles = new DimseClientProfiles(device, localAe, aeRepository, new DicomMetrics(meterRegistry));
+
+        pacs = new PacsConfiguration();
+        pacs.setAeTitle("TEST_PACS");
+        pacs.setHost("pacs.example.com");
+        pacs.setPort(11112);
+    }
+
+    @Test
+    void testResolveAppliesAeSettings() {
+        ApplicationEntity ae = new ApplicationEntity();
+        ae.setAeTitle("TEST_PACS");
+        ae.setConnectionTimeout(5000);
+        ae.setResponseTimeout(20000);
+        ae.setMaxAssociations(2);
+        when(aeRepository.findByAeTitle("TEST_PACS")).thenReturn(Optional.of(ae));
+
+        DimseClientProfile profile = profiles.resolve(pacs);
+
+        assertEquals(5000, profile.getConnection().getConnectTimeout());
+        assertEquals(20000, profile.getConnection().getResponseTimeout());
+        assertEquals(20000, profile.getConnection().getRetrieveTimeout());
+        assertEquals(10000, profile.getConnection().getRequestTimeout());
+        assertEquals(60000, profile.getConnection().getIdleTimeout());
+        assertEquals(2, profile.getPermits().availablePermits());
+        assertTrue(profile.getPermits().isFair());
+        assertTrue(device.listConnections().contains(profile.getConnection()));
+    }
+
+    @Test
+    void testResolveFallsBackToDefaults() {
+        when(aeRepository.findByAeTitle("TEST_PACS")).thenReturn(Optional.empty());
+
+        DimseClientProfile profile = profiles.resolve(pacs);
+
+        assertEquals(30000, profile.getConnection().getConnectTimeout());
+        assertEquals(60000, profile.getConnection().getResponseTimeout());
+        assertEquals(10, profile.getMaxAssociations());
+        assertEquals(20000, profile.getQueueTimeout());
+    }
+
+    @Test
+    void testResolveCachesProfile() {
+        when(aeRepository.findByAeTitle("TEST_PACS")).thenReturn(Optional.empty());
+
+        DimseClientProfile first = profiles.resolve(pacs);
+        DimseClientProfile second = profiles.resolve(pacs);
+
+        assertSame(first, second);
+        verify(aeRepository, times(1)).findByAeTitle("TEST_PACS");
+    }
+
+    @Test
+    void testQueueGauges() throws Exception {
+        when(aeRepository.findByAeTitle("TEST_PACS")).thenReturn(Optional.empty());
+
+        DimseClientProfile profile = profiles.resolve(pacs);
+        profile.getPermits().acquire(3);
+
+        assertEquals(3.0, meterRegistry.get("dicom.association.active").tag("pacs", "TEST_PACS").gauge().value());
+        assertEquals(0.0, meterRegistry.get("dicom.association.queued").tag("pacs", "TEST_PACS").gauge().value());
+    }
+
+    @Test
+    void testGaugesPerPacsSharingAnAeTitle() throws Exception {
+        when(aeRepository.findByAeTitle("TEST_PACS")).thenReturn(Optional.empty());
+        PacsConfiguration other = new PacsConfiguration();
+        other.setAeTitle("TEST_PACS");
+        other.setHost("other.example.com");
+        other.setPort(104);
+
+        profiles.resolve(pacs).getPermits().acquire(1);
+        profiles.resolve(other).getPermits().acquire(2);
+
+        assertEquals(1.0, meterRegistry.get("dicom.association.active").tag("host", "pacs.example.com").gauge().value());
+        assertEquals(2.0, meterRegistry.get("dicom.association.active").tag("host", "other.example.com")
+            .tag("port", "104").gauge().value());
+    }
+}
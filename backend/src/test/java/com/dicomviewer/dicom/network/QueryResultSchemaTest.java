@@ -0,0 +1,78 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QueryResultSchema.
+ */
+class QueryResultSchemaTest {
+
+    @Test
+    void testStudyRowContainsPresentValuesOnly() {
+        Attributes attrs = new Attributes();
+        attrs.setString(Tag.StudyInstanceUID, VR.UI, "1.2.3");
+        attrs.setString(Tag.PatientID, VR.LO, "PAT001");
+        attrs.setString(Tag.PatientName, VR.PN, "");
+        attrs.setString(Tag.NumberOfStudyRelatedInstances, VR.IS, "42");
+
+        Map<String, Object> row = QueryResultSchema.STUDY.toRow(attrs);
+
+        assertEquals(3, row.size());
+        assertEquals("1.2.3", row.get("StudyInstanceUID"));
+        assertEquals("PAT001", row.get("PatientID"));
+        assertEquals("42", row.get("NumberOfStudyRelatedInstances"));
+        assertFalse(row.containsKey("PatientName"));
+        assertNull(row.get("SeriesInstanceUID"));
+    }
+
+    @Test
+    void testSeriesRowIgnoresTagsOutsideItsLevel() {
+        Attributes attrs = new Attributes();
+        attrs.setString(Tag.StudyInstanceUID, VR.UI, "1.2.3");
+        attrs.setString(Tag.SeriesInstanceUID, VR.UI, "1.2.3.4");
+        attrs.setString(Tag.Modality, VR.CS, "CT");
+        attrs.setString(Tag.PatientID, VR.LO, "PAT001");
+
+        Map<String, Object> row = QueryResultSchema.SERIES.toRow(attrs);
+
+        assertEquals(Map.of(
+            "StudyInstanceUID", "1.2.3",
+            "SeriesInstanceUID", "1.2.3.4",
+            "Modality", "CT"), new HashMap<>(row));
+    }
+
+    @Test
+    void testImageRowsPreserveOrder() {
+        Attributes first = new Attributes();
+        first.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4.1");
+        first.setString(Tag.InstanceNumber, VR.IS, "1");
+        Attributes second = new Attributes();
+        second.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4.2");
+        second.setString(Tag.InstanceNumber, VR.IS, "2");
+
+        List<Map<String, Object>> rows = QueryResultSchema.IMAGE.toRows(List.of(first, second));
+
+        assertEquals(2, rows.size());
+        assertEquals("1.2.3.4.1", rows.get(0).get("SOPInstanceUID"));
+        assertEquals("2", rows.get(1).get("InstanceNumber"));
+    }
+
+    @Test
+    void testRowIsReadOnly() {
+        Attributes attrs = new Attributes();
+        attrs.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4.1");
+
+        Map<String, Object> row = QueryResultSchema.IMAGE.toRow(attrs);
+
+        assertThrows(UnsupportedOperationException.class, () -> row.put("Modality", "CT"));
+    }
+}
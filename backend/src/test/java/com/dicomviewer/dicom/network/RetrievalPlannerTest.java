@@ -0,0 +1,252 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.net.Connection;
+import org.dcm4che3.net.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetrievalPlannerTest {
+
+    private static final String STUDY_UID = "1.2.840.1";
+
+    @Mock
+    private CFindService cFindService;
+
+    @Mock
+    private CMoveService cMoveService;
+
+    @Mock
+    private CGetService cGetService;
+
+    @Mock
+    private DimseClientProfiles profiles;
+
+    private ExecutorService executor;
+    private RetrievalPlanner planner;
+    private PacsConfiguration pacs;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        planner = new RetrievalPlanner(cFindService, cMoveService, cGetService, profiles, executor);
+
+        pacs = new PacsConfiguration();
+        pacs.setAeTitle("TEST_PACS");
+        pacs.setHost("pacs.example.com");
+        pacs.setPort(11112);
+        pacs.setPacsType(PacsConfiguration.PacsType.LEGACY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSeriesRetrievedInParallelWithinAssociationLimit() {
+        when(profiles.resolve(pacs)).thenReturn(profile(2));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(
+            series("1.1", 100), series("1.2", 100), series("1.3", 100), series("1.4", 100)));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(cMoveService.move(eq(pacs), any(), isNull(), anyInt(), any())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return moveResult(true, 100);
+        });
+
+        RetrievalProgress progress = planner.retrieveStudy(pacs, STUDY_UID, null);
+
+        verify(cMoveService, times(4)).move(eq(pacs), any(), isNull(), eq(Priority.NORMAL), any());
+        assertEquals(2, maxInFlight.get());
+        assertEquals(RetrievalProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(400, progress.getTotal());
+        assertEquals(400, progress.getCompleted());
+        assertSame(progress, planner.getProgress(STUDY_UID));
+    }
+
+    @Test
+    void testUsesCGetWhenConfigured() {
+        pacs.setRetrieveMethod(PacsConfiguration.RetrieveMethod.C_GET);
+        when(profiles.resolve(pacs)).thenReturn(profile(4));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(series("1.1", 10), series("1.2", 10)));
+        when(cGetService.get(eq(pacs), any(), anyInt(), any())).thenReturn(moveResult(true, 10));
+
+        RetrievalProgress progress = planner.retrieveStudy(pacs, STUDY_UID, null);
+
+        assertEquals(20, progress.getCompleted());
+        verifyNoInteractions(cMoveService);
+    }
+
+    @Test
+    void testFallsBackToStudyLevelWhenSeriesQueryFails() {
+        when(profiles.resolve(pacs)).thenReturn(profile(4));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenThrow(new RuntimeException("C-FIND operation failed"));
+        when(cMoveService.move(eq(pacs), any(), eq("VIEWER"), anyInt(), any())).thenReturn(moveResult(true, 50));
+
+        RetrievalProgress progress = planner.retrieveStudy(pacs, STUDY_UID, "VIEWER");
+
+        verify(cMoveService).move(eq(pacs), argThat(keys ->
+            "STUDY".equals(keys.getString(Tag.QueryRetrieveLevel))), eq("VIEWER"), anyInt(), any());
+        assertEquals(RetrievalProgress.Status.COMPLETED, progress.getStatus());
+    }
+
+    @Test
+    void testLargeSeriesSplitIntoInstanceBatches() {
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(series("1.1", 2500)));
+        List<Attributes> instances = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            Attributes instance = new Attributes();
+            instance.setString(Tag.SOPInstanceUID, VR.UI, "1.1.1." + i);
+            instances.add(instance);
+        }
+        when(cFindService.findInstances(pacs, STUDY_UID, "1.1")).thenReturn(instances);
+
+        List<RetrievalPlanner.Request> requests = planner.plan(pacs, STUDY_UID);
+
+        assertEquals(3, requests.size());
+        assertEquals("IMAGE", requests.get(0).keys().getString(Tag.QueryRetrieveLevel));
+        assertEquals(1000, requests.get(0).keys().getStrings(Tag.SOPInstanceUID).length);
+        assertEquals(500, requests.get(2).expected());
+    }
+
+    @Test
+    void testPartialFailureReportedAsCompletedWithErrors() {
+        when(profiles.resolve(pacs)).thenReturn(profile(2));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(series("1.1", 10), series("1.2", 10)));
+        CMoveService.MoveResult failed = moveResult(false, 0);
+        failed.setFailedSuboperations(10);
+        failed.setErrorMessage("C-MOVE failed with status: 0xa702");
+        when(cMoveService.move(eq(pacs), any(), isNull(), anyInt(), any()))
+            .thenReturn(moveResult(true, 10))
+            .thenReturn(failed);
+
+        RetrievalProgress progress = planner.retrieveStudy(pacs, STUDY_UID, null);
+
+        assertEquals(RetrievalProgress.Status.COMPLETED_WITH_ERRORS, progress.getStatus());
+        assertEquals(10, progress.getCompleted());
+        assertEquals(10, progress.getFailed());
+        assertEquals("C-MOVE failed with status: 0xa702", progress.getErrorMessage());
+        assertFalse(RetrievalPlanner.toMoveResult(progress).isSuccess());
+    }
+
+    @Test
+    void testBackgroundRetrievalUsesHalfTheAssociations() {
+        when(profiles.resolve(pacs)).thenReturn(profile(4));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(
+            series("1.1", 10), series("1.2", 10), series("1.3", 10), series("1.4", 10)));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(cMoveService.move(eq(pacs), any(), isNull(), eq(Priority.LOW), any())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return moveResult(true, 10);
+        });
+
+        planner.retrieveStudy(pacs, STUDY_UID, null, () -> RetrievalPriority.LOW, planner.track(STUDY_UID));
+
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testPromotionWidensARunningRetrieval() {
+        when(profiles.resolve(pacs)).thenReturn(profile(4));
+        when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(series("1.1", 10), series("1.2", 10),
+            series("1.3", 10), series("1.4", 10), series("1.5", 10), series("1.6", 10)));
+
+        AtomicReference<RetrievalPriority> priority = new AtomicReference<>(RetrievalPriority.LOW);
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(cMoveService.move(eq(pacs), any(), isNull(), anyInt(), any())).thenAnswer(inv -> {
+            sent.add(inv.getArgument(3));
+            // The user opens the study while the first request is in flight
+            priority.set(RetrievalPriority.HIGH);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return moveResult(true, 10);
+        });
+
+        planner.retrieveStudy(pacs, STUDY_UID, null, priority::get, planner.track(STUDY_UID));
+
+        assertEquals(Priority.LOW, sent.get(0));
+        assertEquals(Priority.HIGH, sent.get(sent.size() - 1));
+        assertEquals(4, maxInFlight.get());
+    }
+
+    @Test
+    void testWaitingPartsDoNotStarveAFixedPool() {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            planner = new RetrievalPlanner(cFindService, cMoveService, cGetService, profiles, pool);
+            when(profiles.resolve(pacs)).thenReturn(profile(2));
+            when(cFindService.findSeries(pacs, STUDY_UID)).thenReturn(List.of(
+                series("1.1", 10), series("1.2", 10), series("1.3", 10), series("1.4", 10), series("1.5", 10)));
+            // Each move needs another task on the same pool, as association readers and C-STORE handling do
+            when(cMoveService.move(eq(pacs), any(), isNull(), anyInt(), any())).thenAnswer(inv -> {
+                CompletableFuture.runAsync(() -> { }, pool).get(5, TimeUnit.SECONDS);
+                return moveResult(true, 10);
+            });
+
+            RetrievalProgress progress = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> planner.retrieveStudy(pacs, STUDY_UID, null));
+
+            assertEquals(RetrievalProgress.Status.COMPLETED, progress.getStatus());
+            assertEquals(50, progress.getCompleted());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static DimseClientProfile profile(int maxAssociations) {
+        DimseClientProfile profile = new DimseClientProfile("TEST_PACS@pacs.example.com:11112", new Connection());
+        profile.apply(1000, 1000, 1000, 1000, maxAssociations, 1000);
+        return profile;
+    }
+
+    private static Attributes series(String uid, int instances) {
+        Attributes attrs = new Attributes();
+        attrs.setString(Tag.SeriesInstanceUID, VR.UI, uid);
+        attrs.setInt(Tag.NumberOfSeriesRelatedInstances, VR.IS, instances);
+        return attrs;
+    }
+
+    private static CMoveService.MoveResult moveResult(boolean success, int completed) {
+        CMoveService.MoveResult result = new CMoveService.MoveResult();
+        result.setSuccess(success);
+        result.setCompletedSuboperations(completed);
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package com.dicomviewer.dicom.network;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetrievalSchedulerTest {
+
+    @Mock
+    private RetrievalPlanner planner;
+
+    private ExecutorService executor;
+    private RetrievalScheduler scheduler;
+    private PacsConfiguration pacs;
+    private CountDownLatch release;
+    private List<String> started;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        scheduler = new RetrievalScheduler(planner, new DicomMetrics(new SimpleMeterRegistry()), executor);
+        release = new CountDownLatch(1);
+        started = new CopyOnWriteArrayList<>();
+
+        pacs = new PacsConfiguration();
+        pacs.setAeTitle("TEST_PACS");
+        pacs.setHost("pacs.example.com");
+        pacs.setPort(11112);
+
+        when(planner.track(anyString())).thenAnswer(inv -> new RetrievalProgress(inv.getArgument(0)));
+        when(planner.retrieveStudy(eq(pacs), anyString(), any(), any(), any())).thenAnswer(inv -> {
+            started.add(inv.getArgument(1));
+            release.await(5, TimeUnit.SECONDS);
+            RetrievalProgress progress = inv.getArgument(4);
+            progress.setStatus(RetrievalProgress.Status.COMPLETED);
+            return progress;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testBackgroundWorkLeavesSlotForInteractive() {
+        scheduler.submit(pacs, "A", null, RetrievalPriority.LOW);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), any(), any(), any());
+
+        scheduler.submit(pacs, "B", null, RetrievalPriority.LOW);
+        scheduler.submit(pacs, "C", null, RetrievalPriority.HIGH);
+
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("C"), any(), priority(RetrievalPriority.HIGH), any());
+        verify(planner, never()).retrieveStudy(eq(pacs), eq("B"), any(), any(), any());
+    }
+
+    @Test
+    void testOpeningQueuedStudyPromotesIt() {
+        scheduler.submit(pacs, "A", null, RetrievalPriority.LOW);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), any(), any(), any());
+        CompletableFuture<RetrievalProgress> prefetch = scheduler.submit(pacs, "B", null, RetrievalPriority.LOW);
+
+        CompletableFuture<RetrievalProgress> opened = scheduler.submit(pacs, "B", null, RetrievalPriority.HIGH);
+
+        assertSame(prefetch, opened);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("B"), any(), priority(RetrievalPriority.HIGH), any());
+        verify(planner, times(2)).track(anyString());
+    }
+
+    @Test
+    void testPromotedJobRunsBeforeOlderJobsOfItsClass() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "jobsPerPacs", 1);
+        CompletableFuture<RetrievalProgress> a = scheduler.submit(pacs, "A", null, RetrievalPriority.HIGH);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), any(), any(), any());
+        CompletableFuture<RetrievalProgress> b = scheduler.submit(pacs, "B", null, RetrievalPriority.HIGH);
+        scheduler.submit(pacs, "C", null, RetrievalPriority.LOW);
+
+        CompletableFuture<RetrievalProgress> c = scheduler.submit(pacs, "C", null, RetrievalPriority.HIGH);
+        release.countDown();
+        CompletableFuture.allOf(a, b, c).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("A", "C", "B"), started);
+    }
+
+    @Test
+    void testOpeningRunningStudyPromotesIt() {
+        CompletableFuture<RetrievalProgress> prefetch = scheduler.submit(pacs, "A", null, RetrievalPriority.LOW);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), any(), any(), any());
+
+        CompletableFuture<RetrievalProgress> opened = scheduler.submit(pacs, "A", null, RetrievalPriority.HIGH);
+
+        assertSame(prefetch, opened);
+        // The running retrieval reads its priority through the supplier it was started with
+        verify(planner).retrieveStudy(eq(pacs), eq("A"), any(), priority(RetrievalPriority.HIGH), any());
+    }
+
+    @Test
+    void testSameStudyForAnotherDestinationIsSeparateJob() {
+        CompletableFuture<RetrievalProgress> toUs = scheduler.submit(pacs, "A", null, RetrievalPriority.HIGH);
+        CompletableFuture<RetrievalProgress> toWorkstation = scheduler.submit(pacs, "A", "WORKSTATION",
+            RetrievalPriority.HIGH);
+
+        assertNotSame(toUs, toWorkstation);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), isNull(), any(), any());
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), eq("WORKSTATION"), any(), any());
+    }
+
+    @Test
+    void testAgedJobStartsWithoutFurtherActivity() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "agingMs", 200L);
+        scheduler.submit(pacs, "A", null, RetrievalPriority.LOW);
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("A"), any(), any(), any());
+        scheduler.submit(pacs, "B", null, RetrievalPriority.LOW);
+        verify(planner, never()).retrieveStudy(eq(pacs), eq("B"), any(), any(), any());
+
+        Thread.sleep(250);
+        scheduler.dispatchAll();
+
+        verify(planner, timeout(1000)).retrieveStudy(eq(pacs), eq("B"), any(), any(), any());
+    }
+
+    private static Supplier<RetrievalPriority> priority(RetrievalPriority expected) {
+        return argThat(supplier -> supplier.get() == expected);
+    }
+
+    @Test
+    void testQueuedJobsRunWhenSlotsFree() throws Exception {
+        CompletableFuture<RetrievalProgress> a = scheduler.submit(pacs, "A", null, RetrievalPriority.LOW);
+        CompletableFuture<RetrievalProgress> b = scheduler.submit(pacs, "B", null, RetrievalPriority.LOW);
+
+        release.countDown();
+
+        assertEquals(RetrievalProgress.Status.COMPLETED, a.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(RetrievalProgress.Status.COMPLETED, b.get(5, TimeUnit.SECONDS).getStatus());
+    }
+}
@@ -0,0 +1,84 @@
+package com.dicomviewer.dicom.network;
+
+import org.dcm4che3.data.UID;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferSyntaxPolicyTest {
+
+    @Test
+    void testStorageResolvesKeywordsAndAppendsFallback() {
+        TransferSyntaxPolicy policy = new TransferSyntaxPolicy(
+            new String[] {"JPEGLSLossless", " 1.2.840.10008.1.2.5 ", "ExplicitVRLittleEndian"}, false);
+
+        assertArrayEquals(new String[] {
+            UID.JPEGLSLossless,
+            UID.RLELossless,
+            UID.ExplicitVRLittleEndian,
+            UID.ImplicitVRLittleEndian
+        }, policy.storage());
+    }
+
+    @Test
+    void testQueryProposesDeflateOnlyWhenEnabled() {
+        assertArrayEquals(new String[] {UID.ExplicitVRLittleEndian, UID.ImplicitVRLittleEndian},
+            new TransferSyntaxPolicy(new String[0], false).query());
+        assertEquals(UID.DeflatedExplicitVRLittleEndian,
+            new TransferSyntaxPolicy(new String[0], true).query()[0]);
+    }
+
+    @Test
+    void testStorageContextsPerSyntaxWhenTheyFit() {
+        TransferSyntaxPolicy policy = new TransferSyntaxPolicy(new String[] {"JPEGLSLossless", "RLELossless"}, false);
+        AAssociateRQ rq = new AAssociateRQ();
+        rq.addPresentationContext(new PresentationContext(1, UID.StudyRootQueryRetrieveInformationModelGet,
+            policy.control()));
+
+        policy.addStoragePresentationContexts(rq, 3);
+
+        assertEquals(1 + StorageSopClasses.IMAGES.size() * 3 + StorageSopClasses.DOCUMENTS.size(),
+            rq.getNumberOfPresentationContexts());
+        PresentationContext pc = rq.getPresentationContext(3);
+        assertEquals(StorageSopClasses.IMAGES.get(0), pc.getAbstractSyntax());
+        assertArrayEquals(new String[] {UID.JPEGLSLossless}, pc.getTransferSyntaxes());
+        assertArrayEquals(policy.control(), rq.getPresentationContext(7).getTransferSyntaxes());
+        PresentationContext document = rq.getPresentationContext(3 + StorageSopClasses.IMAGES.size() * 3 * 2);
+        assertEquals(StorageSopClasses.DOCUMENTS.get(0), document.getAbstractSyntax());
+        assertArrayEquals(policy.documents(), document.getTransferSyntaxes());
+    }
+
+    @Test
+    void testDefaultSyntaxesGetContextsOfTheirOwn() {
+        TransferSyntaxPolicy policy = new TransferSyntaxPolicy(TransferSyntaxPolicy.DEFAULT_STORAGE.split(","), false);
+        AAssociateRQ rq = new AAssociateRQ();
+        rq.addPresentationContext(new PresentationContext(1, UID.StudyRootQueryRetrieveInformationModelGet,
+            policy.control()));
+
+        policy.addStoragePresentationContexts(rq, 3);
+
+        int compressed = policy.storage().length - 2;
+        assertEquals(1 + StorageSopClasses.IMAGES.size() * (compressed + 1) + StorageSopClasses.DOCUMENTS.size(),
+            rq.getNumberOfPresentationContexts());
+        assertTrue(rq.getNumberOfPresentationContexts() <= 128);
+        assertEquals(1, rq.getPresentationContext(3).getTransferSyntaxes().length);
+    }
+
+    @Test
+    void testStorageContextsCollapsedWhenOverLimit() {
+        String[] many = new String[20];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = "1.2.3.4." + i;
+        }
+        TransferSyntaxPolicy policy = new TransferSyntaxPolicy(many, false);
+        AAssociateRQ rq = new AAssociateRQ();
+
+        policy.addStoragePresentationContexts(rq, 1);
+
+        assertEquals(StorageSopClasses.SOP_CLASSES.size(), rq.getNumberOfPresentationContexts());
+        assertTrue(rq.getNumberOfPresentationContexts() <= 128);
+        assertEquals(22, rq.getPresentationContext(1).getTransferSyntaxes().length);
+    }
+}
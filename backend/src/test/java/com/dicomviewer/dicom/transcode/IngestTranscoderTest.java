@@ -0,0 +1,98 @@
+package com.dicomviewer.dicom.transcode;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.service.InstanceStoredEvent;
+import com.dicomviewer.service.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcm4che3.data.UID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestTranscoderTest {
+
+    @Mock
+    private TranscodePolicy policy;
+
+    @Mock
+    private StorageService storageService;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry registry;
+    private IngestTranscoder transcoder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        transcoder = new IngestTranscoder(policy, storageService, new DicomMetrics(registry), executor);
+    }
+
+    @Test
+    void testInstanceKeptWhenPolicyHasNoTarget() {
+        InstanceStoredEvent event = new InstanceStoredEvent("1.2.3", "US", UID.JPEGBaseline8Bit,
+            "/tmp/x.dcm", 1000, 1);
+        when(policy.targetFor("US", UID.JPEGBaseline8Bit, 1)).thenReturn(null);
+
+        transcoder.onInstanceStored(event);
+
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void testTranscodeQueuedOnTranscodePool() {
+        InstanceStoredEvent event = new InstanceStoredEvent("1.2.3", "CT", UID.ExplicitVRLittleEndian,
+            "/tmp/x.dcm", 1000, 1);
+        when(policy.targetFor("CT", UID.ExplicitVRLittleEndian, 1)).thenReturn(UID.JPEGLSLossless);
+
+        transcoder.onInstanceStored(event);
+
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testFullQueueKeepsInstanceAsReceived() {
+        InstanceStoredEvent event = new InstanceStoredEvent("1.2.3", "CT", UID.ExplicitVRLittleEndian,
+            "/tmp/x.dcm", 1000, 1);
+        when(policy.targetFor("CT", UID.ExplicitVRLittleEndian, 1)).thenReturn(UID.JPEGLSLossless);
+        doThrow(new RejectedExecutionException()).when(executor).execute(any(Runnable.class));
+
+        transcoder.onInstanceStored(event);
+
+        assertEquals(1, registry.get("dicom.transcode").tag("result", IngestTranscoder.DROPPED).timer().count());
+        verifyNoInteractions(storageService);
+    }
+
+    @Test
+    void testUnreadableSourceLeavesIndexUntouched() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("broken.dcm"), "not dicom");
+        InstanceStoredEvent event = new InstanceStoredEvent("1.2.3", "CT", UID.ExplicitVRLittleEndian,
+            file.toString(), Files.size(file), 1);
+
+        transcoder.transcode(event, UID.JPEGLSLossless);
+
+        verify(storageService, never()).updateEncoding(anyString(), anyString(), anyLong());
+        assertEquals("not dicom", Files.readString(file));
+        assertFalse(Files.exists(tempDir.resolve("broken.dcm.transcode")));
+        assertEquals(1, registry.get("dicom.transcode").tag("result", DicomMetrics.FAILURE).timer().count());
+    }
+}
@@ -0,0 +1,39 @@
+package com.dicomviewer.dicom.transcode;
+
+import org.dcm4che3.data.UID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscodePolicyTest {
+
+    private final TranscodePolicy policy = new TranscodePolicy(true, "JPEGLSLossless",
+        new String[] {"US:none", "ct:" + UID.JPEGLSLossless, "XA:"});
+
+    @Test
+    void testUncompressedImageUsesModalityOrDefault() {
+        assertEquals(UID.JPEGLSLossless, policy.targetFor("CT", UID.ExplicitVRLittleEndian, 1));
+        assertEquals(UID.JPEGLSLossless, policy.targetFor("MR", UID.ImplicitVRLittleEndian, 1));
+        assertEquals(UID.JPEGLSLossless, policy.targetFor(null, UID.ImplicitVRLittleEndian, 1));
+    }
+
+    @Test
+    void testModalityCanOptOut() {
+        assertNull(policy.targetFor("US", UID.ExplicitVRLittleEndian, 30));
+        assertNull(policy.targetFor("XA", UID.ExplicitVRLittleEndian, 30));
+    }
+
+    @Test
+    void testCompressedOrNonImageKeptAsReceived() {
+        assertNull(policy.targetFor("CT", UID.JPEGBaseline8Bit, 1));
+        assertNull(policy.targetFor("CT", UID.JPEGLSLossless, 1));
+        assertNull(policy.targetFor("SR", UID.ExplicitVRLittleEndian, 0));
+    }
+
+    @Test
+    void testDisabled() {
+        TranscodePolicy disabled = new TranscodePolicy(false, "JPEGLSLossless", new String[0]);
+
+        assertNull(disabled.targetFor("CT", UID.ExplicitVRLittleEndian, 1));
+    }
+}
@@ -0,0 +1,148 @@
+package com.dicomviewer.dicom.transcode;
+
+import com.dicomviewer.dicom.web.InstanceRequestCoalescer;
+import com.dicomviewer.metrics.DicomMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WadoTranscoderTest {
+
+    @Mock
+    private ExecutorService executor;
+
+    private SimpleMeterRegistry registry;
+    private WadoTranscoder transcoder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        transcoder = new WadoTranscoder(executor, new InstanceRequestCoalescer(),
+            new DicomMetrics(registry), 1024, 1000);
+    }
+
+    @Test
+    void testNegotiateWithoutTransferSyntaxPassesThrough() {
+        assertNull(transcoder.negotiate(null));
+        assertNull(transcoder.negotiate("application/dicom"));
+        assertNull(transcoder.negotiate("*/*"));
+    }
+
+    @Test
+    void testNegotiateAnyAndExplicitSyntax() {
+        assertEquals(WadoTranscoder.ANY, transcoder.negotiate("application/dicom; transfer-syntax=*"));
+        assertEquals(UID.ExplicitVRLittleEndian,
+            transcoder.negotiate("application/dicom; transfer-syntax=" + UID.ExplicitVRLittleEndian));
+    }
+
+    @Test
+    void testNegotiateHonoursQuality() {
+        String accept = "application/dicom; transfer-syntax=" + UID.ImplicitVRLittleEndian + "; q=0.5, "
+            + "application/dicom; transfer-syntax=" + UID.ExplicitVRLittleEndian + "; q=0.9";
+
+        assertEquals(UID.ExplicitVRLittleEndian, transcoder.negotiate(accept));
+    }
+
+    @Test
+    void testNegotiateRejectsUnknownSyntax() {
+        assertThrows(WadoTranscoder.NotAcceptableTransferSyntaxException.class,
+            () -> transcoder.negotiate("application/dicom; transfer-syntax=1.2.3.4.5"));
+    }
+
+    @Test
+    void testSameSyntaxReturnedWithoutTranscoding() throws IOException {
+        byte[] dicom = part10(UID.ExplicitVRLittleEndian);
+
+        WadoTranscoder.Result result = transcoder.transcode("pacs-a", "1.2.3", () -> dicom, UID.ExplicitVRLittleEndian);
+
+        assertSame(dicom, result.data());
+        assertEquals(UID.ExplicitVRLittleEndian, result.transferSyntaxUid());
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTranscodedResultIsCached() throws IOException {
+        byte[] dicom = part10(UID.ExplicitVRLittleEndian);
+        byte[] encoded = {1, 2, 3};
+        when(executor.submit(any(Callable.class))).thenReturn(CompletableFuture.completedFuture(encoded));
+
+        AtomicInteger fetches = new AtomicInteger();
+        Supplier<byte[]> stored = () -> {
+            fetches.incrementAndGet();
+            return dicom;
+        };
+
+        WadoTranscoder.Result first = transcoder.transcode("pacs-a", "1.2.3", stored, UID.ImplicitVRLittleEndian);
+        WadoTranscoder.Result second = transcoder.transcode("pacs-a", "1.2.3", stored, UID.ImplicitVRLittleEndian);
+
+        assertSame(encoded, first.data());
+        assertSame(encoded, second.data());
+        assertEquals(UID.ImplicitVRLittleEndian, second.transferSyntaxUid());
+        assertEquals(3, transcoder.getCacheBytes());
+        verify(executor, times(1)).submit(any(Callable.class));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCacheIsKeptPerSource() throws IOException {
+        byte[] dicom = part10(UID.ExplicitVRLittleEndian);
+        byte[] fromA = {1};
+        byte[] fromB = {2, 2};
+        when(executor.submit(any(Callable.class)))
+            .thenReturn(CompletableFuture.completedFuture(fromA), CompletableFuture.completedFuture(fromB));
+
+        WadoTranscoder.Result a = transcoder.transcode("pacs-a", "1.2.3", () -> dicom, UID.ImplicitVRLittleEndian);
+        WadoTranscoder.Result b = transcoder.transcode("pacs-b", "1.2.3", () -> dicom, UID.ImplicitVRLittleEndian);
+
+        assertSame(fromA, a.data());
+        assertSame(fromB, b.data());
+        assertEquals(3, transcoder.getCacheBytes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSaturatedPoolIsRejected() throws IOException {
+        byte[] dicom = part10(UID.ExplicitVRLittleEndian);
+        when(executor.submit(any(Callable.class))).thenThrow(new RejectedExecutionException());
+
+        assertThrows(WadoTranscoder.TranscodeRejectedException.class,
+            () -> transcoder.transcode("pacs-a", "1.2.3", () -> dicom, UID.ImplicitVRLittleEndian));
+        assertEquals(0, transcoder.getCacheBytes());
+    }
+
+    private static byte[] part10(String transferSyntax) throws IOException {
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3");
+        dataset.setString(Tag.Modality, VR.CS, "CT");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DicomOutputStream out = new DicomOutputStream(bytes, UID.ExplicitVRLittleEndian)) {
+            out.writeDataset(dataset.createFileMetaInformation(transferSyntax), dataset);
+        }
+        return bytes.toByteArray();
+    }
+}
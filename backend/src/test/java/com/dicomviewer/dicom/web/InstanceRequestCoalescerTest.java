@@ -0,0 +1,103 @@
+package com.dicomviewer.dicom.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InstanceRequestCoalescer.
+ */
+class InstanceRequestCoalescerTest {
+
+    private InstanceRequestCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new InstanceRequestCoalescer();
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentFetchesShareOneTransfer() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] payload = {1, 2, 3};
+
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> coalescer.fetch("pacs-a", "1.2.3", "application/dicom", () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return payload;
+            })));
+        }
+
+        // Give every caller time to join the in-flight transfer before it completes
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertArrayEquals(payload, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testDifferentRepresentationsAreFetchedSeparately() {
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.fetch("pacs-a", "1.2.3", "application/dicom", () -> new byte[loads.incrementAndGet()]);
+        coalescer.fetch("pacs-a", "1.2.3", "image/jpeg", () -> new byte[loads.incrementAndGet()]);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testSameInstanceFromDifferentSourcesIsFetchedSeparately() {
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.fetch("pacs-a", "1.2.3", "application/dicom", () -> new byte[loads.incrementAndGet()]);
+        coalescer.fetch("pacs-b", "1.2.3", "application/dicom", () -> new byte[loads.incrementAndGet()]);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testFailureIsPropagatedAndNotCached() {
+        assertThrows(IllegalStateException.class, () ->
+            coalescer.fetch("pacs-a", "1.2.3", "application/dicom", () -> {
+                throw new IllegalStateException("upstream down");
+            }));
+
+        byte[] result = coalescer.fetch("pacs-a", "1.2.3", "application/dicom", () -> new byte[]{42});
+
+        assertArrayEquals(new byte[]{42}, result);
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
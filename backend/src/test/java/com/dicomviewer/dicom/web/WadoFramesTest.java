@@ -0,0 +1,81 @@
+package com.dicomviewer.dicom.web;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WadoFramesTest {
+
+    @Test
+    void testNativeFrameIsSlicedOut() throws IOException {
+        Attributes dataset = image(3);
+        byte[] pixels = new byte[2 * 2 * 2 * 3];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i / 8 + 1);
+        }
+        dataset.setBytes(Tag.PixelData, VR.OW, pixels);
+
+        WadoFrames.Frame frame = WadoFrames.extract(part10(dataset, UID.ExplicitVRLittleEndian), 2);
+
+        assertArrayEquals(new byte[] {2, 2, 2, 2, 2, 2, 2, 2}, frame.data());
+        assertEquals("application/octet-stream", frame.mediaType());
+        assertNull(frame.transferSyntaxUid());
+    }
+
+    @Test
+    void testEncapsulatedFrameIsItsFragment() throws IOException {
+        Attributes dataset = image(2);
+        Fragments fragments = dataset.newFragments(Tag.PixelData, VR.OB, 3);
+        fragments.add(new byte[0]);
+        fragments.add(new byte[] {1, 1});
+        fragments.add(new byte[] {2, 2, 2, 2});
+
+        WadoFrames.Frame frame = WadoFrames.extract(part10(dataset, UID.JPEGLSLossless), 2);
+
+        assertArrayEquals(new byte[] {2, 2, 2, 2}, frame.data());
+        assertEquals("image/jls", frame.mediaType());
+        assertEquals(UID.JPEGLSLossless, frame.transferSyntaxUid());
+        String body = new String(WadoFrames.multipart("b", frame), StandardCharsets.ISO_8859_1);
+        assertTrue(body.startsWith("--b\r\nContent-Type: image/jls; transfer-syntax=" + UID.JPEGLSLossless + "\r\n\r\n"));
+        assertTrue(body.endsWith("\r\n--b--\r\n"));
+    }
+
+    @Test
+    void testMissingFrameIsRejected() throws IOException {
+        Attributes dataset = image(1);
+        dataset.setBytes(Tag.PixelData, VR.OW, new byte[8]);
+        byte[] dicom = part10(dataset, UID.ExplicitVRLittleEndian);
+
+        assertThrows(WadoFrames.FrameNotFoundException.class, () -> WadoFrames.extract(dicom, 2));
+        assertThrows(WadoFrames.FrameNotFoundException.class, () -> WadoFrames.extract(dicom, 0));
+    }
+
+    private static Attributes image(int frames) {
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3");
+        dataset.setInt(Tag.Rows, VR.US, 2);
+        dataset.setInt(Tag.Columns, VR.US, 2);
+        dataset.setInt(Tag.BitsAllocated, VR.US, 16);
+        dataset.setString(Tag.NumberOfFrames, VR.IS, String.valueOf(frames));
+        return dataset;
+    }
+
+    private static byte[] part10(Attributes dataset, String transferSyntax) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DicomOutputStream out = new DicomOutputStream(bytes, UID.ExplicitVRLittleEndian)) {
+            out.writeDataset(dataset.createFileMetaInformation(transferSyntax), dataset);
+        }
+        return bytes.toByteArray();
+    }
+}
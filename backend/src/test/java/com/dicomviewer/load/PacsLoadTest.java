@@ -0,0 +1,187 @@
+package com.dicomviewer.load;
+
+import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.repository.PacsConfigurationRepository;
+import com.dicomviewer.testsupport.FakePacs;
+import com.dicomviewer.testsupport.LatencyRecorder;
+import com.dicomviewer.testsupport.SyntheticStudyCatalog;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Load and latency suite driving StudyController and WadoController against an
+ * in-process {@link FakePacs}.
+ * <p>
+ * Excluded from the default test run; execute with {@code ./gradlew loadTest}.
+ * Tunable with {@code -Dload.requests}, {@code -Dload.concurrency},
+ * {@code -Dload.latencyMs} and {@code -Dload.bandwidth} (bytes per second).
+ */
+@Tag("load")
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "loadtest", roles = {"USER"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PacsLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 200);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    private static final long LATENCY_MS = Long.getLong("load.latencyMs", 5);
+    private static final long BANDWIDTH = Long.getLong("load.bandwidth", 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PacsConfigurationRepository pacsConfigRepository;
+
+    private FakePacs fakePacs;
+    private PacsConfiguration legacyPacs;
+    private PacsConfiguration dicomWebPacs;
+    private final List<LatencyRecorder.Report> reports = new ArrayList<>();
+
+    @BeforeAll
+    void startFakePacs() throws Exception {
+        fakePacs = FakePacs.builder()
+            .studies(10)
+            .seriesPerStudy(2)
+            .instancesPerSeries(25)
+            .imageSize(256)
+            .latency(Duration.ofMillis(LATENCY_MS))
+            .bandwidth(BANDWIDTH)
+            .start();
+
+        legacyPacs = new PacsConfiguration();
+        legacyPacs.setName("Fake PACS (DIMSE)");
+        legacyPacs.setHost(fakePacs.getHost());
+        legacyPacs.setPort(fakePacs.getDimsePort());
+        legacyPacs.setAeTitle(fakePacs.getAeTitle());
+        legacyPacs.setPacsType(PacsConfiguration.PacsType.LEGACY);
+        legacyPacs.setIsActive(true);
+        legacyPacs = pacsConfigRepository.save(legacyPacs);
+
+        dicomWebPacs = new PacsConfiguration();
+        dicomWebPacs.setName("Fake PACS (DICOMweb)");
+        dicomWebPacs.setHost(fakePacs.getHost());
+        dicomWebPacs.setPort(fakePacs.getDimsePort());
+        dicomWebPacs.setAeTitle(fakePacs.getAeTitle());
+        dicomWebPacs.setPacsType(PacsConfiguration.PacsType.DICOMWEB);
+        dicomWebPacs.setQidoRsUrl(fakePacs.getDicomWebUrl());
+        dicomWebPacs.setWadoRsUrl(fakePacs.getDicomWebUrl());
+        dicomWebPacs.setIsActive(true);
+        dicomWebPacs = pacsConfigRepository.save(dicomWebPacs);
+    }
+
+    @AfterAll
+    void stopFakePacs() throws Exception {
+        System.out.printf("%nLoad test: requests=%d concurrency=%d latency=%dms bandwidth=%s%n",
+            REQUESTS, CONCURRENCY, LATENCY_MS, BANDWIDTH > 0 ? BANDWIDTH + " B/s" : "unlimited");
+        reports.forEach(System.out::println);
+        System.out.printf("Peak live threads: %d%n", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        pacsConfigRepository.delete(legacyPacs);
+        pacsConfigRepository.delete(dicomWebPacs);
+        fakePacs.close();
+    }
+
+    @Test
+    void cFindStudies() throws Exception {
+        run("C-FIND studies", i -> get("/api/studies").param("pacsId", legacyPacs.getId().toString()));
+    }
+
+    @Test
+    void cFindSeries() throws Exception {
+        List<SyntheticStudyCatalog.Instance> studies = fakePacs.getCatalog().getStudies();
+        run("C-FIND series", i -> get("/api/studies/{study}/series",
+                studies.get(i % studies.size()).studyInstanceUid())
+            .param("pacsId", legacyPacs.getId().toString()));
+    }
+
+    @Test
+    void qidoStudies() throws Exception {
+        run("QIDO-RS studies", i -> get("/api/studies").param("pacsId", dicomWebPacs.getId().toString()));
+    }
+
+    @Test
+    void wadoDistinctInstances() throws Exception {
+        List<SyntheticStudyCatalog.Instance> instances = fakePacs.getCatalog().getInstances();
+        run("WADO-RS distinct instances", i -> wado(instances.get(i % instances.size())));
+    }
+
+    @Test
+    void wadoSameInstance() throws Exception {
+        // Teaching conference: everyone opens the same image at once
+        SyntheticStudyCatalog.Instance instance = fakePacs.getCatalog().getInstances().get(0);
+        long before = fakePacs.getDicomWebServer().getInstanceRequestCount();
+
+        run("WADO-RS same instance", i -> wado(instance));
+
+        long upstream = fakePacs.getDicomWebServer().getInstanceRequestCount() - before;
+        System.out.printf("WADO-RS same instance: %d client requests, %d upstream fetches%n", REQUESTS, upstream);
+        assertTrue(upstream >= 1, "no upstream fetch recorded");
+        if (CONCURRENCY > 1) {
+            // Concurrent requests join an in-flight fetch, so at most one in two reaches the PACS
+            assertTrue(upstream <= REQUESTS / 2,
+                "coalescing did not reduce upstream fetches: " + upstream + " for " + REQUESTS + " requests");
+        }
+    }
+
+    private MockHttpServletRequestBuilder wado(SyntheticStudyCatalog.Instance instance) {
+        return get("/api/wado/studies/{study}/series/{series}/instances/{instance}",
+                instance.studyInstanceUid(), instance.seriesInstanceUid(), instance.sopInstanceUid())
+            .param("pacsId", dicomWebPacs.getId().toString());
+    }
+
+    private void run(String name, IntFunction<MockHttpServletRequestBuilder> request) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder(name);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            recorder.start();
+            for (int i = 0; i < REQUESTS; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        int status = mockMvc.perform(request.apply(n)).andReturn().getResponse().getStatus();
+                        if (status >= 400) {
+                            recorder.recordError();
+                        }
+                    } catch (Exception e) {
+                        recorder.recordError();
+                    }
+                    recorder.record(System.nanoTime() - start);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            recorder.stop();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LatencyRecorder.Report report = recorder.report();
+        reports.add(report);
+        assertEquals(0, report.errors(), name + " had failed requests");
+    }
+}
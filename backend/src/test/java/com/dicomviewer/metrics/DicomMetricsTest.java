@@ -0,0 +1,63 @@
+package com.dicomviewer.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DicomMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private DicomMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DicomMetrics(registry);
+    }
+
+    @Test
+    void testRecordAssociationOpen() {
+        metrics.recordAssociationOpen("PACS1", "C-FIND", TimeUnit.MILLISECONDS.toNanos(12), true);
+        metrics.recordAssociationOpen("PACS1", "C-FIND", TimeUnit.MILLISECONDS.toNanos(30), false);
+
+        assertEquals(1, registry.get("dicom.association.open")
+            .tags("pacs", "PACS1", "operation", "C-FIND", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("dicom.association.open")
+            .tags("pacs", "PACS1", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void testRecordFind() {
+        metrics.recordFindFirstResponse("PACS1", "STUDY", TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordFind("PACS1", "STUDY", TimeUnit.MILLISECONDS.toNanos(40), 25, true);
+
+        assertEquals(1, registry.get("dicom.cfind.first.response").tag("level", "STUDY").timer().count());
+        assertEquals(1, registry.get("dicom.cfind").tag("outcome", "success").timer().count());
+        assertEquals(25.0, registry.get("dicom.cfind.responses").tag("pacs", "PACS1").summary().totalAmount());
+    }
+
+    @Test
+    void testRecordRetrieveCountsSubOperations() {
+        metrics.recordRetrieve("PACS1", "C-MOVE", "STUDY", 1_000_000, 10, 2, 1, false);
+        metrics.recordRetrieve("PACS1", "C-MOVE", "SERIES", 1_000_000, 5, 0, 0, true);
+
+        assertEquals(15.0, registry.get("dicom.retrieve.suboperations").tag("result", "completed").counter().count());
+        assertEquals(2.0, registry.get("dicom.retrieve.suboperations").tag("result", "failed").counter().count());
+        assertEquals(1.0, registry.get("dicom.retrieve.suboperations").tag("result", "warning").counter().count());
+    }
+
+    @Test
+    void testRecordDicomWebCall() {
+        metrics.recordDicomWebCall("PACS1", "wado-instance", "200", 1_000_000);
+        metrics.recordDicomWebCall("PACS1", "wado-instance", "503", 1_000_000);
+        metrics.recordWadoBytes("PACS1", "wado-instance", 524_288);
+
+        assertEquals(1, registry.get("dicomweb.requests").tags("status", "200", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("dicomweb.requests").tags("status", "503", "outcome", "failure").timer().count());
+        assertEquals(524_288.0, registry.get("dicomweb.wado.bytes").summary().totalAmount());
+    }
+}
@@ -9,18 +9,23 @@ import com.dicomviewer.model.entity.ApplicationEntity;
 import com.dicomviewer.model.entity.ApplicationEntity.AEType;
 import com.dicomviewer.model.entity.ApplicationEntity.ConnectionStatus;
 import com.dicomviewer.repository.ApplicationEntityRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,7 +40,7 @@ class ApplicationEntityServiceTest {
     @Mock
     private CEchoService cechoService;
 
-    @InjectMocks
+    private ExecutorService ioExecutor;
     private ApplicationEntityService aeService;
 
     private ApplicationEntity testAE;
@@ -43,6 +48,9 @@ class ApplicationEntityServiceTest {
 
     @BeforeEach
     void setUp() {
+        ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        aeService = new ApplicationEntityService(aeRepository, cechoService, ioExecutor);
+
         testAE = new ApplicationEntity();
         testAE.setId(1L);
         testAE.setAeTitle("TEST_PACS");
@@ -65,6 +73,11 @@ class ApplicationEntityServiceTest {
         localAE.setEnabled(true);
     }
 
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdownNow();
+    }
+
     @Test
     void testCreateAE() {
         when(aeRepository.existsByAeTitle("TEST_PACS")).thenReturn(false);
@@ -326,13 +339,49 @@ class ApplicationEntityServiceTest {
         CEchoService.EchoResult echoResult = new CEchoService.EchoResult(true, 50L, "Connection successful");
         
         when(aeRepository.findByEnabledTrue()).thenReturn(List.of(testAE, localAE));
-        when(aeRepository.findById(1L)).thenReturn(Optional.of(testAE));
         when(cechoService.echo(any(PacsConfiguration.class))).thenReturn(echoResult);
-        when(aeRepository.save(any(ApplicationEntity.class))).thenReturn(testAE);
 
-        aeService.testAllConnections();
+        List<EchoResultDTO> results = aeService.testAllConnections();
 
         // Only testAE should be tested (not localAE)
         verify(cechoService, times(1)).echo(any(PacsConfiguration.class));
+        assertEquals(1, results.size());
+        assertEquals(ConnectionStatus.SUCCESS, results.get(0).getStatus());
+        verify(aeRepository, times(1)).updateEchoStatus(eq(List.of(1L)), eq(ConnectionStatus.SUCCESS), any(Instant.class));
+        verify(aeRepository, never()).save(any(ApplicationEntity.class));
+        verify(aeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testTestAllConnectionsTimesOutSlowAE() throws Exception {
+        ApplicationEntity deadAE = new ApplicationEntity();
+        deadAE.setId(3L);
+        deadAE.setAeTitle("DEAD_PACS");
+        deadAE.setHostname("dead.example.com");
+        deadAE.setPort(104);
+        deadAE.setAeType(AEType.REMOTE_LEGACY);
+        deadAE.setEnabled(true);
+        deadAE.setConnectionTimeout(100);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(aeRepository.findByEnabledTrue()).thenReturn(List.of(testAE, deadAE));
+        when(cechoService.echo(any(PacsConfiguration.class))).thenAnswer(invocation -> {
+            PacsConfiguration pacs = invocation.getArgument(0);
+            if ("DEAD_PACS".equals(pacs.getAeTitle())) {
+                release.await();
+            }
+            return new CEchoService.EchoResult(true, 20L, "Connection successful");
+        });
+
+        long start = System.nanoTime();
+        List<EchoResultDTO> results = aeService.testAllConnections();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        release.countDown();
+
+        assertTrue(elapsedMs < 5000, "sweep should not wait for the dead AE beyond its deadline");
+        assertEquals(ConnectionStatus.SUCCESS, results.get(0).getStatus());
+        assertEquals(ConnectionStatus.TIMEOUT, results.get(1).getStatus());
+        verify(aeRepository).updateEchoStatus(eq(List.of(1L)), eq(ConnectionStatus.SUCCESS), any(Instant.class));
+        verify(aeRepository).updateEchoStatus(eq(List.of(3L)), eq(ConnectionStatus.TIMEOUT), any(Instant.class));
     }
 }
@@ -1,10 +1,16 @@
 package com.dicomviewer.service;
 
+import com.dicomviewer.dicom.health.PacsCircuitBreakerRegistry;
 import com.dicomviewer.dicom.network.CEchoService;
 import com.dicomviewer.dicom.network.CFindService;
 import com.dicomviewer.dicom.network.CMoveService;
+import com.dicomviewer.dicom.network.RetrievalPlanner;
+import com.dicomviewer.dicom.network.RetrievalPriority;
+import com.dicomviewer.dicom.network.RetrievalScheduler;
 import com.dicomviewer.dicom.web.DicomWebService;
+import com.dicomviewer.exception.DicomNetworkException;
 import com.dicomviewer.model.PacsConfiguration;
+import com.dicomviewer.model.RetrievalProgress;
 import com.dicomviewer.repository.PacsConfigurationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,11 +45,17 @@ class PacsServiceTest {
     private CFindService cFindService;
 
     @Mock
-    private CMoveService cMoveService;
+    private RetrievalPlanner retrievalPlanner;
+
+    @Mock
+    private RetrievalScheduler retrievalScheduler;
 
     @Mock
     private DicomWebService dicomWebService;
 
+    @Mock
+    private PacsCircuitBreakerRegistry circuitBreakers;
+
     @InjectMocks
     private PacsService pacsService;
 
@@ -285,4 +298,47 @@ class PacsServiceTest {
         assertFalse((Boolean) result.get("success"));
         assertEquals("Connection failed", result.get("message"));
     }
+
+    @Test
+    void testQueryStudiesFailsFastWhenCircuitOpen() {
+        when(pacsConfigRepository.findById(activeId)).thenReturn(Optional.of(activePacs));
+        when(circuitBreakers.isOpen(activePacs)).thenReturn(true);
+
+        assertThrows(DicomNetworkException.class, () -> pacsService.queryStudies(activeId, Map.of()));
+
+        verifyNoInteractions(cFindService, dicomWebService);
+    }
+
+    @Test
+    void testRetrieveStudyCombinesPlannerProgress() {
+        RetrievalProgress progress = new RetrievalProgress("r1");
+        progress.setCompleted(3990);
+        progress.setFailed(10);
+        progress.setErrorMessage("C-MOVE failed with status: 0xa702");
+        progress.setStatus(RetrievalProgress.Status.COMPLETED_WITH_ERRORS);
+
+        when(pacsConfigRepository.findById(activeId)).thenReturn(Optional.of(activePacs));
+        when(retrievalScheduler.submit(activePacs, "1.2.3", null, RetrievalPriority.HIGH))
+            .thenReturn(CompletableFuture.completedFuture(progress));
+
+        CMoveService.MoveResult result = pacsService.retrieveStudy(activeId, "1.2.3", null, RetrievalPriority.HIGH);
+
+        assertFalse(result.isSuccess());
+        assertEquals(3990, result.getCompletedSuboperations());
+        assertEquals(10, result.getFailedSuboperations());
+        assertEquals("C-MOVE failed with status: 0xa702", result.getErrorMessage());
+    }
+
+    @Test
+    void testRetrieveStudyFailsFastWhenCircuitOpen() {
+        activePacs.setRetrieveMethod(PacsConfiguration.RetrieveMethod.C_GET);
+        when(pacsConfigRepository.findById(activeId)).thenReturn(Optional.of(activePacs));
+        when(circuitBreakers.isOpen(activePacs)).thenReturn(true);
+
+        DicomNetworkException e = assertThrows(DicomNetworkException.class,
+            () -> pacsService.retrieveStudy(activeId, "1.2.3", null, RetrievalPriority.HIGH));
+
+        assertTrue(e.getMessage().contains("unavailable"));
+        verifyNoInteractions(retrievalScheduler);
+    }
 }
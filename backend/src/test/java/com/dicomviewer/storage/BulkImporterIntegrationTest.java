@@ -0,0 +1,130 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the importer's SQL against the default H2 datasource (PostgreSQL mode).
+ */
+@SpringBootTest(properties = "dicom.storage.path=${java.io.tmpdir}/dicom-viewer-import-test")
+class BulkImporterIntegrationTest {
+
+    private static final String STUDY = "1.2.826.0.1.3680043.10.1049.1";
+    private static final String SERIES = STUDY + ".1";
+
+    @Autowired
+    private BulkImporter importer;
+
+    @Autowired
+    private StorageLayoutMigrator migrator;
+
+    @Autowired
+    private StoredInstanceRepository instanceRepository;
+
+    @TempDir
+    Path source;
+
+    @AfterEach
+    void cleanUp() {
+        instanceRepository.deleteAll(instanceRepository.findByStudyInstanceUid(STUDY));
+    }
+
+    @Test
+    void testRegistersTreeSkippingIndexedInstances() throws Exception {
+        Files.createDirectories(source.resolve("a"));
+        writeInstance(source.resolve("a/1.dcm"), SERIES + ".1");
+        writeInstance(source.resolve("a/2.dcm"), SERIES + ".2");
+        writeInstance(source.resolve("a/3.dcm"), SERIES + ".3");
+        instanceRepository.save(indexed(SERIES + ".1"));
+
+        importer.run(source, BulkImporter.Mode.REGISTER);
+
+        Map<String, StoredInstance> rows = instanceRepository.findByStudyInstanceUid(STUDY).stream()
+            .collect(Collectors.toMap(StoredInstance::getSopInstanceUid, Function.identity()));
+        assertEquals(3, rows.size());
+        assertEquals("/elsewhere/1.dcm", rows.get(SERIES + ".1").getFilePath());
+        assertEquals(source.resolve("a/2.dcm").toString(), rows.get(SERIES + ".2").getFilePath());
+        assertEquals("CT", rows.get(SERIES + ".3").getModality());
+        BulkImporter.Status status = importer.getStatus();
+        assertEquals(2, status.imported());
+        assertEquals(1, status.skipped());
+        assertEquals(0, status.failed());
+    }
+
+    @Test
+    void testLayoutMigrationLeavesRegisteredFilesInPlace() throws Exception {
+        Path file = source.resolve("1.dcm");
+        writeInstance(file, SERIES + ".1");
+        importer.run(source, BulkImporter.Mode.REGISTER);
+
+        migrator.run();
+
+        assertTrue(Files.exists(file));
+        assertEquals(file.toString(), instanceRepository.findBySopInstanceUid(SERIES + ".1").orElseThrow().getFilePath());
+    }
+
+    @Test
+    void testInsertSkipsInstancesStoredConcurrently() {
+        instanceRepository.save(indexed(SERIES + ".1"));
+
+        int inserted = importer.insert(List.of(importable(SERIES + ".1"), importable(SERIES + ".2")));
+
+        assertEquals(1, inserted);
+        assertEquals("/elsewhere/1.dcm", instanceRepository.findBySopInstanceUid(SERIES + ".1").orElseThrow().getFilePath());
+        assertTrue(instanceRepository.existsBySopInstanceUid(SERIES + ".2"));
+    }
+
+    private static StoredInstance indexed(String sopInstanceUid) {
+        StoredInstance instance = importable(sopInstanceUid);
+        instance.setFilePath("/elsewhere/1.dcm");
+        instance.setStoredAt(Instant.now());
+        return instance;
+    }
+
+    private static StoredInstance importable(String sopInstanceUid) {
+        StoredInstance instance = new StoredInstance();
+        instance.setSopInstanceUid(sopInstanceUid);
+        instance.setSopClassUid(UID.CTImageStorage);
+        instance.setStudyInstanceUid(STUDY);
+        instance.setSeriesInstanceUid(SERIES);
+        instance.setFilePath("/import/" + sopInstanceUid + ".dcm");
+        instance.setFileSize(1024L);
+        instance.setStorageTier(StorageTiers.PRIMARY);
+        instance.setModality("CT");
+        return instance;
+    }
+
+    private static void writeInstance(Path file, String sopInstanceUid) throws IOException {
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
+        dataset.setString(Tag.StudyInstanceUID, VR.UI, STUDY);
+        dataset.setString(Tag.SeriesInstanceUID, VR.UI, SERIES);
+        dataset.setString(Tag.Modality, VR.CS, "CT");
+        dataset.setString(Tag.PatientID, VR.LO, "IMPORT-TEST");
+        try (DicomOutputStream out = new DicomOutputStream(file.toFile())) {
+            out.writeDataset(dataset.createFileMetaInformation(UID.ExplicitVRLittleEndian), dataset);
+        }
+    }
+}
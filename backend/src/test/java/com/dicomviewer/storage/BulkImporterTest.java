@@ -0,0 +1,193 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkImporterTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private BackgroundJobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private HeaderIndex headerIndex;
+
+    @Mock
+    private StorageStatistics storageStatistics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private Path source;
+    private StorageLayout layout;
+    private BulkImporter importer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectories(tempDir.resolve("archive"));
+        layout = new StorageLayout(tempDir.resolve("storage").toString(), "sharded", false);
+        importer = new BulkImporter(instanceRepository, checkpointRepository, jdbcTemplate, layout, headerIndex,
+            storageStatistics, new DicomMetrics(new SimpleMeterRegistry()), transactionManager, executor);
+
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        Files.createDirectories(source.resolve("a"));
+        writeInstance(source.resolve("a/1.dcm"), "1.2.3.4.1");
+        writeInstance(source.resolve("a/2.dcm"), "1.2.3.4.2");
+        Files.writeString(source.resolve("notes.txt"), "not dicom");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRegistersFilesInPlaceWithOneBatchInsert() throws Exception {
+        when(checkpointRepository.findById(BulkImporter.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findExistingSopInstanceUids(any())).thenReturn(List.of("1.2.3.4.2"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] {{1}});
+
+        importer.run(source, BulkImporter.Mode.REGISTER);
+
+        ArgumentCaptor<List<StoredInstance>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), inserted.capture(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, inserted.getValue().size());
+        StoredInstance instance = inserted.getValue().get(0);
+        assertEquals("1.2.3.4.1", instance.getSopInstanceUid());
+        assertEquals(source.resolve("a/1.dcm").toString(), instance.getFilePath());
+        assertEquals("CT", instance.getModality());
+        assertEquals(StorageTiers.EXTERNAL, instance.getStorageTier());
+        verify(headerIndex).removeSeries("1.2.3.4");
+        verify(storageStatistics).reconcile();
+
+        BulkImporter.Status status = importer.getStatus();
+        assertEquals(3, status.scanned());
+        assertEquals(1, status.imported());
+        assertEquals(1, status.skipped());
+        assertEquals(1, status.ignored());
+        assertEquals(3, status.position());
+        assertNotNull(status.completedAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCopyModeCopiesIntoLayout() throws Exception {
+        when(checkpointRepository.findById(BulkImporter.JOB_NAME)).thenReturn(Optional.empty());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] {{1, 1}});
+
+        importer.run(source, BulkImporter.Mode.COPY);
+
+        Path copied = layout.pathFor("1.2.3", "1.2.3.4", "1.2.3.4.1");
+        assertTrue(Files.exists(copied));
+        assertTrue(Files.exists(source.resolve("a/1.dcm")));
+        ArgumentCaptor<List<StoredInstance>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), inserted.capture(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(copied.toString(), inserted.getValue().get(0).getFilePath());
+        assertEquals(StorageTiers.PRIMARY, inserted.getValue().get(0).getStorageTier());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testResumeSkipsFilesBeforeCheckpoint() throws Exception {
+        BackgroundJobCheckpoint checkpoint = new BackgroundJobCheckpoint(BulkImporter.JOB_NAME);
+        checkpoint.setStartedAt(Instant.now());
+        checkpoint.setLastId(1);
+        checkpoint.setProcessed(1);
+        checkpoint.setParameters("REGISTER:" + source);
+        when(checkpointRepository.findById(BulkImporter.JOB_NAME)).thenReturn(Optional.of(checkpoint));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenReturn(new int[][] {{1}});
+
+        importer.run(source, BulkImporter.Mode.REGISTER);
+
+        ArgumentCaptor<List<StoredInstance>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), inserted.capture(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of("1.2.3.4.2"),
+            inserted.getValue().stream().map(StoredInstance::getSopInstanceUid).toList());
+        assertEquals(3, checkpoint.getLastId());
+        assertEquals(2, checkpoint.getProcessed());
+    }
+
+    @Test
+    void testFailedBatchStopsImportBehindCheckpoint() {
+        ReflectionTestUtils.setField(importer, "batchSize", 1);
+        when(checkpointRepository.findById(BulkImporter.JOB_NAME)).thenReturn(Optional.empty());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> importer.run(source, BulkImporter.Mode.REGISTER));
+
+        ArgumentCaptor<BackgroundJobCheckpoint> saved = ArgumentCaptor.forClass(BackgroundJobCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        BackgroundJobCheckpoint checkpoint = saved.getValue();
+        assertEquals(0, checkpoint.getLastId());
+        assertNull(checkpoint.getCompletedAt());
+        assertEquals(1, importer.getStatus().failed());
+        verify(storageStatistics, never()).reconcile();
+    }
+
+    private static void writeInstance(Path file, String sopInstanceUid) throws IOException {
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.CTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
+        dataset.setString(Tag.StudyInstanceUID, VR.UI, "1.2.3");
+        dataset.setString(Tag.SeriesInstanceUID, VR.UI, "1.2.3.4");
+        dataset.setString(Tag.Modality, VR.CS, "CT");
+        dataset.setString(Tag.PatientID, VR.LO, "P1");
+        try (DicomOutputStream out = new DicomOutputStream(file.toFile())) {
+            out.writeDataset(dataset.createFileMetaInformation(UID.ExplicitVRLittleEndian), dataset);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.dicomviewer.storage;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DicomHeaderReaderTest {
+
+    private static final int ROWS = 512;
+    private static final int COLUMNS = 512;
+    private static final int FRAMES = 4;
+    private static final String PRIVATE_CREATOR = "DICOMVIEWER TEST";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStopsAtPixelDataAndReportsItsPosition() throws IOException {
+        Path file = tempDir.resolve("multiframe.dcm");
+        write(file, createDataset());
+
+        DicomHeaderReader.Header header = DicomHeaderReader.read(file);
+
+        assertEquals(UID.ExplicitVRLittleEndian, header.transferSyntaxUid());
+        assertNotNull(header.fileMetaInformation());
+        assertEquals("1.2.3.4.5", header.dataset().getString(Tag.SOPInstanceUID));
+        assertFalse(header.dataset().contains(Tag.PixelData));
+        assertTrue(header.hasPixelData());
+        assertEquals(ROWS * COLUMNS * 2 * FRAMES, header.pixelDataLength());
+
+        byte[] value = new byte[16];
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(header.pixelDataOffset());
+            raf.readFully(value);
+        }
+        assertArrayEquals(Arrays.copyOf(pixelData(), 16), value);
+    }
+
+    @Test
+    void testSkipsLargeBinaryValuesBeforePixelData() throws IOException {
+        Path file = tempDir.resolve("overlay.dcm");
+        Attributes dataset = createDataset();
+        dataset.setBytes(PRIVATE_CREATOR, 0x00091010, VR.OB, new byte[DicomHeaderReader.MAX_BINARY_VALUE_BYTES * 4]);
+        dataset.setBytes(PRIVATE_CREATOR, 0x00091011, VR.OB, new byte[16]);
+        write(file, dataset);
+
+        Attributes header = DicomHeaderReader.read(file).dataset();
+
+        assertNull(header.getBytes(PRIVATE_CREATOR, 0x00091010));
+        assertEquals(16, header.getBytes(PRIVATE_CREATOR, 0x00091011).length);
+        assertEquals("CT", header.getString(Tag.Modality));
+    }
+
+    @Test
+    void testKeepsOnlyRequestedTags() throws IOException {
+        Path file = tempDir.resolve("selected.dcm");
+        write(file, createDataset());
+
+        Attributes dataset = DicomHeaderReader.read(file, Tag.SOPInstanceUID, Tag.Rows).dataset();
+
+        assertEquals("1.2.3.4.5", dataset.getString(Tag.SOPInstanceUID));
+        assertEquals(ROWS, dataset.getInt(Tag.Rows, 0));
+        assertEquals("ISO_IR 100", dataset.getString(Tag.SpecificCharacterSet));
+        assertFalse(dataset.contains(Tag.Modality));
+        assertFalse(dataset.contains(Tag.ReferencedImageSequence));
+    }
+
+    @Test
+    void testReadsHeadersLongerThanTheHeadBuffer() throws IOException {
+        Path file = tempDir.resolve("long-header.dcm");
+        Attributes dataset = createDataset();
+        char[] text = new char[DicomHeaderReader.HEAD_BYTES * 2];
+        Arrays.fill(text, 'x');
+        dataset.setString(Tag.TextValue, VR.UT, new String(text));
+        write(file, dataset);
+
+        DicomHeaderReader.Header header = DicomHeaderReader.read(file);
+
+        assertEquals(text.length, header.dataset().getString(Tag.TextValue).length());
+        assertEquals(ROWS * COLUMNS * 2 * FRAMES, header.pixelDataLength());
+        assertEquals(Files.size(file) - header.pixelDataLength(), header.pixelDataOffset());
+    }
+
+    @Test
+    void testReadsInMemoryObjects() throws IOException {
+        Path file = tempDir.resolve("packed.dcm");
+        write(file, createDataset());
+
+        DicomHeaderReader.Header fromBytes = DicomHeaderReader.read(Files.readAllBytes(file), Tag.SOPInstanceUID);
+
+        assertEquals("1.2.3.4.5", fromBytes.dataset().getString(Tag.SOPInstanceUID));
+        assertEquals(DicomHeaderReader.read(file).pixelDataOffset(), fromBytes.pixelDataOffset());
+    }
+
+    private static Attributes createDataset() {
+        Attributes dataset = new Attributes();
+        dataset.setString(Tag.SpecificCharacterSet, VR.CS, "ISO_IR 100");
+        dataset.setString(Tag.SOPClassUID, VR.UI, UID.EnhancedCTImageStorage);
+        dataset.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4.5");
+        dataset.setString(Tag.StudyInstanceUID, VR.UI, "1.2.3");
+        dataset.setString(Tag.SeriesInstanceUID, VR.UI, "1.2.3.4");
+        dataset.setString(Tag.Modality, VR.CS, "CT");
+        Attributes item = new Attributes();
+        item.setString(Tag.ReferencedSOPInstanceUID, VR.UI, "1.2.3.4.4");
+        dataset.newSequence(Tag.ReferencedImageSequence, 1).add(item);
+        dataset.setInt(Tag.SamplesPerPixel, VR.US, 1);
+        dataset.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2");
+        dataset.setString(Tag.NumberOfFrames, VR.IS, String.valueOf(FRAMES));
+        dataset.setInt(Tag.Rows, VR.US, ROWS);
+        dataset.setInt(Tag.Columns, VR.US, COLUMNS);
+        dataset.setInt(Tag.BitsAllocated, VR.US, 16);
+        dataset.setBytes(Tag.PixelData, VR.OW, pixelData());
+        return dataset;
+    }
+
+    private static byte[] pixelData() {
+        byte[] pixels = new byte[ROWS * COLUMNS * 2 * FRAMES];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i * 31);
+        }
+        return pixels;
+    }
+
+    private static void write(Path file, Attributes dataset) throws IOException {
+        try (DicomOutputStream out = new DicomOutputStream(file.toFile())) {
+            out.writeDataset(dataset.createFileMetaInformation(UID.ExplicitVRLittleEndian), dataset);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.dicomviewer.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderIndexFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testColumnarRoundTrip() throws Exception {
+        Path file = tempDir.resolve("series.hdx");
+        HeaderRecord ct = record("1.2.3.1", 1, new double[] {0, 0, -10.5});
+        HeaderRecord sr = new HeaderRecord("1.2.3.2", "1.2.840.10008.5.1.4.1.1.88.22", "1.2.840.10008.1.2.1",
+            null, null, 0, 0, 0, 0, null, null, null, null, null, null, null, null, -1, -1);
+
+        HeaderIndexFile.write(file, List.of(ct, sr));
+        Map<String, HeaderRecord> read = HeaderIndexFile.read(file);
+
+        assertEquals(List.of("1.2.3.1", "1.2.3.2"), List.copyOf(read.keySet()));
+        HeaderRecord readCt = read.get("1.2.3.1");
+        assertArrayEquals(ct.imagePositionPatient(), readCt.imagePositionPatient());
+        assertArrayEquals(ct.imageOrientationPatient(), readCt.imageOrientationPatient());
+        assertArrayEquals(ct.pixelSpacing(), readCt.pixelSpacing());
+        assertEquals(-1024.0, readCt.rescaleIntercept());
+        assertEquals(1, readCt.instanceNumber());
+        assertEquals(512, readCt.rows());
+        assertEquals(1336, readCt.pixelDataOffset());
+        assertEquals(524288, readCt.frameLength());
+        assertEquals("MONOCHROME2", readCt.photometricInterpretation());
+
+        HeaderRecord readSr = read.get("1.2.3.2");
+        assertNull(readSr.instanceNumber());
+        assertNull(readSr.imagePositionPatient());
+        assertNull(readSr.windowCenter());
+        assertNull(readSr.photometricInterpretation());
+        assertEquals(-1, readSr.pixelDataOffset());
+    }
+
+    @Test
+    void testMissingIndexReadsEmpty() throws Exception {
+        assertTrue(HeaderIndexFile.read(tempDir.resolve("none.hdx")).isEmpty());
+    }
+
+    @Test
+    void testJournalReplacesAndRemoves() throws Exception {
+        Path journal = tempDir.resolve("series.hdj");
+        HeaderIndexFile.appendJournal(journal, "1.2.3.1", record("1.2.3.1", 1, new double[] {0, 0, 0}));
+        HeaderIndexFile.appendJournal(journal, "1.2.3.2", record("1.2.3.2", 2, new double[] {0, 0, 1}));
+        HeaderIndexFile.appendJournal(journal, "1.2.3.1", record("1.2.3.1", 7, new double[] {0, 0, 0}));
+        HeaderIndexFile.appendJournal(journal, "1.2.3.2", null);
+
+        Map<String, HeaderRecord> records = new LinkedHashMap<>();
+        assertTrue(HeaderIndexFile.replayJournal(journal, records));
+
+        assertEquals(List.of("1.2.3.1"), List.copyOf(records.keySet()));
+        assertEquals(7, records.get("1.2.3.1").instanceNumber());
+        assertFalse(HeaderIndexFile.replayJournal(tempDir.resolve("none.hdj"), records));
+    }
+
+    @Test
+    void testEntriesAppendedBehindTornEntryAreRejected() throws Exception {
+        Path journal = tempDir.resolve("series.hdj");
+        HeaderIndexFile.appendJournal(journal, "1.2.3.1", record("1.2.3.1", 1, new double[] {0, 0, 0}));
+        HeaderIndexFile.appendJournal(journal, "1.2.3.2", record("1.2.3.2", 2, new double[] {0, 0, 1}));
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length - 20));
+        HeaderIndexFile.appendJournal(journal, "1.2.3.3", record("1.2.3.3", 3, new double[] {0, 0, 2}));
+
+        Map<String, HeaderRecord> records = new LinkedHashMap<>();
+        assertThrows(IOException.class, () -> HeaderIndexFile.replayJournal(journal, records));
+
+        assertEquals(List.of("1.2.3.1"), List.copyOf(records.keySet()));
+    }
+
+    @Test
+    void testStackSortedAlongSliceNormal() {
+        HeaderRecord top = record("a", 1, new double[] {0, 0, 20});
+        HeaderRecord middle = record("b", 3, new double[] {0, 0, 10});
+        HeaderRecord bottom = record("c", 2, new double[] {0, 0, 0});
+
+        List<HeaderRecord> sorted = HeaderIndex.sortStack(new ArrayList<>(List.of(top, bottom, middle)));
+
+        assertEquals(List.of(bottom, middle, top), sorted);
+    }
+
+    private static HeaderRecord record(String sopInstanceUid, int instanceNumber, double[] position) {
+        return new HeaderRecord(sopInstanceUid, "1.2.840.10008.5.1.4.1.1.2", "1.2.840.10008.1.2.1",
+            "MONOCHROME2", instanceNumber, 512, 512, 16, 1,
+            position, new double[] {1, 0, 0, 0, 1, 0}, new double[] {0.7, 0.7}, 1.0,
+            1.0, -1024.0, 40.0, 400.0, 1336, 524288);
+    }
+}
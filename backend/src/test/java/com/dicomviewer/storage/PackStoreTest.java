@@ -0,0 +1,195 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.PackLocation;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PackStoreTest {
+
+    private static final String SERIES = "1.2.3.4";
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private PackStore packStore;
+
+    @BeforeEach
+    void setUp() {
+        packStore = new PackStore(instanceRepository, new StorageLayout(tempDir.toString(), "sharded", false), executor);
+        ReflectionTestUtils.setField(packStore, "enabled", true);
+        ReflectionTestUtils.setField(packStore, "maxInstanceBytes", 16L);
+    }
+
+    @Test
+    void testAcceptsOnlySmallInstancesWhenEnabled() {
+        assertTrue(packStore.accepts(16));
+        assertFalse(packStore.accepts(17));
+
+        ReflectionTestUtils.setField(packStore, "enabled", false);
+        assertFalse(packStore.accepts(1));
+    }
+
+    @Test
+    void testAppendedInstancesShareOnePack() throws Exception {
+        when(instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(SERIES))
+            .thenReturn(Optional.empty());
+
+        PackStore.Location first = packStore.append(SERIES, source("a", "first"));
+        PackStore.Location second = packStore.append(SERIES, source("b", "second!"));
+
+        assertEquals(first.pack(), second.pack());
+        assertEquals(0, first.offset());
+        assertEquals(5, first.length());
+        assertEquals(5, second.offset());
+        assertEquals(7, second.length());
+        assertEquals("firstsecond!", Files.readString(first.pack()));
+    }
+
+    @Test
+    void testReadsInstancesByOffset() throws Exception {
+        when(instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(SERIES))
+            .thenReturn(Optional.empty());
+        StoredInstance a = packed("1", packStore.append(SERIES, source("a", "first")));
+        StoredInstance b = packed("2", packStore.append(SERIES, source("b", "second!")));
+        when(instanceRepository.findPackLocation("2"))
+            .thenReturn(Optional.of(new PackLocation(b.getFilePath(), b.getPackOffset(), b.getPackLength())));
+        when(instanceRepository.findBySeriesInstanceUid(SERIES)).thenReturn(List.of(b, a));
+
+        assertEquals("second!", new String(packStore.read(b), StandardCharsets.US_ASCII));
+
+        Map<String, byte[]> series = packStore.readSeries(SERIES);
+        assertEquals(List.of("1", "2"), List.copyOf(series.keySet()));
+        assertEquals("first", new String(series.get("1"), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testCompactionDropsDeletedInstances() throws Exception {
+        when(instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(SERIES))
+            .thenReturn(Optional.empty());
+        packStore.append(SERIES, source("a", "deleted-bytes"));
+        PackStore.Location location = packStore.append(SERIES, source("b", "kept"));
+        StoredInstance kept = packed("2", location);
+        when(instanceRepository.findByFilePathOrderByPackOffsetAsc(location.pack().toString()))
+            .thenReturn(List.of(kept));
+
+        packStore.compactIfNeeded(SERIES, location.pack());
+
+        ArgumentCaptor<String> target = ArgumentCaptor.forClass(String.class);
+        verify(instanceRepository).updatePackLocation(eq(kept.getId()), eq(location.pack().toString()),
+            eq(location.offset()), target.capture(), eq(0L));
+        Path next = Path.of(target.getValue());
+        assertNotEquals(location.pack(), next);
+        assertFalse(Files.exists(location.pack()));
+        assertEquals("kept", Files.readString(next));
+        verify(instanceRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testEmptyPackIsDeleted() throws Exception {
+        Path pack = Files.writeString(tempDir.resolve(SERIES + "-0" + PackStore.EXTENSION), "gone");
+        when(instanceRepository.findByFilePathOrderByPackOffsetAsc(anyString())).thenReturn(List.of());
+
+        packStore.compactIfNeeded(SERIES, pack);
+
+        assertFalse(Files.exists(pack));
+        verify(instanceRepository, never()).updatePackLocation(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testEmptyCurrentPackIsKeptForAppends() throws Exception {
+        when(instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(SERIES))
+            .thenReturn(Optional.empty());
+        PackStore.Location location = packStore.append(SERIES, source("a", "purged"));
+        when(instanceRepository.findByFilePathOrderByPackOffsetAsc(anyString())).thenReturn(List.of());
+
+        packStore.compactIfNeeded(SERIES, location.pack());
+
+        assertTrue(Files.exists(location.pack()));
+    }
+
+    @Test
+    void testCompactionWaitsForUncommittedAppends() throws Exception {
+        when(instanceRepository.findFirstBySeriesInstanceUidAndPackOffsetIsNotNullOrderByIdDesc(SERIES))
+            .thenReturn(Optional.empty());
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        packStore.append(SERIES, source("a", "deleted-bytes"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        PackStore.Location location;
+        List<TransactionSynchronization> synchronizations;
+        try {
+            location = packStore.append(SERIES, source("b", "in-flight"));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        packStore.compactIfNeeded(SERIES, location.pack());
+        verify(instanceRepository, never()).findByFilePathOrderByPackOffsetAsc(anyString());
+        assertEquals("deleted-bytesin-flight", Files.readString(location.pack()));
+
+        StoredInstance committed = packed("2", location);
+        when(instanceRepository.findByFilePathOrderByPackOffsetAsc(location.pack().toString()))
+            .thenReturn(List.of(committed));
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        ArgumentCaptor<String> target = ArgumentCaptor.forClass(String.class);
+        verify(instanceRepository).updatePackLocation(eq(committed.getId()), any(), any(), target.capture(), eq(0L));
+        assertFalse(Files.exists(location.pack()));
+        assertEquals("in-flight", Files.readString(Path.of(target.getValue())));
+    }
+
+    @Test
+    void testNextGenerationSkipsExistingPacks() throws Exception {
+        Path pack = tempDir.resolve(SERIES + "-0" + PackStore.EXTENSION);
+        Files.createFile(tempDir.resolve(SERIES + "-1" + PackStore.EXTENSION));
+
+        assertEquals(tempDir.resolve(SERIES + "-2" + PackStore.EXTENSION), PackStore.nextGeneration(pack));
+    }
+
+    private Path source(String name, String content) throws Exception {
+        return Files.writeString(tempDir.resolve(name + ".dcm"), content);
+    }
+
+    private static StoredInstance packed(String sopInstanceUid, PackStore.Location location) {
+        StoredInstance instance = new StoredInstance();
+        instance.setSopInstanceUid(sopInstanceUid);
+        instance.setSeriesInstanceUid(SERIES);
+        instance.setFilePath(location.pack().toString());
+        instance.setPackOffset(location.offset());
+        instance.setPackLength(location.length());
+        return instance;
+    }
+}
@@ -0,0 +1,159 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageLayoutMigratorTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private BackgroundJobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private StorageLayout layout;
+    private StorageLayoutMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        layout = new StorageLayout(tempDir.toString(), "sharded", false);
+        migrator = new StorageLayoutMigrator(instanceRepository, checkpointRepository, layout,
+            new StorageTiers(layout, new String[0]), executor);
+    }
+
+    @Test
+    void testMovesFilesAndPrunesOldDirectories() throws Exception {
+        Path oldFile = Files.createDirectories(tempDir.resolve("1.2.3").resolve("1.2.3.4")).resolve("1.2.3.4.5.dcm");
+        Files.writeString(oldFile, "dicom");
+        StoredInstance instance = instance(7L, oldFile);
+        when(checkpointRepository.findById(StorageLayoutMigrator.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(instance));
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), any(Pageable.class)))
+            .thenReturn(List.of());
+        Path expected = layout.pathFor("1.2.3", "1.2.3.4", "1.2.3.4.5");
+        when(instanceRepository.updateFilePath(7L, oldFile.toString(), expected.toString())).thenReturn(1);
+
+        migrator.run();
+
+        assertEquals("dicom", Files.readString(expected));
+        assertFalse(Files.exists(oldFile));
+        assertFalse(Files.exists(tempDir.resolve("1.2.3")));
+        assertEquals(1, migrator.getStatus().moved());
+
+        ArgumentCaptor<BackgroundJobCheckpoint> checkpoint = ArgumentCaptor.forClass(BackgroundJobCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(checkpoint.capture());
+        assertEquals(7L, checkpoint.getValue().getLastId());
+        assertNotNull(checkpoint.getValue().getCompletedAt());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws Exception {
+        BackgroundJobCheckpoint checkpoint = new BackgroundJobCheckpoint(StorageLayoutMigrator.JOB_NAME);
+        checkpoint.setStartedAt(Instant.now());
+        checkpoint.setLastId(42L);
+        when(checkpointRepository.findById(StorageLayoutMigrator.JOB_NAME)).thenReturn(Optional.of(checkpoint));
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(42L), any(Pageable.class)))
+            .thenReturn(List.of());
+
+        migrator.run();
+
+        verify(instanceRepository, never()).findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class));
+        assertNotNull(checkpoint.getCompletedAt());
+    }
+
+    @Test
+    void testFilesAlreadyInPlaceAreLeftAlone() throws Exception {
+        Path path = layout.pathFor("1.2.3", "1.2.3.4", "1.2.3.4.5");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, "dicom");
+        when(checkpointRepository.findById(StorageLayoutMigrator.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(instance(1L, path)), List.of());
+
+        migrator.run();
+
+        verify(instanceRepository, never()).updateFilePath(anyLong(), any(), any());
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void testRowChangedDuringMigrationKeepsItsFile() throws Exception {
+        Path oldFile = Files.createDirectories(tempDir.resolve("1.2.3").resolve("1.2.3.4")).resolve("1.2.3.4.5.dcm");
+        Files.writeString(oldFile, "dicom");
+        when(checkpointRepository.findById(StorageLayoutMigrator.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(instance(7L, oldFile)), List.of());
+        when(instanceRepository.updateFilePath(anyLong(), any(), any())).thenReturn(0);
+
+        migrator.run();
+
+        assertTrue(Files.exists(oldFile));
+        assertFalse(Files.exists(layout.pathFor("1.2.3", "1.2.3.4", "1.2.3.4.5")));
+        assertEquals(0, migrator.getStatus().moved());
+    }
+
+    @Test
+    void testFilesOutsideTheTiersAreLeftAlone() throws Exception {
+        Path foreign = Files.createTempFile("foreign-archive", ".dcm");
+        try {
+            when(checkpointRepository.findById(StorageLayoutMigrator.JOB_NAME)).thenReturn(Optional.empty());
+            when(instanceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(instance(1L, foreign)), List.of());
+
+            migrator.run();
+
+            verify(instanceRepository, never()).updateFilePath(anyLong(), any(), any());
+            assertTrue(Files.exists(foreign));
+        } finally {
+            Files.deleteIfExists(foreign);
+        }
+    }
+
+    @Test
+    void testOnlyOneRunAtATime() {
+        assertTrue(migrator.start());
+        assertFalse(migrator.start());
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    private static StoredInstance instance(long id, Path file) {
+        StoredInstance instance = new StoredInstance();
+        instance.setId(id);
+        instance.setStudyInstanceUid("1.2.3");
+        instance.setSeriesInstanceUid("1.2.3.4");
+        instance.setSopInstanceUid("1.2.3.4.5");
+        instance.setFilePath(file.toString());
+        return instance;
+    }
+}
@@ -0,0 +1,59 @@
+package com.dicomviewer.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageLayoutTest {
+
+    private static final String STUDY = "1.2.3";
+    private static final String SERIES = "1.2.3.4";
+    private static final String SOP = "1.2.3.4.5";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFlatAndHierarchical() {
+        StorageLayout flat = new StorageLayout("/data", "flat", false);
+        StorageLayout hierarchical = new StorageLayout("/data", "hierarchical", false);
+
+        assertEquals(Paths.get("/data", SOP + ".dcm"), flat.pathFor(STUDY, SERIES, SOP));
+        assertEquals(Paths.get("/data", STUDY, SERIES, SOP + ".dcm"), hierarchical.pathFor(STUDY, SERIES, SOP));
+    }
+
+    @Test
+    void testShardedUsesTwoLevelFanoutOnUidHash() {
+        StorageLayout sharded = new StorageLayout("/data", "SHARDED", false);
+        String hash = StorageLayout.sha256(SOP);
+
+        Path path = sharded.pathFor(STUDY, SERIES, SOP);
+
+        assertEquals(Paths.get("/data", hash.substring(0, 2), hash.substring(2, 4), SOP + ".dcm"), path);
+        assertEquals(path, sharded.pathFor("other", "other", SOP));
+    }
+
+    @Test
+    void testContentAddressedNamesFileByContent() throws Exception {
+        StorageLayout layout = new StorageLayout(tempDir.toString(), "sharded", true);
+        Path a = Files.writeString(tempDir.resolve("a.dcm"), "same bytes");
+        Path b = Files.writeString(tempDir.resolve("b.dcm"), "same bytes");
+        Path c = Files.writeString(tempDir.resolve("c.dcm"), "other bytes");
+
+        Path pathA = layout.pathFor(STUDY, SERIES, "1", a);
+
+        assertEquals(pathA, layout.pathFor(STUDY, SERIES, "2", b));
+        assertNotEquals(pathA, layout.pathFor(STUDY, SERIES, "1", c));
+        assertEquals(StorageLayout.sha256(a) + ".dcm", pathA.getFileName().toString());
+    }
+
+    @Test
+    void testContentAddressingRequiresShardedLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new StorageLayout("/data", "hierarchical", true));
+    }
+}
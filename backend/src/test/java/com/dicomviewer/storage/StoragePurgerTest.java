@@ -0,0 +1,197 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.entity.PurgeTombstone;
+import com.dicomviewer.repository.PurgeTombstoneRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StoragePurgerTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private PurgeTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private StorageTiers tiers;
+    private StoragePurger purger;
+
+    @BeforeEach
+    void setUp() {
+        StorageLayout layout = new StorageLayout(tempDir.toString(), "sharded", false);
+        tiers = new StorageTiers(layout, new String[0]);
+        purger = new StoragePurger(instanceRepository, tombstoneRepository, tiers,
+            new PackStore(instanceRepository, layout, executor), eventPublisher, transactionManager, executor);
+    }
+
+    @Test
+    void testPurgeStudyTombstonesAndDeletesRowsInBulk() {
+        when(instanceRepository.findSeriesOfStudy("1.2.3")).thenReturn(List.of("1.2.3.4"));
+
+        assertTrue(purger.purgeStudy("1.2.3"));
+
+        verify(tombstoneRepository).insertForStudy("1.2.3");
+        verify(instanceRepository).deleteByStudy("1.2.3");
+        verify(eventPublisher).publishEvent(new StudyPurgedEvent("1.2.3", List.of("1.2.3.4")));
+        verify(instanceRepository, never()).delete(any());
+    }
+
+    @Test
+    void testPurgeUnknownStudyDoesNothing() {
+        when(instanceRepository.findSeriesOfStudy("1.2.3")).thenReturn(List.of());
+
+        assertFalse(purger.purgeStudy("1.2.3"));
+
+        verifyNoInteractions(tombstoneRepository, eventPublisher);
+        verify(instanceRepository, never()).deleteByStudy(anyString());
+    }
+
+    @Test
+    void testPurgeByCriteriaRequiresACriterion() {
+        assertThrows(IllegalArgumentException.class, () -> purger.purge(null, " ", null));
+        verifyNoInteractions(instanceRepository);
+    }
+
+    @Test
+    void testPurgeByDateRangePurgesEachMatchingStudy() {
+        when(instanceRepository.findStudiesMatching(null, "20200101", "20201231")).thenReturn(List.of("1.1", "1.2"));
+        when(instanceRepository.findSeriesOfStudy("1.1")).thenReturn(List.of("1.1.1"));
+        when(instanceRepository.findSeriesOfStudy("1.2")).thenReturn(List.of("1.2.1"));
+
+        assertEquals(2, purger.purge("", "20200101", "20201231"));
+
+        verify(instanceRepository).deleteByStudy("1.1");
+        verify(instanceRepository).deleteByStudy("1.2");
+    }
+
+    @Test
+    void testReclaimDeletesUnreferencedFilesAndPrunesDirectories() throws Exception {
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        Path orphan = Files.createDirectories(tempDir.resolve("ab/cd")).resolve("orphan.dcm");
+        Path shared = Files.createDirectories(tempDir.resolve("ef/01")).resolve("shared.dcm");
+        Path pack = Files.createDirectories(tempDir.resolve("packs/12/34")).resolve("1.2.3.4-0.pack");
+        Files.writeString(orphan, "dicom");
+        Files.writeString(shared, "dicom");
+        Files.writeString(pack, "packed");
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(tombstone(1L, orphan, false), tombstone(2L, shared, false), tombstone(3L, pack, true)));
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        when(instanceRepository.countByFilePath(orphan.toString())).thenReturn(0L);
+        when(instanceRepository.countByFilePath(shared.toString())).thenReturn(1L);
+
+        assertEquals(3, purger.reclaim());
+
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(tempDir.resolve("ab")));
+        assertTrue(Files.exists(shared));
+        assertFalse(Files.exists(pack));
+        verify(tombstoneRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void testReclaimLeavesFilesRegisteredInPlace(@TempDir Path archive) throws Exception {
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        Path registered = Files.writeString(archive.resolve("legacy.dcm"), "dicom");
+        PurgeTombstone tombstone = tombstone(1L, registered, false);
+        tombstone.setStorageTier(StorageTiers.EXTERNAL);
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(tombstone));
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(1, purger.reclaim());
+
+        assertTrue(Files.exists(registered));
+        verify(tombstoneRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void testReclaimWaitsForAStoreAtTheSamePathToCommit() throws Exception {
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        Path file = Files.createDirectories(tempDir.resolve("ab/cd")).resolve("restored.dcm");
+        Files.writeString(file, "dicom");
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(tombstone(1L, file, false)));
+        when(tombstoneRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class))).thenReturn(List.of());
+        AtomicBoolean committed = new AtomicBoolean();
+        when(instanceRepository.countByFilePath(file.toString())).thenAnswer(inv -> committed.get() ? 1L : 0L);
+
+        // A re-retrieved instance moved into the path whose row has not committed yet
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread store = new Thread(() -> {
+            Lock lock = tiers.pathLock(file);
+            lock.lock();
+            try {
+                locked.countDown();
+                Thread.sleep(100);
+                committed.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        store.start();
+        locked.await();
+
+        assertEquals(1, purger.reclaim());
+        store.join();
+
+        assertTrue(Files.exists(file));
+    }
+
+    private static PurgeTombstone tombstone(long id, Path file, boolean packed) {
+        PurgeTombstone tombstone = new PurgeTombstone();
+        tombstone.setId(id);
+        tombstone.setFilePath(file.toString());
+        tombstone.setSeriesInstanceUid("1.2.3.4");
+        tombstone.setStorageTier(StorageTiers.PRIMARY);
+        tombstone.setPacked(packed);
+        tombstone.setCreatedAt(Instant.now());
+        return tombstone;
+    }
+}
@@ -0,0 +1,178 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.metrics.DicomMetrics;
+import com.dicomviewer.model.entity.BackgroundJobCheckpoint;
+import com.dicomviewer.model.entity.ScrubFinding;
+import com.dicomviewer.model.entity.ScrubFinding.Problem;
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.BackgroundJobCheckpointRepository;
+import com.dicomviewer.repository.ScrubFindingRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageScrubberTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private BackgroundJobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ScrubFindingRepository findingRepository;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry registry;
+    private StorageScrubber scrubber;
+    private StorageScrubber.Throttle unthrottled;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        StorageLayout layout = new StorageLayout(tempDir.toString(), "sharded", false);
+        scrubber = new StorageScrubber(instanceRepository, checkpointRepository, findingRepository,
+            new PackStore(instanceRepository, layout, executor), new DicomMetrics(registry), executor);
+        unthrottled = new StorageScrubber.Throttle(0);
+    }
+
+    @Test
+    void testVerifiesExistenceSizeAndChecksum() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.dcm"), "dicom");
+        String checksum = StorageLayout.sha256(file);
+
+        assertNull(scrubber.verify(instance(1L, file, 5L, checksum), unthrottled));
+        assertNull(scrubber.verify(instance(1L, file, 5L, null), unthrottled));
+        assertEquals(Problem.MISSING,
+            scrubber.verify(instance(1L, tempDir.resolve("b.dcm"), 5L, null), unthrottled).problem());
+        assertEquals(Problem.SIZE_MISMATCH, scrubber.verify(instance(1L, file, 6L, checksum), unthrottled).problem());
+        assertEquals(Problem.CHECKSUM_MISMATCH,
+            scrubber.verify(instance(1L, file, 5L, StorageLayout.sha256("other")), unthrottled).problem());
+    }
+
+    @Test
+    void testVerifiesPackRange() throws Exception {
+        Path pack = Files.writeString(tempDir.resolve("s-0.pack"), "0123456789");
+        StoredInstance packed = instance(1L, pack, 4L, StorageLayout.sha256("2345".getBytes()));
+        packed.setPackOffset(2L);
+        packed.setPackLength(4L);
+        assertNull(scrubber.verify(packed, unthrottled));
+
+        packed.setPackOffset(8L);
+        assertEquals(Problem.SIZE_MISMATCH, scrubber.verify(packed, unthrottled).problem());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunRecordsNewFindingsAndClearsResolvedOnes() throws Exception {
+        Path healthy = Files.writeString(tempDir.resolve("a.dcm"), "dicom");
+        StoredInstance ok = instance(1L, healthy, 5L, null);
+        StoredInstance missing = instance(2L, tempDir.resolve("gone.dcm"), 5L, null);
+        ScrubFinding previous = new ScrubFinding();
+        previous.setSopInstanceUid(ok.getSopInstanceUid());
+        when(checkpointRepository.findById(StorageScrubber.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(ok, missing));
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(instanceRepository.findById(2L)).thenReturn(Optional.of(missing));
+        when(findingRepository.findBySopInstanceUidIn(anyList())).thenReturn(List.of(previous));
+        when(findingRepository.count()).thenReturn(1L);
+
+        scrubber.run();
+
+        ArgumentCaptor<List<ScrubFinding>> saved = ArgumentCaptor.forClass(List.class);
+        verify(findingRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(missing.getSopInstanceUid(), saved.getValue().get(0).getSopInstanceUid());
+        assertEquals(Problem.MISSING, saved.getValue().get(0).getProblem());
+        verify(findingRepository).deleteAllInBatch(List.of(previous));
+        verify(findingRepository).deleteOrphaned();
+
+        ArgumentCaptor<BackgroundJobCheckpoint> checkpoint = ArgumentCaptor.forClass(BackgroundJobCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(checkpoint.capture());
+        assertEquals(2L, checkpoint.getValue().getLastId());
+        assertNotNull(checkpoint.getValue().getCompletedAt());
+
+        assertEquals(2, registry.get("dicom.storage.scrub.checked").counter().count());
+        assertEquals(1, registry.get("dicom.storage.scrub.errors").tag("problem", "MISSING").counter().count());
+        assertEquals(1, registry.get("dicom.storage.scrub.findings").gauge().value());
+    }
+
+    @Test
+    void testMovedOrDeletedRowsAreNotReported() throws Exception {
+        Path moved = Files.writeString(tempDir.resolve("cold.dcm"), "dicom");
+        StoredInstance stale = instance(1L, tempDir.resolve("hot.dcm"), 5L, null);
+        StoredInstance deleted = instance(2L, tempDir.resolve("purged.dcm"), 5L, null);
+        when(checkpointRepository.findById(StorageScrubber.JOB_NAME)).thenReturn(Optional.empty());
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(stale, deleted));
+        when(instanceRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(instanceRepository.findById(1L)).thenReturn(Optional.of(instance(1L, moved, 5L, null)));
+        when(instanceRepository.findById(2L)).thenReturn(Optional.empty());
+        when(findingRepository.findBySopInstanceUidIn(anyList())).thenReturn(List.of());
+
+        scrubber.run();
+
+        verify(findingRepository, never()).saveAll(anyList());
+        assertTrue(registry.find("dicom.storage.scrub.errors").counters().isEmpty());
+    }
+
+    @Test
+    void testThrottlePacesReadsBeyondTheBurst() throws Exception {
+        StorageScrubber.Throttle throttle = new StorageScrubber.Throttle(1000);
+        long start = System.nanoTime();
+
+        throttle.acquire(1000);
+        assertTrue(System.nanoTime() - start < 50_000_000L);
+        throttle.acquire(100);
+
+        assertTrue(System.nanoTime() - start >= 90_000_000L);
+    }
+
+    @Test
+    void testThrottleDoesNotBankIdleTime() throws Exception {
+        StorageScrubber.Throttle throttle = new StorageScrubber.Throttle(1000);
+        Thread.sleep(1500);
+        throttle.acquire(1000);
+        long start = System.nanoTime();
+
+        throttle.acquire(400);
+
+        assertTrue(System.nanoTime() - start >= 350_000_000L);
+    }
+
+    private static StoredInstance instance(long id, Path file, Long size, String checksum) {
+        StoredInstance instance = new StoredInstance();
+        instance.setId(id);
+        instance.setSopInstanceUid("1.2.3.4." + id);
+        instance.setFilePath(file.toString());
+        instance.setFileSize(size);
+        instance.setContentSha256(checksum);
+        return instance;
+    }
+}
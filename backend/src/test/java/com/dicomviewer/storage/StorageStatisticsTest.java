@@ -0,0 +1,113 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.StorageBreakdown;
+import com.dicomviewer.model.entity.StorageStatisticsEntry;
+import com.dicomviewer.repository.StorageStatisticsRepository;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageStatisticsTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private StorageStatisticsRepository statisticsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExecutorService executor;
+
+    private StorageStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new StorageStatistics(instanceRepository, statisticsRepository, transactionManager, executor);
+    }
+
+    @Test
+    void testDeltasUpdateTotalsAndBreakdown() {
+        statistics.apply(new StorageStatsDelta("CT", "hot", 1, 100, 1, 1));
+        statistics.apply(new StorageStatsDelta("CT", "hot", 1, 50, 0, 0));
+        statistics.apply(new StorageStatsDelta("MR", "hot", 1, 10, 1, 1));
+        statistics.apply(StorageStatsDelta.of("CT", "hot", -1, -50));
+        statistics.apply(StorageStatsDelta.of("CT", "cold", 1, 50));
+
+        StorageStatistics.Snapshot snapshot = statistics.snapshot();
+
+        assertEquals(3, snapshot.totalInstances());
+        assertEquals(160, snapshot.totalBytes());
+        assertEquals(2, snapshot.studyCount());
+        assertEquals(2, snapshot.seriesCount());
+        assertEquals(List.of(
+            new StorageBreakdown("CT", "cold", 1L, 50L),
+            new StorageBreakdown("CT", "hot", 1L, 100L),
+            new StorageBreakdown("MR", "hot", 1L, 10L)), snapshot.breakdown());
+    }
+
+    @Test
+    void testPersistedCountersAreAddedToChangesSinceStartup() {
+        StorageStatisticsEntry ct = new StorageStatisticsEntry("CT/hot");
+        ct.setModality("CT");
+        ct.setStorageTier("hot");
+        ct.setInstanceCount(10);
+        ct.setTotalBytes(1000);
+        StorageStatisticsEntry totals = new StorageStatisticsEntry(StorageStatisticsEntry.TOTALS);
+        totals.setStudyCount(2);
+        totals.setSeriesCount(4);
+        when(statisticsRepository.findAll()).thenReturn(List.of(ct, totals));
+        statistics.apply(new StorageStatsDelta("CT", "hot", 1, 100, 0, 1));
+
+        statistics.onApplicationReady();
+
+        StorageStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(11, snapshot.totalInstances());
+        assertEquals(1100, snapshot.totalBytes());
+        assertEquals(2, snapshot.studyCount());
+        assertEquals(5, snapshot.seriesCount());
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReconcileReplacesCountersAndPersists() {
+        statistics.apply(new StorageStatsDelta("CT", "hot", 7, 700, 3, 3));
+        when(instanceRepository.breakdown()).thenReturn(List.of(new StorageBreakdown("CT", "hot", 5L, 500L)));
+        when(instanceRepository.countDistinctStudies()).thenReturn(1L);
+        when(instanceRepository.countDistinctSeries()).thenReturn(2L);
+
+        statistics.reconcile();
+
+        StorageStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(5, snapshot.totalInstances());
+        assertEquals(500, snapshot.totalBytes());
+        assertEquals(1, snapshot.studyCount());
+        assertEquals(2, snapshot.seriesCount());
+
+        ArgumentCaptor<List<StorageStatisticsEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(statisticsRepository).deleteAllInBatch();
+        verify(statisticsRepository).saveAll(saved.capture());
+        assertEquals(List.of("CT/hot", StorageStatisticsEntry.TOTALS),
+            saved.getValue().stream().map(StorageStatisticsEntry::getBucket).toList());
+        assertEquals(1, saved.getValue().get(1).getStudyCount());
+
+        // Nothing changed since
+        statistics.persistIfChanged();
+        verifyNoMoreInteractions(statisticsRepository);
+    }
+}
@@ -0,0 +1,178 @@
+package com.dicomviewer.storage;
+
+import com.dicomviewer.model.entity.StoredInstance;
+import com.dicomviewer.repository.StoredInstanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TierMoverTest {
+
+    @Mock
+    private StoredInstanceRepository instanceRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    private StorageTiers tiers;
+    private TierMover mover;
+
+    @BeforeEach
+    void setUp() {
+        StorageLayout layout = new StorageLayout(tempDir.resolve("hot").toString(), "sharded", false);
+        tiers = new StorageTiers(layout, new String[] {"cold:" + tempDir.resolve("cold")});
+        mover = new TierMover(instanceRepository, tiers, eventPublisher, executor);
+    }
+
+    @Test
+    void testParsesSecondaryTiers() {
+        assertTrue(tiers.isTiered());
+        assertEquals(List.of(StorageTiers.PRIMARY, "cold"), tiers.getTiers().stream().map(StorageTiers.Tier::name).toList());
+        assertEquals(tempDir.resolve("cold"), tiers.byName("cold").root());
+        assertEquals(tiers.primary(), tiers.byName(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> new StorageTiers(new StorageLayout(tempDir.toString(), "flat", false), new String[] {"cold"}));
+    }
+
+    @Test
+    void testMoveStudyCopiesFilesAndRepointsIndex() throws Exception {
+        StorageTiers.Tier hot = tiers.primary();
+        StorageTiers.Tier cold = tiers.byName("cold");
+        Path file = Files.createDirectories(hot.root().resolve("ab/cd")).resolve("1.2.3.4.5.dcm");
+        Files.writeString(file, "dicom");
+        StoredInstance instance = instance(file.toString(), StorageTiers.PRIMARY);
+        StoredInstance packed = instance(hot.root().resolve("packs/x.pack").toString(), StorageTiers.PRIMARY);
+        packed.setPackOffset(0L);
+        packed.setPackLength(10);
+        when(instanceRepository.findByStudyInstanceUidAndStorageTier("1.2.3", StorageTiers.PRIMARY))
+            .thenReturn(List.of(instance, packed));
+        ReflectionTestUtils.setField(mover, "oldCopyRetentionMs", 0L);
+
+        assertEquals(1, mover.moveStudy("1.2.3", hot, cold));
+
+        Path moved = cold.root().resolve("ab/cd/1.2.3.4.5.dcm");
+        assertEquals("dicom", Files.readString(moved));
+        assertEquals(moved.toString(), instance.getFilePath());
+        assertEquals("cold", instance.getStorageTier());
+        assertEquals(StorageTiers.PRIMARY, packed.getStorageTier());
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(hot.root().resolve("ab")));
+        verify(instanceRepository).saveAll(List.of(instance));
+        verify(eventPublisher).publishEvent(StorageStatsDelta.of("CT", StorageTiers.PRIMARY, -1, -5));
+        verify(eventPublisher).publishEvent(StorageStatsDelta.of("CT", "cold", 1, 5));
+    }
+
+    @Test
+    void testMoveStudyKeepsOldCopyForInFlightReads() throws Exception {
+        StorageTiers.Tier hot = tiers.primary();
+        StorageTiers.Tier cold = tiers.byName("cold");
+        Path file = Files.createDirectories(cold.root().resolve("ab/cd")).resolve("1.2.3.4.5.dcm");
+        Files.writeString(file, "dicom");
+        when(instanceRepository.findByStudyInstanceUidAndStorageTier("1.2.3", "cold"))
+            .thenReturn(List.of(instance(file.toString(), "cold")));
+        ReflectionTestUtils.setField(mover, "oldCopyRetentionMs", 1L);
+
+        assertEquals(1, mover.moveStudy("1.2.3", cold, hot));
+
+        assertTrue(Files.exists(file));
+        ArgumentCaptor<Runnable> delete = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, timeout(1000)).execute(delete.capture());
+        delete.getValue().run();
+        assertFalse(Files.exists(file));
+        assertEquals("dicom", Files.readString(hot.root().resolve("ab/cd/1.2.3.4.5.dcm")));
+    }
+
+    @Test
+    void testDemotionQueriesOnlyMovableFiles() throws Exception {
+        when(instanceRepository.findMovableStudiesOnTier(eq(StorageTiers.PRIMARY),
+                eq(tiers.primary().root() + File.separator), any(Instant.class), any(Pageable.class)))
+            .thenReturn(List.of());
+
+        mover.run();
+
+        verify(instanceRepository, never()).findByStudyInstanceUidAndStorageTier(anyString(), anyString());
+    }
+
+    @Test
+    void testMoveStudyKeepsFilesWhenIndexUpdateFails() throws Exception {
+        StorageTiers.Tier hot = tiers.primary();
+        StorageTiers.Tier cold = tiers.byName("cold");
+        Path file = Files.createDirectories(hot.root().resolve("ab/cd")).resolve("1.2.3.4.5.dcm");
+        Files.writeString(file, "dicom");
+        when(instanceRepository.findByStudyInstanceUidAndStorageTier("1.2.3", StorageTiers.PRIMARY))
+            .thenReturn(List.of(instance(file.toString(), StorageTiers.PRIMARY)));
+        when(instanceRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> mover.moveStudy("1.2.3", hot, cold));
+
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(cold.root().resolve("ab/cd/1.2.3.4.5.dcm")));
+    }
+
+    @Test
+    void testAccessOnColdTierSchedulesSinglePromotion() {
+        StoredInstance instance = instance("/cold/file.dcm", "cold");
+
+        mover.recordAccess(instance);
+        mover.recordAccess(instance);
+
+        verify(executor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testAccessOnPrimaryTierIsOnlyRecorded() throws Exception {
+        mover.recordAccess(instance("/hot/file.dcm", StorageTiers.PRIMARY));
+
+        verifyNoInteractions(executor);
+        mover.run();
+        verify(instanceRepository).touchStudies(eq(List.of("1.2.3")), any(Instant.class));
+    }
+
+    @Test
+    void testAccessToRegisteredFileIsOnlyRecorded() {
+        mover.recordAccess(instance("/mnt/old-archive/file.dcm", StorageTiers.EXTERNAL));
+
+        verifyNoInteractions(executor);
+        assertNull(tiers.byName(StorageTiers.EXTERNAL));
+    }
+
+    private static StoredInstance instance(String path, String tier) {
+        StoredInstance instance = new StoredInstance();
+        instance.setStudyInstanceUid("1.2.3");
+        instance.setSeriesInstanceUid("1.2.3.4");
+        instance.setSopInstanceUid("1.2.3.4.5");
+        instance.setFilePath(path);
+        instance.setStorageTier(tier);
+        instance.setModality("CT");
+        instance.setFileSize(5L);
+        return instance;
+    }
+}
@@ -0,0 +1,166 @@
+package com.dicomviewer.testsupport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Minimal QIDO-RS / WADO-RS stand-in serving a {@link SyntheticStudyCatalog}.
+ * <p>
+ * Supported routes, relative to {@link #getBaseUrl()}:
+ * {@code /studies}, {@code /studies/{study}/series},
+ * {@code /studies/{study}/series/{series}/instances} and
+ * {@code /studies/{study}/series/{series}/instances/{instance}}.
+ */
+public final class FakeDicomWebServer implements AutoCloseable {
+
+    private static final String CONTEXT = "/dicom-web";
+
+    private final SyntheticStudyCatalog catalog;
+    private final NetworkConditions conditions;
+    private final AtomicLong instanceRequests = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeDicomWebServer(SyntheticStudyCatalog catalog, NetworkConditions conditions) {
+        this.catalog = catalog;
+        this.conditions = conditions;
+    }
+
+    public FakeDicomWebServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+        server.start();
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTEXT;
+    }
+
+    /**
+     * Number of WADO-RS instance requests served so far.
+     */
+    public long getInstanceRequestCount() {
+        return instanceRequests.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            conditions.applyLatency();
+            String[] parts = exchange.getRequestURI().getPath()
+                .substring(CONTEXT.length()).replaceAll("^/+", "").split("/");
+
+            if (parts.length == 1 && "studies".equals(parts[0])) {
+                sendJson(exchange, catalog.getStudies(), this::studyJson);
+            } else if (parts.length == 3 && "series".equals(parts[2])) {
+                sendJson(exchange, catalog.getSeries(parts[1]), this::seriesJson);
+            } else if (parts.length == 5 && "instances".equals(parts[4])) {
+                sendJson(exchange, catalog.getInstances(parts[1], parts[3]), this::instanceJson);
+            } else if (parts.length == 6 && "instances".equals(parts[4])) {
+                sendInstance(exchange, parts[5]);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    private void sendInstance(HttpExchange exchange, String sopInstanceUid) throws IOException {
+        SyntheticStudyCatalog.Instance instance = catalog.getInstance(sopInstanceUid);
+        if (instance == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        instanceRequests.incrementAndGet();
+        byte[] body = Files.readAllBytes(instance.file().toPath());
+        exchange.getResponseHeaders().set("Content-Type", "application/dicom");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = conditions.throttle(exchange.getResponseBody())) {
+            out.write(body);
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, List<SyntheticStudyCatalog.Instance> items,
+                          Function<SyntheticStudyCatalog.Instance, String> toJson) throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(toJson.apply(items.get(i)));
+        }
+        sb.append(']');
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/dicom+json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = conditions.throttle(exchange.getResponseBody())) {
+            out.write(body);
+        }
+    }
+
+    private String studyJson(SyntheticStudyCatalog.Instance i) {
+        return "{" + element("0020000D", "UI", i.studyInstanceUid())
+            + "," + element("00100020", "LO", i.patientId())
+            + "," + personName("00100010", i.patientName())
+            + "," + element("00080020", "DA", "20240115")
+            + "," + element("00080061", "CS", "CT")
+            + "," + number("00201206", catalog.countSeries(i.studyInstanceUid()))
+            + "," + number("00201208", catalog.countInstances(i.studyInstanceUid()))
+            + "}";
+    }
+
+    private String seriesJson(SyntheticStudyCatalog.Instance i) {
+        return "{" + element("0020000D", "UI", i.studyInstanceUid())
+            + "," + element("0020000E", "UI", i.seriesInstanceUid())
+            + "," + number("00200011", i.seriesNumber())
+            + "," + element("00080060", "CS", "CT")
+            + "}";
+    }
+
+    private String instanceJson(SyntheticStudyCatalog.Instance i) {
+        return "{" + element("0020000D", "UI", i.studyInstanceUid())
+            + "," + element("0020000E", "UI", i.seriesInstanceUid())
+            + "," + element("00080018", "UI", i.sopInstanceUid())
+            + "," + element("00080016", "UI", i.sopClassUid())
+            + "," + number("00200013", i.instanceNumber())
+            + "}";
+    }
+
+    private static String element(String tag, String vr, String value) {
+        return "\"" + tag + "\":{\"vr\":\"" + vr + "\",\"Value\":[\"" + escape(value) + "\"]}";
+    }
+
+    private static String number(String tag, long value) {
+        return "\"" + tag + "\":{\"vr\":\"IS\",\"Value\":[" + value + "]}";
+    }
+
+    private static String personName(String tag, String value) {
+        return "\"" + tag + "\":{\"vr\":\"PN\",\"Value\":[{\"Alphabetic\":\"" + escape(value) + "\"}]}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,371 @@
+package com.dicomviewer.testsupport;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.net.*;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.dcm4che3.net.service.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * In-process fake PACS for load and latency testing.
+ * <p>
+ * Runs a dcm4che C-ECHO / C-FIND / C-MOVE / C-STORE SCP and a {@link FakeDicomWebServer}
+ * over the same {@link SyntheticStudyCatalog}. Latency is added before every DIMSE
+ * response and HTTP response; the bandwidth cap paces WADO-RS bodies and delays each
+ * C-MOVE sub-operation by the time its file would take on the wire.
+ *
+ * <pre>{@code
+ * try (FakePacs pacs = FakePacs.builder().studies(5).instancesPerSeries(100)
+ *         .latency(Duration.ofMillis(20)).start()) {
+ *     int port = pacs.getDimsePort();
+ *     String qido = pacs.getDicomWebUrl();
+ * }
+ * }</pre>
+ */
+public final class FakePacs implements AutoCloseable {
+
+    private static final String[] QR_FIND = {
+        UID.StudyRootQueryRetrieveInformationModelFind,
+        UID.PatientRootQueryRetrieveInformationModelFind
+    };
+    private static final String[] QR_MOVE = {
+        UID.StudyRootQueryRetrieveInformationModelMove,
+        UID.PatientRootQueryRetrieveInformationModelMove
+    };
+
+    private final Builder config;
+    private final NetworkConditions conditions;
+    private final SyntheticStudyCatalog catalog;
+    private final Device device;
+    private final ApplicationEntity ae;
+    private final int port;
+    private final FakeDicomWebServer dicomWeb;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Set<String> storedInstances = ConcurrentHashMap.newKeySet();
+
+    private FakePacs(Builder config) throws IOException, GeneralSecurityException {
+        this.config = config;
+        this.conditions = config.conditions();
+        this.catalog = SyntheticStudyCatalog.generate(
+            config.studies, config.seriesPerStudy, config.instancesPerSeries, config.imageSize);
+        this.port = freePort();
+
+        device = new Device("fake-pacs");
+        device.setExecutor(executor);
+        device.setScheduledExecutor(scheduledExecutor);
+
+        Connection conn = new Connection();
+        conn.setHostname("127.0.0.1");
+        conn.setPort(port);
+        device.addConnection(conn);
+
+        ae = new ApplicationEntity(config.aeTitle);
+        ae.setAssociationAcceptor(true);
+        ae.setAssociationInitiator(true);
+        ae.addConnection(conn);
+        ae.addTransferCapability(new TransferCapability(null, "*", TransferCapability.Role.SCP, "*"));
+        device.addApplicationEntity(ae);
+
+        DicomServiceRegistry registry = new DicomServiceRegistry();
+        registry.addDicomService(new LatentEchoSCP());
+        registry.addDicomService(new CatalogFindSCP());
+        registry.addDicomService(new CatalogMoveSCP());
+        registry.addDicomService(new RecordingStoreSCP());
+        device.setDimseRQHandler(registry);
+
+        device.bindConnections();
+        dicomWeb = new FakeDicomWebServer(catalog, conditions).start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getAeTitle() {
+        return config.aeTitle;
+    }
+
+    public String getHost() {
+        return "127.0.0.1";
+    }
+
+    public int getDimsePort() {
+        return port;
+    }
+
+    /**
+     * Base URL for both QIDO-RS and WADO-RS.
+     */
+    public String getDicomWebUrl() {
+        return dicomWeb.getBaseUrl();
+    }
+
+    public SyntheticStudyCatalog getCatalog() {
+        return catalog;
+    }
+
+    public FakeDicomWebServer getDicomWebServer() {
+        return dicomWeb;
+    }
+
+    /**
+     * SOP Instance UIDs received through C-STORE.
+     */
+    public Set<String> getStoredInstances() {
+        return storedInstances;
+    }
+
+    @Override
+    public void close() throws IOException {
+        dicomWeb.close();
+        device.unbindConnections();
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+        catalog.close();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private List<SyntheticStudyCatalog.Instance> match(Attributes keys) {
+        String studyUid = keys.getString(Tag.StudyInstanceUID);
+        String seriesUid = keys.getString(Tag.SeriesInstanceUID);
+        String sopUid = keys.getString(Tag.SOPInstanceUID);
+        String patientId = keys.getString(Tag.PatientID);
+
+        List<SyntheticStudyCatalog.Instance> matches = new ArrayList<>();
+        for (SyntheticStudyCatalog.Instance instance : catalog.getInstances()) {
+            if (matches(studyUid, instance.studyInstanceUid())
+                && matches(seriesUid, instance.seriesInstanceUid())
+                && matches(sopUid, instance.sopInstanceUid())
+                && matches(patientId, instance.patientId())) {
+                matches.add(instance);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matches(String key, String value) {
+        return key == null || key.isEmpty() || "*".equals(key) || key.equals(value);
+    }
+
+    private class LatentEchoSCP extends BasicCEchoSCP {
+        @Override
+        public void onDimseRQ(Association as, PresentationContext pc, Dimse dimse,
+                              Attributes cmd, Attributes data) throws IOException {
+            conditions.applyLatency();
+            super.onDimseRQ(as, pc, dimse, cmd, data);
+        }
+    }
+
+    private class CatalogFindSCP extends BasicCFindSCP {
+        CatalogFindSCP() {
+            super(QR_FIND);
+        }
+
+        @Override
+        protected QueryTask calculateMatches(Association as, PresentationContext pc,
+                                             Attributes rq, Attributes keys) {
+            String level = keys.getString(Tag.QueryRetrieveLevel, "STUDY");
+            Map<String, SyntheticStudyCatalog.Instance> distinct = new LinkedHashMap<>();
+            for (SyntheticStudyCatalog.Instance instance : match(keys)) {
+                String key = switch (level) {
+                    case "IMAGE" -> instance.sopInstanceUid();
+                    case "SERIES" -> instance.seriesInstanceUid();
+                    default -> instance.studyInstanceUid();
+                };
+                distinct.putIfAbsent(key, instance);
+            }
+            Iterator<SyntheticStudyCatalog.Instance> results = distinct.values().iterator();
+
+            return new BasicQueryTask(as, pc, rq, keys) {
+                @Override
+                protected boolean hasMoreMatches() {
+                    return results.hasNext();
+                }
+
+                @Override
+                protected Attributes nextMatch() {
+                    conditions.applyLatency();
+                    SyntheticStudyCatalog.Instance instance = results.next();
+                    Attributes match = new Attributes(instance.toAttributes(), keys.tags());
+                    match.setString(Tag.QueryRetrieveLevel, VR.CS, level);
+                    if ("STUDY".equals(level)) {
+                        match.setString(Tag.ModalitiesInStudy, VR.CS, "CT");
+                        match.setInt(Tag.NumberOfStudyRelatedSeries, VR.IS,
+                            (int) catalog.countSeries(instance.studyInstanceUid()));
+                        match.setInt(Tag.NumberOfStudyRelatedInstances, VR.IS,
+                            (int) catalog.countInstances(instance.studyInstanceUid()));
+                    } else if ("SERIES".equals(level)) {
+                        match.setInt(Tag.NumberOfSeriesRelatedInstances, VR.IS, config.instancesPerSeries);
+                    }
+                    return match;
+                }
+            };
+        }
+    }
+
+    private class CatalogMoveSCP extends BasicCMoveSCP {
+        CatalogMoveSCP() {
+            super(QR_MOVE);
+        }
+
+        @Override
+        protected RetrieveTask calculateMatches(Association as, PresentationContext pc,
+                                                Attributes rq, Attributes keys) throws DicomServiceException {
+            conditions.applyLatency();
+            String destination = rq.getString(Tag.MoveDestination);
+            Connection remote = config.moveDestinations.get(destination);
+            if (remote == null) {
+                throw new DicomServiceException(Status.MoveDestinationUnknown,
+                    "Unknown move destination: " + destination);
+            }
+
+            List<InstanceLocator> locators = new ArrayList<>();
+            Set<String> sopClasses = new LinkedHashSet<>();
+            for (SyntheticStudyCatalog.Instance instance : match(keys)) {
+                locators.add(new InstanceLocator(instance.sopClassUid(), instance.sopInstanceUid(),
+                    UID.ExplicitVRLittleEndian, instance.file().toURI().toString()));
+                sopClasses.add(instance.sopClassUid());
+            }
+
+            AAssociateRQ aarq = new AAssociateRQ();
+            aarq.setCallingAET(as.getLocalAET());
+            aarq.setCalledAET(destination);
+            int pcid = 1;
+            for (String cuid : sopClasses) {
+                aarq.addPresentationContext(new PresentationContext(pcid, cuid,
+                    UID.ExplicitVRLittleEndian, UID.ImplicitVRLittleEndian));
+                pcid += 2;
+            }
+
+            try {
+                Association storeas = as.getApplicationEntity().connect(remote, aarq);
+                return new BasicRetrieveTask<>(Dimse.C_MOVE_RQ, as, pc, rq, locators, storeas) {
+                    @Override
+                    protected DataWriter createDataWriter(InstanceLocator inst, String tsuid) throws Exception {
+                        conditions.applyTransferTime(new File(new URI(inst.uri)).length());
+                        return super.createDataWriter(inst, tsuid);
+                    }
+                };
+            } catch (Exception e) {
+                throw new DicomServiceException(Status.UnableToPerformSubOperations, e);
+            }
+        }
+    }
+
+    private class RecordingStoreSCP extends BasicCStoreSCP {
+        RecordingStoreSCP() {
+            super("*");
+        }
+
+        @Override
+        protected void store(Association as, PresentationContext pc, Attributes rq,
+                             PDVInputStream data, Attributes rsp) throws IOException {
+            data.skipAll();
+            storedInstances.add(rq.getString(Tag.AffectedSOPInstanceUID));
+        }
+    }
+
+    /**
+     * Fake PACS configuration.
+     */
+    public static final class Builder {
+        private String aeTitle = "FAKEPACS";
+        private int studies = 3;
+        private int seriesPerStudy = 2;
+        private int instancesPerSeries = 20;
+        private int imageSize = 128;
+        private Duration latency = Duration.ZERO;
+        private long bytesPerSecond;
+        private final Map<String, Connection> moveDestinations = new LinkedHashMap<>();
+
+        public Builder aeTitle(String aeTitle) {
+            this.aeTitle = aeTitle;
+            return this;
+        }
+
+        public Builder studies(int studies) {
+            this.studies = studies;
+            return this;
+        }
+
+        public Builder seriesPerStudy(int seriesPerStudy) {
+            this.seriesPerStudy = seriesPerStudy;
+            return this;
+        }
+
+        public Builder instancesPerSeries(int instancesPerSeries) {
+            this.instancesPerSeries = instancesPerSeries;
+            return this;
+        }
+
+        /**
+         * Rows and columns of each synthetic 16-bit image.
+         */
+        public Builder imageSize(int imageSize) {
+            this.imageSize = imageSize;
+            return this;
+        }
+
+        /**
+         * Delay added before every response.
+         */
+        public Builder latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Bandwidth cap for instance transfers, in bytes per second (0 = unlimited).
+         */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * Register a C-MOVE destination AE.
+         */
+        public Builder moveDestination(String aeTitle, String host, int port) {
+            Connection conn = new Connection();
+            conn.setHostname(host);
+            conn.setPort(port);
+            moveDestinations.put(aeTitle, conn);
+            return this;
+        }
+
+        public FakePacs start() throws IOException, GeneralSecurityException {
+            return new FakePacs(this);
+        }
+
+        NetworkConditions conditions() {
+            return new NetworkConditions(latency, bytesPerSecond);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.dicomviewer.testsupport;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects request latencies from concurrent workers and summarises them.
+ */
+public final class LatencyRecorder {
+
+    private final String name;
+    private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicLong errors = new AtomicLong();
+    private long startNanos;
+    private long endNanos;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    public void record(long nanos) {
+        samples.add(nanos);
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    public Report report() {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        double elapsedSeconds = (endNanos - startNanos) / 1e9;
+        return new Report(name, sorted.length, errors.get(),
+            percentileMillis(sorted, 50), percentileMillis(sorted, 99),
+            sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+            elapsedSeconds > 0 ? sorted.length / elapsedSeconds : 0);
+    }
+
+    private static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /**
+     * Latency summary for one scenario.
+     */
+    public record Report(String name, int requests, long errors, double p50Millis,
+                         double p99Millis, double maxMillis, double throughputPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format("%-28s requests=%6d errors=%4d p50=%8.2fms p99=%8.2fms max=%8.2fms throughput=%8.1f/s",
+                name, requests, errors, p50Millis, p99Millis, maxMillis, throughputPerSecond);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dicomviewer.testsupport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+
+/**
+ * Simulated network conditions applied by the fake PACS: a fixed latency before each
+ * response and an optional bandwidth cap on transferred bytes.
+ */
+public final class NetworkConditions {
+
+    /** No added latency and unlimited bandwidth. */
+    public static final NetworkConditions NONE = new NetworkConditions(Duration.ZERO, 0);
+
+    private final Duration latency;
+    private final long bytesPerSecond;
+
+    /**
+     * @param latency        Delay applied before each response
+     * @param bytesPerSecond Bandwidth cap, or 0 for unlimited
+     */
+    public NetworkConditions(Duration latency, long bytesPerSecond) {
+        this.latency = latency;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Sleep for the configured latency.
+     */
+    public void applyLatency() {
+        sleep(latency.toMillis());
+    }
+
+    /**
+     * Sleep for the time the given number of bytes would take at the configured bandwidth.
+     */
+    public void applyTransferTime(long bytes) {
+        if (bytesPerSecond > 0) {
+            sleep(bytes * 1000L / bytesPerSecond);
+        }
+    }
+
+    /**
+     * Wrap a stream so writes are paced at the configured bandwidth.
+     */
+    public OutputStream throttle(OutputStream out) {
+        if (bytesPerSecond <= 0) {
+            return out;
+        }
+        return new FilterOutputStream(out) {
+            private static final int CHUNK = 16 * 1024;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                int written = 0;
+                while (written < len) {
+                    int n = Math.min(CHUNK, len - written);
+                    out.write(b, off + written, n);
+                    written += n;
+                    applyTransferTime(n);
+                }
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
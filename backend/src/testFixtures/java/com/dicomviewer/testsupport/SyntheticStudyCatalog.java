@@ -0,0 +1,192 @@
+package com.dicomviewer.testsupport;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A set of synthetic CT studies written to a temporary directory.
+ * UIDs are deterministic so tests can address instances without querying first.
+ */
+public final class SyntheticStudyCatalog implements AutoCloseable {
+
+    private static final String UID_ROOT = "1.2.826.0.1.3680043.10.543";
+
+    private final Path directory;
+    private final List<Instance> instances;
+    private final Map<String, Instance> bySopInstanceUid;
+
+    private SyntheticStudyCatalog(Path directory, List<Instance> instances) {
+        this.directory = directory;
+        this.instances = Collections.unmodifiableList(instances);
+        this.bySopInstanceUid = new LinkedHashMap<>();
+        for (Instance instance : instances) {
+            bySopInstanceUid.put(instance.sopInstanceUid(), instance);
+        }
+    }
+
+    /**
+     * Generate the catalog.
+     *
+     * @param studies            Number of studies
+     * @param seriesPerStudy     Series per study
+     * @param instancesPerSeries Instances per series
+     * @param imageSize          Rows and columns of each 16-bit image
+     */
+    public static SyntheticStudyCatalog generate(int studies, int seriesPerStudy,
+                                                 int instancesPerSeries, int imageSize) throws IOException {
+        Path directory = Files.createTempDirectory("fake-pacs");
+        List<Instance> instances = new ArrayList<>();
+        byte[] pixels = gradient(imageSize);
+
+        for (int st = 1; st <= studies; st++) {
+            String studyUid = UID_ROOT + "." + st;
+            for (int se = 1; se <= seriesPerStudy; se++) {
+                String seriesUid = studyUid + "." + se;
+                for (int in = 1; in <= instancesPerSeries; in++) {
+                    String sopUid = seriesUid + "." + in;
+                    File file = directory.resolve(sopUid + ".dcm").toFile();
+                    Instance instance = new Instance("FAKE" + st, "FAKE^PATIENT^" + st, studyUid,
+                        seriesUid, se, sopUid, in, file);
+                    write(instance, imageSize, pixels);
+                    instances.add(instance);
+                }
+            }
+        }
+        return new SyntheticStudyCatalog(directory, instances);
+    }
+
+    public List<Instance> getInstances() {
+        return instances;
+    }
+
+    public Instance getInstance(String sopInstanceUid) {
+        return bySopInstanceUid.get(sopInstanceUid);
+    }
+
+    /**
+     * Distinct studies, represented by their first instance.
+     */
+    public List<Instance> getStudies() {
+        return distinctBy(instances, Instance::studyInstanceUid);
+    }
+
+    /**
+     * Distinct series of a study, represented by their first instance.
+     */
+    public List<Instance> getSeries(String studyInstanceUid) {
+        return distinctBy(instances.stream()
+            .filter(i -> i.studyInstanceUid().equals(studyInstanceUid)).toList(),
+            Instance::seriesInstanceUid);
+    }
+
+    /**
+     * Instances of a series.
+     */
+    public List<Instance> getInstances(String studyInstanceUid, String seriesInstanceUid) {
+        return instances.stream()
+            .filter(i -> i.studyInstanceUid().equals(studyInstanceUid))
+            .filter(i -> seriesInstanceUid == null || i.seriesInstanceUid().equals(seriesInstanceUid))
+            .toList();
+    }
+
+    public long countInstances(String studyInstanceUid) {
+        return instances.stream().filter(i -> i.studyInstanceUid().equals(studyInstanceUid)).count();
+    }
+
+    public long countSeries(String studyInstanceUid) {
+        return getSeries(studyInstanceUid).size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static <K> List<Instance> distinctBy(List<Instance> source,
+                                                 java.util.function.Function<Instance, K> key) {
+        Map<K, Instance> first = new LinkedHashMap<>();
+        for (Instance instance : source) {
+            first.putIfAbsent(key.apply(instance), instance);
+        }
+        return new ArrayList<>(first.values());
+    }
+
+    private static byte[] gradient(int size) {
+        byte[] pixels = new byte[size * size * 2];
+        for (int i = 0; i < size * size; i++) {
+            int value = (i * 4095) / (size * size);
+            pixels[i * 2] = (byte) value;
+            pixels[i * 2 + 1] = (byte) (value >> 8);
+        }
+        return pixels;
+    }
+
+    private static void write(Instance instance, int imageSize, byte[] pixels) throws IOException {
+        Attributes fmi = Attributes.createFileMetaInformation(
+            instance.sopInstanceUid(), UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+        Attributes dataset = instance.toAttributes();
+        dataset.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2");
+        dataset.setInt(Tag.SamplesPerPixel, VR.US, 1);
+        dataset.setInt(Tag.Rows, VR.US, imageSize);
+        dataset.setInt(Tag.Columns, VR.US, imageSize);
+        dataset.setInt(Tag.BitsAllocated, VR.US, 16);
+        dataset.setInt(Tag.BitsStored, VR.US, 12);
+        dataset.setInt(Tag.HighBit, VR.US, 11);
+        dataset.setInt(Tag.PixelRepresentation, VR.US, 0);
+        dataset.setBytes(Tag.PixelData, VR.OW, pixels);
+        try (DicomOutputStream dos = new DicomOutputStream(instance.file())) {
+            dos.writeDataset(fmi, dataset);
+        }
+    }
+
+    /**
+     * One synthetic instance and its file on disk.
+     */
+    public record Instance(String patientId, String patientName, String studyInstanceUid,
+                           String seriesInstanceUid, int seriesNumber, String sopInstanceUid,
+                           int instanceNumber, File file) {
+
+        public String sopClassUid() {
+            return UID.CTImageStorage;
+        }
+
+        /**
+         * Header attributes for query responses and file content.
+         */
+        public Attributes toAttributes() {
+            Attributes attrs = new Attributes();
+            attrs.setString(Tag.SOPClassUID, VR.UI, sopClassUid());
+            attrs.setString(Tag.SOPInstanceUID, VR.UI, sopInstanceUid);
+            attrs.setString(Tag.StudyInstanceUID, VR.UI, studyInstanceUid);
+            attrs.setString(Tag.SeriesInstanceUID, VR.UI, seriesInstanceUid);
+            attrs.setString(Tag.PatientID, VR.LO, patientId);
+            attrs.setString(Tag.PatientName, VR.PN, patientName);
+            attrs.setString(Tag.StudyDate, VR.DA, "20240115");
+            attrs.setString(Tag.StudyTime, VR.TM, "101500");
+            attrs.setString(Tag.StudyDescription, VR.LO, "SYNTHETIC CT");
+            attrs.setString(Tag.AccessionNumber, VR.SH, "ACC" + patientId);
+            attrs.setString(Tag.Modality, VR.CS, "CT");
+            attrs.setInt(Tag.SeriesNumber, VR.IS, seriesNumber);
+            attrs.setString(Tag.SeriesDescription, VR.LO, "SERIES " + seriesNumber);
+            attrs.setInt(Tag.InstanceNumber, VR.IS, instanceNumber);
+            return attrs;
+        }
+    }
+}
@@ -64,6 +64,7 @@ export default function Settings() {
       port: 104,
       aeTitle: '',
       pacsType: 'LEGACY',
+      retrieveMethod: 'C_MOVE',
       wadoRsUrl: '',
       qidoRsUrl: '',
       stowRsUrl: '',
@@ -208,6 +209,25 @@ export default function Settings() {
                 </div>
               </div>
 
+              {editingPacs.pacsType === 'LEGACY' && (
+                <div>
+                  <label className="block text-sm text-gray-400 mb-1">Retrieve Method</label>
+                  <select
+                    className="w-full bg-gray-700 text-white rounded px-3 py-2 border border-gray-600"
+                    value={editingPacs.retrieveMethod ?? 'C_MOVE'}
+                    onChange={(e) =>
+                      setEditingPacs({
+                        ...editingPacs,
+                        retrieveMethod: e.target.value as 'C_MOVE' | 'C_GET',
+                      })
+                    }
+                  >
+                    <option value="C_MOVE">C-MOVE (PACS connects back to this viewer)</option>
+                    <option value="C_GET">C-GET (same association, works behind NAT)</option>
+                  </select>
+                </div>
+              )}
+
               {editingPacs.pacsType === 'DICOMWEB' && (
                 <>
                   <div>
@@ -5,6 +5,7 @@ export interface PacsConfiguration {
   port: number;
   aeTitle: string;
   pacsType: 'LEGACY' | 'DICOMWEB';
+  retrieveMethod?: 'C_MOVE' | 'C_GET';
   wadoRsUrl?: string;
   qidoRsUrl?: string;
   stowRsUrl?: string;